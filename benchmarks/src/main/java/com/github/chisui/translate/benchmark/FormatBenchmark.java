@@ -0,0 +1,95 @@
+package com.github.chisui.translate.benchmark;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.chisui.translate.Translator;
+import com.github.chisui.translate.format.Format;
+
+/**
+ * Compiling and rendering a message per call, the way {@link Translator#of(com.github.chisui.translate.lookup.MessageLookup, Format)}
+ * uses a {@link Format}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FormatBenchmark {
+
+	private static final String MESSAGE_FORMAT = "Welcome back {0}, you have {1} new messages";
+	// Format.ofFormatter() passes translated Strings so %d can not be used
+	private static final String FORMATTER = "Welcome back %s, you have %s new messages";
+
+	private final Translator translator = Translator.of((locale, hint, t) -> hint.getFallback().orElse(""));
+	private final List<?> args = Arrays.asList("Alice", 42);
+
+	private Format messageFormat;
+	private Format formatter;
+	private Format compiledMessageFormat;
+	private Format compiledFormatter;
+	private Format cachedMessageFormat;
+	private Format cachedFormatter;
+	private StringBuilder sb;
+
+	@Setup
+	public void setup() {
+		messageFormat = Format.ofMessageFormat();
+		formatter = Format.ofFormatter();
+		compiledMessageFormat = Format.ofCompiledMessageFormat();
+		compiledFormatter = Format.ofCompiledFormatter();
+		cachedMessageFormat = Format.ofCompiledMessageFormat().cached(16);
+		cachedFormatter = Format.ofCompiledFormatter().cached(16);
+		sb = new StringBuilder(256);
+	}
+
+	@Benchmark
+	public StringBuilder messageFormat() throws IOException {
+		return format(messageFormat, MESSAGE_FORMAT);
+	}
+
+	@Benchmark
+	public StringBuilder formatter() throws IOException {
+		return format(formatter, FORMATTER);
+	}
+
+	@Benchmark
+	public StringBuilder compiledMessageFormat() throws IOException {
+		return format(compiledMessageFormat, MESSAGE_FORMAT);
+	}
+
+	@Benchmark
+	public StringBuilder compiledFormatter() throws IOException {
+		return format(compiledFormatter, FORMATTER);
+	}
+
+	@Benchmark
+	public StringBuilder cachedCompiledMessageFormat() throws IOException {
+		return format(cachedMessageFormat, MESSAGE_FORMAT);
+	}
+
+	@Benchmark
+	public StringBuilder cachedCompiledFormatter() throws IOException {
+		return format(cachedFormatter, FORMATTER);
+	}
+
+	private StringBuilder format(final Format format, final String pattern) throws IOException {
+		sb.setLength(0);
+		format.toFormatable(Messages.LOCALE, pattern).format(sb, args, translator);
+		return sb;
+	}
+}
@@ -0,0 +1,93 @@
+package com.github.chisui.translate.benchmark;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.chisui.translate.lookup.KeyFilter;
+import com.github.chisui.translate.lookup.LayeredMessageSource;
+import com.github.chisui.translate.lookup.LayeredMessageSource.Tier;
+import com.github.chisui.translate.lookup.MessageSource;
+
+/**
+ * A key served by the base tier below a tenant and a product tier whose {@link ResourceBundle ResourceBundles} don't
+ * have it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LayeredMessageSourceBenchmark {
+
+	private static final String TENANT = "bench_tenant";
+	private static final String PRODUCT = "bench_product";
+
+	@Param({ "chained", "layered", "bloomFilters", "resolvedTiers" })
+	public String source;
+
+	private MessageSource messageSource;
+
+	@Setup
+	public void setup() {
+		final MessageSource tenant = MessageSource.ofResourceBundle(TENANT);
+		final MessageSource product = MessageSource.ofResourceBundle(PRODUCT);
+		final MessageSource base = MessageSource.ofResourceBundleSnapshot(Messages.BASE_NAME);
+		switch (source) {
+		case "chained":
+			messageSource = (locale, key) -> {
+				final Optional<String> message = tenant.findMessage(locale, key);
+				if (message.isPresent()) {
+					return message;
+				}
+				final Optional<String> productMessage = product.findMessage(locale, key);
+				return productMessage.isPresent() ? productMessage : base.findMessage(locale, key);
+			};
+			break;
+		case "layered":
+			messageSource = MessageSource.ofLayers(
+					Tier.of("tenant", tenant),
+					Tier.of("product", product),
+					Tier.of("base", base));
+			break;
+		case "bloomFilters":
+			messageSource = MessageSource.ofLayers(
+					Tier.of("tenant", tenant, KeyFilter.bloom(ResourceBundle.getBundle(TENANT).keySet())),
+					Tier.of("product", product, KeyFilter.bloom(ResourceBundle.getBundle(PRODUCT).keySet())),
+					Tier.of("base", base));
+			break;
+		case "resolvedTiers":
+			messageSource = new LayeredMessageSource(Arrays.asList(
+					Tier.of("tenant", tenant),
+					Tier.of("product", product),
+					Tier.of("base", base)), 1024);
+			break;
+		default:
+			throw new IllegalArgumentException(source);
+		}
+	}
+
+	@Benchmark
+	public Optional<String> baseTierHit() {
+		return messageSource.findMessage(Messages.LOCALE, "welcome");
+	}
+
+	@Benchmark
+	public Optional<String> tenantTierHit() {
+		return messageSource.findMessage(Messages.LOCALE, "plain");
+	}
+}
@@ -0,0 +1,72 @@
+package com.github.chisui.translate.benchmark;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.chisui.translate.lookup.IndexedMessageSource;
+import com.github.chisui.translate.lookup.LocaleHandle;
+import com.github.chisui.translate.lookup.LocaleRegistry;
+import com.github.chisui.translate.lookup.MessageId;
+import com.github.chisui.translate.lookup.MessageIds;
+import com.github.chisui.translate.lookup.MessageLookup;
+import com.github.chisui.translate.lookup.MessageSource;
+
+/**
+ * Looking up an {@link Enum} key by its {@link String} in a snapshot and by its {@link MessageId} in an
+ * {@link IndexedMessageSource}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageIdBenchmark {
+
+	enum Key {
+		plain, welcome, user, nested, printf, report
+	}
+
+	private MessageLookup snapshotLookup;
+	private MessageLookup indexedLookup;
+	private IndexedMessageSource indexedSource;
+	private LocaleHandle locale;
+	private int id;
+
+	@Setup
+	public void setup() {
+		final MessageSource snapshot = MessageSource.ofResourceBundleSnapshot(Messages.BASE_NAME);
+		final MessageIds ids = new MessageIds();
+		snapshotLookup = MessageLookup.of(snapshot);
+		indexedSource = new IndexedMessageSource(ids, snapshot);
+		indexedLookup = MessageLookup.ofIndexed(indexedSource);
+		locale = LocaleRegistry.getDefault().handle(Messages.LOCALE);
+		id = ids.resolve(Key.report).getId();
+	}
+
+	@Benchmark
+	public String snapshotLookup() {
+		return snapshotLookup.getMessage(Messages.LOCALE, Key.report, Optional.empty());
+	}
+
+	@Benchmark
+	public String indexedLookup() {
+		return indexedLookup.getMessage(Messages.LOCALE, Key.report, Optional.empty());
+	}
+
+	@Benchmark
+	public String indexedSource() {
+		return indexedSource.getMessage(locale, id);
+	}
+}
@@ -0,0 +1,97 @@
+package com.github.chisui.translate.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.chisui.translate.lookup.BinaryCatalogWriter;
+import com.github.chisui.translate.lookup.MessageSource;
+
+/**
+ * Lookups that hit the requested bundle, hit its parent and miss entirely.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageSourceBenchmark {
+
+	@Param({ "resourceBundle", "resourceBundleSnapshot", "binaryCatalog" })
+	public String source;
+
+	private MessageSource messageSource;
+
+	@Setup
+	public void setup() throws IOException {
+		switch (source) {
+		case "resourceBundle":
+			messageSource = MessageSource.ofResourceBundle(Messages.BASE_NAME);
+			break;
+		case "resourceBundleSnapshot":
+			messageSource = MessageSource.ofResourceBundleSnapshot(Messages.BASE_NAME);
+			break;
+		case "binaryCatalog":
+			final Path directory = Files.createTempDirectory("catalogs");
+			for (final Locale locale : new Locale[] { Locale.ROOT, Messages.LOCALE }) {
+				final String bundleName = ResourceBundle.Control
+						.getControl(ResourceBundle.Control.FORMAT_PROPERTIES)
+						.toBundleName(Messages.BASE_NAME, locale);
+				BinaryCatalogWriter.write(load(bundleName + ".properties"),
+						directory.resolve(bundleName + BinaryCatalogWriter.EXTENSION));
+			}
+			messageSource = MessageSource.ofBinaryCatalog(directory, Messages.BASE_NAME);
+			break;
+		default:
+			throw new IllegalArgumentException(source);
+		}
+	}
+
+	private static Map<String, String> load(final String resource) throws IOException {
+		final Properties properties = new Properties();
+		try (InputStream in = MessageSourceBenchmark.class.getResourceAsStream("/" + resource)) {
+			properties.load(in);
+		}
+		final Map<String, String> messages = new HashMap<>();
+		for (final String key : properties.stringPropertyNames()) {
+			messages.put(key, properties.getProperty(key));
+		}
+		return messages;
+	}
+
+	@Benchmark
+	public Optional<String> hit() {
+		return messageSource.findMessage(Messages.LOCALE, "welcome");
+	}
+
+	@Benchmark
+	public Optional<String> parentHit() {
+		return messageSource.findMessage(Messages.LOCALE, "user");
+	}
+
+	@Benchmark
+	public Optional<String> miss() {
+		return messageSource.findMessage(Messages.LOCALE, "missing");
+	}
+}
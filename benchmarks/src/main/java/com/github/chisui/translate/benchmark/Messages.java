@@ -0,0 +1,48 @@
+package com.github.chisui.translate.benchmark;
+
+import java.util.Locale;
+
+import com.github.chisui.translate.Translatable;
+import com.github.chisui.translate.TranslationHint;
+import com.github.chisui.translate.Translator;
+import com.github.chisui.translate.format.Format;
+import com.github.chisui.translate.lookup.MessageSource;
+
+/**
+ * Shared fixtures of the benchmarks.
+ */
+final class Messages {
+
+	static final String BASE_NAME = "bench_messages";
+	static final Locale LOCALE = Locale.GERMAN;
+
+	private Messages() {
+	}
+
+	static Translator translator(final Format format) {
+		return Translator.of(() -> LOCALE, MessageSource.ofResourceBundle(BASE_NAME), format);
+	}
+
+	static TranslationHint welcome() {
+		return TranslationHint.of("welcome", "Alice", 42);
+	}
+
+	/**
+	 * Argument that is translated itself.
+	 */
+	static final class User implements Translatable {
+
+		private final String first;
+		private final String last;
+
+		User(final String first, final String last) {
+			this.first = first;
+			this.last = last;
+		}
+
+		@Override
+		public TranslationHint getTranslationHint() {
+			return TranslationHint.of("user", first, last);
+		}
+	}
+}
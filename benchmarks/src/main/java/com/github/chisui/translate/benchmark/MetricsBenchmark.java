@@ -0,0 +1,74 @@
+package com.github.chisui.translate.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.chisui.translate.TranslationHint;
+import com.github.chisui.translate.Translator;
+import com.github.chisui.translate.format.Format;
+import com.github.chisui.translate.lookup.MessageLookup;
+import com.github.chisui.translate.lookup.MessageSource;
+import com.github.chisui.translate.metrics.TranslationMetrics;
+
+/**
+ * Overhead of {@link TranslationMetrics} instrumenting the {@link Translator}, {@link MessageLookup} and
+ * {@link Format} of a translation. <code>translator</code> only instruments the {@link Translator},
+ * <code>sampled</code> records latencies of every 16th call and <code>counting</code> records no latencies.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MetricsBenchmark {
+
+	@Param({ "disabled", "translator", "all", "sampled", "counting" })
+	private String metrics;
+
+	private Translator translator;
+	private TranslationHint welcome;
+
+	@Setup
+	public void setup() {
+		final TranslationMetrics translationMetrics = create();
+		final TranslationMetrics componentMetrics = "disabled".equals(metrics) || "translator".equals(metrics)
+				? TranslationMetrics.disabled()
+				: translationMetrics;
+		translator = translationMetrics.instrument(Translator.of(
+				() -> Messages.LOCALE,
+				componentMetrics.instrument(MessageLookup.of(
+						MessageSource.ofResourceBundleSnapshot(Messages.BASE_NAME))),
+				componentMetrics.instrument(Format.ofCompiledMessageFormat().cached(1024))));
+		welcome = Messages.welcome();
+	}
+
+	private TranslationMetrics create() {
+		switch (metrics) {
+		case "disabled":
+			return TranslationMetrics.disabled();
+		case "sampled":
+			return TranslationMetrics.create(1000, 16);
+		case "counting":
+			return TranslationMetrics.counting();
+		default:
+			return TranslationMetrics.create();
+		}
+	}
+
+	@Benchmark
+	public String translate() {
+		return translator.translate(welcome);
+	}
+}
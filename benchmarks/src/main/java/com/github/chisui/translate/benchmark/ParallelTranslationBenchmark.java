@@ -0,0 +1,93 @@
+package com.github.chisui.translate.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.chisui.translate.TranslationHint;
+import com.github.chisui.translate.Translator;
+import com.github.chisui.translate.format.Format;
+import com.github.chisui.translate.lookup.MessageSource;
+
+/**
+ * Scaling of translating an export of {@value #ROWS} rows across 1 to 32 threads, once as a parallel
+ * {@link java.util.stream.Stream} running in a {@link ForkJoinPool} and once through an {@link ExecutorService}.
+ * Results are reported per row.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelTranslationBenchmark {
+
+	private static final int ROWS = 10_000;
+
+	@Param({ "1", "2", "4", "8", "16", "32" })
+	private int parallelism;
+
+	private Translator translator;
+	private List<TranslationHint> rows;
+	private ForkJoinPool forkJoinPool;
+	private ExecutorService executor;
+
+	@Setup
+	public void setup() {
+		translator = Translator.of(
+				() -> Messages.LOCALE,
+				MessageSource.ofResourceBundleSnapshot(Messages.BASE_NAME),
+				Format.ofCompiledMessageFormat().cached(1024));
+		rows = new ArrayList<>(ROWS);
+		for (int i = 0; i < ROWS; i++) {
+			rows.add(TranslationHint.of("nested",
+					new Messages.User("Alice", String.valueOf(i)),
+					new Messages.User("Bob", String.valueOf(ROWS - i))));
+		}
+		forkJoinPool = new ForkJoinPool(parallelism);
+		executor = Executors.newFixedThreadPool(parallelism);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		forkJoinPool.shutdown();
+		executor.shutdown();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public List<String> parallelStream() {
+		return forkJoinPool
+				.submit(() -> translator
+						.translateAll(Messages.LOCALE, rows.parallelStream())
+						.collect(Collectors.toList()))
+				.join();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public List<String> executor() {
+		return translator
+				.translateAll(Messages.LOCALE, rows.stream(), executor, 4 * parallelism)
+				.collect(Collectors.toList());
+	}
+}
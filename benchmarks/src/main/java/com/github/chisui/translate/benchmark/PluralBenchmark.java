@@ -0,0 +1,83 @@
+package com.github.chisui.translate.benchmark;
+
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.chisui.translate.Translator;
+import com.github.chisui.translate.format.Format;
+import com.github.chisui.translate.format.PluralRules;
+
+/**
+ * Pluralized messages using <code>choice</code> and <code>plural</code> and selecting a plural category alone.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PluralBenchmark {
+
+	private static final String CHOICE = "{0} has {1,choice,0#no files|1#one file|1<{1,number,integer} files}";
+	private static final String PLURAL = "{0} has {1,plural,=0{no files}one{one file}other{# files}}";
+
+	private final Translator translator = Translator.of((locale, hint, t) -> hint.getFallback().orElse(""));
+	private final List<?> args = Arrays.asList("Alice", 42);
+
+	private MessageFormat messageFormat;
+	private Object[] argArray;
+	private Format cachedCompiledMessageFormat;
+	private PluralRules russian;
+	private StringBuilder sb;
+	private long count;
+
+	@Setup
+	public void setup() {
+		messageFormat = new MessageFormat(CHOICE, Locale.ENGLISH);
+		argArray = args.toArray();
+		cachedCompiledMessageFormat = Format.ofCompiledMessageFormat().cached(16);
+		russian = PluralRules.forLocale(new Locale("ru"));
+		sb = new StringBuilder(256);
+	}
+
+	@Benchmark
+	public StringBuffer messageFormatChoice() {
+		return messageFormat.format(argArray, new StringBuffer(), null);
+	}
+
+	@Benchmark
+	public StringBuilder cachedCompiledChoice() throws IOException {
+		return format(cachedCompiledMessageFormat, CHOICE);
+	}
+
+	@Benchmark
+	public StringBuilder cachedCompiledPlural() throws IOException {
+		return format(cachedCompiledMessageFormat, PLURAL);
+	}
+
+	@Benchmark
+	public PluralRules.Category selectCategory() {
+		return russian.select(count++ & 0xffff);
+	}
+
+	private StringBuilder format(final Format format, final String pattern) throws IOException {
+		sb.setLength(0);
+		format.toFormatable(Locale.ENGLISH, pattern).format(sb, args, translator);
+		return sb;
+	}
+}
@@ -0,0 +1,70 @@
+package com.github.chisui.translate.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.chisui.translate.ScratchBuffers;
+import com.github.chisui.translate.TranslationHint;
+import com.github.chisui.translate.Translator;
+import com.github.chisui.translate.format.Format;
+import com.github.chisui.translate.lookup.MessageLookup;
+import com.github.chisui.translate.lookup.MessageSource;
+
+/**
+ * Allocations of translating into {@link String} with and without reusing {@link ScratchBuffers}. With reuse
+ * <code>gc.alloc.rate.norm</code> should be close to the size of the resulting {@link String}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ScratchBuffersBenchmark {
+
+	@Param({ "none", "threadLocal", "pooled" })
+	private String scratchBuffers;
+
+	private Translator translator;
+	private TranslationHint report;
+
+	@Setup
+	public void setup() {
+		final ScratchBuffers buffers;
+		switch (scratchBuffers) {
+		case "none":
+			buffers = ScratchBuffers.none();
+			break;
+		case "threadLocal":
+			buffers = ScratchBuffers.threadLocal();
+			break;
+		case "pooled":
+			buffers = ScratchBuffers.pooled();
+			break;
+		default:
+			throw new IllegalArgumentException(scratchBuffers);
+		}
+		translator = new Translator.MessageLookupTranslator(
+				() -> Messages.LOCALE,
+				MessageLookup.of(MessageSource.ofResourceBundleSnapshot(Messages.BASE_NAME)),
+				Format.ofCompiledMessageFormat().cached(1024),
+				buffers);
+		report = TranslationHint.of("report", "Alice", "12", "3", "87", "5");
+	}
+
+	@Benchmark
+	public String translate() {
+		return translator.translate(report);
+	}
+}
@@ -0,0 +1,108 @@
+package com.github.chisui.translate.benchmark;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.chisui.translate.TranslationHint;
+import com.github.chisui.translate.Translator;
+import com.github.chisui.translate.format.Format;
+import com.github.chisui.translate.lookup.MessageLookup;
+import com.github.chisui.translate.lookup.MessageSource;
+
+/**
+ * Whole pipeline: lookup, format and argument translation through both {@link Translator} implementations and
+ * into both output types.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TranslatorBenchmark {
+
+	private Translator appendableFirst;
+	private Translator stringFirst;
+	private TranslationHint welcome;
+	private TranslationHint nested;
+	private StringBuilder sb;
+	private ByteBuffer buffer;
+
+	@Setup
+	public void setup() {
+		final MessageLookup lookup = MessageLookup.of(MessageSource.ofResourceBundle(Messages.BASE_NAME));
+		final Format format = Format.ofMessageFormat();
+		appendableFirst = Translator.of(() -> Messages.LOCALE, lookup, format);
+		stringFirst = Translator.of(() -> Messages.LOCALE, (locale, hint, translator) -> {
+			final StringBuilder message = new StringBuilder();
+			try {
+				format.toFormatable(locale, lookup.getMessage(locale, hint.getKey(), hint.getFallback()))
+						.format(message, hint.getArguments(), translator);
+			} catch (final IOException e) {
+				throw new AssertionError(e);
+			}
+			return message.toString();
+		});
+		welcome = Messages.welcome();
+		nested = TranslationHint.of("nested", new Messages.User("Alice", "Smith"), new Messages.User("Bob", "Jones"));
+		sb = new StringBuilder(256);
+		buffer = ByteBuffer.allocate(1024);
+	}
+
+	@Benchmark
+	public String appendableFirstToString() {
+		return appendableFirst.translate(welcome);
+	}
+
+	@Benchmark
+	public String stringFirstToString() {
+		return stringFirst.translate(welcome);
+	}
+
+	@Benchmark
+	public StringBuilder appendableFirstToAppendable() {
+		sb.setLength(0);
+		return appendableFirst.translate(sb, welcome);
+	}
+
+	@Benchmark
+	public StringBuilder stringFirstToAppendable() {
+		sb.setLength(0);
+		return stringFirst.translate(sb, welcome);
+	}
+
+	@Benchmark
+	public byte[] stringThenUtf8() {
+		return appendableFirst.translate(welcome).getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public ByteBuffer appendableFirstToUtf8() {
+		buffer.clear();
+		return appendableFirst.translateUtf8(buffer, Messages.LOCALE, welcome);
+	}
+
+	@Benchmark
+	public String nestedTranslatables() {
+		return appendableFirst.translate(nested);
+	}
+
+	@Benchmark
+	public StringBuilder nestedTranslatablesToAppendable() {
+		sb.setLength(0);
+		return appendableFirst.translate(sb, nested);
+	}
+}
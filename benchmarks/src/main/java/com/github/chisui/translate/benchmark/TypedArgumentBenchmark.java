@@ -0,0 +1,98 @@
+package com.github.chisui.translate.benchmark;
+
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.chisui.translate.Translator;
+import com.github.chisui.translate.format.Format;
+
+/**
+ * Messages with <code>number</code> and <code>date</code> arguments, which need formatters that are expensive to
+ * create and not thread safe.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TypedArgumentBenchmark {
+
+	private static final String PATTERN = "{0,number,integer} files on {1,date,short}, {2,number,percent} done";
+
+	private final Translator translator = Translator.of((locale, hint, t) -> hint.getFallback().orElse(""));
+	private final List<?> args = Arrays.asList(1234, new Date(1500000000000L), 0.75);
+	private final List<?> javaTimeArgs = Arrays.asList(1234, LocalDate.of(2017, 7, 14), 0.75);
+
+	private MessageFormat messageFormat;
+	private Object[] argArray;
+	private Format ofMessageFormat;
+	private Format compiledMessageFormat;
+	private Format cachedCompiledMessageFormat;
+	private StringBuilder sb;
+
+	@Setup
+	public void setup() {
+		messageFormat = new MessageFormat(PATTERN, Locale.ENGLISH);
+		argArray = args.toArray();
+		ofMessageFormat = Format.ofMessageFormat();
+		compiledMessageFormat = Format.ofCompiledMessageFormat();
+		cachedCompiledMessageFormat = Format.ofCompiledMessageFormat().cached(16);
+		sb = new StringBuilder(256);
+	}
+
+	/**
+	 * Cloning the {@link MessageFormat} and its subformats for every message to be thread safe.
+	 */
+	@Benchmark
+	public String clonedMessageFormat() {
+		return ((MessageFormat) messageFormat.clone()).format(argArray);
+	}
+
+	/**
+	 * {@link Format#ofMessageFormat()} creating the {@link com.github.chisui.translate.format.Formatable} for every
+	 * message, like a {@link Translator} without a cached {@link Format} does.
+	 */
+	@Benchmark
+	public StringBuilder ofMessageFormat() throws IOException {
+		return format(ofMessageFormat, args);
+	}
+
+	@Benchmark
+	public StringBuilder compiledMessageFormat() throws IOException {
+		return format(compiledMessageFormat, args);
+	}
+
+	@Benchmark
+	public StringBuilder cachedCompiledMessageFormat() throws IOException {
+		return format(cachedCompiledMessageFormat, args);
+	}
+
+	@Benchmark
+	public StringBuilder cachedCompiledMessageFormatJavaTime() throws IOException {
+		return format(cachedCompiledMessageFormat, javaTimeArgs);
+	}
+
+	private StringBuilder format(final Format format, final List<?> args) throws IOException {
+		sb.setLength(0);
+		format.toFormatable(Locale.ENGLISH, PATTERN).format(sb, args, translator);
+		return sb;
+	}
+}
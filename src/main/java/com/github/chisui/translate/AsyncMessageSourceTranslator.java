@@ -0,0 +1,191 @@
+package com.github.chisui.translate;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.github.chisui.translate.format.Format;
+import com.github.chisui.translate.lookup.AsyncMessageSource;
+import com.github.chisui.translate.lookup.KeyCodec;
+import com.github.chisui.translate.lookup.MessageLookup;
+import com.github.chisui.translate.lookup.MessageSource;
+
+/**
+ * {@link Translator} looking messages up in an {@link AsyncMessageSource}.
+ * {@link #translateAsync(Locale, TranslationHint)} does not block while messages are loaded.
+ * <p>
+ * The messages of a hint and of the {@link TranslationHint TranslationHints} among its arguments are requested in a
+ * single {@link AsyncMessageSource#findMessagesAsync(Locale, java.util.Collection)} call. Keys that only turn up
+ * while formatting, like plain arguments the {@link Format} translates, are requested in a further call before the
+ * hint is translated again.
+ * <p>
+ * {@link #translate(Locale, TranslationHint)} waits for the asynchronous translation.
+ */
+public class AsyncMessageSourceTranslator extends Translator.AbstractTranslator {
+
+	private final AsyncMessageSource messageSource;
+	private final Format format;
+	private final Function<Object, String> toString;
+	private final Function<String, String> globalFallback;
+
+	public AsyncMessageSourceTranslator(
+			final Supplier<Locale> getDefaultLocale,
+			final AsyncMessageSource messageSource,
+			final Format format) {
+		this(getDefaultLocale, messageSource, format, KeyCodec.ofStringValueOf(), key -> "???" + key + "???");
+	}
+
+	/**
+	 * @param getDefaultLocale supplies the {@link Locale} of translations without an explicit {@link Locale}
+	 * @param messageSource to look messages up in
+	 * @param format of the messages
+	 * @param toString converts keys to {@link String Strings}
+	 * @param globalFallback creates a message from the key if there is neither a message nor a fallback
+	 */
+	public AsyncMessageSourceTranslator(
+			final Supplier<Locale> getDefaultLocale,
+			final AsyncMessageSource messageSource,
+			final Format format,
+			final Function<Object, String> toString,
+			final Function<String, String> globalFallback) {
+		super(getDefaultLocale);
+		this.messageSource = requireNonNull(messageSource, "messageSource may not be null");
+		this.format = requireNonNull(format, "format may not be null");
+		this.toString = KeyCodec.of(requireNonNull(toString, "toString may not be null"));
+		this.globalFallback = requireNonNull(globalFallback, "globalFallback may not be null");
+	}
+
+	@Override
+	public CompletionStage<String> translateAsync(final Locale locale, final TranslationHint hint) {
+		requireNonNull(locale, "locale may not be null");
+		final Messages messages = new Messages();
+		messages.request(locale, requireNonNull(hint, "hint may not be null"));
+		return translate(messages, locale, hint);
+	}
+
+	private CompletionStage<String> translate(final Messages messages, final Locale locale, final TranslationHint hint) {
+		if (!messages.hasMissing()) {
+			final CompletableFuture<String> translation = new CompletableFuture<>();
+			try {
+				translation.complete(Translator
+						.of(getDefaultLocale, MessageLookup.of(toString, messages, globalFallback), format)
+						.translate(locale, hint));
+			} catch (RuntimeException e) {
+				translation.completeExceptionally(e);
+			}
+			// otherwise the translation used keys that were not loaded yet and is discarded
+			if (!messages.hasMissing()) {
+				return translation;
+			}
+		}
+		return messages.loadMissing().thenCompose(loaded -> translate(messages, locale, hint));
+	}
+
+	/**
+	 * Waits for {@link #translateAsync(Locale, TranslationHint)}.
+	 */
+	@Override
+	public String translate(final Locale locale, final TranslationHint hint) {
+		try {
+			return translateAsync(locale, hint).toCompletableFuture().join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			} else if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	@Override
+	public <A extends Appendable> A translate(final A appendable, final Locale locale, final TranslationHint hint)
+			throws IOException {
+		appendable.append(translate(locale, hint));
+		return appendable;
+	}
+
+	public AsyncMessageSource getMessageSource() {
+		return messageSource;
+	}
+
+	@Override
+	public String toString() {
+		return "AsyncMessageSourceTranslator [messageSource=" + messageSource + ", format=" + format + "]";
+	}
+
+	/**
+	 * Messages loaded for a single translation. Used by one thread at a time, every step of a translation happens
+	 * after the previous one completed.
+	 */
+	private final class Messages implements MessageSource {
+
+		private final Map<Locale, Map<String, Optional<String>>> loaded = new HashMap<>();
+		private final Map<Locale, Set<String>> missing = new LinkedHashMap<>();
+
+		void request(final Locale locale, final TranslationHint hint) {
+			findMessage(locale, toString.apply(hint.getKey()));
+			for (final Object arg : hint.getArguments()) {
+				if (arg instanceof TranslationHint) {
+					request(locale, (TranslationHint) arg);
+				} else if (arg instanceof Translatable) {
+					request(locale, ((Translatable) arg).getTranslationHint());
+				}
+			}
+		}
+
+		/**
+		 * @return the message if it was loaded, otherwise the key is remembered as missing
+		 */
+		@Override
+		public Optional<String> findMessage(final Locale locale, final String key) {
+			final Map<String, Optional<String>> messages = loaded.get(locale);
+			final Optional<String> message = messages != null ? messages.get(key) : null;
+			if (message == null) {
+				missing.computeIfAbsent(locale, l -> new LinkedHashSet<>()).add(key);
+				return Optional.empty();
+			}
+			return message;
+		}
+
+		boolean hasMissing() {
+			return !missing.isEmpty();
+		}
+
+		CompletableFuture<Void> loadMissing() {
+			final List<Locale> locales = new ArrayList<>(missing.keySet());
+			final List<Set<String>> keys = new ArrayList<>(missing.values());
+			missing.clear();
+			final List<CompletableFuture<Map<String, String>>> lookups = new ArrayList<>(locales.size());
+			for (int i = 0; i < locales.size(); i++) {
+				lookups.add(messageSource.findMessagesAsync(locales.get(i), keys.get(i)).toCompletableFuture());
+			}
+			return CompletableFuture
+					.allOf(lookups.toArray(new CompletableFuture<?>[lookups.size()]))
+					.thenRun(() -> {
+						for (int i = 0; i < locales.size(); i++) {
+							final Map<String, String> found = lookups.get(i).join();
+							final Map<String, Optional<String>> messages =
+									loaded.computeIfAbsent(locales.get(i), l -> new HashMap<>());
+							for (final String key : keys.get(i)) {
+								messages.put(key, Optional.ofNullable(found.get(key)));
+							}
+						}
+					});
+		}
+	}
+}
@@ -0,0 +1,552 @@
+package com.github.chisui.translate;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import com.github.chisui.translate.TranslationHint.AbstractTranslationHint;
+
+/**
+ * {@link Translator} that caches the translations of another {@link Translator} per {@link Locale} and
+ * {@link TranslationHint}.
+ * <p>
+ * Cached translations are bounded by their total number of chars. Entries are admitted and evicted using the
+ * W-TinyLFU policy: new translations enter a small LRU window, translations leaving the window only replace an
+ * entry of the main segmented LRU if a count-min sketch estimates them to be used more frequently. One-off
+ * translations therefore do not push out frequently used ones.
+ * <p>
+ * Hints are compared using {@link Object#equals(Object)}, so only hints with value semantics can be cached. The
+ * cacheability predicate decides which hints are cached, all others are passed to the underlying
+ * {@link Translator}. The default predicate {@link #isValueHint(TranslationHint)} accepts hints whose key and
+ * arguments are immutable values.
+ * <p>
+ * Lookups of cached translations are lock free. Access order is recorded in a lossy buffer and applied together
+ * with insertions under a lock.
+ */
+public class CachingTranslator extends Translator.AbstractTranslator {
+
+	private static final int READ_BUFFER_SIZE = 128;
+	private static final int READ_BUFFER_DRAIN_THRESHOLD = READ_BUFFER_SIZE / 4;
+
+	private final Translator translator;
+	private final long maximumWeight;
+	private final Predicate<? super TranslationHint> cacheable;
+
+	private final ConcurrentHashMap<CacheKey, Node> cache = new ConcurrentHashMap<>();
+	private final ReentrantLock evictionLock = new ReentrantLock();
+	private final AtomicReferenceArray<Node> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+	private final AtomicLong readBufferWrites = new AtomicLong();
+
+	// guarded by evictionLock
+	private final FrequencySketch sketch;
+	private final AccessOrderDeque window = new AccessOrderDeque();
+	private final AccessOrderDeque probation = new AccessOrderDeque();
+	private final AccessOrderDeque protectedSegment = new AccessOrderDeque();
+	private final long maximumWindowWeight;
+	private final long maximumProtectedWeight;
+	private volatile long readBufferDrained;
+	private volatile long weightedSize;
+	private volatile long invalidations;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder bypasses = new LongAdder();
+
+	/**
+	 * @param getDefaultLocale supplies the {@link Locale} of translations without an explicit {@link Locale}
+	 * @param translator to cache the translations of
+	 * @param maximumWeight maximum total number of chars of cached translations
+	 * @param cacheable decides which {@link TranslationHint TranslationHints} are cached
+	 */
+	public CachingTranslator(
+			final Supplier<Locale> getDefaultLocale,
+			final Translator translator,
+			final long maximumWeight,
+			final Predicate<? super TranslationHint> cacheable) {
+		super(getDefaultLocale);
+		this.translator = requireNonNull(translator, "translator may not be null");
+		this.cacheable = requireNonNull(cacheable, "cacheable may not be null");
+		if (maximumWeight <= 0) {
+			throw new IllegalArgumentException("maximumWeight has to be positive but was " + maximumWeight);
+		}
+		this.maximumWeight = maximumWeight;
+		this.maximumWindowWeight = Math.max(1, maximumWeight / 100);
+		this.maximumProtectedWeight = (maximumWeight - maximumWindowWeight) * 4 / 5;
+		// assumes translations of 16 chars on average to size the sketch
+		this.sketch = new FrequencySketch(maximumWeight / 16);
+	}
+
+	/**
+	 * Accepts {@link TranslationHint TranslationHints} that implement {@link AbstractTranslationHint} and whose key
+	 * and arguments are {@link String Strings}, boxed primitives, {@link BigInteger BigIntegers},
+	 * {@link BigDecimal BigDecimals}, {@link Enum Enums}, {@link Class Classes}, {@link Locale Locales} or nested
+	 * {@link TranslationHint TranslationHints} accepted by this method.
+	 *
+	 * @param hint to check
+	 * @return <code>true</code> if the hint has value semantics
+	 */
+	public static boolean isValueHint(final TranslationHint hint) {
+		if (!(hint instanceof AbstractTranslationHint) || !isValue(hint.getKey())) {
+			return false;
+		}
+		final List<?> args = hint.getArguments();
+		for (int i = 0; i < args.size(); i++) {
+			if (!isValue(args.get(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isValue(final Object obj) {
+		return obj instanceof String
+			|| obj instanceof Integer
+			|| obj instanceof Long
+			|| obj instanceof Enum
+			|| obj instanceof Boolean
+			|| obj instanceof Character
+			|| obj instanceof Short
+			|| obj instanceof Byte
+			|| obj instanceof Double
+			|| obj instanceof Float
+			|| obj instanceof Class
+			|| obj instanceof Locale
+			|| obj != null && (obj.getClass() == BigDecimal.class || obj.getClass() == BigInteger.class)
+			|| obj instanceof TranslationHint && isValueHint((TranslationHint) obj);
+	}
+
+	@Override
+	public String translate(final Locale locale, final TranslationHint hint) {
+		if (!cacheable.test(hint)) {
+			bypasses.increment();
+			return translator.translate(locale, hint);
+		}
+		final CacheKey key = new CacheKey(locale, hint);
+		final Node node = cache.get(key);
+		if (node != null) {
+			hits.increment();
+			recordRead(node);
+			return node.value;
+		}
+		misses.increment();
+		// a translation of the catalog before invalidateAll() must not be cached afterwards
+		final long stamp = invalidations;
+		final String value = translator.translate(locale, hint);
+		put(key, value, stamp);
+		return value;
+	}
+
+	@Override
+	public <A extends Appendable> A translate(final A appendable, final Locale locale, final TranslationHint hint)
+			throws IOException {
+		if (!cacheable.test(hint)) {
+			bypasses.increment();
+			return translator.translate(appendable, locale, hint);
+		}
+		appendable.append(translate(locale, hint));
+		return appendable;
+	}
+
+	private void recordRead(final Node node) {
+		final long writes = readBufferWrites.getAndIncrement();
+		// lossy, a concurrent write may replace the node before it is drained
+		readBuffer.lazySet((int) (writes & (READ_BUFFER_SIZE - 1)), node);
+		if (writes - readBufferDrained >= READ_BUFFER_DRAIN_THRESHOLD && evictionLock.tryLock()) {
+			try {
+				drainReadBuffer();
+			} finally {
+				evictionLock.unlock();
+			}
+		}
+	}
+
+	private void put(final CacheKey key, final String value, final long stamp) {
+		final int weight = Math.max(1, value.length());
+		if (weight > maximumWeight) {
+			return;
+		}
+		final Node node = new Node(key, value, weight);
+		evictionLock.lock();
+		try {
+			drainReadBuffer();
+			if (invalidations != stamp || cache.putIfAbsent(key, node) != null) {
+				return;
+			}
+			sketch.increment(key.hashCode());
+			window.addLast(node);
+			node.segment = Node.WINDOW;
+			window.weight += weight;
+			weightedSize += weight;
+			evict();
+		} finally {
+			evictionLock.unlock();
+		}
+	}
+
+	private void drainReadBuffer() {
+		for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+			final Node node = readBuffer.getAndSet(i, null);
+			if (node != null) {
+				onAccess(node);
+			}
+		}
+		readBufferDrained = readBufferWrites.get();
+	}
+
+	private void onAccess(final Node node) {
+		sketch.increment(node.key.hashCode());
+		switch (node.segment) {
+		case Node.WINDOW:
+			window.moveToLast(node);
+			break;
+		case Node.PROBATION:
+			probation.remove(node);
+			probation.weight -= node.weight;
+			protectedSegment.addLast(node);
+			protectedSegment.weight += node.weight;
+			node.segment = Node.PROTECTED;
+			while (protectedSegment.weight > maximumProtectedWeight) {
+				final Node demoted = protectedSegment.first;
+				protectedSegment.remove(demoted);
+				protectedSegment.weight -= demoted.weight;
+				probation.addLast(demoted);
+				probation.weight += demoted.weight;
+				demoted.segment = Node.PROBATION;
+			}
+			break;
+		case Node.PROTECTED:
+			protectedSegment.moveToLast(node);
+			break;
+		default:
+			// evicted in the meantime
+		}
+	}
+
+	private void evict() {
+		// translations leaving the window become candidates at the end of the probation segment
+		Node candidates = null;
+		while (window.weight > maximumWindowWeight) {
+			final Node node = window.first;
+			window.remove(node);
+			window.weight -= node.weight;
+			probation.addLast(node);
+			probation.weight += node.weight;
+			node.segment = Node.PROBATION;
+			if (candidates == null) {
+				candidates = node;
+			}
+		}
+		while (weightedSize > maximumWeight) {
+			Node victim = probation.first;
+			if (victim == null) {
+				victim = protectedSegment.first != null ? protectedSegment.first : window.first;
+				remove(victim);
+				continue;
+			}
+			final Node candidate = candidates != null && candidates.segment == Node.PROBATION
+					? candidates
+					: null;
+			if (candidate == null || candidate == victim) {
+				if (candidate == victim) {
+					candidates = victim.next;
+				}
+				remove(victim);
+			} else if (sketch.frequency(candidate.key.hashCode()) > sketch.frequency(victim.key.hashCode())) {
+				remove(victim);
+			} else {
+				candidates = candidate.next;
+				remove(candidate);
+			}
+		}
+	}
+
+	private void remove(final Node node) {
+		final AccessOrderDeque deque = node.segment == Node.WINDOW
+				? window
+				: node.segment == Node.PROBATION ? probation : protectedSegment;
+		deque.remove(node);
+		deque.weight -= node.weight;
+		node.segment = Node.REMOVED;
+		weightedSize -= node.weight;
+		cache.remove(node.key, node);
+		evictions.increment();
+	}
+
+	/**
+	 * Removes all cached translations. Translations that are computed while the cache is invalidated are not
+	 * cached.
+	 */
+	public void invalidateAll() {
+		evictionLock.lock();
+		try {
+			invalidations++;
+			for (final AccessOrderDeque deque : new AccessOrderDeque[] { window, probation, protectedSegment }) {
+				for (Node node = deque.first; node != null; node = deque.first) {
+					deque.remove(node);
+					node.segment = Node.REMOVED;
+				}
+				deque.weight = 0;
+			}
+			cache.clear();
+			weightedSize = 0;
+		} finally {
+			evictionLock.unlock();
+		}
+	}
+
+	public long getMaximumWeight() {
+		return maximumWeight;
+	}
+
+	public Stats getStats() {
+		return new Stats(hits.sum(), misses.sum(), evictions.sum(), bypasses.sum(), cache.size(), weightedSize);
+	}
+
+	@Override
+	public String toString() {
+		return "CachingTranslator [translator=" + translator + ", maximumWeight=" + maximumWeight + "]";
+	}
+
+	/**
+	 * Point in time snapshot of the counters of a {@link CachingTranslator}.
+	 */
+	public static final class Stats {
+
+		private final long hitCount;
+		private final long missCount;
+		private final long evictionCount;
+		private final long bypassCount;
+		private final int size;
+		private final long weightedSize;
+
+		Stats(
+				final long hitCount,
+				final long missCount,
+				final long evictionCount,
+				final long bypassCount,
+				final int size,
+				final long weightedSize) {
+			this.hitCount = hitCount;
+			this.missCount = missCount;
+			this.evictionCount = evictionCount;
+			this.bypassCount = bypassCount;
+			this.size = size;
+			this.weightedSize = weightedSize;
+		}
+
+		public long getHitCount() {
+			return hitCount;
+		}
+
+		public long getMissCount() {
+			return missCount;
+		}
+
+		public long getEvictionCount() {
+			return evictionCount;
+		}
+
+		/**
+		 * @return number of translations that were not cacheable
+		 */
+		public long getBypassCount() {
+			return bypassCount;
+		}
+
+		public int getSize() {
+			return size;
+		}
+
+		/**
+		 * @return total number of chars of the cached translations
+		 */
+		public long getWeightedSize() {
+			return weightedSize;
+		}
+
+		public double getHitRate() {
+			final long requests = hitCount + missCount;
+			return requests == 0 ? 1.0 : (double) hitCount / requests;
+		}
+
+		@Override
+		public String toString() {
+			return "Stats [hits=" + hitCount + ", misses=" + missCount + ", evictions=" + evictionCount
+					+ ", bypasses=" + bypassCount + ", size=" + size + ", weightedSize=" + weightedSize + "]";
+		}
+	}
+
+	private static final class CacheKey {
+
+		private final Locale locale;
+		private final TranslationHint hint;
+		private final int hash;
+
+		CacheKey(final Locale locale, final TranslationHint hint) {
+			this.locale = requireNonNull(locale);
+			this.hint = requireNonNull(hint);
+			this.hash = 31 * locale.hashCode() + hint.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (obj == this) {
+				return true;
+			} else if (obj instanceof CacheKey) {
+				final CacheKey that = (CacheKey) obj;
+				return this.hash == that.hash
+					&& this.locale.equals(that.locale)
+					&& this.hint.equals(that.hint);
+			} else {
+				return false;
+			}
+		}
+	}
+
+	private static final class Node {
+
+		static final int WINDOW = 0;
+		static final int PROBATION = 1;
+		static final int PROTECTED = 2;
+		static final int REMOVED = 3;
+
+		final CacheKey key;
+		final String value;
+		final int weight;
+
+		// guarded by evictionLock
+		int segment;
+		Node prev;
+		Node next;
+
+		Node(final CacheKey key, final String value, final int weight) {
+			this.key = key;
+			this.value = value;
+			this.weight = weight;
+		}
+	}
+
+	/**
+	 * Doubly linked list of {@link Node Nodes} from least to most recently used.
+	 */
+	private static final class AccessOrderDeque {
+
+		Node first;
+		Node last;
+		long weight;
+
+		void addLast(final Node node) {
+			node.prev = last;
+			node.next = null;
+			if (last == null) {
+				first = node;
+			} else {
+				last.next = node;
+			}
+			last = node;
+		}
+
+		void remove(final Node node) {
+			if (node.prev == null) {
+				first = node.next;
+			} else {
+				node.prev.next = node.next;
+			}
+			if (node.next == null) {
+				last = node.prev;
+			} else {
+				node.next.prev = node.prev;
+			}
+			node.prev = null;
+			node.next = null;
+		}
+
+		void moveToLast(final Node node) {
+			if (node != last) {
+				remove(node);
+				addLast(node);
+			}
+		}
+	}
+
+	/**
+	 * Count-min sketch of 4 bit counters estimating how often a hash was seen. All counters are halved after a
+	 * fixed number of increments so the estimates follow changes in popularity.
+	 */
+	static final class FrequencySketch {
+
+		private static final long[] SEEDS = {
+				0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+		private static final long RESET_MASK = 0x7777777777777777L;
+
+		private final long[] table;
+		private final int sampleSize;
+		private int additions;
+
+		FrequencySketch(final long expectedSize) {
+			final int length = Integer.highestOneBit((int) Math.max(16, Math.min(expectedSize, 1 << 24)) - 1) << 1;
+			this.table = new long[length];
+			this.sampleSize = 10 * length;
+		}
+
+		int frequency(final int hash) {
+			int frequency = Integer.MAX_VALUE;
+			for (int i = 0; i < 4; i++) {
+				final int index = index(hash, i);
+				final int offset = counterOffset(hash, i);
+				frequency = Math.min(frequency, (int) (table[index] >>> offset & 0xf));
+			}
+			return frequency;
+		}
+
+		void increment(final int hash) {
+			boolean added = false;
+			for (int i = 0; i < 4; i++) {
+				final int index = index(hash, i);
+				final int offset = counterOffset(hash, i);
+				if ((table[index] >>> offset & 0xf) != 0xf) {
+					table[index] += 1L << offset;
+					added = true;
+				}
+			}
+			if (added && ++additions == sampleSize) {
+				reset();
+			}
+		}
+
+		private void reset() {
+			for (int i = 0; i < table.length; i++) {
+				table[i] = table[i] >>> 1 & RESET_MASK;
+			}
+			additions /= 2;
+		}
+
+		private int index(final int hash, final int i) {
+			long h = (hash + SEEDS[i]) * SEEDS[i];
+			h += h >>> 32;
+			return (int) h & (table.length - 1);
+		}
+
+		private static int counterOffset(final int hash, final int i) {
+			// each long holds 16 counters, every row uses a different one
+			return ((hash >>> (i << 3) & 3) << 2 | i) << 2;
+		}
+	}
+}
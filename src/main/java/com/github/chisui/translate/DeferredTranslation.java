@@ -0,0 +1,157 @@
+package com.github.chisui.translate;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Translation of a {@link TranslationHint} that is only rendered when it is used, e.g. as argument of a log
+ * statement that may be disabled. Creating it costs a single allocation.
+ * <p>
+ * A memoizing {@link DeferredTranslation} keeps the first rendered translation without locking. Concurrent first
+ * uses may each render, afterwards all threads see the kept translation. A non memoizing
+ * {@link DeferredTranslation} renders on every {@link #toString()} and {@link #formatTo(Appendable)}, the latter
+ * streams the translation into the {@link Appendable} without creating a {@link String}. Its {@link CharSequence}
+ * view renders once per traversal so consumers reading every character do not render per character: a traversal
+ * starts with {@link #length()} and {@link #charAt(int)} and {@link #subSequence(int, int)} read its rendering. Calling
+ * {@link #length()} again before reading does not render again.
+ */
+public final class DeferredTranslation implements CharSequence {
+
+	private final Translator translator;
+	private final Locale locale;
+	private final TranslationHint hint;
+	private final boolean memoize;
+
+	private volatile String translation;
+	// rendering of a non memoizing translation read by charAt and subSequence
+	private volatile String sequence;
+	// whether the next call to length starts a new traversal
+	private volatile boolean sequenceRead;
+
+	private DeferredTranslation(
+			final Translator translator,
+			final Locale locale,
+			final TranslationHint hint,
+			final boolean memoize) {
+		this.translator = requireNonNull(translator, "translator may not be null");
+		this.locale = locale;
+		this.hint = requireNonNull(hint, "hint may not be null");
+		this.memoize = memoize;
+	}
+
+	/**
+	 * @param translator to translate with
+	 * @param locale of the translation, <code>null</code> to use the default {@link Locale} of the
+	 *        {@link Translator} at the time of rendering
+	 * @param hint to translate
+	 * @return memoizing {@link DeferredTranslation}
+	 */
+	public static DeferredTranslation of(
+			final Translator translator,
+			final Locale locale,
+			final TranslationHint hint) {
+		return new DeferredTranslation(translator, locale, hint, true);
+	}
+
+	/**
+	 * @param translator to translate with
+	 * @param locale of the translation, <code>null</code> to use the default {@link Locale} of the
+	 *        {@link Translator} at the time of rendering
+	 * @param hint to translate
+	 * @return {@link DeferredTranslation} that renders on every use, {@link CharSequence} traversals starting with
+	 *         {@link #length()} render once
+	 */
+	public static DeferredTranslation notMemoizing(
+			final Translator translator,
+			final Locale locale,
+			final TranslationHint hint) {
+		return new DeferredTranslation(translator, locale, hint, false);
+	}
+
+	public TranslationHint getHint() {
+		return hint;
+	}
+
+	/**
+	 * @return <code>true</code> if a memoized translation is available without rendering
+	 */
+	public boolean isRendered() {
+		return translation != null;
+	}
+
+	@Override
+	public String toString() {
+		String result = translation;
+		if (result == null) {
+			result = locale == null ? translator.translate(hint) : translator.translate(locale, hint);
+			if (memoize) {
+				translation = result;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return the memoized translation or the rendering of the current traversal
+	 */
+	private String sequence() {
+		if (memoize) {
+			return toString();
+		}
+		String result = sequence;
+		if (result == null) {
+			result = toString();
+			sequence = result;
+		}
+		if (!sequenceRead) {
+			sequenceRead = true;
+		}
+		return result;
+	}
+
+	/**
+	 * Appends the translation. Non memoizing {@link DeferredTranslation DeferredTranslations} translate directly
+	 * into the {@link Appendable}.
+	 *
+	 * @param appendable to append the translation to
+	 * @param <A> type of the {@link Appendable}
+	 * @return the {@link Appendable}
+	 * @throws IOException if the {@link Appendable} throws
+	 */
+	public <A extends Appendable> A formatTo(final A appendable) throws IOException {
+		if (memoize) {
+			appendable.append(toString());
+		} else if (locale == null) {
+			translator.translate(appendable, hint);
+		} else {
+			translator.translate(appendable, locale, hint);
+		}
+		return appendable;
+	}
+
+	@Override
+	public int length() {
+		if (memoize) {
+			return toString().length();
+		}
+		String result = sequence;
+		if (result == null || sequenceRead) {
+			result = toString();
+			sequence = result;
+			sequenceRead = false;
+		}
+		return result.length();
+	}
+
+	@Override
+	public char charAt(final int index) {
+		return sequence().charAt(index);
+	}
+
+	@Override
+	public CharSequence subSequence(final int start, final int end) {
+		return sequence().subSequence(start, end);
+	}
+}
@@ -0,0 +1,84 @@
+package com.github.chisui.translate;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link Iterator} returning translations in order while translating up to a fixed number of upcoming hints using
+ * an {@link Executor}. Instances must only be used by a single thread.
+ *
+ * @see Translator#translateAll(Locale, java.util.stream.Stream, Executor, int)
+ */
+final class PrefetchingTranslationIterator implements Iterator<String> {
+
+	private final Translator translator;
+	private final Locale locale;
+	private final Iterator<? extends TranslationHint> hints;
+	private final Executor executor;
+	private final int parallelism;
+	private final ArrayDeque<CompletableFuture<String>> pending;
+
+	PrefetchingTranslationIterator(
+			final Translator translator,
+			final Locale locale,
+			final Iterator<? extends TranslationHint> hints,
+			final Executor executor,
+			final int parallelism) {
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException("parallelism has to be positive but was " + parallelism);
+		}
+		this.translator = requireNonNull(translator);
+		this.locale = requireNonNull(locale);
+		this.hints = requireNonNull(hints);
+		this.executor = requireNonNull(executor, "executor may not be null");
+		this.parallelism = parallelism;
+		this.pending = new ArrayDeque<>(parallelism);
+	}
+
+	@Override
+	public boolean hasNext() {
+		fill();
+		return !pending.isEmpty();
+	}
+
+	@Override
+	public String next() {
+		fill();
+		final CompletableFuture<String> translation = pending.poll();
+		if (translation == null) {
+			throw new NoSuchElementException();
+		}
+		try {
+			return translation.join();
+		} catch (final CompletionException e) {
+			cancel();
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			} else if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	private void fill() {
+		while (pending.size() < parallelism && hints.hasNext()) {
+			final TranslationHint hint = hints.next();
+			pending.add(CompletableFuture.supplyAsync(() -> translator.translate(locale, hint), executor));
+		}
+	}
+
+	void cancel() {
+		for (final CompletableFuture<String> translation : pending) {
+			translation.cancel(false);
+		}
+		pending.clear();
+	}
+}
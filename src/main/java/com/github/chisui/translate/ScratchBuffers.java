@@ -0,0 +1,204 @@
+package com.github.chisui.translate;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Supplies the {@link StringBuilder StringBuilders} translations into {@link String} are built in, so a translator
+ * can reuse one grown buffer instead of allocating and growing a new one for every translation.
+ * <p>
+ * A buffer is {@link #acquire() acquired} for a single translation and {@link #release(StringBuilder) released}
+ * afterwards. Nested translations acquire further buffers. Buffers whose capacity grew beyond a limit are dropped on
+ * release so a single huge message does not stay in memory.
+ */
+public interface ScratchBuffers {
+
+	/**
+	 * Default limit of the retained capacity of a buffer in chars.
+	 */
+	int DEFAULT_MAXIMUM_CAPACITY = 4096;
+
+	/**
+	 * @return an empty buffer that is owned by the caller until it is released
+	 */
+	StringBuilder acquire();
+
+	/**
+	 * @param buffer acquired from this {@link ScratchBuffers} that is not used afterwards
+	 */
+	void release(StringBuilder buffer);
+
+	/**
+	 * Translates into an acquired buffer and copies the result into a {@link String}.
+	 *
+	 * @param translator to translate with
+	 * @param locale of the translation
+	 * @param hint to translate
+	 * @return the translation
+	 */
+	default String translate(final Translator translator, final Locale locale, final TranslationHint hint) {
+		final StringBuilder buffer = acquire();
+		try {
+			return translator.translate(buffer, locale, hint).toString();
+		} finally {
+			release(buffer);
+		}
+	}
+
+	/**
+	 * @return {@link ScratchBuffers} allocating a new buffer every time
+	 */
+	static ScratchBuffers none() {
+		return NoScratchBuffers.INSTANCE;
+	}
+
+	static ScratchBuffers threadLocal() {
+		return threadLocal(DEFAULT_MAXIMUM_CAPACITY);
+	}
+
+	/**
+	 * Retains one buffer per thread. Suitable for a bounded number of long lived threads, every thread that
+	 * translated keeps its buffer as long as it lives.
+	 *
+	 * @param maximumCapacity maximum capacity of a retained buffer in chars
+	 * @return the {@link ThreadLocalScratchBuffers}
+	 */
+	static ScratchBuffers threadLocal(final int maximumCapacity) {
+		return new ThreadLocalScratchBuffers(maximumCapacity);
+	}
+
+	static ScratchBuffers pooled() {
+		return pooled(Runtime.getRuntime().availableProcessors() * 2, DEFAULT_MAXIMUM_CAPACITY);
+	}
+
+	/**
+	 * Retains a fixed number of buffers shared by all threads. Memory stays bounded no matter how many threads
+	 * translate, e.g. when every task runs on a new thread. Buffers are handed out without locking, if the pool is
+	 * empty a new buffer is allocated and if it is full a released buffer is dropped.
+	 *
+	 * @param size maximum number of retained buffers
+	 * @param maximumCapacity maximum capacity of a retained buffer in chars
+	 * @return the {@link PooledScratchBuffers}
+	 */
+	static ScratchBuffers pooled(final int size, final int maximumCapacity) {
+		return new PooledScratchBuffers(size, maximumCapacity);
+	}
+
+	final class NoScratchBuffers implements ScratchBuffers {
+
+		private static final NoScratchBuffers INSTANCE = new NoScratchBuffers();
+
+		private NoScratchBuffers() {
+		}
+
+		@Override
+		public StringBuilder acquire() {
+			return new StringBuilder();
+		}
+
+		@Override
+		public void release(final StringBuilder buffer) {
+			// nothing is retained
+		}
+
+		@Override
+		public String toString() {
+			return "ScratchBuffers.none()";
+		}
+	}
+
+	final class ThreadLocalScratchBuffers implements ScratchBuffers {
+
+		private final int maximumCapacity;
+		// the buffer is removed while it is in use, so nested translations allocate their own
+		private final ThreadLocal<StringBuilder> buffers = new ThreadLocal<>();
+
+		private ThreadLocalScratchBuffers(final int maximumCapacity) {
+			if (maximumCapacity < 0) {
+				throw new IllegalArgumentException("maximumCapacity may not be negative but was " + maximumCapacity);
+			}
+			this.maximumCapacity = maximumCapacity;
+		}
+
+		@Override
+		public StringBuilder acquire() {
+			final StringBuilder buffer = buffers.get();
+			if (buffer == null) {
+				return new StringBuilder();
+			}
+			buffers.set(null);
+			return buffer;
+		}
+
+		@Override
+		public void release(final StringBuilder buffer) {
+			if (buffer.capacity() <= maximumCapacity) {
+				buffer.setLength(0);
+				buffers.set(buffer);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "ThreadLocalScratchBuffers [maximumCapacity=" + maximumCapacity + "]";
+		}
+	}
+
+	final class PooledScratchBuffers implements ScratchBuffers {
+
+		private final int maximumCapacity;
+		private final AtomicReferenceArray<StringBuilder> buffers;
+
+		private PooledScratchBuffers(final int size, final int maximumCapacity) {
+			if (size < 1) {
+				throw new IllegalArgumentException("size has to be positive but was " + size);
+			}
+			if (maximumCapacity < 0) {
+				throw new IllegalArgumentException("maximumCapacity may not be negative but was " + maximumCapacity);
+			}
+			this.maximumCapacity = maximumCapacity;
+			this.buffers = new AtomicReferenceArray<>(size);
+		}
+
+		@Override
+		public StringBuilder acquire() {
+			final int start = start();
+			for (int i = 0; i < buffers.length(); i++) {
+				final int slot = (start + i) % buffers.length();
+				if (buffers.get(slot) != null) {
+					final StringBuilder buffer = buffers.getAndSet(slot, null);
+					if (buffer != null) {
+						return buffer;
+					}
+				}
+			}
+			return new StringBuilder();
+		}
+
+		@Override
+		public void release(final StringBuilder buffer) {
+			if (buffer.capacity() > maximumCapacity) {
+				return;
+			}
+			buffer.setLength(0);
+			final int start = start();
+			for (int i = 0; i < buffers.length(); i++) {
+				final int slot = (start + i) % buffers.length();
+				if (buffers.get(slot) == null && buffers.compareAndSet(slot, null, buffer)) {
+					return;
+				}
+			}
+		}
+
+		// spreads threads over the slots to reduce contention
+		private int start() {
+			final int hash = (int) Thread.currentThread().getId() * 0x9e3779b9;
+			return (hash >>> 1) % buffers.length();
+		}
+
+		@Override
+		public String toString() {
+			return "PooledScratchBuffers [size=" + buffers.length() + ", maximumCapacity=" + maximumCapacity + "]";
+		}
+	}
+}
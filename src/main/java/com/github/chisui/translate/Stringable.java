@@ -2,8 +2,13 @@ package com.github.chisui.translate;
 
 import static java.util.Objects.requireNonNull;
 
+import java.io.IOException;
 import java.util.function.Supplier;
 
+/**
+ * Object whose {@link #toString()} is supplied when it is used. The {@link Supplier} is called on every use, see
+ * {@link DeferredTranslation} for a memoizing translation.
+ */
 public class Stringable {
 
 	private final Supplier<String> toString;
@@ -21,6 +26,17 @@ public class Stringable {
 		this.toString = requireNonNull(toString);
 	}
 
+	/**
+	 * @param appendable to append the content to
+	 * @param <A> type of the {@link Appendable}
+	 * @return the {@link Appendable}
+	 * @throws IOException if the {@link Appendable} throws
+	 */
+	public <A extends Appendable> A formatTo(final A appendable) throws IOException {
+		appendable.append(toString());
+		return appendable;
+	}
+
 	@Override
 	public String toString() {
 		return toString.get();
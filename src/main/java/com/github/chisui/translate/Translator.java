@@ -3,12 +3,29 @@ package com.github.chisui.translate;
 import static java.util.Objects.requireNonNull;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.github.chisui.translate.format.Format;
 import com.github.chisui.translate.format.Formatable;
+import com.github.chisui.translate.lookup.AsyncMessageSource;
+import com.github.chisui.translate.lookup.LocaleHandle;
+import com.github.chisui.translate.lookup.LocaleRegistry;
 import com.github.chisui.translate.lookup.MessageLookup;
 import com.github.chisui.translate.lookup.MessageSource;
 
@@ -212,6 +229,209 @@ public interface Translator {
 		}
     }
 
+	/**
+	 * Translates an {@link Object} like {@link #translate(Appendable, Locale, Object)} and writes it into a
+	 * {@link ByteBuffer} encoded as UTF-8.
+	 *
+	 * @param buffer to write to
+	 * @param locale to translate to
+	 * @param obj to translate
+	 * @return the buffer
+	 * @throws java.nio.BufferOverflowException if the translation does not fit into the buffer
+	 * @see Utf8Appendable
+	 */
+	default ByteBuffer translateUtf8(final ByteBuffer buffer, final Locale locale, final Object obj) {
+		final Utf8Appendable appendable = Utf8Appendable.of(buffer);
+		try {
+			translate(appendable, locale, obj);
+			appendable.finish();
+		} catch (final IOException e) {
+			throw new AssertionError("translating using ByteBuffer threw an IOException", e);
+		}
+		return buffer;
+	}
+
+	/**
+	 * Translates an {@link Object} like {@link #translate(Appendable, Locale, Object)} and writes it into an
+	 * {@link OutputStream} encoded as UTF-8.
+	 *
+	 * @param out to write to, is neither flushed nor closed
+	 * @param locale to translate to
+	 * @param obj to translate
+	 * @return the {@link OutputStream}
+	 * @throws IOException if the {@link OutputStream} throws
+	 * @see Utf8Appendable
+	 */
+	default <O extends OutputStream> O translateUtf8(final O out, final Locale locale, final Object obj)
+			throws IOException {
+		final Utf8Appendable appendable = Utf8Appendable.of(out);
+		translate(appendable, locale, obj);
+		appendable.finish();
+		return out;
+	}
+
+	/**
+	 * Translates multiple {@link TranslationHint TranslationHints} at once. Implementations may use this to look up
+	 * and compile every distinct message only once.
+	 *
+	 * @param locale of the translations
+	 * @param hints to translate
+	 * @return the translations in the order of the hints
+	 */
+	default List<String> translateAll(final Locale locale, final Collection<? extends TranslationHint> hints) {
+		final List<String> translations = new ArrayList<>(hints.size());
+		for (final TranslationHint hint : hints) {
+			translations.add(translate(locale, hint));
+		}
+		return translations;
+	}
+
+	/**
+	 * Translates multiple {@link TranslationHint TranslationHints} at once like
+	 * {@link #translateAll(Locale, Collection)} and appends them to the provided {@link Appendable}.
+	 *
+	 * @param appendable to append the translations to
+	 * @param locale of the translations
+	 * @param hints to translate
+	 * @param delimiter appended between two translations
+	 * @return the {@link Appendable}
+	 * @throws IOException if the {@link Appendable} throws
+	 */
+	default <A extends Appendable> A translateAll(
+			final A appendable,
+			final Locale locale,
+			final Collection<? extends TranslationHint> hints,
+			final CharSequence delimiter) throws IOException {
+		boolean first = true;
+		for (final TranslationHint hint : hints) {
+			if (!first) {
+				appendable.append(delimiter);
+			}
+			first = false;
+			translate(appendable, locale, hint);
+		}
+		return appendable;
+	}
+
+	/**
+	 * Lazily translates a {@link Stream} of {@link TranslationHint TranslationHints}. Hints are translated when the
+	 * returned {@link Stream} is consumed, in parallel if the {@link Stream} is parallel.
+	 *
+	 * @param locale of the translations
+	 * @param hints to translate
+	 * @return the translations in the encounter order of the hints
+	 */
+	default Stream<String> translateAll(final Locale locale, final Stream<? extends TranslationHint> hints) {
+		requireNonNull(locale);
+		return hints.map(hint -> translate(locale, hint));
+	}
+
+	/**
+	 * Lazily translates the {@link TranslationHint TranslationHints} of a {@link Spliterator}. The returned
+	 * {@link Spliterator} splits like the provided one.
+	 *
+	 * @param locale of the translations
+	 * @param hints to translate
+	 * @return the translations
+	 */
+	default Spliterator<String> translateAll(final Locale locale, final Spliterator<? extends TranslationHint> hints) {
+		return translateAll(locale, StreamSupport.stream(hints, false)).spliterator();
+	}
+
+	/**
+	 * Translates a {@link Stream} of {@link TranslationHint TranslationHints} using an {@link Executor} while the
+	 * returned {@link Stream} is consumed. The hints are pulled from the provided {@link Stream} by the consuming
+	 * thread and at most <code>parallelism</code> translations are pending at any time, so arbitrarily long
+	 * {@link Stream Streams} can be translated in order with bounded memory. Closing the returned {@link Stream}
+	 * cancels pending translations and closes the provided {@link Stream}.
+	 *
+	 * @param locale of the translations
+	 * @param hints to translate
+	 * @param executor translating the hints
+	 * @param parallelism maximum number of pending translations
+	 * @return the translations in the encounter order of the hints
+	 */
+	default Stream<String> translateAll(
+			final Locale locale,
+			final Stream<? extends TranslationHint> hints,
+			final Executor executor,
+			final int parallelism) {
+		final PrefetchingTranslationIterator translations =
+				new PrefetchingTranslationIterator(this, locale, hints.iterator(), executor, parallelism);
+		return StreamSupport
+				.stream(Spliterators.spliteratorUnknownSize(translations, Spliterator.ORDERED | Spliterator.NONNULL),
+						false)
+				.onClose(translations::cancel)
+				.onClose(hints::close);
+	}
+
+	/**
+	 * Creates a memoizing {@link DeferredTranslation} that translates the hint using the default {@link Locale} when
+	 * it is first used, e.g. <code>log.debug("{}", translator.defer(hint))</code>.
+	 *
+	 * @param hint to translate
+	 * @return the {@link DeferredTranslation}
+	 */
+	default DeferredTranslation defer(final TranslationHint hint) {
+		return DeferredTranslation.of(this, null, hint);
+	}
+
+	/**
+	 * @param locale of the translation
+	 * @param hint to translate
+	 * @return memoizing {@link DeferredTranslation} of the hint
+	 * @see #defer(TranslationHint)
+	 */
+	default DeferredTranslation defer(final Locale locale, final TranslationHint hint) {
+		return DeferredTranslation.of(this, requireNonNull(locale, "locale may not be null"), hint);
+	}
+
+	/**
+	 * Translates a {@link TranslationHint} without blocking the calling thread on slow message lookups.
+	 * {@link AsyncMessageSourceTranslator} looks messages up asynchronously, other {@link Translator Translators}
+	 * translate on the calling thread and return a completed stage.
+	 *
+	 * @param locale of the translation
+	 * @param hint to translate
+	 * @return completes with the translation or with the exception translating failed with
+	 */
+	default CompletionStage<String> translateAsync(final Locale locale, final TranslationHint hint) {
+		final CompletableFuture<String> translation = new CompletableFuture<>();
+		try {
+			translation.complete(translate(locale, hint));
+		} catch (final RuntimeException e) {
+			translation.completeExceptionally(e);
+		}
+		return translation;
+	}
+
+	/**
+	 * @param hint to translate using the default {@link Locale}
+	 * @return completes with the translation
+	 * @see #translateAsync(Locale, TranslationHint)
+	 */
+	default CompletionStage<String> translateAsync(final TranslationHint hint) {
+		final CompletableFuture<String> translation = new CompletableFuture<>();
+		try {
+			translation.complete(translate(hint));
+		} catch (final RuntimeException e) {
+			translation.completeExceptionally(e);
+		}
+		return translation;
+	}
+
+	/**
+	 * Creates a {@link CachingTranslator} that caches the translations of this {@link Translator} for
+	 * {@link TranslationHint TranslationHints} accepted by {@link CachingTranslator#isValueHint(TranslationHint)}.
+	 *
+	 * @param getDefaultLocale supplies the {@link Locale} of translations without an explicit {@link Locale}
+	 * @param maximumWeight maximum total number of chars of cached translations
+	 * @return the {@link CachingTranslator}
+	 */
+	default CachingTranslator cached(final Supplier<Locale> getDefaultLocale, final long maximumWeight) {
+		return new CachingTranslator(getDefaultLocale, this, maximumWeight, CachingTranslator::isValueHint);
+	}
+
 	abstract class AbstractTranslator implements Translator {
 
 		protected final Supplier<Locale> getDefaultLocale;
@@ -220,6 +440,13 @@ public interface Translator {
 			this.getDefaultLocale = requireNonNull(getDefaultLocale);
 		}
 
+		/**
+		 * @return the {@link Locale} of translations without an explicit {@link Locale}
+		 */
+		public Locale getDefaultLocale() {
+			return getDefaultLocale.get();
+		}
+
 		@Override
 		public String translate(final TranslationHint hint) {
 			return translate(getDefaultLocale.get(), hint);
@@ -232,6 +459,11 @@ public interface Translator {
 			return translate(appendable, getDefaultLocale.get(), hint);
 		}
 
+		@Override
+		public CompletionStage<String> translateAsync(final TranslationHint hint) {
+			return translateAsync(getDefaultLocale.get(), hint);
+		}
+
 	}
 	
 	static StringFirstTranslator of(
@@ -293,20 +525,33 @@ public interface Translator {
 		
 	}
 	
+	/**
+	 * {@link Translator} appending translations. Translations into {@link String} are built in buffers of
+	 * {@link ScratchBuffers}, by default one retained buffer per thread.
+	 */
 	class AppendableFirstTranslator extends AbstractTranslator {
 		
 		protected final AppendingTranslationFunction translate;
+		protected final ScratchBuffers scratchBuffers;
 		
 		public AppendableFirstTranslator(
 				final Supplier<Locale> getDefaultLocale, 
 				final AppendingTranslationFunction translate) {
+			this(getDefaultLocale, translate, ScratchBuffers.threadLocal());
+		}
+
+		public AppendableFirstTranslator(
+				final Supplier<Locale> getDefaultLocale,
+				final AppendingTranslationFunction translate,
+				final ScratchBuffers scratchBuffers) {
 			super(getDefaultLocale);
 			this.translate = requireNonNull(translate);
+			this.scratchBuffers = requireNonNull(scratchBuffers);
 		}
 
 		@Override
 		public String translate(final Locale locale, final TranslationHint hint) {
-			return translate(new StringBuilder(), locale, hint).toString();
+			return scratchBuffers.translate(this, locale, hint);
 		}
 
 		@Override
@@ -340,14 +585,152 @@ public interface Translator {
 			final Supplier<Locale> getDefaultLocale,
 			final MessageLookup messageLookup,
 			final Format format) {
-		requireNonNull(getDefaultLocale);
-		requireNonNull(messageLookup);
-		requireNonNull(format);
-		return of(getDefaultLocale, (appendable, locale, hint, translator) -> {
-			final String message = messageLookup.getMessage(locale, hint.getKey(), hint.getFallback());
-			final Formatable formatable = format.toFormatable(locale, message);
-			formatable.format(appendable, hint.getArguments(), translator);
-		});
+		return new MessageLookupTranslator(getDefaultLocale, messageLookup, format);
+	}
+
+	static AsyncMessageSourceTranslator ofAsync(
+			final AsyncMessageSource messageSource,
+			final Format format) {
+		return ofAsync(Locale::getDefault, messageSource, format);
+	}
+
+	/**
+	 * Creates a {@link Translator} looking messages up asynchronously, see
+	 * {@link #translateAsync(Locale, TranslationHint)}.
+	 *
+	 * @param getDefaultLocale supplies the {@link Locale} of translations without an explicit {@link Locale}
+	 * @param messageSource to look messages up in
+	 * @param format of the messages
+	 * @return the {@link AsyncMessageSourceTranslator}
+	 */
+	static AsyncMessageSourceTranslator ofAsync(
+			final Supplier<Locale> getDefaultLocale,
+			final AsyncMessageSource messageSource,
+			final Format format) {
+		return new AsyncMessageSourceTranslator(getDefaultLocale, messageSource, format);
+	}
+
+	/**
+	 * {@link Translator} that looks messages up using a {@link MessageLookup} and formats them using a
+	 * {@link Format}. The {@link Locale} of a translation is interned once and the message is looked up using
+	 * {@link MessageLookup#getMessage(LocaleHandle, Object, Optional)}, so message sources index their per locale
+	 * data by array slot. {@link #translateAll(Locale, Collection)} looks up all messages using
+	 * {@link MessageLookup#getMessages(Locale, List)} and compiles every distinct message once.
+	 */
+	class MessageLookupTranslator extends AbstractTranslator {
+
+		private final MessageLookup messageLookup;
+		private final Format format;
+		private final ScratchBuffers scratchBuffers;
+		private final LocaleRegistry localeRegistry;
+
+		public MessageLookupTranslator(
+				final Supplier<Locale> getDefaultLocale,
+				final MessageLookup messageLookup,
+				final Format format) {
+			this(getDefaultLocale, messageLookup, format, ScratchBuffers.threadLocal());
+		}
+
+		/**
+		 * @param getDefaultLocale supplies the {@link Locale} of translations without an explicit {@link Locale}
+		 * @param messageLookup to look messages up in
+		 * @param format of the messages
+		 * @param scratchBuffers to build translations into {@link String} in
+		 */
+		public MessageLookupTranslator(
+				final Supplier<Locale> getDefaultLocale,
+				final MessageLookup messageLookup,
+				final Format format,
+				final ScratchBuffers scratchBuffers) {
+			this(getDefaultLocale, messageLookup, format, scratchBuffers, LocaleRegistry.getDefault());
+		}
+
+		/**
+		 * @param getDefaultLocale supplies the {@link Locale} of translations without an explicit {@link Locale}
+		 * @param messageLookup to look messages up in
+		 * @param format of the messages
+		 * @param scratchBuffers to build translations into {@link String} in
+		 * @param localeRegistry to intern the {@link Locale Locales} of translations with, message sources sharing
+		 *        it use the handles without interning them again
+		 */
+		public MessageLookupTranslator(
+				final Supplier<Locale> getDefaultLocale,
+				final MessageLookup messageLookup,
+				final Format format,
+				final ScratchBuffers scratchBuffers,
+				final LocaleRegistry localeRegistry) {
+			super(getDefaultLocale);
+			this.messageLookup = requireNonNull(messageLookup);
+			this.format = requireNonNull(format);
+			this.scratchBuffers = requireNonNull(scratchBuffers);
+			this.localeRegistry = requireNonNull(localeRegistry);
+		}
+
+		@Override
+		public String translate(final Locale locale, final TranslationHint hint) {
+			return scratchBuffers.translate(this, locale, hint);
+		}
+
+		@Override
+		public <A extends Appendable> A translate(final A appendable, final Locale locale, final TranslationHint hint)
+				throws IOException {
+			final LocaleHandle handle = localeRegistry.handle(locale);
+			final String message = messageLookup.getMessage(handle, hint.getKey(), hint.getFallback());
+			format.toFormatable(locale, message).format(appendable, hint.getArguments(), this);
+			return appendable;
+		}
+
+		@Override
+		public List<String> translateAll(final Locale locale, final Collection<? extends TranslationHint> hints) {
+			final List<TranslationHint> hintList = new ArrayList<>(hints);
+			final List<Formatable> formatables = toFormatables(locale, hintList);
+			final List<String> translations = new ArrayList<>(hintList.size());
+			final StringBuilder buffer = scratchBuffers.acquire();
+			try {
+				for (int i = 0; i < hintList.size(); i++) {
+					buffer.setLength(0);
+					formatables.get(i).format(buffer, hintList.get(i).getArguments(), this);
+					translations.add(buffer.toString());
+				}
+			} catch (final IOException e) {
+				throw new AssertionError("translating using StringBuilder threw an IOException", e);
+			} finally {
+				scratchBuffers.release(buffer);
+			}
+			return translations;
+		}
+
+		@Override
+		public <A extends Appendable> A translateAll(
+				final A appendable,
+				final Locale locale,
+				final Collection<? extends TranslationHint> hints,
+				final CharSequence delimiter) throws IOException {
+			final List<TranslationHint> hintList = new ArrayList<>(hints);
+			final List<Formatable> formatables = toFormatables(locale, hintList);
+			for (int i = 0; i < hintList.size(); i++) {
+				if (i > 0) {
+					appendable.append(delimiter);
+				}
+				formatables.get(i).format(appendable, hintList.get(i).getArguments(), this);
+			}
+			return appendable;
+		}
+
+		private List<Formatable> toFormatables(final Locale locale, final List<TranslationHint> hints) {
+			final List<String> messages = messageLookup.getMessages(locale, hints);
+			final Map<String, Formatable> compiled = new HashMap<>();
+			final List<Formatable> formatables = new ArrayList<>(messages.size());
+			for (final String message : messages) {
+				formatables.add(compiled.computeIfAbsent(message, m -> format.toFormatable(locale, m)));
+			}
+			return formatables;
+		}
+
+		@Override
+		public String toString() {
+			return "MessageLookupTranslator [messageLookup=" + messageLookup + ", format=" + format + "]";
+		}
 	}
 
 	static Translator fallbackTranslator() {
@@ -0,0 +1,234 @@
+package com.github.chisui.translate;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link Appendable} that encodes everything appended to it as UTF-8 into a {@link ByteBuffer} or
+ * {@link OutputStream}.
+ * <p>
+ * {@link com.github.chisui.translate.format.Formatable Formatables} that hold pre-encoded text write it using
+ * {@link #appendUtf8(byte[])} so only argument values are encoded while translating. Unpaired surrogates are encoded
+ * as <code>'?'</code> like {@link String#getBytes(java.nio.charset.Charset)} does. Instances are not thread safe.
+ */
+public abstract class Utf8Appendable implements Appendable {
+
+	private static final byte REPLACEMENT = '?';
+
+	protected final ByteBuffer buffer;
+	private char highSurrogate;
+
+	protected Utf8Appendable(final ByteBuffer buffer) {
+		this.buffer = requireNonNull(buffer, "buffer may not be null");
+	}
+
+	/**
+	 * Writes into a {@link ByteBuffer} starting at its position.
+	 *
+	 * @param buffer to write to
+	 * @return the {@link Utf8Appendable}, throws {@link BufferOverflowException} if the buffer is too small
+	 */
+	public static Utf8Appendable of(final ByteBuffer buffer) {
+		return new ByteBufferUtf8Appendable(buffer);
+	}
+
+	/**
+	 * Writes into an {@link OutputStream} through an internal buffer. Call {@link #finish()} to write the buffered
+	 * bytes.
+	 *
+	 * @param out to write to, is never closed
+	 * @return the {@link Utf8Appendable}
+	 */
+	public static Utf8Appendable of(final OutputStream out) {
+		return of(out, 8192);
+	}
+
+	public static Utf8Appendable of(final OutputStream out, final int bufferSize) {
+		return new OutputStreamUtf8Appendable(out, bufferSize);
+	}
+
+	/**
+	 * Writes bytes that are already UTF-8 encoded.
+	 *
+	 * @param utf8 the encoded bytes
+	 * @return this
+	 * @throws IOException if the underlying {@link OutputStream} throws
+	 */
+	public Utf8Appendable appendUtf8(final byte[] utf8) throws IOException {
+		flushHighSurrogate();
+		writeUtf8(utf8);
+		return this;
+	}
+
+	@Override
+	public Utf8Appendable append(final CharSequence csq) throws IOException {
+		final CharSequence s = csq == null ? "null" : csq;
+		return append(s, 0, s.length());
+	}
+
+	@Override
+	public Utf8Appendable append(final CharSequence csq, final int start, final int end) throws IOException {
+		final CharSequence s = csq == null ? "null" : csq;
+		for (int i = start; i < end; i++) {
+			final char c = s.charAt(i);
+			if (c < 0x80 && highSurrogate == 0) {
+				if (!buffer.hasRemaining()) {
+					drain(1);
+				}
+				buffer.put((byte) c);
+			} else {
+				encode(c);
+			}
+		}
+		return this;
+	}
+
+	@Override
+	public Utf8Appendable append(final char c) throws IOException {
+		encode(c);
+		return this;
+	}
+
+	/**
+	 * Encodes a trailing unpaired high surrogate and writes buffered bytes to the underlying output.
+	 *
+	 * @throws IOException if the underlying {@link OutputStream} throws
+	 */
+	public void finish() throws IOException {
+		flushHighSurrogate();
+	}
+
+	private void encode(final char c) throws IOException {
+		if (highSurrogate != 0) {
+			final char high = highSurrogate;
+			highSurrogate = 0;
+			if (Character.isLowSurrogate(c)) {
+				final int codePoint = Character.toCodePoint(high, c);
+				ensure(4);
+				buffer.put((byte) (0xf0 | codePoint >> 18));
+				buffer.put((byte) (0x80 | codePoint >> 12 & 0x3f));
+				buffer.put((byte) (0x80 | codePoint >> 6 & 0x3f));
+				buffer.put((byte) (0x80 | codePoint & 0x3f));
+				return;
+			}
+			ensure(1);
+			buffer.put(REPLACEMENT);
+		}
+		if (c < 0x80) {
+			ensure(1);
+			buffer.put((byte) c);
+		} else if (c < 0x800) {
+			ensure(2);
+			buffer.put((byte) (0xc0 | c >> 6));
+			buffer.put((byte) (0x80 | c & 0x3f));
+		} else if (Character.isHighSurrogate(c)) {
+			highSurrogate = c;
+		} else if (Character.isLowSurrogate(c)) {
+			ensure(1);
+			buffer.put(REPLACEMENT);
+		} else {
+			ensure(3);
+			buffer.put((byte) (0xe0 | c >> 12));
+			buffer.put((byte) (0x80 | c >> 6 & 0x3f));
+			buffer.put((byte) (0x80 | c & 0x3f));
+		}
+	}
+
+	private void flushHighSurrogate() throws IOException {
+		if (highSurrogate != 0) {
+			highSurrogate = 0;
+			ensure(1);
+			buffer.put(REPLACEMENT);
+		}
+	}
+
+	private void ensure(final int bytes) throws IOException {
+		if (buffer.remaining() < bytes) {
+			drain(bytes);
+		}
+	}
+
+	/**
+	 * Called if {@link #buffer} has less than the required number of bytes remaining.
+	 *
+	 * @param required number of bytes
+	 * @throws IOException if the underlying {@link OutputStream} throws
+	 */
+	protected abstract void drain(int required) throws IOException;
+
+	protected abstract void writeUtf8(byte[] utf8) throws IOException;
+
+	static final class ByteBufferUtf8Appendable extends Utf8Appendable {
+
+		ByteBufferUtf8Appendable(final ByteBuffer buffer) {
+			super(buffer);
+		}
+
+		@Override
+		protected void drain(final int required) {
+			throw new BufferOverflowException();
+		}
+
+		@Override
+		protected void writeUtf8(final byte[] utf8) {
+			buffer.put(utf8);
+		}
+
+		@Override
+		public String toString() {
+			return "Utf8Appendable [" + buffer + "]";
+		}
+	}
+
+	static final class OutputStreamUtf8Appendable extends Utf8Appendable {
+
+		private final OutputStream out;
+
+		OutputStreamUtf8Appendable(final OutputStream out, final int bufferSize) {
+			super(ByteBuffer.allocate(bufferSize));
+			if (bufferSize < 4) {
+				throw new IllegalArgumentException("bufferSize has to be at least 4 but was " + bufferSize);
+			}
+			this.out = requireNonNull(out, "out may not be null");
+		}
+
+		@Override
+		protected void drain(final int required) throws IOException {
+			writeBuffer();
+		}
+
+		@Override
+		protected void writeUtf8(final byte[] utf8) throws IOException {
+			if (utf8.length <= buffer.remaining()) {
+				buffer.put(utf8);
+			} else {
+				writeBuffer();
+				if (utf8.length <= buffer.remaining()) {
+					buffer.put(utf8);
+				} else {
+					out.write(utf8);
+				}
+			}
+		}
+
+		@Override
+		public void finish() throws IOException {
+			super.finish();
+			writeBuffer();
+		}
+
+		private void writeBuffer() throws IOException {
+			out.write(buffer.array(), 0, buffer.position());
+			buffer.clear();
+		}
+
+		@Override
+		public String toString() {
+			return "Utf8Appendable [" + out + "]";
+		}
+	}
+}
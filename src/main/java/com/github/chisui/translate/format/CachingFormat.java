@@ -0,0 +1,244 @@
+package com.github.chisui.translate.format;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link Format} that caches the {@link Formatable Formatables} created by another {@link Format} per
+ * {@link Locale} and pattern.
+ *
+ * Lookups of cached {@link Formatable Formatables} are lock free. The number of cached entries is bounded
+ * by {@link #getMaximumSize()}. When the bound is exceeded entries are evicted using a second chance
+ * (clock) policy. The cached {@link Formatable Formatables} are shared between threads so the underlying
+ * {@link Format} has to produce thread safe {@link Formatable Formatables}.
+ */
+public class CachingFormat implements Format {
+
+	private final Format format;
+	private final int maximumSize;
+
+	private final ConcurrentHashMap<CacheKey, Entry> cache = new ConcurrentHashMap<>();
+	private final ConcurrentLinkedQueue<Entry> clock = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger size = new AtomicInteger();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	public CachingFormat(final Format format, final int maximumSize) {
+		this.format = requireNonNull(format, "format may not be null");
+		if (maximumSize <= 0) {
+			throw new IllegalArgumentException("maximumSize has to be positive but was " + maximumSize);
+		}
+		this.maximumSize = maximumSize;
+	}
+
+	@Override
+	public Formatable toFormatable(final Locale locale, final String pattern) {
+		final CacheKey key = new CacheKey(locale, pattern);
+		final Entry entry = cache.get(key);
+		if (entry != null) {
+			// only written once per clock cycle so readers of hot entries do not contend on the cache line
+			if (!entry.referenced) {
+				entry.referenced = true;
+			}
+			hits.increment();
+			return entry.formatable;
+		}
+		misses.increment();
+		final Entry newEntry = new Entry(key, format.toFormatable(locale, pattern));
+		final Entry existing = cache.putIfAbsent(key, newEntry);
+		if (existing != null) {
+			return existing.formatable;
+		}
+		clock.add(newEntry);
+		size.incrementAndGet();
+		evict();
+		return newEntry.formatable;
+	}
+
+	private void evict() {
+		while (size.get() > maximumSize) {
+			final Entry entry = clock.poll();
+			if (entry == null) {
+				return;
+			} else if (entry.removed) {
+				// invalidated while it was requeued
+				continue;
+			} else if (entry.referenced) {
+				entry.referenced = false;
+				clock.add(entry);
+			} else if (cache.remove(entry.key, entry)) {
+				size.decrementAndGet();
+				evictions.increment();
+			}
+		}
+	}
+
+	/**
+	 * Removes the cached {@link Formatable} of a pattern for a {@link Locale}.
+	 *
+	 * @param locale of the {@link Formatable}
+	 * @param pattern of the {@link Formatable}
+	 */
+	public void invalidate(final Locale locale, final String pattern) {
+		final Entry entry = cache.get(new CacheKey(locale, pattern));
+		if (entry != null && remove(entry)) {
+			clock.remove(entry);
+		}
+	}
+
+	/**
+	 * Removes the cached {@link Formatable Formatables} of a pattern for all {@link Locale Locales}, e.g. after the
+	 * message was changed.
+	 *
+	 * @param pattern of the {@link Formatable Formatables}
+	 */
+	public void invalidate(final String pattern) {
+		requireNonNull(pattern);
+		boolean removed = false;
+		for (final Entry entry : cache.values()) {
+			if (entry.key.pattern.equals(pattern)) {
+				removed |= remove(entry);
+			}
+		}
+		if (removed) {
+			clock.removeIf(entry -> entry.removed);
+		}
+	}
+
+	public void invalidateAll() {
+		for (final Entry entry : cache.values()) {
+			remove(entry);
+		}
+		clock.removeIf(entry -> entry.removed);
+	}
+
+	/**
+	 * Removes an entry from the cache, the caller unlinks it from the clock afterwards so invalidations below the
+	 * maximum size do not pile up there.
+	 */
+	private boolean remove(final Entry entry) {
+		if (cache.remove(entry.key, entry)) {
+			entry.removed = true;
+			size.decrementAndGet();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return number of entries in the clock including invalidated ones that are not unlinked yet
+	 */
+	int getClockSize() {
+		return clock.size();
+	}
+
+	public int getMaximumSize() {
+		return maximumSize;
+	}
+
+	public Stats getStats() {
+		return new Stats(hits.sum(), misses.sum(), evictions.sum(), size.get());
+	}
+
+	@Override
+	public String toString() {
+		return "CachingFormat [format=" + format + ", maximumSize=" + maximumSize + "]";
+	}
+
+	/**
+	 * Point in time snapshot of the counters of a {@link CachingFormat}.
+	 */
+	public static final class Stats {
+
+		private final long hitCount;
+		private final long missCount;
+		private final long evictionCount;
+		private final int size;
+
+		Stats(final long hitCount, final long missCount, final long evictionCount, final int size) {
+			this.hitCount = hitCount;
+			this.missCount = missCount;
+			this.evictionCount = evictionCount;
+			this.size = size;
+		}
+
+		public long getHitCount() {
+			return hitCount;
+		}
+
+		public long getMissCount() {
+			return missCount;
+		}
+
+		public long getEvictionCount() {
+			return evictionCount;
+		}
+
+		public int getSize() {
+			return size;
+		}
+
+		public double getHitRate() {
+			final long requests = hitCount + missCount;
+			return requests == 0 ? 1.0 : (double) hitCount / requests;
+		}
+
+		@Override
+		public String toString() {
+			return "Stats [hits=" + hitCount + ", misses=" + missCount + ", evictions=" + evictionCount
+					+ ", size=" + size + "]";
+		}
+	}
+
+	private static final class CacheKey {
+
+		private final Locale locale;
+		private final String pattern;
+		private final int hash;
+
+		CacheKey(final Locale locale, final String pattern) {
+			this.locale = requireNonNull(locale);
+			this.pattern = requireNonNull(pattern);
+			this.hash = 31 * locale.hashCode() + pattern.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (obj == this) {
+				return true;
+			} else if (obj instanceof CacheKey) {
+				final CacheKey that = (CacheKey) obj;
+				return this.hash == that.hash
+					&& this.pattern.equals(that.pattern)
+					&& this.locale.equals(that.locale);
+			} else {
+				return false;
+			}
+		}
+	}
+
+	private static final class Entry {
+
+		final CacheKey key;
+		final Formatable formatable;
+		volatile boolean referenced;
+		volatile boolean removed;
+
+		Entry(final CacheKey key, final Formatable formatable) {
+			this.key = key;
+			this.formatable = formatable;
+		}
+	}
+}
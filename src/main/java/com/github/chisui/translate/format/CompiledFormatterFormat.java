@@ -0,0 +1,555 @@
+package com.github.chisui.translate.format;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Formatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.MissingFormatArgumentException;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.github.chisui.translate.Translator;
+
+/**
+ * {@link Format} that parses {@link Formatter} format strings once into a chain of {@link Formatable Formatables}
+ * instead of creating a {@link Formatter} for every message.
+ *
+ * The conversions <code>%s</code>, <code>%d</code>, <code>%x</code>, <code>%X</code> and <code>%f</code> with
+ * their flags, width and precision are rendered directly into the {@link Appendable}. All other conversions and
+ * argument types that these conversions don't handle natively, like {@link java.math.BigInteger}, fall back to a
+ * {@link Formatter}.
+ *
+ * Arguments of <code>%s</code> and <code>%S</code> are translated using the {@link Translator} just like
+ * {@link Format#ofFormatter()} does. All other conversions format their argument as is.
+ *
+ * The created {@link Formatable Formatables} are thread safe and can be cached with a {@link CachingFormat}.
+ */
+public class CompiledFormatterFormat implements Format {
+
+	private static final CompiledFormatterFormat INSTANCE = new CompiledFormatterFormat();
+
+	// %[argument_index$][flags][width][.precision][t]conversion
+	private static final Pattern FORMAT_SPECIFIER =
+			Pattern.compile("%(\\d+\\$)?([-#+ 0,(\\<]*)?(\\d+)?(\\.\\d+)?([tT])?([a-zA-Z%])");
+
+	protected CompiledFormatterFormat() {
+	}
+
+	public static CompiledFormatterFormat of() {
+		return INSTANCE;
+	}
+
+	@Override
+	public Formatable toFormatable(final Locale locale, final String format) {
+		return compile(locale, format);
+	}
+
+	/**
+	 * Compiles a {@link Formatter} format string into a {@link Formatable}.
+	 *
+	 * @param locale used to format arguments
+	 * @param format to compile
+	 * @return the compiled format string
+	 * @throws java.util.IllegalFormatException if the format string is invalid
+	 */
+	public static Formatable compile(final Locale locale, final String format) {
+		requireNonNull(locale);
+		// let Formatter do the syntax checks so invalid format strings fail the same way
+		new Formatter(new StringBuilder(), locale).format(format, (Object[]) null);
+
+		final List<Formatable> segments = new ArrayList<>();
+		final StringBuilder literal = new StringBuilder();
+		final Matcher m = FORMAT_SPECIFIER.matcher(format);
+		int last = -1;
+		int lastOrdinary = -1;
+		int i = 0;
+		while (i < format.length() && m.find(i)) {
+			literal.append(format, i, m.start());
+			i = m.end();
+
+			final Specifier spec = new Specifier(m);
+			if (spec.conversion == '%' && spec.width == -1) {
+				literal.append('%');
+			} else if (spec.conversion == 'n') {
+				literal.append(System.lineSeparator());
+			} else {
+				if (literal.length() > 0) {
+					segments.add(Formatable.of(literal.toString()));
+					literal.setLength(0);
+				}
+				final int index;
+				if (spec.conversion == '%') {
+					index = -2;
+				} else if (spec.relative) {
+					index = last;
+				} else if (spec.explicitIndex == 0) {
+					index = last = ++lastOrdinary;
+				} else {
+					index = last = spec.explicitIndex - 1;
+				}
+				segments.add(spec.toFormatable(locale, index));
+			}
+		}
+		literal.append(format, i, format.length());
+		if (literal.length() > 0) {
+			segments.add(Formatable.of(literal.toString()));
+		}
+		return CompiledMessageFormat.sequence(segments);
+	}
+
+	private static final class Specifier {
+
+		final String text;
+		final int explicitIndex;
+		final String flags;
+		final boolean relative;
+		final int width;
+		final int precision;
+		final String dateTime;
+		final char conversion;
+
+		Specifier(final Matcher m) {
+			text = m.group();
+			explicitIndex = m.group(1) == null
+					? 0
+					: Integer.parseInt(m.group(1).substring(0, m.group(1).length() - 1));
+			final String rawFlags = m.group(2) == null ? "" : m.group(2);
+			relative = rawFlags.indexOf('<') >= 0;
+			flags = rawFlags.replace("<", "");
+			width = m.group(3) == null ? -1 : Integer.parseInt(m.group(3));
+			precision = m.group(4) == null ? -1 : Integer.parseInt(m.group(4).substring(1));
+			dateTime = m.group(5) == null ? "" : m.group(5);
+			conversion = m.group(6).charAt(0);
+		}
+
+		boolean hasFlag(final char flag) {
+			return flags.indexOf(flag) >= 0;
+		}
+
+		boolean onlyFlags(final String allowed) {
+			for (int i = 0; i < flags.length(); i++) {
+				if (allowed.indexOf(flags.charAt(i)) < 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		String toSingleArgumentSpecifier() {
+			return "%1$" + flags
+					+ (width == -1 ? "" : width)
+					+ (precision == -1 ? "" : "." + precision)
+					+ dateTime
+					+ conversion;
+		}
+
+		Formatable toFormatable(final Locale locale, final int index) {
+			final FallbackSegment fallback = new FallbackSegment(
+					locale, index, text, toSingleArgumentSpecifier(), conversion == 's' || conversion == 'S');
+			if (!dateTime.isEmpty()) {
+				return fallback;
+			}
+			switch (conversion) {
+			case 's':
+				return onlyFlags("-") ? new StringSegment(locale, index, text, this) : fallback;
+			case 'd':
+				return NumberSymbols.of(locale, hasFlag(','))
+						.map(symbols -> (Formatable) new DecimalSegment(index, text, this, symbols, fallback))
+						.orElse(fallback);
+			case 'x':
+			case 'X':
+				return onlyFlags("-0#") ? new HexSegment(index, text, this, fallback) : fallback;
+			case 'f':
+				return NumberSymbols.of(locale, hasFlag(','))
+						.map(symbols -> (Formatable) new FloatSegment(index, text, this, symbols, fallback))
+						.orElse(fallback);
+			default:
+				return fallback;
+			}
+		}
+	}
+
+	private static final class NumberSymbols {
+
+		final char zero;
+		final char decimalSeparator;
+		final char groupingSeparator;
+		final int groupingSize;
+
+		private NumberSymbols(
+				final char zero,
+				final char decimalSeparator,
+				final char groupingSeparator,
+				final int groupingSize) {
+			this.zero = zero;
+			this.decimalSeparator = decimalSeparator;
+			this.groupingSeparator = groupingSeparator;
+			this.groupingSize = groupingSize;
+		}
+
+		static Optional<NumberSymbols> of(final Locale locale, final boolean grouping) {
+			if (locale.equals(Locale.US)) {
+				return Optional.of(new NumberSymbols('0', '.', ',', 3));
+			}
+			final DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+			int groupingSize = -1;
+			if (grouping) {
+				final NumberFormat integerFormat = NumberFormat.getIntegerInstance(locale);
+				if (!(integerFormat instanceof DecimalFormat)) {
+					return Optional.empty();
+				}
+				groupingSize = ((DecimalFormat) integerFormat).getGroupingSize();
+				if (groupingSize <= 0) {
+					return Optional.empty();
+				}
+			}
+			return Optional.of(new NumberSymbols(
+					symbols.getZeroDigit(),
+					symbols.getDecimalSeparator(),
+					symbols.getGroupingSeparator(),
+					groupingSize));
+		}
+	}
+
+	private abstract static class ArgumentSegment implements Formatable {
+
+		protected final int index;
+		protected final String specifier;
+
+		ArgumentSegment(final int index, final String specifier) {
+			this.index = index;
+			this.specifier = specifier;
+		}
+
+		@Override
+		public void format(final Appendable appendable, final List<?> args, final Translator translator)
+				throws IOException {
+			if (index < 0 || index >= args.size()) {
+				throw new MissingFormatArgumentException(specifier);
+			}
+			formatArgument(appendable, args.get(index), translator);
+		}
+
+		protected abstract void formatArgument(Appendable appendable, Object arg, Translator translator)
+				throws IOException;
+
+		@Override
+		public String toString() {
+			return "Formatable [" + getClass().getSimpleName() + "(" + index + ", \"" + specifier + "\")]";
+		}
+	}
+
+	private static final class FallbackSegment extends ArgumentSegment {
+
+		private final Locale locale;
+		private final String singleArgumentSpecifier;
+		private final boolean translate;
+
+		FallbackSegment(
+				final Locale locale,
+				final int index,
+				final String specifier,
+				final String singleArgumentSpecifier,
+				final boolean translate) {
+			super(index, specifier);
+			this.locale = locale;
+			this.singleArgumentSpecifier = singleArgumentSpecifier;
+			this.translate = translate;
+		}
+
+		@Override
+		public void format(final Appendable appendable, final List<?> args, final Translator translator)
+				throws IOException {
+			if (index == -2) {
+				formatArgument(appendable, null, translator);
+			} else {
+				super.format(appendable, args, translator);
+			}
+		}
+
+		@Override
+		protected void formatArgument(final Appendable appendable, final Object arg, final Translator translator)
+				throws IOException {
+			final Object value = translate && arg != null ? translator.translate(locale, arg) : arg;
+			final Formatter formatter = new Formatter(appendable, locale).format(singleArgumentSpecifier, value);
+			if (formatter.ioException() != null) {
+				throw formatter.ioException();
+			}
+		}
+	}
+
+	private static final class StringSegment extends ArgumentSegment {
+
+		private final Locale locale;
+		private final int width;
+		private final int precision;
+		private final boolean leftJustify;
+
+		StringSegment(final Locale locale, final int index, final String specifier, final Specifier spec) {
+			super(index, specifier);
+			this.locale = locale;
+			this.width = spec.width;
+			this.precision = spec.precision;
+			this.leftJustify = spec.hasFlag('-');
+		}
+
+		@Override
+		protected void formatArgument(final Appendable appendable, final Object arg, final Translator translator)
+				throws IOException {
+			if (width == -1 && precision == -1) {
+				if (arg == null) {
+					appendable.append("null");
+				} else {
+					translator.translate(appendable, locale, arg);
+				}
+			} else {
+				String s = arg == null ? "null" : translator.translate(locale, arg);
+				if (precision != -1 && precision < s.length()) {
+					s = s.substring(0, precision);
+				}
+				final int padding = width - s.length();
+				if (!leftJustify) {
+					pad(appendable, ' ', padding);
+				}
+				appendable.append(s);
+				if (leftJustify) {
+					pad(appendable, ' ', padding);
+				}
+			}
+		}
+	}
+
+	private abstract static class NumberSegment extends ArgumentSegment {
+
+		private final int width;
+		private final boolean leftJustify;
+		private final boolean zeroPad;
+		private final boolean plus;
+		private final boolean leadingSpace;
+		private final boolean group;
+		private final boolean parentheses;
+		private final NumberSymbols symbols;
+		protected final FallbackSegment fallback;
+
+		NumberSegment(
+				final int index,
+				final String specifier,
+				final Specifier spec,
+				final NumberSymbols symbols,
+				final FallbackSegment fallback) {
+			super(index, specifier);
+			this.width = spec.width;
+			this.leftJustify = spec.hasFlag('-');
+			this.zeroPad = spec.hasFlag('0');
+			this.plus = spec.hasFlag('+');
+			this.leadingSpace = spec.hasFlag(' ');
+			this.group = spec.hasFlag(',');
+			this.parentheses = spec.hasFlag('(');
+			this.symbols = symbols;
+			this.fallback = fallback;
+		}
+
+		/**
+		 * Appends ASCII digits with an optional '.' the way {@link Formatter} does for decimal conversions.
+		 */
+		protected void appendNumber(
+				final Appendable appendable,
+				final boolean negative,
+				final char[] digits,
+				final int from,
+				final int to) throws IOException {
+			int dot = to;
+			for (int j = from; j < to; j++) {
+				if (digits[j] == '.') {
+					dot = j;
+					break;
+				}
+			}
+			final int separators = group ? (dot - from - 1) / symbols.groupingSize : 0;
+			final int magnitudeLength = to - from + separators;
+			final int signLength = negative || plus || leadingSpace ? 1 : 0;
+			final int trailingLength = negative && parentheses ? 1 : 0;
+			int zeros = 0;
+			if (width != -1 && zeroPad) {
+				final int adjustedWidth = trailingLength == 1 ? width - 1 : width;
+				zeros = Math.max(0, adjustedWidth - signLength - magnitudeLength);
+			}
+			final int padding = width - (signLength + zeros + magnitudeLength + trailingLength);
+
+			if (!leftJustify) {
+				pad(appendable, ' ', padding);
+			}
+			if (negative) {
+				appendable.append(parentheses ? '(' : '-');
+			} else if (plus) {
+				appendable.append('+');
+			} else if (leadingSpace) {
+				appendable.append(' ');
+			}
+			pad(appendable, symbols.zero, zeros);
+			for (int j = from; j < to; j++) {
+				if (j == dot) {
+					appendable.append(symbols.decimalSeparator);
+				} else {
+					appendable.append((char) (digits[j] - '0' + symbols.zero));
+					if (group && j < dot - 1 && (dot - j) % symbols.groupingSize == 1) {
+						appendable.append(symbols.groupingSeparator);
+					}
+				}
+			}
+			if (trailingLength == 1) {
+				appendable.append(')');
+			}
+			if (leftJustify) {
+				pad(appendable, ' ', padding);
+			}
+		}
+	}
+
+	private static final class DecimalSegment extends NumberSegment {
+
+		DecimalSegment(
+				final int index,
+				final String specifier,
+				final Specifier spec,
+				final NumberSymbols symbols,
+				final FallbackSegment fallback) {
+			super(index, specifier, spec, symbols, fallback);
+		}
+
+		@Override
+		protected void formatArgument(final Appendable appendable, final Object arg, final Translator translator)
+				throws IOException {
+			if (arg instanceof Integer || arg instanceof Long || arg instanceof Short || arg instanceof Byte) {
+				final long value = ((Number) arg).longValue();
+				final char[] digits = new char[20];
+				int pos = digits.length;
+				long v = value > 0 ? -value : value;
+				do {
+					digits[--pos] = (char) ('0' - (v % 10));
+					v /= 10;
+				} while (v != 0);
+				appendNumber(appendable, value < 0, digits, pos, digits.length);
+			} else {
+				fallback.formatArgument(appendable, arg, translator);
+			}
+		}
+	}
+
+	private static final class FloatSegment extends NumberSegment {
+
+		private final int precision;
+		private final boolean alternate;
+
+		FloatSegment(
+				final int index,
+				final String specifier,
+				final Specifier spec,
+				final NumberSymbols symbols,
+				final FallbackSegment fallback) {
+			super(index, specifier, spec, symbols, fallback);
+			this.precision = spec.precision == -1 ? 6 : spec.precision;
+			this.alternate = spec.hasFlag('#');
+		}
+
+		@Override
+		protected void formatArgument(final Appendable appendable, final Object arg, final Translator translator)
+				throws IOException {
+			if ((arg instanceof Double || arg instanceof Float) && Double.isFinite(((Number) arg).doubleValue())) {
+				final double value = ((Number) arg).doubleValue();
+				// Formatter rounds the shortest decimal representation half up
+				String mantissa = new BigDecimal(Double.toString(Math.abs(value)))
+						.setScale(precision, RoundingMode.HALF_UP)
+						.toPlainString();
+				if (alternate && precision == 0) {
+					mantissa += ".";
+				}
+				final char[] digits = mantissa.toCharArray();
+				appendNumber(appendable, Double.compare(value, 0.0) == -1, digits, 0, digits.length);
+			} else {
+				fallback.formatArgument(appendable, arg, translator);
+			}
+		}
+	}
+
+	private static final class HexSegment extends ArgumentSegment {
+
+		private static final char[] LOWER = "0123456789abcdef".toCharArray();
+		private static final char[] UPPER = "0123456789ABCDEF".toCharArray();
+
+		private final int width;
+		private final boolean leftJustify;
+		private final boolean zeroPad;
+		private final boolean alternate;
+		private final boolean upperCase;
+		private final FallbackSegment fallback;
+
+		HexSegment(final int index, final String specifier, final Specifier spec, final FallbackSegment fallback) {
+			super(index, specifier);
+			this.width = spec.width;
+			this.leftJustify = spec.hasFlag('-');
+			this.zeroPad = spec.hasFlag('0');
+			this.alternate = spec.hasFlag('#');
+			this.upperCase = spec.conversion == 'X';
+			this.fallback = fallback;
+		}
+
+		@Override
+		protected void formatArgument(final Appendable appendable, final Object arg, final Translator translator)
+				throws IOException {
+			final long value;
+			if (arg instanceof Integer) {
+				value = ((Integer) arg) & 0xFFFFFFFFL;
+			} else if (arg instanceof Long) {
+				value = (Long) arg;
+			} else if (arg instanceof Short) {
+				value = ((Short) arg) & 0xFFFFL;
+			} else if (arg instanceof Byte) {
+				value = ((Byte) arg) & 0xFFL;
+			} else {
+				fallback.formatArgument(appendable, arg, translator);
+				return;
+			}
+			final char[] hexDigits = upperCase ? UPPER : LOWER;
+			final char[] digits = new char[16];
+			int pos = digits.length;
+			long v = value;
+			do {
+				digits[--pos] = hexDigits[(int) (v & 0xF)];
+				v >>>= 4;
+			} while (v != 0);
+
+			final int length = digits.length - pos + (alternate ? 2 : 0);
+			final int zeros = zeroPad ? Math.max(0, width - length) : 0;
+			final int padding = width - (length + zeros);
+			if (!leftJustify) {
+				pad(appendable, ' ', padding);
+			}
+			if (alternate) {
+				appendable.append(upperCase ? "0X" : "0x");
+			}
+			pad(appendable, '0', zeros);
+			for (int i = pos; i < digits.length; i++) {
+				appendable.append(digits[i]);
+			}
+			if (leftJustify) {
+				pad(appendable, ' ', padding);
+			}
+		}
+	}
+
+	private static void pad(final Appendable appendable, final char c, final int count) throws IOException {
+		for (int i = 0; i < count; i++) {
+			appendable.append(c);
+		}
+	}
+}
@@ -0,0 +1,924 @@
+package com.github.chisui.translate.format;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.text.ChoiceFormat;
+import java.text.MessageFormat;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import com.github.chisui.translate.Translator;
+
+/**
+ * {@link Format} that parses {@link MessageFormat} patterns once into an immutable chain of literal and
+ * argument {@link Formatable Formatables} instead of creating a {@link MessageFormat} for every message.
+ *
+ * The syntax and the output are the same as the ones of {@link MessageFormat} except for arguments of
+ * placeholders without a format type like <code>{0}</code>. These are translated with the {@link Translator}
+ * directly into the {@link Appendable} just like {@link Format#ofMessageFormat()} does. Arguments of
+ * placeholders with a format type like <code>{0,number}</code> are formatted with the respective
+ * {@link java.text.Format} of the {@link FormatterProvider}, which shares them between all patterns of a
+ * {@link Locale}. <code>date</code> and <code>time</code> arguments may also be <code>java.time</code>
+ * {@link TemporalAccessor TemporalAccessors}, which are formatted with a {@link DateTimeFormatter} of the same style.
+ * {@link Instant Instants} are formatted in the default time zone like {@link java.util.Date Dates}.
+ *
+ * Additionally the ICU format types <code>plural</code> and <code>select</code> are supported, e.g.
+ * <code>{0,plural,=0{no files}one{# file}other{# files}}</code> and
+ * <code>{1,select,female{her}male{his}other{their}}</code>. Plural categories are selected using the
+ * {@link PluralRules} of the {@link Locale}, explicit values like <code>=0</code> take precedence and
+ * <code>offset:n</code> subtracts <code>n</code> before the category is selected. <code>#</code> in a plural case
+ * is replaced with the formatted number minus the offset. Select cases are chosen by the {@link Enum#name()} or
+ * {@link String#valueOf(Object)} of the argument. Both fall back to the required case <code>other</code>.
+ *
+ * The created {@link Formatable Formatables} are thread safe and can be cached with a {@link CachingFormat}.
+ */
+public class CompiledMessageFormat implements Format {
+
+	private static final CompiledMessageFormat INSTANCE = new CompiledMessageFormat();
+
+	private static final int SEG_RAW = 0;
+	private static final int SEG_INDEX = 1;
+	private static final int SEG_TYPE = 2;
+	private static final int SEG_MODIFIER = 3;
+
+	private static final String[] TYPE_KEYWORDS = { "", "number", "date", "time", "choice", "plural", "select" };
+	private static final int TYPE_NULL = 0;
+	private static final int TYPE_NUMBER = 1;
+	private static final int TYPE_DATE = 2;
+	private static final int TYPE_TIME = 3;
+	private static final int TYPE_CHOICE = 4;
+	private static final int TYPE_PLURAL = 5;
+	private static final int TYPE_SELECT = 6;
+
+	private static final String OFFSET = "offset:";
+
+	private final FormatterProvider formatters;
+
+	protected CompiledMessageFormat() {
+		this(FormatterProvider.getDefault());
+	}
+
+	protected CompiledMessageFormat(final FormatterProvider formatters) {
+		this.formatters = requireNonNull(formatters, "formatters must not be null");
+	}
+
+	public static CompiledMessageFormat of() {
+		return INSTANCE;
+	}
+
+	/**
+	 * @param formatters providing the formatters of typed arguments
+	 * @return {@link CompiledMessageFormat} using the given {@link FormatterProvider}
+	 */
+	public static CompiledMessageFormat of(final FormatterProvider formatters) {
+		return new CompiledMessageFormat(formatters);
+	}
+
+	@Override
+	public Formatable toFormatable(final Locale locale, final String pattern) {
+		return compile(locale, pattern, formatters);
+	}
+
+	/**
+	 * Compiles a {@link MessageFormat} pattern into a {@link Formatable}.
+	 *
+	 * @param locale used to format arguments
+	 * @param pattern to compile
+	 * @return the compiled pattern
+	 * @throws IllegalArgumentException if the pattern is invalid
+	 */
+	public static Formatable compile(final Locale locale, final String pattern) {
+		return compile(locale, pattern, FormatterProvider.getDefault());
+	}
+
+	/**
+	 * Compiles a {@link MessageFormat} pattern into a {@link Formatable}.
+	 *
+	 * @param locale used to format arguments
+	 * @param pattern to compile
+	 * @param formatters providing the formatters of typed arguments
+	 * @return the compiled pattern
+	 * @throws IllegalArgumentException if the pattern is invalid
+	 */
+	public static Formatable compile(final Locale locale, final String pattern, final FormatterProvider formatters) {
+		requireNonNull(locale);
+		requireNonNull(formatters);
+		final List<Formatable> segments = new ArrayList<>();
+		parse(pattern, new PatternVisitor() {
+
+			@Override
+			public void literal(final String text) {
+				segments.add(Formatable.of(text));
+			}
+
+			@Override
+			public void argument(final int index, final String type, final String style) {
+				segments.add(CompiledMessageFormat.argument(locale, formatters, index, type, style));
+			}
+		});
+		return sequence(segments);
+	}
+
+	/**
+	 * Compiles a {@link MessageFormat} pattern for {@link Format#ofMessageFormat()}, which only accepts the format
+	 * types of {@link MessageFormat}.
+	 *
+	 * @param locale used to format arguments
+	 * @param pattern to compile
+	 * @param formatters providing the formatters of typed arguments
+	 * @return the compiled pattern
+	 * @throws IllegalArgumentException if the pattern is invalid or uses <code>plural</code> or <code>select</code>
+	 */
+	static Formatable compileStandard(final Locale locale, final String pattern, final FormatterProvider formatters) {
+		requireNonNull(locale);
+		requireNonNull(formatters);
+		final List<Formatable> segments = new ArrayList<>();
+		parse(pattern, new PatternVisitor() {
+
+			@Override
+			public void literal(final String text) {
+				segments.add(Formatable.of(text));
+			}
+
+			@Override
+			public void argument(final int index, final String type, final String style) {
+				final int typeKeyword = type.isEmpty() ? TYPE_NULL : findKeyword(type, TYPE_KEYWORDS);
+				if (typeKeyword == TYPE_PLURAL || typeKeyword == TYPE_SELECT) {
+					throw new IllegalArgumentException("unknown format type: " + type);
+				}
+				segments.add(CompiledMessageFormat.argument(locale, formatters, index, type, style));
+			}
+		});
+		return sequence(segments);
+	}
+
+	/**
+	 * Receives the parts of a parsed {@link MessageFormat} pattern.
+	 */
+	public interface PatternVisitor {
+
+		/**
+		 * @param text unquoted literal text, never empty
+		 */
+		void literal(String text);
+
+		/**
+		 * @param index of the argument
+		 * @param type of the argument as written in the pattern, empty if none is specified
+		 * @param style of the argument as written in the pattern, empty if none is specified
+		 */
+		void argument(int index, String type, String style);
+	}
+
+	/**
+	 * Parses a {@link MessageFormat} pattern with the same rules {@link MessageFormat#applyPattern(String)}
+	 * uses.
+	 *
+	 * @param pattern to parse
+	 * @param visitor receiving the parts of the pattern in order
+	 * @throws IllegalArgumentException if the pattern is invalid
+	 */
+	public static void parse(final String pattern, final PatternVisitor visitor) {
+		requireNonNull(visitor);
+		final StringBuilder[] segments = new StringBuilder[4];
+		segments[SEG_RAW] = new StringBuilder();
+		int part = SEG_RAW;
+		boolean inQuote = false;
+		int braceStack = 0;
+		for (int i = 0; i < pattern.length(); ++i) {
+			final char ch = pattern.charAt(i);
+			if (part == SEG_RAW) {
+				if (ch == '\'') {
+					if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '\'') {
+						segments[part].append(ch);
+						++i;
+					} else {
+						inQuote = !inQuote;
+					}
+				} else if (ch == '{' && !inQuote) {
+					if (segments[SEG_RAW].length() > 0) {
+						visitor.literal(segments[SEG_RAW].toString());
+						segments[SEG_RAW].setLength(0);
+					}
+					part = SEG_INDEX;
+					segments[SEG_INDEX] = new StringBuilder();
+				} else {
+					segments[part].append(ch);
+				}
+			} else if (inQuote) {
+				segments[part].append(ch);
+				if (ch == '\'') {
+					inQuote = false;
+				}
+			} else {
+				switch (ch) {
+				case ',':
+					if (part < SEG_MODIFIER) {
+						segments[++part] = new StringBuilder();
+					} else {
+						segments[part].append(ch);
+					}
+					break;
+				case '{':
+					++braceStack;
+					segments[part].append(ch);
+					break;
+				case '}':
+					if (braceStack == 0) {
+						part = SEG_RAW;
+						visitor.argument(
+								parseIndex(segments[SEG_INDEX].toString()),
+								segments[SEG_TYPE] == null ? "" : segments[SEG_TYPE].toString(),
+								segments[SEG_MODIFIER] == null ? "" : segments[SEG_MODIFIER].toString());
+						segments[SEG_INDEX] = null;
+						segments[SEG_TYPE] = null;
+						segments[SEG_MODIFIER] = null;
+					} else {
+						--braceStack;
+						segments[part].append(ch);
+					}
+					break;
+				case ' ':
+					if (part != SEG_TYPE || segments[SEG_TYPE].length() > 0) {
+						segments[part].append(ch);
+					}
+					break;
+				case '\'':
+					inQuote = true;
+					segments[part].append(ch);
+					break;
+				default:
+					segments[part].append(ch);
+					break;
+				}
+			}
+		}
+		if (braceStack == 0 && part != SEG_RAW) {
+			throw new IllegalArgumentException("Unmatched braces in the pattern.");
+		}
+		if (segments[SEG_RAW].length() > 0) {
+			visitor.literal(segments[SEG_RAW].toString());
+		}
+	}
+
+	private static int parseIndex(final String index) {
+		final int argumentNumber;
+		try {
+			argumentNumber = Integer.parseInt(index);
+		} catch (final NumberFormatException e) {
+			throw new IllegalArgumentException("can't parse argument number: " + index, e);
+		}
+		if (argumentNumber < 0) {
+			throw new IllegalArgumentException("negative argument number: " + argumentNumber);
+		}
+		return argumentNumber;
+	}
+
+	/**
+	 * Creates the {@link ArgumentFormatable} for a single placeholder.
+	 *
+	 * @param locale used to format the argument
+	 * @param index of the argument
+	 * @param type of the placeholder, empty if none is specified
+	 * @param style of the placeholder, empty if none is specified
+	 * @return the {@link ArgumentFormatable}
+	 * @throws IllegalArgumentException if type or style are invalid
+	 */
+	public static ArgumentFormatable argument(
+			final Locale locale,
+			final int index,
+			final String type,
+			final String style) {
+		return argument(locale, FormatterProvider.getDefault(), index, type, style);
+	}
+
+	/**
+	 * Creates the {@link ArgumentFormatable} for a single placeholder.
+	 *
+	 * @param locale used to format the argument
+	 * @param formatters providing the formatters of typed arguments
+	 * @param index of the argument
+	 * @param type of the placeholder, empty if none is specified
+	 * @param style of the placeholder, empty if none is specified
+	 * @return the {@link ArgumentFormatable}
+	 * @throws IllegalArgumentException if type or style are invalid
+	 */
+	public static ArgumentFormatable argument(
+			final Locale locale,
+			final FormatterProvider formatters,
+			final int index,
+			final String type,
+			final String style) {
+		final int typeKeyword = type.isEmpty() ? TYPE_NULL : findKeyword(type, TYPE_KEYWORDS);
+		switch (typeKeyword) {
+		case TYPE_NULL:
+			return new TranslatedArgumentFormatable(locale, index);
+		case TYPE_NUMBER:
+			return new SubformatArgumentFormatable(index, formatters.getNumberFormat(locale, style));
+		case TYPE_DATE:
+			return new TemporalArgumentFormatable(index, formatters.getDateFormat(locale, style),
+					() -> formatters.getDateFormatter(locale, style));
+		case TYPE_TIME:
+			return new TemporalArgumentFormatable(index, formatters.getTimeFormat(locale, style),
+					() -> formatters.getTimeFormatter(locale, style));
+		case TYPE_CHOICE:
+			return choice(locale, formatters, index, style);
+		case TYPE_PLURAL:
+			return plural(locale, formatters, index, style);
+		case TYPE_SELECT:
+			return select(locale, formatters, index, style);
+		default:
+			throw new IllegalArgumentException("unknown format type: " + type);
+		}
+	}
+
+	private static ArgumentFormatable choice(
+			final Locale locale,
+			final FormatterProvider formatters,
+			final int index,
+			final String style) {
+		final ChoiceFormat choiceFormat;
+		try {
+			choiceFormat = new ChoiceFormat(style);
+		} catch (final Exception e) {
+			throw new IllegalArgumentException("Choice Pattern incorrect: " + style, e);
+		}
+		final Object[] formats = choiceFormat.getFormats();
+		final Formatable[] choices = new Formatable[formats.length];
+		for (int i = 0; i < formats.length; i++) {
+			choices[i] = choice(locale, formatters, (String) formats[i]);
+		}
+		return new ChoiceArgumentFormatable(index, choiceFormat.getLimits(), choices);
+	}
+
+	private static Formatable choice(final Locale locale, final FormatterProvider formatters, final String choice) {
+		if (choice.indexOf('{') < 0) {
+			return Formatable.of(choice);
+		}
+		try {
+			return compile(locale, choice, formatters);
+		} catch (final IllegalArgumentException e) {
+			// MessageFormat only fails once the broken choice is selected
+			return (appendable, args, translator) -> {
+				throw e;
+			};
+		}
+	}
+
+	private static ArgumentFormatable plural(
+			final Locale locale,
+			final FormatterProvider formatters,
+			final int index,
+			final String style) {
+		final List<String> selectors = new ArrayList<>();
+		final List<String> messages = new ArrayList<>();
+		final long offset = parseCases(style, true, selectors, messages);
+		final PooledFormat numberFormat = formatters.getNumberFormat(locale, "");
+		final List<Long> explicitValues = new ArrayList<>();
+		final List<Formatable> explicitCases = new ArrayList<>();
+		final Formatable[] cases = new Formatable[PluralRules.Category.values().length];
+		for (int i = 0; i < selectors.size(); i++) {
+			final String selector = selectors.get(i);
+			final Formatable message = pluralCase(locale, formatters, index, offset, numberFormat, messages.get(i));
+			if (selector.startsWith("=")) {
+				try {
+					explicitValues.add(Long.parseLong(selector.substring(1)));
+				} catch (final NumberFormatException e) {
+					throw new IllegalArgumentException("invalid explicit plural value: " + selector, e);
+				}
+				explicitCases.add(message);
+			} else {
+				final PluralRules.Category category = PluralRules.Category.forKeyword(selector);
+				if (category == null) {
+					throw new IllegalArgumentException("unknown plural category: " + selector);
+				}
+				cases[category.ordinal()] = message;
+			}
+		}
+		if (cases[PluralRules.Category.OTHER.ordinal()] == null) {
+			throw new IllegalArgumentException("plural pattern has no 'other' case: " + style);
+		}
+		final long[] values = new long[explicitValues.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = explicitValues.get(i);
+		}
+		return new PluralArgumentFormatable(index, PluralRules.forLocale(locale), offset,
+				values, explicitCases.toArray(new Formatable[explicitCases.size()]), cases);
+	}
+
+	/**
+	 * Compiles a plural case, replacing <code>#</code> outside of quotes and nested placeholders.
+	 */
+	private static Formatable pluralCase(
+			final Locale locale,
+			final FormatterProvider formatters,
+			final int index,
+			final long offset,
+			final PooledFormat numberFormat,
+			final String message) {
+		final List<Formatable> segments = new ArrayList<>();
+		boolean inQuote = false;
+		int depth = 0;
+		int start = 0;
+		for (int i = 0; i < message.length(); i++) {
+			final char ch = message.charAt(i);
+			if (ch == '\'') {
+				inQuote = !inQuote;
+			} else if (!inQuote && ch == '{') {
+				depth++;
+			} else if (!inQuote && ch == '}') {
+				depth--;
+			} else if (!inQuote && depth == 0 && ch == '#') {
+				if (i > start) {
+					segments.add(compile(locale, message.substring(start, i), formatters));
+				}
+				segments.add(new NumberSignFormatable(index, offset, numberFormat));
+				start = i + 1;
+			}
+		}
+		if (start < message.length()) {
+			segments.add(compile(locale, message.substring(start), formatters));
+		}
+		return sequence(segments);
+	}
+
+	private static ArgumentFormatable select(
+			final Locale locale,
+			final FormatterProvider formatters,
+			final int index,
+			final String style) {
+		final List<String> selectors = new ArrayList<>();
+		final List<String> messages = new ArrayList<>();
+		parseCases(style, false, selectors, messages);
+		final Map<String, Formatable> cases = new HashMap<>();
+		for (int i = 0; i < selectors.size(); i++) {
+			cases.put(selectors.get(i), compile(locale, messages.get(i), formatters));
+		}
+		final Formatable other = cases.get("other");
+		if (other == null) {
+			throw new IllegalArgumentException("select pattern has no 'other' case: " + style);
+		}
+		return new SelectArgumentFormatable(index, cases, other);
+	}
+
+	/**
+	 * Parses the cases <code>selector{message}</code> of a plural or select style.
+	 *
+	 * @return the offset
+	 */
+	private static long parseCases(
+			final String style,
+			final boolean allowOffset,
+			final List<String> selectors,
+			final List<String> messages) {
+		long offset = 0;
+		int i = skipWhitespace(style, 0);
+		if (allowOffset && style.startsWith(OFFSET, i)) {
+			final int start = i + OFFSET.length();
+			i = start;
+			while (i < style.length() && !Character.isWhitespace(style.charAt(i)) && style.charAt(i) != '{') {
+				i++;
+			}
+			try {
+				offset = Long.parseLong(style.substring(start, i).trim());
+			} catch (final NumberFormatException e) {
+				throw new IllegalArgumentException("invalid plural offset: " + style.substring(start, i), e);
+			}
+			i = skipWhitespace(style, i);
+		}
+		while (i < style.length()) {
+			final int selectorStart = i;
+			while (i < style.length() && !Character.isWhitespace(style.charAt(i)) && style.charAt(i) != '{') {
+				i++;
+			}
+			final String selector = style.substring(selectorStart, i);
+			i = skipWhitespace(style, i);
+			if (selector.isEmpty() || i >= style.length() || style.charAt(i) != '{') {
+				throw new IllegalArgumentException("expected selector followed by '{' in: " + style);
+			}
+			if (selectors.contains(selector)) {
+				throw new IllegalArgumentException("duplicate selector " + selector + " in: " + style);
+			}
+			final int messageStart = ++i;
+			boolean inQuote = false;
+			int depth = 0;
+			for (; i < style.length(); i++) {
+				final char ch = style.charAt(i);
+				if (ch == '\'') {
+					inQuote = !inQuote;
+				} else if (!inQuote && ch == '{') {
+					depth++;
+				} else if (!inQuote && ch == '}') {
+					if (depth == 0) {
+						break;
+					}
+					depth--;
+				}
+			}
+			if (i >= style.length()) {
+				throw new IllegalArgumentException("unmatched braces in: " + style);
+			}
+			selectors.add(selector);
+			messages.add(style.substring(messageStart, i));
+			i = skipWhitespace(style, i + 1);
+		}
+		return offset;
+	}
+
+	private static int skipWhitespace(final String s, int i) {
+		while (i < s.length() && Character.isWhitespace(s.charAt(i))) {
+			i++;
+		}
+		return i;
+	}
+
+	static int findKeyword(final String s, final String[] list) {
+		for (int i = 0; i < list.length; ++i) {
+			if (s.equals(list[i])) {
+				return i;
+			}
+		}
+		final String ls = s.trim().toLowerCase(Locale.ROOT);
+		if (!ls.equals(s)) {
+			for (int i = 0; i < list.length; ++i) {
+				if (ls.equals(list[i])) {
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+
+	static Formatable sequence(final List<Formatable> segments) {
+		switch (segments.size()) {
+		case 0:
+			return Formatable.noop();
+		case 1:
+			return segments.get(0);
+		default:
+			return new SequenceFormatable(segments.toArray(new Formatable[segments.size()]));
+		}
+	}
+
+	/**
+	 * {@link Formatable} that formats a fixed sequence of {@link Formatable Formatables}.
+	 */
+	public static final class SequenceFormatable implements Formatable {
+
+		private final Formatable[] segments;
+
+		SequenceFormatable(final Formatable[] segments) {
+			this.segments = segments;
+		}
+
+		@Override
+		public void format(final Appendable appendable, final List<?> args, final Translator translator)
+				throws IOException {
+			for (final Formatable segment : segments) {
+				segment.format(appendable, args, translator);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "Formatable " + Arrays.toString(segments);
+		}
+	}
+
+	/**
+	 * {@link Formatable} for a single placeholder of a pattern.
+	 *
+	 * Missing arguments are formatted as the placeholder <code>{index}</code> and <code>null</code> arguments
+	 * as <code>"null"</code> just like {@link MessageFormat} does.
+	 */
+	public abstract static class ArgumentFormatable implements Formatable {
+
+		protected final int index;
+
+		protected ArgumentFormatable(final int index) {
+			this.index = index;
+		}
+
+		public int getIndex() {
+			return index;
+		}
+
+		@Override
+		public void format(final Appendable appendable, final List<?> args, final Translator translator)
+				throws IOException {
+			if (index >= args.size()) {
+				appendable.append('{').append(String.valueOf(index)).append('}');
+			} else {
+				formatValue(appendable, args.get(index), args, translator);
+			}
+		}
+
+		/**
+		 * Formats a single argument value without looking it up in the argument list first.
+		 *
+		 * @param appendable to format into
+		 * @param arg value of the argument, may be <code>null</code>
+		 * @param args all arguments, only needed by <code>choice</code> arguments with nested placeholders
+		 * @param translator used to translate arguments
+		 * @throws IOException if the {@link Appendable} throws
+		 */
+		public void formatValue(
+				final Appendable appendable,
+				final Object arg,
+				final List<?> args,
+				final Translator translator) throws IOException {
+			if (arg == null) {
+				appendable.append("null");
+			} else {
+				formatArgument(appendable, arg, args, translator);
+			}
+		}
+
+		protected abstract void formatArgument(
+				Appendable appendable,
+				Object arg,
+				List<?> args,
+				Translator translator) throws IOException;
+	}
+
+	static final class TranslatedArgumentFormatable extends ArgumentFormatable {
+
+		private final Locale locale;
+
+		TranslatedArgumentFormatable(final Locale locale, final int index) {
+			super(index);
+			this.locale = requireNonNull(locale);
+		}
+
+		@Override
+		protected void formatArgument(
+				final Appendable appendable,
+				final Object arg,
+				final List<?> args,
+				final Translator translator) throws IOException {
+			translator.translate(appendable, locale, arg);
+		}
+
+		@Override
+		public String toString() {
+			return "Formatable [translate(" + index + ")]";
+		}
+	}
+
+	static final class SubformatArgumentFormatable extends ArgumentFormatable {
+
+		private final PooledFormat subformat;
+
+		SubformatArgumentFormatable(final int index, final PooledFormat subformat) {
+			super(index);
+			this.subformat = requireNonNull(subformat);
+		}
+
+		@Override
+		protected void formatArgument(
+				final Appendable appendable,
+				final Object arg,
+				final List<?> args,
+				final Translator translator) throws IOException {
+			appendable.append(subformat.format(arg));
+		}
+
+		@Override
+		public String toString() {
+			return "Formatable [format(" + index + ", " + subformat.getFormatClass().getSimpleName() + ")]";
+		}
+	}
+
+	/**
+	 * Formats <code>date</code> and <code>time</code> arguments. {@link java.util.Date Dates} and {@link Number
+	 * Numbers} are formatted with a {@link java.text.DateFormat}, {@link TemporalAccessor TemporalAccessors} with a
+	 * {@link DateTimeFormatter} that is only resolved once the first one is formatted.
+	 */
+	static final class TemporalArgumentFormatable extends ArgumentFormatable {
+
+		private final PooledFormat dateFormat;
+		private final Supplier<DateTimeFormatter> formatterSupplier;
+		private volatile DateTimeFormatter formatter;
+
+		TemporalArgumentFormatable(
+				final int index,
+				final PooledFormat dateFormat,
+				final Supplier<DateTimeFormatter> formatterSupplier) {
+			super(index);
+			this.dateFormat = requireNonNull(dateFormat);
+			this.formatterSupplier = requireNonNull(formatterSupplier);
+		}
+
+		@Override
+		protected void formatArgument(
+				final Appendable appendable,
+				final Object arg,
+				final List<?> args,
+				final Translator translator) throws IOException {
+			if (!(arg instanceof TemporalAccessor)) {
+				appendable.append(dateFormat.format(arg));
+				return;
+			}
+			DateTimeFormatter formatter = this.formatter;
+			if (formatter == null) {
+				formatter = formatterSupplier.get();
+				this.formatter = formatter;
+			}
+			final TemporalAccessor temporal = arg instanceof Instant
+					? ((Instant) arg).atZone(ZoneId.systemDefault())
+					: (TemporalAccessor) arg;
+			try {
+				formatter.formatTo(temporal, appendable);
+			} catch (final DateTimeException e) {
+				if (e.getCause() instanceof IOException) {
+					throw (IOException) e.getCause();
+				}
+				throw new IllegalArgumentException("Cannot format given Object as a Date: " + e.getMessage(), e);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "Formatable [format(" + index + ", " + dateFormat.getFormatClass().getSimpleName() + ")]";
+		}
+	}
+
+	static final class ChoiceArgumentFormatable extends ArgumentFormatable {
+
+		private final double[] limits;
+		private final Formatable[] choices;
+
+		ChoiceArgumentFormatable(final int index, final double[] limits, final Formatable[] choices) {
+			super(index);
+			this.limits = limits;
+			this.choices = choices;
+		}
+
+		@Override
+		protected void formatArgument(
+				final Appendable appendable,
+				final Object arg,
+				final List<?> args,
+				final Translator translator) throws IOException {
+			if (!(arg instanceof Number)) {
+				throw new IllegalArgumentException("Cannot format given Object as a Number");
+			}
+			final double number = ((Number) arg).doubleValue();
+			int i;
+			for (i = 0; i < limits.length; ++i) {
+				if (!(number >= limits[i])) {
+					break;
+				}
+			}
+			choices[Math.max(i - 1, 0)].format(appendable, args, translator);
+		}
+
+		@Override
+		public String toString() {
+			return "Formatable [choice(" + index + ", " + Arrays.toString(limits) + ", "
+					+ Arrays.toString(choices) + ")]";
+		}
+	}
+
+	static final class PluralArgumentFormatable extends ArgumentFormatable {
+
+		private final PluralRules rules;
+		private final long offset;
+		private final long[] explicitValues;
+		private final Formatable[] explicitCases;
+		// indexed by PluralRules.Category.ordinal(), OTHER is never null
+		private final Formatable[] cases;
+
+		PluralArgumentFormatable(
+				final int index,
+				final PluralRules rules,
+				final long offset,
+				final long[] explicitValues,
+				final Formatable[] explicitCases,
+				final Formatable[] cases) {
+			super(index);
+			this.rules = rules;
+			this.offset = offset;
+			this.explicitValues = explicitValues;
+			this.explicitCases = explicitCases;
+			this.cases = cases;
+		}
+
+		@Override
+		protected void formatArgument(
+				final Appendable appendable,
+				final Object arg,
+				final List<?> args,
+				final Translator translator) throws IOException {
+			if (!(arg instanceof Number)) {
+				throw new IllegalArgumentException("Cannot format given Object as a Number");
+			}
+			select((Number) arg).format(appendable, args, translator);
+		}
+
+		private Formatable select(final Number number) {
+			final PluralRules.Category category;
+			if (number instanceof Integer || number instanceof Long
+					|| number instanceof Short || number instanceof Byte) {
+				final long value = number.longValue();
+				for (int i = 0; i < explicitValues.length; i++) {
+					if (explicitValues[i] == value) {
+						return explicitCases[i];
+					}
+				}
+				category = rules.select(value - offset);
+			} else {
+				final double value = number.doubleValue();
+				for (int i = 0; i < explicitValues.length; i++) {
+					if (explicitValues[i] == value) {
+						return explicitCases[i];
+					}
+				}
+				category = offset == 0 ? rules.select(number) : rules.select(value - offset);
+			}
+			final Formatable selected = cases[category.ordinal()];
+			return selected != null ? selected : cases[PluralRules.Category.OTHER.ordinal()];
+		}
+
+		@Override
+		public String toString() {
+			return "Formatable [plural(" + index + ", " + rules + ")]";
+		}
+	}
+
+	/**
+	 * Formats <code>#</code> of a plural case.
+	 */
+	static final class NumberSignFormatable extends ArgumentFormatable {
+
+		private final long offset;
+		private final PooledFormat numberFormat;
+
+		NumberSignFormatable(final int index, final long offset, final PooledFormat numberFormat) {
+			super(index);
+			this.offset = offset;
+			this.numberFormat = requireNonNull(numberFormat);
+		}
+
+		@Override
+		protected void formatArgument(
+				final Appendable appendable,
+				final Object arg,
+				final List<?> args,
+				final Translator translator) throws IOException {
+			final Object number;
+			if (offset == 0) {
+				number = arg;
+			} else if (arg instanceof Integer || arg instanceof Long || arg instanceof Short || arg instanceof Byte) {
+				number = ((Number) arg).longValue() - offset;
+			} else {
+				number = ((Number) arg).doubleValue() - offset;
+			}
+			appendable.append(numberFormat.format(number));
+		}
+
+		@Override
+		public String toString() {
+			return "Formatable [#" + index + "]";
+		}
+	}
+
+	static final class SelectArgumentFormatable extends ArgumentFormatable {
+
+		private final Map<String, Formatable> cases;
+		private final Formatable other;
+
+		SelectArgumentFormatable(final int index, final Map<String, Formatable> cases, final Formatable other) {
+			super(index);
+			this.cases = cases;
+			this.other = other;
+		}
+
+		@Override
+		protected void formatArgument(
+				final Appendable appendable,
+				final Object arg,
+				final List<?> args,
+				final Translator translator) throws IOException {
+			final String key = arg instanceof Enum ? ((Enum<?>) arg).name() : String.valueOf(arg);
+			final Formatable selected = cases.get(key);
+			(selected != null ? selected : other).format(appendable, args, translator);
+		}
+
+		@Override
+		public String toString() {
+			return "Formatable [select(" + index + ", " + cases.keySet() + ")]";
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package com.github.chisui.translate.format;
 
+import java.io.UncheckedIOException;
 import java.text.MessageFormat;
 import java.util.Formatter;
 import java.util.Locale;
@@ -8,21 +9,76 @@ import java.util.Locale;
 public interface Format {
 
 	Formatable toFormatable(Locale locale, String message);
-	
+
+	/**
+	 * Creates a {@link CachingFormat} that caches the {@link Formatable Formatables} created by this
+	 * {@link Format}.
+	 *
+	 * @param maximumSize maximum number of cached {@link Formatable Formatables}
+	 * @return the caching {@link Format}
+	 */
+	default CachingFormat cached(int maximumSize) {
+		return new CachingFormat(this, maximumSize);
+	}
+
+	/**
+	 * Creates a {@link Format} that formats messages using {@link Formatter}. Arguments are passed as
+	 * {@link java.util.Formattable Formattables} so <code>%s</code> translates them directly into the output.
+	 *
+	 * @return the {@link Format}
+	 */
 	static Format ofFormatter() {
-		return (locale, format) -> (appendable, args, translator) ->
-				new Formatter(appendable, locale).format(format, args.stream()
-						.map(arg -> translator.translate(locale, arg))
-						.toArray());
+		return (locale, format) -> (appendable, args, translator) -> {
+			final Object[] formattables = new Object[args.size()];
+			for (int i = 0; i < formattables.length; i++) {
+				formattables[i] = new TranslatingFormattable(locale, args.get(i), translator);
+			}
+			final Formatter formatter;
+			try {
+				formatter = new Formatter(appendable, locale).format(format, formattables);
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+			if (formatter.ioException() != null) {
+				throw formatter.ioException();
+			}
+		};
 	}
-	
+
+	/**
+	 * Creates a {@link Format} for {@link MessageFormat} patterns. Arguments of placeholders without a format type
+	 * like <code>{0}</code> are translated directly into the output. Arguments of typed placeholders like
+	 * <code>{0,number}</code> are formatted with the formats {@link FormatterProvider#getDefault()} shares between
+	 * all patterns of a {@link Locale}, see {@link CompiledMessageFormat}. Unlike
+	 * {@link #ofCompiledMessageFormat()} only the format types of {@link MessageFormat} are accepted.
+	 *
+	 * @return the {@link Format}
+	 */
 	static Format ofMessageFormat() {
-		return (locale, pattern) -> {
-			MessageFormat format = new MessageFormat(pattern, locale);
-			return (appendable, args, translator) -> appendable.append(format.format(args.stream()
-							.map(arg -> translator.translate(locale, arg))
-							.toArray()));
-		};
+		return (locale, pattern) -> CompiledMessageFormat.compileStandard(
+				locale, pattern, FormatterProvider.getDefault());
 	}
-	
+
+	/**
+	 * Creates a {@link Format} that compiles {@link java.text.MessageFormat} patterns once into a chain of
+	 * {@link Formatable Formatables}.
+	 *
+	 * @return the {@link CompiledMessageFormat}
+	 * @see CompiledMessageFormat
+	 */
+	static CompiledMessageFormat ofCompiledMessageFormat() {
+		return CompiledMessageFormat.of();
+	}
+
+	/**
+	 * Creates a {@link Format} that compiles {@link Formatter} format strings once into a chain of
+	 * {@link Formatable Formatables}.
+	 *
+	 * @return the {@link CompiledFormatterFormat}
+	 * @see CompiledFormatterFormat
+	 */
+	static CompiledFormatterFormat ofCompiledFormatter() {
+		return CompiledFormatterFormat.of();
+	}
+
 }
@@ -3,10 +3,12 @@ package com.github.chisui.translate.format;
 import static java.util.Objects.requireNonNull;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.function.BiFunction;
 
 import com.github.chisui.translate.Translator;
+import com.github.chisui.translate.Utf8Appendable;
 
 @FunctionalInterface
 public interface Formatable {
@@ -89,6 +91,7 @@ public interface Formatable {
 	class StringFormatable implements Formatable {
 
 		private final String str;
+		private volatile byte[] utf8;
 
 		public StringFormatable(String str) {
 			this.str = requireNonNull(str);
@@ -96,7 +99,23 @@ public interface Formatable {
 
 		@Override
 		public void format(Appendable appendable, List<?> args, Translator translator) throws IOException {
-			appendable.append(str);
+			if (appendable instanceof Utf8Appendable) {
+				((Utf8Appendable) appendable).appendUtf8(getUtf8());
+			} else {
+				appendable.append(str);
+			}
+		}
+
+		/**
+		 * @return the string encoded as UTF-8, encoded once on first use
+		 */
+		private byte[] getUtf8() {
+			byte[] bytes = utf8;
+			if (bytes == null) {
+				bytes = str.getBytes(StandardCharsets.UTF_8);
+				utf8 = bytes;
+			}
+			return bytes;
 		}
 
 		@Override
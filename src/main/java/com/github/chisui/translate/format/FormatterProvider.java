@@ -0,0 +1,207 @@
+package com.github.chisui.translate.format;
+
+import static java.util.Objects.requireNonNull;
+
+import java.text.DateFormat;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
+import java.time.chrono.Chronology;
+import java.time.chrono.IsoChronology;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.Calendar;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.github.chisui.translate.lookup.LocaleRegistry;
+import com.github.chisui.translate.lookup.LocaleTable;
+
+/**
+ * Provides the formatters of typed {@link java.text.MessageFormat} arguments like <code>{0,number,percent}</code>
+ * or <code>{1,date,short}</code>. Every formatter is created once per {@link Locale} and style, so locale symbol
+ * tables and patterns are not resolved again for every compiled pattern.
+ * <p>
+ * {@link NumberFormat NumberFormats} and {@link DateFormat DateFormats} are not thread safe and are shared as
+ * {@link PooledFormat PooledFormats}. {@link DateTimeFormatter DateTimeFormatters} for <code>java.time</code>
+ * arguments are immutable and shared directly. Styles are the ones {@link java.text.MessageFormat} accepts, custom
+ * date and time patterns are interpreted as {@link DateTimeFormatter} patterns for <code>java.time</code>
+ * arguments. Formatters are never evicted, a provider is meant for the bounded set of styles used by messages.
+ */
+public final class FormatterProvider {
+
+	private static final FormatterProvider DEFAULT = new FormatterProvider(LocaleRegistry.getDefault());
+
+	private static final String[] NUMBER_MODIFIER_KEYWORDS = { "", "currency", "percent", "integer" };
+	private static final int MODIFIER_DEFAULT = 0;
+	private static final int MODIFIER_CURRENCY = 1;
+	private static final int MODIFIER_PERCENT = 2;
+	private static final int MODIFIER_INTEGER = 3;
+
+	private static final String[] DATE_TIME_MODIFIER_KEYWORDS = { "", "short", "medium", "long", "full" };
+	private static final int[] DATE_TIME_MODIFIERS = {
+			DateFormat.DEFAULT, DateFormat.SHORT, DateFormat.MEDIUM, DateFormat.LONG, DateFormat.FULL };
+	private static final FormatStyle[] FORMAT_STYLES = {
+			FormatStyle.MEDIUM, FormatStyle.SHORT, FormatStyle.MEDIUM, FormatStyle.LONG, FormatStyle.FULL };
+
+	private final LocaleTable<LocaleFormatters> formatters;
+	private final int poolSize;
+
+	public FormatterProvider(final LocaleRegistry registry) {
+		this(registry, Runtime.getRuntime().availableProcessors() * 2);
+	}
+
+	/**
+	 * @param registry to intern the {@link Locale Locales} with
+	 * @param poolSize maximum number of retained instances of every {@link PooledFormat}
+	 */
+	public FormatterProvider(final LocaleRegistry registry, final int poolSize) {
+		if (poolSize < 1) {
+			throw new IllegalArgumentException("poolSize has to be positive but was " + poolSize);
+		}
+		this.formatters = requireNonNull(registry, "registry must not be null").newTable();
+		this.poolSize = poolSize;
+	}
+
+	/**
+	 * @return provider shared by all components that are not given one explicitly
+	 */
+	public static FormatterProvider getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * @param locale of the format
+	 * @param style <code>currency</code>, <code>percent</code>, <code>integer</code>, a {@link DecimalFormat}
+	 *        pattern or empty
+	 * @return the shared {@link NumberFormat}
+	 * @throws IllegalArgumentException if the style is an invalid pattern
+	 */
+	public PooledFormat getNumberFormat(final Locale locale, final String style) {
+		return forLocale(locale).numberFormats.computeIfAbsent(style, s -> pooled(numberFormat(locale, s)));
+	}
+
+	/**
+	 * @param locale of the format
+	 * @param style <code>short</code>, <code>medium</code>, <code>long</code>, <code>full</code>, a
+	 *        {@link SimpleDateFormat} pattern or empty
+	 * @return the shared {@link DateFormat} formatting dates
+	 * @throws IllegalArgumentException if the style is an invalid pattern
+	 */
+	public PooledFormat getDateFormat(final Locale locale, final String style) {
+		return forLocale(locale).dateFormats.computeIfAbsent(style, s -> pooled(dateFormat(locale, true, s)));
+	}
+
+	/**
+	 * @param locale of the format
+	 * @param style <code>short</code>, <code>medium</code>, <code>long</code>, <code>full</code>, a
+	 *        {@link SimpleDateFormat} pattern or empty
+	 * @return the shared {@link DateFormat} formatting times
+	 * @throws IllegalArgumentException if the style is an invalid pattern
+	 */
+	public PooledFormat getTimeFormat(final Locale locale, final String style) {
+		return forLocale(locale).timeFormats.computeIfAbsent(style, s -> pooled(dateFormat(locale, false, s)));
+	}
+
+	/**
+	 * @param locale of the formatter, its calendar is used as the chronology
+	 * @param style <code>short</code>, <code>medium</code>, <code>long</code>, <code>full</code>, a
+	 *        {@link DateTimeFormatter} pattern or empty
+	 * @return the {@link DateTimeFormatter} formatting dates
+	 * @throws IllegalArgumentException if the style is an invalid pattern
+	 */
+	public DateTimeFormatter getDateFormatter(final Locale locale, final String style) {
+		return forLocale(locale).dateFormatters.computeIfAbsent(style, s -> dateTimeFormatter(locale, true, s));
+	}
+
+	/**
+	 * @param locale of the formatter, its calendar is used as the chronology
+	 * @param style <code>short</code>, <code>medium</code>, <code>long</code>, <code>full</code>, a
+	 *        {@link DateTimeFormatter} pattern or empty
+	 * @return the {@link DateTimeFormatter} formatting times
+	 * @throws IllegalArgumentException if the style is an invalid pattern
+	 */
+	public DateTimeFormatter getTimeFormatter(final Locale locale, final String style) {
+		return forLocale(locale).timeFormatters.computeIfAbsent(style, s -> dateTimeFormatter(locale, false, s));
+	}
+
+	private LocaleFormatters forLocale(final Locale locale) {
+		return formatters.computeIfAbsent(requireNonNull(locale, "locale must not be null"),
+				handle -> new LocaleFormatters());
+	}
+
+	private PooledFormat pooled(final java.text.Format format) {
+		return PooledFormat.of(format, poolSize);
+	}
+
+	private static java.text.Format numberFormat(final Locale locale, final String style) {
+		switch (CompiledMessageFormat.findKeyword(style, NUMBER_MODIFIER_KEYWORDS)) {
+		case MODIFIER_DEFAULT:
+			return NumberFormat.getInstance(locale);
+		case MODIFIER_CURRENCY:
+			return NumberFormat.getCurrencyInstance(locale);
+		case MODIFIER_PERCENT:
+			return NumberFormat.getPercentInstance(locale);
+		case MODIFIER_INTEGER:
+			return NumberFormat.getIntegerInstance(locale);
+		default:
+			return new DecimalFormat(style, DecimalFormatSymbols.getInstance(locale));
+		}
+	}
+
+	private static java.text.Format dateFormat(final Locale locale, final boolean date, final String style) {
+		final int modifier = CompiledMessageFormat.findKeyword(style, DATE_TIME_MODIFIER_KEYWORDS);
+		if (modifier >= 0) {
+			return date
+					? DateFormat.getDateInstance(DATE_TIME_MODIFIERS[modifier], locale)
+					: DateFormat.getTimeInstance(DATE_TIME_MODIFIERS[modifier], locale);
+		} else {
+			return new SimpleDateFormat(style, locale);
+		}
+	}
+
+	private static DateTimeFormatter dateTimeFormatter(final Locale locale, final boolean date, final String style) {
+		final int modifier = CompiledMessageFormat.findKeyword(style, DATE_TIME_MODIFIER_KEYWORDS);
+		final DateTimeFormatter formatter;
+		if (modifier >= 0) {
+			formatter = date
+					? DateTimeFormatter.ofLocalizedDate(FORMAT_STYLES[modifier])
+					: DateTimeFormatter.ofLocalizedTime(FORMAT_STYLES[modifier]);
+		} else {
+			formatter = DateTimeFormatter.ofPattern(style);
+		}
+		return formatter.withLocale(locale).withChronology(chronology(locale));
+	}
+
+	/**
+	 * @return the chronology of the calendar {@link DateFormat} uses, e.g. the Buddhist one for <code>th_TH</code>
+	 */
+	private static Chronology chronology(final Locale locale) {
+		final String calendarType = Calendar.getInstance(locale).getCalendarType();
+		if (calendarType.equals("gregory")) {
+			return IsoChronology.INSTANCE;
+		}
+		try {
+			return Chronology.ofLocale(new Locale.Builder().setUnicodeLocaleKeyword("ca", calendarType).build());
+		} catch (final DateTimeException e) {
+			return IsoChronology.INSTANCE;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "FormatterProvider [registry=" + formatters.getRegistry() + ", poolSize=" + poolSize + "]";
+	}
+
+	private static final class LocaleFormatters {
+
+		final ConcurrentMap<String, PooledFormat> numberFormats = new ConcurrentHashMap<>();
+		final ConcurrentMap<String, PooledFormat> dateFormats = new ConcurrentHashMap<>();
+		final ConcurrentMap<String, PooledFormat> timeFormats = new ConcurrentHashMap<>();
+		final ConcurrentMap<String, DateTimeFormatter> dateFormatters = new ConcurrentHashMap<>();
+		final ConcurrentMap<String, DateTimeFormatter> timeFormatters = new ConcurrentHashMap<>();
+	}
+}
@@ -0,0 +1,444 @@
+package com.github.chisui.translate.format;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cardinal plural rules of a language in the syntax of the
+ * <a href="https://cldr.unicode.org/index/cldr-spec/plural-rules">Unicode CLDR</a>, e.g.
+ * <code>one: i = 1 and v = 0; few: v = 0 and i % 10 = 2..4 and i % 100 != 12..14</code>.
+ * <p>
+ * Rules are compiled once into integer programs that are interpreted without allocating, so selecting the
+ * {@link Category} of an <code>int</code> or <code>long</code> never allocates. The rules of {@link #forLocale(Locale)}
+ * are bundled with the library.
+ * <p>
+ * Supported operands are <code>n</code>, <code>i</code>, <code>v</code>, <code>w</code>, <code>f</code> and
+ * <code>t</code>, conditions combine relations using <code>=</code> and <code>!=</code> with values, ranges and
+ * <code>%</code> using <code>and</code> and <code>or</code>. Samples starting with <code>@</code> are ignored.
+ */
+public final class PluralRules {
+
+	/**
+	 * Plural categories of CLDR.
+	 */
+	public enum Category {
+		ZERO, ONE, TWO, FEW, MANY, OTHER;
+
+		private final String keyword = name().toLowerCase(Locale.ROOT);
+
+		/**
+		 * @return keyword of the category as used in rules and messages, e.g. <code>one</code>
+		 */
+		public String getKeyword() {
+			return keyword;
+		}
+
+		/**
+		 * @param keyword of a category
+		 * @return the category or <code>null</code> if there is none with that keyword
+		 */
+		public static Category forKeyword(final String keyword) {
+			for (final Category category : values()) {
+				if (category.keyword.equals(keyword)) {
+					return category;
+				}
+			}
+			return null;
+		}
+	}
+
+	private static final String RESOURCE = "plurals.properties";
+
+	private static final int N = 0;
+	private static final int I = 1;
+	private static final int V = 2;
+	private static final int W = 3;
+	private static final int F = 4;
+	private static final int T = 5;
+	private static final String OPERANDS = "nivwft";
+
+	private static final int MAXIMUM_FRACTION_DIGITS = 18;
+	private static final int DOUBLE_FRACTION_DIGITS = 3;
+
+	private static final PluralRules OTHER_ONLY = new PluralRules("", new Category[0], new int[0][]);
+	private static final ConcurrentMap<Locale, PluralRules> BY_LOCALE = new ConcurrentHashMap<>();
+
+	private final String description;
+	private final Category[] categories;
+	private final int[][] programs;
+
+	private PluralRules(final String description, final Category[] categories, final int[][] programs) {
+		this.description = description;
+		this.categories = categories;
+		this.programs = programs;
+	}
+
+	/**
+	 * @param locale of the rules
+	 * @return the bundled rules of the language and country or language of the {@link Locale}, rules only using
+	 *         {@link Category#OTHER} if there are none
+	 */
+	public static PluralRules forLocale(final Locale locale) {
+		requireNonNull(locale, "locale must not be null");
+		final PluralRules rules = BY_LOCALE.get(locale);
+		return rules != null ? rules : BY_LOCALE.computeIfAbsent(locale, PluralRules::load);
+	}
+
+	private static PluralRules load(final Locale locale) {
+		final Properties bundled = Bundled.RULES;
+		String description = null;
+		if (!locale.getCountry().isEmpty()) {
+			description = bundled.getProperty(locale.getLanguage() + "_" + locale.getCountry());
+		}
+		if (description == null) {
+			description = bundled.getProperty(locale.getLanguage());
+		}
+		return description == null ? OTHER_ONLY : parse(description);
+	}
+
+	private static final class Bundled {
+
+		static final Properties RULES = new Properties();
+
+		static {
+			try (InputStream in = PluralRules.class.getResourceAsStream(RESOURCE)) {
+				if (in == null) {
+					throw new IllegalStateException("missing plural rules resource " + RESOURCE);
+				}
+				RULES.load(in);
+			} catch (final IOException e) {
+				throw new UncheckedIOException("could not read plural rules " + RESOURCE, e);
+			}
+		}
+	}
+
+	/**
+	 * @param description rules in CLDR syntax separated by <code>;</code>
+	 * @return the compiled rules
+	 * @throws IllegalArgumentException if the rules are invalid
+	 */
+	public static PluralRules parse(final String description) {
+		final List<Category> categories = new ArrayList<>();
+		final List<int[]> programs = new ArrayList<>();
+		for (final String rule : description.split(";")) {
+			if (rule.trim().isEmpty()) {
+				continue;
+			}
+			final int colon = rule.indexOf(':');
+			if (colon < 0) {
+				throw new IllegalArgumentException("missing ':' in plural rule: " + rule);
+			}
+			final String keyword = rule.substring(0, colon).trim();
+			final Category category = Category.forKeyword(keyword);
+			if (category == null) {
+				throw new IllegalArgumentException("unknown plural category: " + keyword);
+			}
+			if (categories.contains(category)) {
+				throw new IllegalArgumentException("duplicate plural category: " + keyword);
+			}
+			if (category != Category.OTHER) {
+				categories.add(category);
+				programs.add(compile(rule.substring(colon + 1)));
+			}
+		}
+		return new PluralRules(
+				description.trim(),
+				categories.toArray(new Category[categories.size()]),
+				programs.toArray(new int[programs.size()][]));
+	}
+
+	/**
+	 * Compiles a condition into <code>[or count, (and count, (operand, modulus, negated, range count, (low,
+	 * high)*)*)*]</code>.
+	 */
+	private static int[] compile(final String condition) {
+		final int samples = condition.indexOf('@');
+		final Tokens tokens = new Tokens(samples < 0 ? condition : condition.substring(0, samples));
+		final List<Integer> code = new ArrayList<>();
+		code.add(0);
+		if (!tokens.hasNext()) {
+			throw new IllegalArgumentException("empty plural condition");
+		}
+		do {
+			final int andCountIndex = code.size();
+			code.add(0);
+			do {
+				relation(tokens, code);
+				code.set(andCountIndex, code.get(andCountIndex) + 1);
+			} while (tokens.accept("and"));
+			code.set(0, code.get(0) + 1);
+		} while (tokens.accept("or"));
+		if (tokens.hasNext()) {
+			throw new IllegalArgumentException("unexpected '" + tokens.next() + "' in plural condition: " + condition);
+		}
+		final int[] program = new int[code.size()];
+		for (int i = 0; i < program.length; i++) {
+			program[i] = code.get(i);
+		}
+		return program;
+	}
+
+	private static void relation(final Tokens tokens, final List<Integer> code) {
+		final String operand = tokens.next();
+		final int operandIndex = operand.length() == 1 ? OPERANDS.indexOf(operand.charAt(0)) : -1;
+		if (operandIndex < 0) {
+			throw new IllegalArgumentException("unknown plural operand: " + operand);
+		}
+		code.add(operandIndex);
+		code.add(tokens.accept("%") ? tokens.nextInt() : 0);
+		if (tokens.accept("=")) {
+			code.add(0);
+		} else if (tokens.accept("!=")) {
+			code.add(1);
+		} else {
+			throw new IllegalArgumentException("expected '=' or '!=' after " + operand);
+		}
+		final int rangeCountIndex = code.size();
+		code.add(0);
+		do {
+			final int low = tokens.nextInt();
+			code.add(low);
+			code.add(tokens.accept("..") ? tokens.nextInt() : low);
+			code.set(rangeCountIndex, code.get(rangeCountIndex) + 1);
+		} while (tokens.accept(","));
+	}
+
+	private static final class Tokens {
+
+		private final String text;
+		private int position;
+
+		Tokens(final String text) {
+			this.text = text;
+			skipWhitespace();
+		}
+
+		boolean hasNext() {
+			return position < text.length();
+		}
+
+		String next() {
+			if (!hasNext()) {
+				throw new IllegalArgumentException("unexpected end of plural condition: " + text);
+			}
+			final int start = position;
+			final char c = text.charAt(position);
+			if (Character.isLetterOrDigit(c)) {
+				while (position < text.length() && Character.isLetterOrDigit(text.charAt(position))) {
+					position++;
+				}
+			} else if (text.startsWith("..", position) || text.startsWith("!=", position)) {
+				position += 2;
+			} else {
+				position++;
+			}
+			final String token = text.substring(start, position);
+			skipWhitespace();
+			return token;
+		}
+
+		int nextInt() {
+			final String token = next();
+			try {
+				return Integer.parseInt(token);
+			} catch (final NumberFormatException e) {
+				throw new IllegalArgumentException("expected a number but was '" + token + "' in: " + text, e);
+			}
+		}
+
+		boolean accept(final String token) {
+			if (!text.startsWith(token, position)) {
+				return false;
+			}
+			final int end = position + token.length();
+			if (Character.isLetter(token.charAt(0)) && end < text.length()
+					&& Character.isLetterOrDigit(text.charAt(end))) {
+				return false;
+			}
+			position = end;
+			skipWhitespace();
+			return true;
+		}
+
+		private void skipWhitespace() {
+			while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+				position++;
+			}
+		}
+	}
+
+	/**
+	 * @param number to select the category of
+	 * @return the category
+	 */
+	public Category select(final long number) {
+		final long i = number == Long.MIN_VALUE ? Long.MAX_VALUE : Math.abs(number);
+		return select(i, 0, 0, 0, 0);
+	}
+
+	/**
+	 * Selects the category of a <code>double</code> as it is displayed with at most three fraction digits and
+	 * without trailing zeros, like the default {@link java.text.NumberFormat} displays it.
+	 *
+	 * @param number to select the category of
+	 * @return the category
+	 */
+	public Category select(final double number) {
+		if (number == Math.rint(number) && Math.abs(number) < 0x1p53) {
+			return select((long) number);
+		}
+		if (Double.isNaN(number) || Double.isInfinite(number)) {
+			return Category.OTHER;
+		}
+		return select(BigDecimal.valueOf(number)
+				.setScale(DOUBLE_FRACTION_DIGITS, RoundingMode.HALF_EVEN)
+				.stripTrailingZeros());
+	}
+
+	/**
+	 * Selects the category of a {@link Number}. Integral numbers are selected without allocating,
+	 * {@link BigDecimal BigDecimals} keep their visible fraction digits, e.g. <code>1.0</code> is not
+	 * {@link Category#ONE} in English, and all other numbers are selected like {@link #select(double)}.
+	 *
+	 * @param number to select the category of
+	 * @return the category
+	 */
+	public Category select(final Number number) {
+		if (number instanceof Integer || number instanceof Long || number instanceof Short
+				|| number instanceof Byte || number instanceof AtomicInteger || number instanceof AtomicLong) {
+			return select(number.longValue());
+		} else if (number instanceof BigDecimal) {
+			return select((BigDecimal) number);
+		} else if (number instanceof BigInteger) {
+			return select(new BigDecimal((BigInteger) number));
+		} else {
+			return select(number.doubleValue());
+		}
+	}
+
+	private Category select(final BigDecimal number) {
+		final BigDecimal abs = number.abs();
+		final BigDecimal integer = abs.setScale(0, RoundingMode.DOWN);
+		final long i = integer.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) > 0
+				? integer.remainder(BigDecimal.TEN.pow(MAXIMUM_FRACTION_DIGITS)).longValue()
+				: integer.longValue();
+		final int v = Math.max(0, Math.min(abs.scale(), MAXIMUM_FRACTION_DIGITS));
+		final long f = abs.subtract(integer).movePointRight(v).setScale(0, RoundingMode.DOWN).longValue();
+		long t = f;
+		int w = v;
+		while (t != 0 && t % 10 == 0) {
+			t /= 10;
+			w--;
+		}
+		if (t == 0) {
+			w = 0;
+		}
+		return select(i, v, w, f, t);
+	}
+
+	private Category select(final long i, final long v, final long w, final long f, final long t) {
+		for (int k = 0; k < programs.length; k++) {
+			if (matches(programs[k], i, v, w, f, t)) {
+				return categories[k];
+			}
+		}
+		return Category.OTHER;
+	}
+
+	private static boolean matches(
+			final int[] program,
+			final long i,
+			final long v,
+			final long w,
+			final long f,
+			final long t) {
+		int pc = 0;
+		final int orCount = program[pc++];
+		for (int or = 0; or < orCount; or++) {
+			final int andCount = program[pc++];
+			boolean matches = true;
+			for (int and = 0; and < andCount; and++) {
+				final int operand = program[pc++];
+				final int modulus = program[pc++];
+				final boolean negated = program[pc++] != 0;
+				final int rangeCount = program[pc++];
+				if (matches) {
+					// n only equals integers if it has no fraction
+					final boolean integral = operand != N || t == 0;
+					long value = operand(operand, i, v, w, f, t);
+					if (modulus != 0) {
+						value %= modulus;
+					}
+					boolean inRange = false;
+					for (int r = 0; integral && r < rangeCount; r++) {
+						if (value >= program[pc + 2 * r] && value <= program[pc + 2 * r + 1]) {
+							inRange = true;
+							break;
+						}
+					}
+					matches = inRange != negated;
+				}
+				pc += 2 * rangeCount;
+			}
+			if (matches) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static long operand(
+			final int operand,
+			final long i,
+			final long v,
+			final long w,
+			final long f,
+			final long t) {
+		switch (operand) {
+		case N:
+		case I:
+			return i;
+		case V:
+			return v;
+		case W:
+			return w;
+		case F:
+			return f;
+		case T:
+			return t;
+		default:
+			throw new AssertionError("unknown operand " + operand);
+		}
+	}
+
+	/**
+	 * @return the categories of these rules including {@link Category#OTHER}
+	 */
+	public Set<Category> getCategories() {
+		final Set<Category> all = EnumSet.of(Category.OTHER);
+		Collections.addAll(all, categories);
+		return Collections.unmodifiableSet(all);
+	}
+
+	@Override
+	public String toString() {
+		return "PluralRules [" + description + "]";
+	}
+}
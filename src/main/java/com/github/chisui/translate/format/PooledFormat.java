@@ -0,0 +1,98 @@
+package com.github.chisui.translate.format;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Thread safe wrapper of a {@link java.text.Format} that is not thread safe, like {@link java.text.NumberFormat}
+ * or {@link java.text.DateFormat}. Formatting borrows a clone of the prototype from a small pool and returns it
+ * afterwards, so clones are only created while more threads format concurrently than the pool holds.
+ * <p>
+ * Clones are handed out without locking, if the pool is empty a new clone is created and if it is full a
+ * returned clone is dropped.
+ */
+public final class PooledFormat {
+
+	// never used to format so it can be cloned while the clones are in use
+	private final java.text.Format prototype;
+	private final AtomicReferenceArray<java.text.Format> pool;
+
+	private PooledFormat(final java.text.Format prototype, final int size) {
+		this.prototype = requireNonNull(prototype, "prototype must not be null");
+		if (size < 1) {
+			throw new IllegalArgumentException("size has to be positive but was " + size);
+		}
+		this.pool = new AtomicReferenceArray<>(size);
+	}
+
+	public static PooledFormat of(final java.text.Format prototype) {
+		return of(prototype, Runtime.getRuntime().availableProcessors() * 2);
+	}
+
+	/**
+	 * @param prototype of the pooled formats, owned by the {@link PooledFormat} afterwards
+	 * @param size maximum number of retained formats
+	 * @return the {@link PooledFormat}
+	 */
+	public static PooledFormat of(final java.text.Format prototype, final int size) {
+		return new PooledFormat(prototype, size);
+	}
+
+	/**
+	 * @param obj to format
+	 * @return the formatted {@link String}
+	 * @throws IllegalArgumentException if the format can not format the object
+	 * @see java.text.Format#format(Object)
+	 */
+	public String format(final Object obj) {
+		final java.text.Format format = acquire();
+		try {
+			return format.format(obj);
+		} finally {
+			release(format);
+		}
+	}
+
+	private java.text.Format acquire() {
+		final int start = start();
+		for (int i = 0; i < pool.length(); i++) {
+			final int slot = (start + i) % pool.length();
+			if (pool.get(slot) != null) {
+				final java.text.Format format = pool.getAndSet(slot, null);
+				if (format != null) {
+					return format;
+				}
+			}
+		}
+		return (java.text.Format) prototype.clone();
+	}
+
+	private void release(final java.text.Format format) {
+		final int start = start();
+		for (int i = 0; i < pool.length(); i++) {
+			final int slot = (start + i) % pool.length();
+			if (pool.get(slot) == null && pool.compareAndSet(slot, null, format)) {
+				return;
+			}
+		}
+	}
+
+	// spreads threads over the slots to reduce contention
+	private int start() {
+		final int hash = (int) Thread.currentThread().getId() * 0x9e3779b9;
+		return (hash >>> 1) % pool.length();
+	}
+
+	/**
+	 * @return type of the pooled formats
+	 */
+	public Class<? extends java.text.Format> getFormatClass() {
+		return prototype.getClass();
+	}
+
+	@Override
+	public String toString() {
+		return "PooledFormat [" + prototype.getClass().getSimpleName() + ", size=" + pool.length() + "]";
+	}
+}
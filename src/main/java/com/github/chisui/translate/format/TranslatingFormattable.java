@@ -0,0 +1,78 @@
+package com.github.chisui.translate.format;
+
+import static java.util.FormattableFlags.LEFT_JUSTIFY;
+import static java.util.FormattableFlags.UPPERCASE;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Formattable;
+import java.util.Formatter;
+import java.util.Locale;
+
+import com.github.chisui.translate.Translator;
+
+/**
+ * {@link Formattable} argument of {@link Format#ofFormatter()} that translates its value directly into the
+ * {@link Formatter Formatter's} output instead of translating it to a {@link String} up front. Width, precision and
+ * upper case conversions are applied the same way <code>%s</code> applies them to {@link String Strings}.
+ */
+final class TranslatingFormattable implements Formattable {
+
+	private final Locale locale;
+	private final Object arg;
+	private final Translator translator;
+
+	TranslatingFormattable(final Locale locale, final Object arg, final Translator translator) {
+		this.locale = locale;
+		this.arg = arg;
+		this.translator = translator;
+	}
+
+	@Override
+	public void formatTo(final Formatter formatter, final int flags, final int width, final int precision) {
+		try {
+			if (width == -1 && precision == -1 && (flags & UPPERCASE) == 0) {
+				translator.translate(formatter.out(), locale, arg);
+			} else {
+				String s = toString();
+				if (precision != -1 && precision < s.length()) {
+					s = s.substring(0, precision);
+				}
+				if ((flags & UPPERCASE) != 0) {
+					s = s.toUpperCase(locale);
+				}
+				final boolean leftJustify = (flags & LEFT_JUSTIFY) != 0;
+				final Appendable out = formatter.out();
+				if (!leftJustify) {
+					pad(out, width - s.length());
+				}
+				out.append(s);
+				if (leftJustify) {
+					pad(out, width - s.length());
+				}
+			}
+		} catch (IOException e) {
+			// Formattable can not throw checked exceptions, Format.ofFormatter() unwraps it again
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void pad(final Appendable out, final int padding) throws IOException {
+		for (int i = 0; i < padding; i++) {
+			out.append(' ');
+		}
+	}
+
+	/**
+	 * Keeps <code>%h</code> formatting the hash code of the translation.
+	 */
+	@Override
+	public int hashCode() {
+		return toString().hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return translator.translate(locale, arg);
+	}
+}
@@ -0,0 +1,151 @@
+package com.github.chisui.translate.lookup;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+/**
+ * Asynchronous counterpart of {@link MessageSource} for catalogs kept in slow stores. Lookups return at once and
+ * complete when the message was loaded, so the calling thread is not blocked while the store is queried.
+ *
+ * @see CoalescingMessageSource
+ * @see com.github.chisui.translate.AsyncMessageSourceTranslator
+ */
+@FunctionalInterface
+public interface AsyncMessageSource {
+
+	/**
+	 * @param locale of the message
+	 * @param key of the message
+	 * @return completes with the message if there is one
+	 */
+	CompletionStage<Optional<String>> findMessageAsync(Locale locale, String key);
+
+	/**
+	 * Looks up multiple messages at once. Backends that can serve a batch in a single call should override this.
+	 *
+	 * @param locale of the messages
+	 * @param keys of the messages
+	 * @return completes with the found messages by key, keys without a message are absent
+	 */
+	default CompletionStage<Map<String, String>> findMessagesAsync(final Locale locale, final Collection<String> keys) {
+		final List<String> keyList = new ArrayList<>(new LinkedHashSet<>(keys));
+		final List<CompletableFuture<Optional<String>>> lookups = new ArrayList<>(keyList.size());
+		for (final String key : keyList) {
+			lookups.add(findMessageAsync(locale, key).toCompletableFuture());
+		}
+		return CompletableFuture
+				.allOf(lookups.toArray(new CompletableFuture<?>[lookups.size()]))
+				.thenApply(done -> {
+					final Map<String, String> messages = new HashMap<>(keyList.size() * 4 / 3 + 1);
+					for (int i = 0; i < keyList.size(); i++) {
+						final String key = keyList.get(i);
+						lookups.get(i).join().ifPresent(message -> messages.put(key, message));
+					}
+					return messages;
+				});
+	}
+
+	/**
+	 * Creates an {@link AsyncMessageSource} that looks messages up in a {@link MessageSource} using an
+	 * {@link Executor}. Every lookup is a task of its own, use {@link #coalescing(BatchLoader, Executor)} to merge
+	 * concurrent lookups into batches.
+	 *
+	 * @param messageSource to look messages up in
+	 * @param executor running the lookups
+	 * @return the {@link AsyncMessageSource}
+	 */
+	static AsyncMessageSource of(final MessageSource messageSource, final Executor executor) {
+		return new ExecutorMessageSource(messageSource, executor);
+	}
+
+	/**
+	 * Creates an {@link AsyncMessageSource} that loads concurrently requested messages in batches and loads a
+	 * message requested again while it is being loaded only once.
+	 *
+	 * @param loader loading batches of messages
+	 * @param dispatcher running the tasks that hand batches to the loader
+	 * @return the {@link CoalescingMessageSource}
+	 * @see CoalescingMessageSource
+	 */
+	static CoalescingMessageSource coalescing(final BatchLoader loader, final Executor dispatcher) {
+		return new CoalescingMessageSource(loader, dispatcher);
+	}
+
+	/**
+	 * Loads a batch of messages of one {@link Locale} in a single call to a backend.
+	 */
+	@FunctionalInterface
+	interface BatchLoader {
+
+		/**
+		 * @param locale of the messages
+		 * @param keys of the messages, not empty
+		 * @return completes with the found messages by key, keys without a message are absent
+		 */
+		CompletionStage<Map<String, String>> load(Locale locale, Set<String> keys);
+
+		/**
+		 * Creates a {@link BatchLoader} that looks batches up in a {@link MessageSource} using
+		 * {@link MessageSource#findMessages(Locale, Collection)}.
+		 *
+		 * @param messageSource to look messages up in
+		 * @param executor running the lookups
+		 * @return the {@link BatchLoader}
+		 */
+		static BatchLoader of(final MessageSource messageSource, final Executor executor) {
+			requireNonNull(messageSource, "messageSource must not be null");
+			requireNonNull(executor, "executor must not be null");
+			return (locale, keys) -> CompletableFuture.supplyAsync(
+					() -> messageSource.findMessages(locale, keys),
+					executor);
+		}
+	}
+
+	final class ExecutorMessageSource implements AsyncMessageSource {
+
+		private final MessageSource messageSource;
+		private final Executor executor;
+
+		private ExecutorMessageSource(final MessageSource messageSource, final Executor executor) {
+			this.messageSource = requireNonNull(messageSource, "messageSource must not be null");
+			this.executor = requireNonNull(executor, "executor must not be null");
+		}
+
+		@Override
+		public CompletionStage<Optional<String>> findMessageAsync(final Locale locale, final String key) {
+			return CompletableFuture.supplyAsync(() -> messageSource.findMessage(locale, key), executor);
+		}
+
+		/**
+		 * Looks the messages up using {@link MessageSource#findMessages(Locale, Collection)} in a single task.
+		 */
+		@Override
+		public CompletionStage<Map<String, String>> findMessagesAsync(
+				final Locale locale,
+				final Collection<String> keys) {
+			final List<String> keyList = new ArrayList<>(keys);
+			return CompletableFuture.supplyAsync(() -> messageSource.findMessages(locale, keyList), executor);
+		}
+
+		public MessageSource getMessageSource() {
+			return messageSource;
+		}
+
+		@Override
+		public String toString() {
+			return "ExecutorMessageSource [messageSource=" + messageSource + "]";
+		}
+	}
+}
@@ -0,0 +1,227 @@
+package com.github.chisui.translate.lookup;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Read only view of a binary message catalog written by {@link BinaryCatalogWriter}.
+ * <p>
+ * A catalog maps keys to messages of a single locale. Keys are located through a minimal perfect hash so a lookup
+ * hashes the key once, probes a single entry and decodes only the requested value. Catalogs are usually memory
+ * mapped using {@link #open(Path)} which keeps them off-heap and shares them through the page cache.
+ * <p>
+ * Layout, all numbers big-endian:
+ * <pre>
+ * int   magic "TCAT"
+ * int   version
+ * int   entry count n
+ * int   bucket count b
+ * int[] b displacements
+ * n entries of int fingerprint, int key offset, int value offset
+ * data: per string a varint header (length &lt;&lt; 2 | encoding) followed by the encoded chars
+ * </pre>
+ * Strings are encoded as Latin-1 if possible, values otherwise as UTF-8 and keys as UTF-16.
+ */
+public final class BinaryCatalog {
+
+	static final int MAGIC = 0x54434154;
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 16;
+	static final int ENTRY_SIZE = 12;
+
+	static final int LATIN_1 = 0;
+	static final int UTF_8 = 1;
+	static final int UTF_16 = 2;
+
+	private final ByteBuffer buffer;
+	private final int size;
+	private final int bucketCount;
+	private final int entriesStart;
+
+	private BinaryCatalog(final ByteBuffer buffer, final int size, final int bucketCount) {
+		this.buffer = buffer;
+		this.size = size;
+		this.bucketCount = bucketCount;
+		this.entriesStart = HEADER_SIZE + 4 * bucketCount;
+	}
+
+	/**
+	 * Wraps a buffer containing a catalog. The buffer is only read using absolute positions and must not be
+	 * modified afterwards.
+	 *
+	 * @param buffer containing the catalog starting at position <code>0</code>
+	 * @return the catalog
+	 * @throws IllegalArgumentException if the buffer does not contain a catalog
+	 */
+	public static BinaryCatalog of(final ByteBuffer buffer) {
+		requireNonNull(buffer, "buffer must not be null");
+		if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+			throw new IllegalArgumentException("not a binary catalog");
+		}
+		if (buffer.getInt(4) != VERSION) {
+			throw new IllegalArgumentException("unsupported binary catalog version " + buffer.getInt(4));
+		}
+		final int size = buffer.getInt(8);
+		final int bucketCount = buffer.getInt(12);
+		if (size < 0 || bucketCount <= 0
+				|| HEADER_SIZE + 4L * bucketCount + (long) ENTRY_SIZE * size > buffer.capacity()) {
+			throw new IllegalArgumentException("corrupt binary catalog");
+		}
+		return new BinaryCatalog(buffer, size, bucketCount);
+	}
+
+	/**
+	 * Memory maps a catalog file.
+	 *
+	 * @param file to map
+	 * @return the catalog
+	 * @throws IOException if the file could not be mapped
+	 * @throws IllegalArgumentException if the file does not contain a catalog
+	 */
+	public static BinaryCatalog open(final Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return of(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * @return number of messages in this catalog
+	 */
+	public int size() {
+		return size;
+	}
+
+	public Optional<String> find(final String key) {
+		return Optional.ofNullable(get(key));
+	}
+
+	/**
+	 * @param key of the message
+	 * @return the message or <code>null</code> if there is none
+	 */
+	public String get(final String key) {
+		if (size == 0) {
+			return null;
+		}
+		final long hash = hash(key);
+		final int displacement = buffer.getInt(HEADER_SIZE + 4 * bucket(hash, bucketCount));
+		final int entry = entriesStart + ENTRY_SIZE * slot(hash, displacement, size);
+		if (buffer.getInt(entry) != (int) hash || !keyEquals(buffer.getInt(entry + 4), key)) {
+			return null;
+		}
+		return decode(buffer.getInt(entry + 8));
+	}
+
+	private boolean keyEquals(final int offset, final String key) {
+		final int header = readVarint(buffer, offset);
+		final int length = header >>> 2;
+		if (length != key.length()) {
+			return false;
+		}
+		final int start = offset + varintSize(header);
+		if ((header & 3) == LATIN_1) {
+			for (int i = 0; i < length; i++) {
+				if ((char) (buffer.get(start + i) & 0xff) != key.charAt(i)) {
+					return false;
+				}
+			}
+		} else {
+			for (int i = 0; i < length; i++) {
+				if (buffer.getChar(start + 2 * i) != key.charAt(i)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private String decode(final int offset) {
+		final int header = readVarint(buffer, offset);
+		final int length = header >>> 2;
+		final int start = offset + varintSize(header);
+		switch (header & 3) {
+		case LATIN_1: {
+			final char[] chars = new char[length];
+			for (int i = 0; i < length; i++) {
+				chars[i] = (char) (buffer.get(start + i) & 0xff);
+			}
+			return new String(chars);
+		}
+		case UTF_16: {
+			final char[] chars = new char[length];
+			for (int i = 0; i < length; i++) {
+				chars[i] = buffer.getChar(start + 2 * i);
+			}
+			return new String(chars);
+		}
+		default: {
+			final byte[] bytes = new byte[length];
+			for (int i = 0; i < length; i++) {
+				bytes[i] = buffer.get(start + i);
+			}
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+		}
+	}
+
+	static long hash(final CharSequence key) {
+		// 64 bit FNV-1a followed by the murmur3 finalizer
+		long h = 0xcbf29ce484222325L;
+		for (int i = 0; i < key.length(); i++) {
+			h ^= key.charAt(i);
+			h *= 0x100000001b3L;
+		}
+		return mix(h);
+	}
+
+	static int bucket(final long hash, final int bucketCount) {
+		return (int) ((hash >>> 1) % bucketCount);
+	}
+
+	static int slot(final long hash, final int displacement, final int size) {
+		if (displacement < 0) {
+			return -displacement - 1;
+		}
+		return (int) ((mix(hash ^ displacement * 0x9e3779b97f4a7c15L) >>> 1) % size);
+	}
+
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	static int readVarint(final ByteBuffer buffer, int offset) {
+		int value = 0;
+		for (int shift = 0;; shift += 7) {
+			final byte b = buffer.get(offset++);
+			value |= (b & 0x7f) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+	}
+
+	static int varintSize(final int value) {
+		int size = 1;
+		for (int v = value >>> 7; v != 0; v >>>= 7) {
+			size++;
+		}
+		return size;
+	}
+
+	@Override
+	public String toString() {
+		return "BinaryCatalog [size=" + size + "]";
+	}
+}
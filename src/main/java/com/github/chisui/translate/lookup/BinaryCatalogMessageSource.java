@@ -0,0 +1,121 @@
+package com.github.chisui.translate.lookup;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.ResourceBundle;
+
+/**
+ * {@link MessageSource} reading memory mapped {@link BinaryCatalog BinaryCatalogs}.
+ * <p>
+ * Catalogs are looked up in a directory using the names {@link ResourceBundle} would use for bundles, e.g.
+ * <code>messages_de_AT.catalog</code>, <code>messages_de.catalog</code> and <code>messages.catalog</code> for the
+ * base name <code>messages</code> and {@link Locale} <code>de_AT</code>. Messages are searched in that order.
+ * Unlike {@link ResourceBundle} there is no fallback to {@link Locale#getDefault()}.
+ * <p>
+ * Every catalog file is mapped once and shared by all locales using it.
+ */
+public class BinaryCatalogMessageSource implements MessageSource {
+
+	private static final ResourceBundle.Control CONTROL =
+			ResourceBundle.Control.getNoFallbackControl(ResourceBundle.Control.FORMAT_DEFAULT);
+
+	private final Path directory;
+	private final String baseName;
+	private final LocaleTable<Optional<BinaryCatalog>> catalogs;
+	private final LocaleTable<List<BinaryCatalog>> chains;
+
+	public BinaryCatalogMessageSource(final Path directory, final String baseName) {
+		this(directory, baseName, LocaleRegistry.getDefault());
+	}
+
+	/**
+	 * @param directory containing the catalogs
+	 * @param baseName file name prefix of the catalogs
+	 * @param localeRegistry indexing the catalogs, lookups using {@link LocaleHandle LocaleHandles} of this
+	 *        registry skip interning the {@link Locale}
+	 */
+	public BinaryCatalogMessageSource(
+			final Path directory,
+			final String baseName,
+			final LocaleRegistry localeRegistry) {
+		this.directory = requireNonNull(directory, "directory must not be null");
+		this.baseName = requireNonNull(baseName, "baseName must not be null");
+		requireNonNull(localeRegistry, "localeRegistry must not be null");
+		this.catalogs = localeRegistry.newTable();
+		this.chains = localeRegistry.newTable();
+	}
+
+	@Override
+	public Optional<String> findMessage(final Locale locale, final String key) {
+		return find(chains.computeIfAbsent(locale, this::chain), key);
+	}
+
+	@Override
+	public Optional<String> findMessage(final LocaleHandle locale, final String key) {
+		return find(chains.computeIfAbsent(locale, this::chain), key);
+	}
+
+	private static Optional<String> find(final List<BinaryCatalog> chain, final String key) {
+		for (final BinaryCatalog catalog : chain) {
+			final String message = catalog.get(key);
+			if (message != null) {
+				return Optional.of(message);
+			}
+		}
+		return Optional.empty();
+	}
+
+	@Override
+	public Map<String, String> findMessages(final Locale locale, final Collection<String> keys) {
+		final List<BinaryCatalog> chain = chains.computeIfAbsent(locale, this::chain);
+		final Map<String, String> messages = new HashMap<>(keys.size() * 4 / 3 + 1);
+		for (final String key : keys) {
+			for (final BinaryCatalog catalog : chain) {
+				final String message = catalog.get(key);
+				if (message != null) {
+					messages.put(key, message);
+					break;
+				}
+			}
+		}
+		return messages;
+	}
+
+	private List<BinaryCatalog> chain(final LocaleHandle locale) {
+		final List<BinaryCatalog> chain = new ArrayList<>();
+		for (final LocaleHandle candidate : locale.getFallbackChain()) {
+			catalogs.computeIfAbsent(candidate, this::open).ifPresent(chain::add);
+		}
+		return Collections.unmodifiableList(chain);
+	}
+
+	private Optional<BinaryCatalog> open(final LocaleHandle locale) {
+		final Path file = directory.resolve(
+				CONTROL.toBundleName(baseName, locale.getLocale()) + BinaryCatalogWriter.EXTENSION);
+		if (!Files.isRegularFile(file)) {
+			return Optional.empty();
+		}
+		try {
+			return Optional.of(BinaryCatalog.open(file));
+		} catch (final IOException e) {
+			throw new UncheckedIOException("could not map " + file, e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "BinaryCatalogMessageSource [directory=" + directory + ", baseName=" + baseName + "]";
+	}
+}
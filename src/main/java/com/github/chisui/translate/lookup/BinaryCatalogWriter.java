@@ -0,0 +1,276 @@
+package com.github.chisui.translate.lookup;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Writes {@link BinaryCatalog BinaryCatalogs}.
+ * <p>
+ * {@link #main(String[])} converts <code>.properties</code> files and is meant to be run at build time.
+ */
+public final class BinaryCatalogWriter {
+
+	/**
+	 * File extension of catalog files.
+	 */
+	public static final String EXTENSION = ".catalog";
+
+	private static final int KEYS_PER_BUCKET = 4;
+	private static final int MAX_DISPLACEMENT = 1 << 24;
+
+	private BinaryCatalogWriter() {
+	}
+
+	/**
+	 * Converts <code>.properties</code> files into catalogs.
+	 *
+	 * @param args output directory followed by the <code>.properties</code> files to convert. Every file is
+	 *        written to the output directory with its extension replaced by {@value #EXTENSION}.
+	 * @throws IOException if reading or writing fails
+	 */
+	public static void main(final String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("usage: BinaryCatalogWriter <output directory> <file.properties>...");
+			System.exit(1);
+		}
+		final Path outputDirectory = Files.createDirectories(Paths.get(args[0]));
+		for (final String input : Arrays.asList(args).subList(1, args.length)) {
+			final Path properties = Paths.get(input);
+			final String fileName = properties.getFileName().toString();
+			final int dot = fileName.lastIndexOf('.');
+			convert(properties, outputDirectory.resolve((dot < 0 ? fileName : fileName.substring(0, dot)) + EXTENSION));
+		}
+	}
+
+	/**
+	 * Converts a <code>.properties</code> file into a catalog. The file is read the same way
+	 * {@link java.util.PropertyResourceBundle} reads it.
+	 *
+	 * @param properties file to read
+	 * @param catalog file to write
+	 * @throws IOException if reading or writing fails
+	 */
+	public static void convert(final Path properties, final Path catalog) throws IOException {
+		final Properties messages = new Properties();
+		try (InputStream in = Files.newInputStream(properties)) {
+			messages.load(in);
+		}
+		final Map<String, String> map = new HashMap<>();
+		for (final String key : messages.stringPropertyNames()) {
+			map.put(key, messages.getProperty(key));
+		}
+		write(map, catalog);
+	}
+
+	public static void write(final Map<String, String> messages, final Path catalog) throws IOException {
+		try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(catalog))) {
+			write(messages, out);
+		}
+	}
+
+	/**
+	 * Writes a catalog.
+	 *
+	 * @param messages to write, keys and values must not be <code>null</code>
+	 * @param out to write to, is not closed
+	 * @throws IOException if writing fails
+	 * @throws IllegalArgumentException if the catalog would exceed 2GB or two keys share the same 64 bit hash
+	 */
+	public static void write(final Map<String, String> messages, final OutputStream out) throws IOException {
+		final int size = messages.size();
+		final String[] keys = new String[size];
+		final String[] values = new String[size];
+		final long[] hashes = new long[size];
+		final Map<Long, String> hashToKey = new HashMap<>();
+		int i = 0;
+		for (final Map.Entry<String, String> entry : messages.entrySet()) {
+			keys[i] = requireNonNull(entry.getKey(), "keys must not be null");
+			values[i] = requireNonNull(entry.getValue(), "values must not be null");
+			hashes[i] = BinaryCatalog.hash(keys[i]);
+			final String previous = hashToKey.put(hashes[i], keys[i]);
+			if (previous != null) {
+				throw new IllegalArgumentException("keys " + previous + " and " + keys[i] + " have the same hash");
+			}
+			i++;
+		}
+
+		final int bucketCount = Math.max(1, (size + KEYS_PER_BUCKET - 1) / KEYS_PER_BUCKET);
+		final int[] slots = new int[size];
+		final int[] displacements = displace(hashes, bucketCount, slots);
+
+		// data region, values are deduplicated
+		final ByteArrayOutputStream data = new ByteArrayOutputStream();
+		final long dataStart = BinaryCatalog.HEADER_SIZE + 4L * bucketCount + (long) BinaryCatalog.ENTRY_SIZE * size;
+		final int[] keyOffsets = new int[size];
+		final int[] valueOffsets = new int[size];
+		final Map<String, Integer> valueOffsetsByValue = new HashMap<>();
+		for (i = 0; i < size; i++) {
+			keyOffsets[i] = offset(dataStart, data);
+			writeString(data, keys[i], false);
+			final Integer valueOffset = valueOffsetsByValue.get(values[i]);
+			if (valueOffset == null) {
+				valueOffsets[i] = offset(dataStart, data);
+				valueOffsetsByValue.put(values[i], valueOffsets[i]);
+				writeString(data, values[i], true);
+			} else {
+				valueOffsets[i] = valueOffset;
+			}
+		}
+		offset(dataStart, data);
+
+		final int[] entryBySlot = new int[size];
+		for (i = 0; i < size; i++) {
+			entryBySlot[slots[i]] = i;
+		}
+
+		final DataOutputStream dataOut = new DataOutputStream(out);
+		dataOut.writeInt(BinaryCatalog.MAGIC);
+		dataOut.writeInt(BinaryCatalog.VERSION);
+		dataOut.writeInt(size);
+		dataOut.writeInt(bucketCount);
+		for (final int displacement : displacements) {
+			dataOut.writeInt(displacement);
+		}
+		for (final int entry : entryBySlot) {
+			dataOut.writeInt((int) hashes[entry]);
+			dataOut.writeInt(keyOffsets[entry]);
+			dataOut.writeInt(valueOffsets[entry]);
+		}
+		data.writeTo(dataOut);
+		dataOut.flush();
+	}
+
+	/**
+	 * Hash and displace: buckets are placed largest first by searching a displacement that moves all of their keys
+	 * to free slots. Buckets with a single key are placed directly into the remaining slots.
+	 */
+	private static int[] displace(final long[] hashes, final int bucketCount, final int[] slots) {
+		final int size = hashes.length;
+		final List<List<Integer>> buckets = new ArrayList<>(bucketCount);
+		for (int b = 0; b < bucketCount; b++) {
+			buckets.add(new ArrayList<>());
+		}
+		for (int i = 0; i < size; i++) {
+			buckets.get(BinaryCatalog.bucket(hashes[i], bucketCount)).add(i);
+		}
+		final Integer[] order = new Integer[bucketCount];
+		for (int b = 0; b < bucketCount; b++) {
+			order[b] = b;
+		}
+		Arrays.sort(order, (a, b) -> Integer.compare(buckets.get(b).size(), buckets.get(a).size()));
+
+		final int[] displacements = new int[bucketCount];
+		final boolean[] taken = new boolean[size];
+		int freeSlot = 0;
+		for (final int b : order) {
+			final List<Integer> bucket = buckets.get(b);
+			if (bucket.size() == 1) {
+				while (taken[freeSlot]) {
+					freeSlot++;
+				}
+				taken[freeSlot] = true;
+				slots[bucket.get(0)] = freeSlot;
+				displacements[b] = -freeSlot - 1;
+			} else if (bucket.size() > 1) {
+				displacements[b] = findDisplacement(hashes, bucket, taken, slots);
+			}
+		}
+		return displacements;
+	}
+
+	private static int findDisplacement(
+			final long[] hashes,
+			final List<Integer> bucket,
+			final boolean[] taken,
+			final int[] slots) {
+		final int size = taken.length;
+		search: for (int displacement = 1; displacement < MAX_DISPLACEMENT; displacement++) {
+			for (int k = 0; k < bucket.size(); k++) {
+				final int slot = BinaryCatalog.slot(hashes[bucket.get(k)], displacement, size);
+				if (taken[slot]) {
+					for (int j = 0; j < k; j++) {
+						taken[slots[bucket.get(j)]] = false;
+					}
+					continue search;
+				}
+				taken[slot] = true;
+				slots[bucket.get(k)] = slot;
+			}
+			return displacement;
+		}
+		throw new IllegalStateException("could not find a perfect hash for " + size + " keys");
+	}
+
+	private static int offset(final long dataStart, final ByteArrayOutputStream data) {
+		final long offset = dataStart + data.size();
+		if (offset > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("binary catalogs are limited to 2GB");
+		}
+		return (int) offset;
+	}
+
+	private static void writeString(final ByteArrayOutputStream out, final String s, final boolean utf8) {
+		final byte[] bytes;
+		final int header;
+		if (isLatin1(s)) {
+			bytes = s.getBytes(StandardCharsets.ISO_8859_1);
+			header = bytes.length << 2 | BinaryCatalog.LATIN_1;
+		} else if (utf8 && !hasUnpairedSurrogate(s)) {
+			bytes = s.getBytes(StandardCharsets.UTF_8);
+			header = bytes.length << 2 | BinaryCatalog.UTF_8;
+		} else {
+			// not using an encoder which would replace unpaired surrogates
+			bytes = new byte[s.length() * 2];
+			for (int i = 0; i < s.length(); i++) {
+				bytes[2 * i] = (byte) (s.charAt(i) >>> 8);
+				bytes[2 * i + 1] = (byte) s.charAt(i);
+			}
+			header = s.length() << 2 | BinaryCatalog.UTF_16;
+		}
+		for (int v = header; ; v >>>= 7) {
+			if ((v & ~0x7f) == 0) {
+				out.write(v);
+				break;
+			}
+			out.write(v & 0x7f | 0x80);
+		}
+		out.write(bytes, 0, bytes.length);
+	}
+
+	private static boolean isLatin1(final String s) {
+		for (int i = 0; i < s.length(); i++) {
+			if (s.charAt(i) > 0xff) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean hasUnpairedSurrogate(final String s) {
+		for (int i = 0; i < s.length(); i++) {
+			final char c = s.charAt(i);
+			if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+				i++;
+			} else if (Character.isSurrogate(c)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
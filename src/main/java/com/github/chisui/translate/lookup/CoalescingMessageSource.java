@@ -0,0 +1,262 @@
+package com.github.chisui.translate.lookup;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * {@link AsyncMessageSource} loading messages in batches using a {@link AsyncMessageSource.BatchLoader}, so a burst
+ * of lookups does not stampede a slow store.
+ * <ul>
+ * <li>Lookups of a key that is already being loaded for the same {@link Locale} share that load instead of starting
+ * another one.</li>
+ * <li>Keys requested for the same {@link Locale} are collected into a batch. The first key of a batch schedules a
+ * task on the dispatcher {@link Executor} that hands the batch to the loader, keys requested until the task runs
+ * join the batch. Full batches are handed over right away and {@link #dispatch()} hands over all pending
+ * batches.</li>
+ * </ul>
+ * Loaded messages are not kept, a lookup after a load completed loads the message again.
+ */
+public class CoalescingMessageSource implements AsyncMessageSource {
+
+	/**
+	 * Maximum number of keys of a batch used if none is given.
+	 */
+	public static final int DEFAULT_MAXIMUM_BATCH_SIZE = 128;
+
+	private final BatchLoader loader;
+	private final Executor dispatcher;
+	private final int maximumBatchSize;
+	private final ConcurrentMap<Request, CompletableFuture<Optional<String>>> inFlight = new ConcurrentHashMap<>();
+	// guarded by itself
+	private final Map<Locale, Batch> pending = new HashMap<>();
+
+	private final LongAdder coalesced = new LongAdder();
+	private final LongAdder batches = new LongAdder();
+	private final LongAdder loadedKeys = new LongAdder();
+
+	public CoalescingMessageSource(final BatchLoader loader, final Executor dispatcher) {
+		this(loader, dispatcher, DEFAULT_MAXIMUM_BATCH_SIZE);
+	}
+
+	/**
+	 * @param loader loading batches of messages
+	 * @param dispatcher running the tasks that hand batches to the loader, {@link Runnable#run()} hands every key
+	 *        over on its own
+	 * @param maximumBatchSize maximum number of keys handed to the loader at once
+	 */
+	public CoalescingMessageSource(final BatchLoader loader, final Executor dispatcher, final int maximumBatchSize) {
+		this.loader = requireNonNull(loader, "loader must not be null");
+		this.dispatcher = requireNonNull(dispatcher, "dispatcher must not be null");
+		if (maximumBatchSize <= 0) {
+			throw new IllegalArgumentException("maximumBatchSize has to be positive but was " + maximumBatchSize);
+		}
+		this.maximumBatchSize = maximumBatchSize;
+	}
+
+	/**
+	 * @return completes with the message, every call gets a stage of its own so completing or cancelling it does not
+	 *         affect other callers sharing the load
+	 */
+	@Override
+	public CompletionStage<Optional<String>> findMessageAsync(final Locale locale, final String key) {
+		final Request request = new Request(
+				requireNonNull(locale, "locale must not be null"),
+				requireNonNull(key, "key must not be null"));
+		final CompletableFuture<Optional<String>> loading = inFlight.get(request);
+		if (loading != null) {
+			coalesced.increment();
+			return loading.thenApply(Function.identity());
+		}
+		final CompletableFuture<Optional<String>> message = new CompletableFuture<>();
+		final CompletableFuture<Optional<String>> raced = inFlight.putIfAbsent(request, message);
+		if (raced != null) {
+			coalesced.increment();
+			return raced.thenApply(Function.identity());
+		}
+		enqueue(request, message);
+		return message.thenApply(Function.identity());
+	}
+
+	private void enqueue(final Request request, final CompletableFuture<Optional<String>> message) {
+		final Batch batch;
+		final boolean first;
+		final boolean full;
+		synchronized (pending) {
+			Batch current = pending.get(request.locale);
+			first = current == null;
+			if (first) {
+				current = new Batch(request.locale);
+				pending.put(request.locale, current);
+			}
+			current.messages.put(request.key, message);
+			full = current.messages.size() >= maximumBatchSize;
+			if (full) {
+				pending.remove(request.locale);
+			}
+			batch = current;
+		}
+		if (full) {
+			execute(() -> load(batch), batch, false);
+		} else if (first) {
+			execute(() -> dispatch(batch), batch, true);
+		}
+	}
+
+	private void execute(final Runnable task, final Batch batch, final boolean stillPending) {
+		try {
+			dispatcher.execute(task);
+		} catch (RejectedExecutionException e) {
+			synchronized (pending) {
+				// a pending batch that is gone has been handed over by another thread
+				if (stillPending && !pending.remove(batch.locale, batch)) {
+					return;
+				}
+			}
+			complete(batch, null, e);
+		}
+	}
+
+	/**
+	 * Hands all pending batches to the loader on the calling thread without waiting for the dispatcher.
+	 */
+	public void dispatch() {
+		final List<Batch> batches;
+		synchronized (pending) {
+			batches = new ArrayList<>(pending.values());
+			pending.clear();
+		}
+		for (final Batch batch : batches) {
+			load(batch);
+		}
+	}
+
+	private void dispatch(final Batch batch) {
+		synchronized (pending) {
+			// dispatched already if it became full or dispatch() was called
+			if (!pending.remove(batch.locale, batch)) {
+				return;
+			}
+		}
+		load(batch);
+	}
+
+	private void load(final Batch batch) {
+		batches.increment();
+		loadedKeys.add(batch.messages.size());
+		final CompletionStage<Map<String, String>> loaded;
+		try {
+			loaded = requireNonNull(
+					loader.load(batch.locale, Collections.unmodifiableSet(batch.messages.keySet())),
+					"loader must not return null");
+		} catch (RuntimeException e) {
+			complete(batch, null, e);
+			return;
+		}
+		loaded.whenComplete((messages, failure) -> complete(batch, messages,
+				failure == null && messages == null ? new NullPointerException("loader completed with null") : failure));
+	}
+
+	private void complete(final Batch batch, final Map<String, String> messages, final Throwable failure) {
+		for (final Map.Entry<String, CompletableFuture<Optional<String>>> entry : batch.messages.entrySet()) {
+			// removed first so lookups after completion load the message again
+			inFlight.remove(new Request(batch.locale, entry.getKey()), entry.getValue());
+			if (failure != null) {
+				entry.getValue().completeExceptionally(failure);
+			} else {
+				entry.getValue().complete(Optional.ofNullable(messages.get(entry.getKey())));
+			}
+		}
+	}
+
+	public int getMaximumBatchSize() {
+		return maximumBatchSize;
+	}
+
+	/**
+	 * @return number of lookups that shared the load of a lookup before them
+	 */
+	public long getCoalescedCount() {
+		return coalesced.sum();
+	}
+
+	/**
+	 * @return number of batches handed to the loader
+	 */
+	public long getBatchCount() {
+		return batches.sum();
+	}
+
+	/**
+	 * @return number of keys handed to the loader
+	 */
+	public long getLoadedKeyCount() {
+		return loadedKeys.sum();
+	}
+
+	/**
+	 * @return number of keys that are pending or being loaded
+	 */
+	public int getInFlightCount() {
+		return inFlight.size();
+	}
+
+	@Override
+	public String toString() {
+		return "CoalescingMessageSource [loader=" + loader + ", maximumBatchSize=" + maximumBatchSize + "]";
+	}
+
+	private static final class Batch {
+
+		private final Locale locale;
+		// only modified while pending, guarded by CoalescingMessageSource.pending
+		private final Map<String, CompletableFuture<Optional<String>>> messages = new LinkedHashMap<>();
+
+		Batch(final Locale locale) {
+			this.locale = locale;
+		}
+	}
+
+	private static final class Request {
+
+		private final Locale locale;
+		private final String key;
+
+		Request(final Locale locale, final String key) {
+			this.locale = locale;
+			this.key = key;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * locale.hashCode() + key.hashCode();
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj) {
+				return true;
+			} else if (!(obj instanceof Request)) {
+				return false;
+			}
+			final Request other = (Request) obj;
+			return Objects.equals(locale, other.locale) && Objects.equals(key, other.key);
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package com.github.chisui.translate.lookup;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * {@link MessageSource} serving the keys of a {@link MessageIds} registry from a <code>String[]</code> per
+ * {@link Locale} indexed by {@link MessageId#getId()}. The messages of a {@link Locale} are copied from a backing
+ * {@link MessageSource} the first time the {@link Locale} is used, keys registered later are copied once they are
+ * looked up. {@link #getMessage(LocaleHandle, int)} is a single array access that neither hashes nor allocates.
+ * <p>
+ * Keys that are not registered are looked up in the backing {@link MessageSource} on every call.
+ */
+public class IndexedMessageSource implements MessageSource {
+
+	private static final String[] EMPTY = new String[0];
+
+	private final MessageIds ids;
+	private final MessageSource source;
+	private final LocaleRegistry localeRegistry;
+	private final LocaleTable<Catalog> catalogs;
+	private final Function<LocaleHandle, Catalog> newCatalog = Catalog::new;
+
+	public IndexedMessageSource(final MessageIds ids, final MessageSource source) {
+		this(ids, source, LocaleRegistry.getDefault());
+	}
+
+	/**
+	 * @param ids of the keys to index
+	 * @param source to copy the messages from
+	 * @param localeRegistry indexing the catalogs, lookups using {@link LocaleHandle LocaleHandles} of this
+	 *        registry skip interning the {@link Locale}
+	 */
+	public IndexedMessageSource(final MessageIds ids, final MessageSource source, final LocaleRegistry localeRegistry) {
+		this.ids = requireNonNull(ids, "ids must not be null");
+		this.source = requireNonNull(source, "source must not be null");
+		this.localeRegistry = requireNonNull(localeRegistry, "localeRegistry must not be null");
+		this.catalogs = localeRegistry.newTable();
+	}
+
+	/**
+	 * @param locale of the message
+	 * @param id of the key, has to belong to the {@link MessageIds} of this source
+	 * @return the message or <code>null</code> if there is none
+	 */
+	public String getMessage(final LocaleHandle locale, final int id) {
+		final Catalog catalog = catalogs.computeIfAbsent(locale, newCatalog);
+		final String[] messages = catalog.messages;
+		return id < messages.length ? messages[id] : catalog.load(id);
+	}
+
+	public String getMessage(final Locale locale, final int id) {
+		return getMessage(localeRegistry.handle(locale), id);
+	}
+
+	@Override
+	public Optional<String> findMessage(final Locale locale, final String key) {
+		return findMessage(localeRegistry.handle(locale), key);
+	}
+
+	@Override
+	public Optional<String> findMessage(final LocaleHandle locale, final String key) {
+		final MessageId id = ids.resolve(key);
+		return id != null
+				? Optional.ofNullable(getMessage(locale, id.getId()))
+				: source.findMessage(locale, key);
+	}
+
+	/**
+	 * Copies the messages of all {@link Locale Locales} again the next time they are used, e.g. after the backing
+	 * {@link MessageSource} was reloaded.
+	 */
+	public void invalidateAll() {
+		for (final LocaleHandle handle : localeRegistry.getHandles()) {
+			final Catalog catalog = catalogs.get(handle);
+			if (catalog != null) {
+				catalog.clear();
+			}
+		}
+	}
+
+	public MessageIds getIds() {
+		return ids;
+	}
+
+	public MessageSource getSource() {
+		return source;
+	}
+
+	@Override
+	public String toString() {
+		return "IndexedMessageSource [ids=" + ids + ", source=" + source + "]";
+	}
+
+	private final class Catalog {
+
+		private final LocaleHandle locale;
+		// null entries are keys without a message, every ID below the length has been copied
+		volatile String[] messages = EMPTY;
+
+		Catalog(final LocaleHandle locale) {
+			this.locale = locale;
+		}
+
+		synchronized String load(final int id) {
+			final String[] messages = this.messages;
+			if (id < messages.length) {
+				return messages[id];
+			}
+			if (id >= ids.size()) {
+				throw new IndexOutOfBoundsException("no message id " + id);
+			}
+			final String[] loaded = Arrays.copyOf(messages, ids.size());
+			for (int i = messages.length; i < loaded.length; i++) {
+				loaded[i] = source.findMessage(locale, ids.get(i).getKey()).orElse(null);
+			}
+			this.messages = loaded;
+			return loaded[id];
+		}
+
+		synchronized void clear() {
+			messages = EMPTY;
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package com.github.chisui.translate.lookup;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.function.Function;
+
+/**
+ * Converts message keys to {@link String Strings} and memoizes the result for {@link Class} and {@link Enum} keys,
+ * so the same {@link String} instance is returned for every lookup of such a key without allocating.
+ * <p>
+ * The conversion function is expected to always produce the same result for the same {@link Class} or
+ * {@link Enum} constant. All other keys are converted on every call.
+ */
+public final class KeyCodec implements Function<Object, String> {
+
+	private static final KeyCodec STRING_VALUE_OF = new KeyCodec(String::valueOf);
+
+	private final Function<Object, String> toString;
+
+	private final ClassValue<String> classKeys = new ClassValue<String>() {
+
+		@Override
+		protected String computeValue(final Class<?> type) {
+			return toString.apply(type);
+		}
+	};
+
+	private final ClassValue<String[]> enumKeys = new ClassValue<String[]>() {
+
+		@Override
+		protected String[] computeValue(final Class<?> type) {
+			final Object[] constants = type.getEnumConstants();
+			final String[] keys = new String[constants.length];
+			for (int i = 0; i < constants.length; i++) {
+				keys[i] = toString.apply(constants[i]);
+			}
+			return keys;
+		}
+	};
+
+	private KeyCodec(final Function<Object, String> toString) {
+		this.toString = requireNonNull(toString, "toString may not be null");
+	}
+
+	/**
+	 * @return {@link KeyCodec} using {@link String#valueOf(Object)}
+	 */
+	public static KeyCodec ofStringValueOf() {
+		return STRING_VALUE_OF;
+	}
+
+	public static KeyCodec of(final Function<Object, String> toString) {
+		return toString instanceof KeyCodec ? (KeyCodec) toString : new KeyCodec(toString);
+	}
+
+	@Override
+	public String apply(final Object key) {
+		if (key instanceof Class) {
+			return classKeys.get((Class<?>) key);
+		} else if (key instanceof Enum) {
+			final Enum<?> constant = (Enum<?>) key;
+			return enumKeys.get(constant.getDeclaringClass())[constant.ordinal()];
+		} else {
+			return toString.apply(key);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "KeyCodec [toString=" + toString + "]";
+	}
+}
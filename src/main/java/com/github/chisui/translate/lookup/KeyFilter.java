@@ -0,0 +1,182 @@
+package com.github.chisui.translate.lookup;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Tells whether a {@link MessageSource} may hold a key, so lookups can skip sources that certainly don't. A filter
+ * may answer <code>true</code> for keys that are absent but never <code>false</code> for keys that are present.
+ */
+@FunctionalInterface
+public interface KeyFilter {
+
+	/**
+	 * @param key to check
+	 * @return <code>false</code> if the key is certainly absent
+	 */
+	boolean mightContain(String key);
+
+	/**
+	 * @return {@link KeyFilter} that accepts every key
+	 */
+	static KeyFilter all() {
+		return AllKeyFilter.INSTANCE;
+	}
+
+	/**
+	 * @param keys to accept, copied
+	 * @return {@link KeyFilter} accepting exactly the given keys
+	 */
+	static KeyFilter exact(final Collection<String> keys) {
+		return new ExactKeyFilter(keys);
+	}
+
+	static BloomKeyFilter bloom(final Collection<String> keys) {
+		return bloom(keys, BloomKeyFilter.DEFAULT_FALSE_POSITIVE_RATE);
+	}
+
+	/**
+	 * @param keys to accept
+	 * @param falsePositiveRate expected rate of absent keys that are accepted
+	 * @return {@link BloomKeyFilter} accepting the given keys
+	 */
+	static BloomKeyFilter bloom(final Collection<String> keys, final double falsePositiveRate) {
+		return new BloomKeyFilter(keys, falsePositiveRate);
+	}
+
+	final class AllKeyFilter implements KeyFilter {
+
+		private static final AllKeyFilter INSTANCE = new AllKeyFilter();
+
+		private AllKeyFilter() {
+		}
+
+		@Override
+		public boolean mightContain(final String key) {
+			return true;
+		}
+
+		@Override
+		public String toString() {
+			return "KeyFilter.all()";
+		}
+	}
+
+	final class ExactKeyFilter implements KeyFilter {
+
+		private final Set<String> keys;
+
+		private ExactKeyFilter(final Collection<String> keys) {
+			this.keys = Collections.unmodifiableSet(new HashSet<>(requireNonNull(keys, "keys must not be null")));
+		}
+
+		@Override
+		public boolean mightContain(final String key) {
+			return keys.contains(key);
+		}
+
+		public Set<String> getKeys() {
+			return keys;
+		}
+
+		@Override
+		public String toString() {
+			return "ExactKeyFilter [size=" + keys.size() + "]";
+		}
+	}
+
+	/**
+	 * Bloom filter sized for a fixed set of keys. It needs about 10 bits per key for a false positive rate of 1%
+	 * regardless of the length of the keys. Bit positions are derived from the cached {@link String#hashCode()},
+	 * so a check neither iterates the key nor allocates.
+	 */
+	final class BloomKeyFilter implements KeyFilter {
+
+		/**
+		 * False positive rate used if none is given.
+		 */
+		public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+
+		private final long[] bits;
+		private final int bitCount;
+		private final int hashCount;
+		private final double falsePositiveRate;
+
+		private BloomKeyFilter(final Collection<String> keys, final double falsePositiveRate) {
+			requireNonNull(keys, "keys must not be null");
+			if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+				throw new IllegalArgumentException(
+						"falsePositiveRate has to be between 0 and 1 but was " + falsePositiveRate);
+			}
+			final int size = Math.max(keys.size(), 1);
+			final double optimalBits = -size * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+			this.bits = new long[(int) Math.min(Integer.MAX_VALUE / 64, (long) Math.ceil(optimalBits / 64))];
+			this.bitCount = bits.length * 64;
+			this.hashCount = Math.max(1, (int) Math.round((double) bitCount / size * Math.log(2)));
+			this.falsePositiveRate = falsePositiveRate;
+			for (final String key : keys) {
+				add(key);
+			}
+		}
+
+		private void add(final String key) {
+			final long hash = mix(key.hashCode());
+			final int h1 = (int) hash;
+			final int h2 = (int) (hash >>> 32);
+			for (int i = 0; i < hashCount; i++) {
+				final int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+				bits[bit >>> 6] |= 1L << bit;
+			}
+		}
+
+		@Override
+		public boolean mightContain(final String key) {
+			final long hash = mix(key.hashCode());
+			final int h1 = (int) hash;
+			final int h2 = (int) (hash >>> 32);
+			for (int i = 0; i < hashCount; i++) {
+				final int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+				if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		// finalizer of MurmurHash3, spreads the 32 bits of String.hashCode over two independent 32 bit hashes
+		private static long mix(final int hashCode) {
+			long h = hashCode;
+			h ^= h >>> 33;
+			h *= 0xff51afd7ed558ccdL;
+			h ^= h >>> 33;
+			h *= 0xc4ceb9fe1a85ec53L;
+			h ^= h >>> 33;
+			return h;
+		}
+
+		/**
+		 * @return size of the filter in bits
+		 */
+		public int getBitCount() {
+			return bitCount;
+		}
+
+		public int getHashCount() {
+			return hashCount;
+		}
+
+		public double getFalsePositiveRate() {
+			return falsePositiveRate;
+		}
+
+		@Override
+		public String toString() {
+			return "BloomKeyFilter [bitCount=" + bitCount + ", hashCount=" + hashCount + ", falsePositiveRate="
+					+ falsePositiveRate + "]";
+		}
+	}
+}
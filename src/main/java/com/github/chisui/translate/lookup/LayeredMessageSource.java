@@ -0,0 +1,310 @@
+package com.github.chisui.translate.lookup;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link MessageSource} stacking {@link Tier Tiers} of {@link MessageSource MessageSources}, e.g. tenant overrides
+ * on top of a product catalog on top of a base {@link java.util.ResourceBundle}. A message is taken from the first
+ * tier that has one.
+ * <p>
+ * Every tier has a {@link KeyFilter} and tiers whose filter rejects a key are skipped without being queried.
+ * Optionally the tier that served a key is remembered per {@link Locale}, so repeated lookups query that tier
+ * directly. Remembered tiers have to be {@link #invalidateResolvedTiers() invalidated} when a higher tier gains a
+ * message for a key a lower tier served before.
+ */
+public class LayeredMessageSource implements MessageSource {
+
+	private final Tier[] tiers;
+	private final int maximumResolvedTiers;
+	// null if resolved tiers are not remembered
+	private final LocaleTable<ConcurrentMap<String, Integer>> resolvedTiers;
+	private final AtomicInteger resolvedTierCount = new AtomicInteger();
+
+	public LayeredMessageSource(final List<Tier> tiers) {
+		this(tiers, 0);
+	}
+
+	public LayeredMessageSource(final List<Tier> tiers, final int maximumResolvedTiers) {
+		this(tiers, maximumResolvedTiers, LocaleRegistry.getDefault());
+	}
+
+	/**
+	 * @param tiers in the order they are queried
+	 * @param maximumResolvedTiers maximum number of remembered tiers that served a key, once reached further keys
+	 *        are not remembered until they are invalidated, <code>0</code> remembers nothing
+	 * @param localeRegistry indexing the remembered tiers
+	 */
+	public LayeredMessageSource(
+			final List<Tier> tiers,
+			final int maximumResolvedTiers,
+			final LocaleRegistry localeRegistry) {
+		this.tiers = requireNonNull(tiers, "tiers must not be null").toArray(new Tier[tiers.size()]);
+		for (final Tier tier : this.tiers) {
+			requireNonNull(tier, "tiers must not contain null");
+		}
+		if (maximumResolvedTiers < 0) {
+			throw new IllegalArgumentException(
+					"maximumResolvedTiers may not be negative but was " + maximumResolvedTiers);
+		}
+		this.maximumResolvedTiers = maximumResolvedTiers;
+		this.resolvedTiers = maximumResolvedTiers == 0
+				? null
+				: requireNonNull(localeRegistry, "localeRegistry must not be null").newTable();
+	}
+
+	@Override
+	public Optional<String> findMessage(final Locale locale, final String key) {
+		return find(locale, null, key);
+	}
+
+	@Override
+	public Optional<String> findMessage(final LocaleHandle locale, final String key) {
+		return find(locale.getLocale(), locale, key);
+	}
+
+	private Optional<String> find(final Locale locale, final LocaleHandle handle, final String key) {
+		final ConcurrentMap<String, Integer> resolved = resolvedTiers(locale, handle);
+		if (resolved != null) {
+			final Integer index = resolved.get(key);
+			if (index != null) {
+				final Optional<String> message = tiers[index].find(locale, handle, key);
+				if (message.isPresent()) {
+					tiers[index].hits.increment();
+					return message;
+				}
+				forget(resolved, key, index);
+			}
+		}
+		for (int i = 0; i < tiers.length; i++) {
+			final Tier tier = tiers[i];
+			if (!tier.keyFilter.mightContain(key)) {
+				tier.skips.increment();
+				continue;
+			}
+			final Optional<String> message = tier.find(locale, handle, key);
+			if (message.isPresent()) {
+				tier.hits.increment();
+				remember(resolved, key, i);
+				return message;
+			}
+			tier.misses.increment();
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * Queries the tiers one after another with the keys that are still missing and pass their {@link KeyFilter}.
+	 */
+	@Override
+	public Map<String, String> findMessages(final Locale locale, final Collection<String> keys) {
+		final ConcurrentMap<String, Integer> resolved = resolvedTiers(locale, null);
+		final Map<String, String> messages = new HashMap<>(keys.size() * 4 / 3 + 1);
+		List<String> remaining = new ArrayList<>(keys);
+		for (int i = 0; i < tiers.length && !remaining.isEmpty(); i++) {
+			final Tier tier = tiers[i];
+			final List<String> candidates = new ArrayList<>(remaining.size());
+			final List<String> skipped = new ArrayList<>();
+			for (final String key : remaining) {
+				(tier.keyFilter.mightContain(key) ? candidates : skipped).add(key);
+			}
+			tier.skips.add(skipped.size());
+			if (candidates.isEmpty()) {
+				continue;
+			}
+			final Map<String, String> found = tier.source.findMessages(locale, candidates);
+			tier.hits.add(found.size());
+			tier.misses.add(candidates.size() - found.size());
+			messages.putAll(found);
+			for (final String key : candidates) {
+				if (found.containsKey(key)) {
+					remember(resolved, key, i);
+				} else {
+					skipped.add(key);
+				}
+			}
+			remaining = skipped;
+		}
+		return messages;
+	}
+
+	/**
+	 * Finds the tier serving a key without recording statistics or remembering the tier.
+	 *
+	 * @param locale of the message
+	 * @param key of the message
+	 * @return the first tier that has a message for the key
+	 */
+	public Optional<Tier> findTier(final Locale locale, final String key) {
+		for (final Tier tier : tiers) {
+			if (tier.keyFilter.mightContain(key) && tier.source.findMessage(locale, key).isPresent()) {
+				return Optional.of(tier);
+			}
+		}
+		return Optional.empty();
+	}
+
+	private ConcurrentMap<String, Integer> resolvedTiers(final Locale locale, final LocaleHandle handle) {
+		if (resolvedTiers == null) {
+			return null;
+		}
+		return handle != null
+				? resolvedTiers.computeIfAbsent(handle, h -> new ConcurrentHashMap<>())
+				: resolvedTiers.computeIfAbsent(locale, h -> new ConcurrentHashMap<>());
+	}
+
+	private void remember(final ConcurrentMap<String, Integer> resolved, final String key, final int index) {
+		if (resolved != null && resolvedTierCount.get() < maximumResolvedTiers
+				&& resolved.putIfAbsent(key, index) == null) {
+			resolvedTierCount.incrementAndGet();
+		}
+	}
+
+	private void forget(final ConcurrentMap<String, Integer> resolved, final String key, final int index) {
+		if (resolved.remove(key, index)) {
+			resolvedTierCount.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Forgets the remembered tiers of a key for all {@link Locale Locales}.
+	 *
+	 * @param key to forget
+	 */
+	public void invalidateResolvedTier(final String key) {
+		requireNonNull(key);
+		if (resolvedTiers != null) {
+			for (final LocaleHandle handle : resolvedTiers.getRegistry().getHandles()) {
+				final ConcurrentMap<String, Integer> resolved = resolvedTiers.get(handle);
+				if (resolved != null && resolved.remove(key) != null) {
+					resolvedTierCount.decrementAndGet();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Forgets all remembered tiers, e.g. after a tier was reloaded.
+	 */
+	public void invalidateResolvedTiers() {
+		if (resolvedTiers != null) {
+			for (final LocaleHandle handle : resolvedTiers.getRegistry().getHandles()) {
+				final ConcurrentMap<String, Integer> resolved = resolvedTiers.get(handle);
+				if (resolved != null) {
+					for (final String key : resolved.keySet()) {
+						if (resolved.remove(key) != null) {
+							resolvedTierCount.decrementAndGet();
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return number of remembered tiers that served a key
+	 */
+	public int getResolvedTierCount() {
+		return resolvedTierCount.get();
+	}
+
+	public List<Tier> getTiers() {
+		return Collections.unmodifiableList(Arrays.asList(tiers));
+	}
+
+	@Override
+	public String toString() {
+		return "LayeredMessageSource [tiers=" + Arrays.toString(tiers) + ", maximumResolvedTiers="
+				+ maximumResolvedTiers + "]";
+	}
+
+	/**
+	 * A named {@link MessageSource} of a {@link LayeredMessageSource} and the {@link KeyFilter} of the keys it
+	 * holds in any {@link Locale}. Counts how often it served a key, was queried without result and was skipped.
+	 */
+	public static final class Tier {
+
+		private final String name;
+		private final MessageSource source;
+		private final KeyFilter keyFilter;
+		private final LongAdder hits = new LongAdder();
+		private final LongAdder misses = new LongAdder();
+		private final LongAdder skips = new LongAdder();
+
+		private Tier(final String name, final MessageSource source, final KeyFilter keyFilter) {
+			this.name = requireNonNull(name, "name must not be null");
+			this.source = requireNonNull(source, "source must not be null");
+			this.keyFilter = requireNonNull(keyFilter, "keyFilter must not be null");
+		}
+
+		public static Tier of(final String name, final MessageSource source) {
+			return of(name, source, KeyFilter.all());
+		}
+
+		/**
+		 * @param name of the tier
+		 * @param source of the messages
+		 * @param keyFilter that accepts all keys the source has a message for in any {@link Locale}
+		 * @return the {@link Tier}
+		 */
+		public static Tier of(final String name, final MessageSource source, final KeyFilter keyFilter) {
+			return new Tier(name, source, keyFilter);
+		}
+
+		private Optional<String> find(final Locale locale, final LocaleHandle handle, final String key) {
+			return handle != null ? source.findMessage(handle, key) : source.findMessage(locale, key);
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public MessageSource getSource() {
+			return source;
+		}
+
+		public KeyFilter getKeyFilter() {
+			return keyFilter;
+		}
+
+		/**
+		 * @return number of keys this tier served
+		 */
+		public long getHits() {
+			return hits.sum();
+		}
+
+		/**
+		 * @return number of keys this tier was queried for but had no message, including false positives of its
+		 *         {@link KeyFilter}
+		 */
+		public long getMisses() {
+			return misses.sum();
+		}
+
+		/**
+		 * @return number of keys this tier was skipped for because its {@link KeyFilter} rejected them
+		 */
+		public long getSkips() {
+			return skips.sum();
+		}
+
+		@Override
+		public String toString() {
+			return "Tier [name=" + name + ", keyFilter=" + keyFilter + "]";
+		}
+	}
+}
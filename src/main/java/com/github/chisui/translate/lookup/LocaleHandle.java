@@ -0,0 +1,57 @@
+package com.github.chisui.translate.lookup;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A {@link Locale} interned by a {@link LocaleRegistry}. Handles of the same registry are unique per {@link Locale}
+ * so they can be compared by identity.
+ */
+public final class LocaleHandle {
+
+	private final LocaleRegistry registry;
+	private final Locale locale;
+	private final int index;
+	// set once by the LocaleRegistry before the handle is published
+	private List<LocaleHandle> fallbackChain;
+
+	LocaleHandle(final LocaleRegistry registry, final Locale locale, final int index) {
+		this.registry = registry;
+		this.locale = locale;
+		this.index = index;
+	}
+
+	void setFallbackChain(final List<LocaleHandle> fallbackChain) {
+		this.fallbackChain = fallbackChain;
+	}
+
+	public LocaleRegistry getRegistry() {
+		return registry;
+	}
+
+	public Locale getLocale() {
+		return locale;
+	}
+
+	/**
+	 * @return index of this handle in its {@link LocaleRegistry}, indices are assigned densely starting at
+	 *         <code>0</code>
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * @return the handles of the candidate locales {@link java.util.ResourceBundle.Control#getCandidateLocales(String,
+	 *         Locale)} returns in search order, e.g. <code>de_AT</code>, <code>de</code> and {@link Locale#ROOT} for
+	 *         <code>de_AT</code>
+	 */
+	public List<LocaleHandle> getFallbackChain() {
+		return fallbackChain;
+	}
+
+	@Override
+	public String toString() {
+		return "LocaleHandle [locale=" + locale + ", index=" + index + "]";
+	}
+}
@@ -0,0 +1,127 @@
+package com.github.chisui.translate.lookup;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Interns {@link Locale Locales} into {@link LocaleHandle LocaleHandles}. Every distinct {@link Locale} is assigned
+ * a small index once and its fallback chain is resolved once, so per locale data can be kept in a
+ * {@link LocaleTable} indexed by array slot instead of a {@link java.util.Map} keyed by {@link Locale}.
+ * <p>
+ * Handles are never removed, a registry is meant for the bounded set of locales an application serves.
+ * <p>
+ * {@link com.github.chisui.translate.Translator.MessageLookupTranslator MessageLookupTranslator} interns the
+ * {@link Locale} of every translation once and passes the handle down through the {@link LocaleHandle} overloads of
+ * {@link MessageLookup} and {@link MessageSource}, so the {@link LocaleTable LocaleTables} of the message sources
+ * read their values by array slot instead of interning the {@link Locale} again.
+ */
+public final class LocaleRegistry {
+
+	private static final LocaleRegistry DEFAULT = new LocaleRegistry();
+	private static final ResourceBundle.Control CONTROL =
+			ResourceBundle.Control.getControl(ResourceBundle.Control.FORMAT_DEFAULT);
+
+	private final ConcurrentMap<Locale, LocaleHandle> handles = new ConcurrentHashMap<>();
+	private volatile LocaleHandle[] byIndex = new LocaleHandle[0];
+
+	/**
+	 * @return registry shared by all components that are not given one explicitly
+	 */
+	public static LocaleRegistry getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * @param locale to intern
+	 * @return the handle of the {@link Locale}, the same instance for equal {@link Locale Locales}
+	 */
+	public LocaleHandle handle(final Locale locale) {
+		final LocaleHandle handle = handles.get(requireNonNull(locale, "locale must not be null"));
+		return handle != null ? handle : register(locale);
+	}
+
+	private synchronized LocaleHandle register(final Locale locale) {
+		final LocaleHandle registered = handles.get(locale);
+		if (registered != null) {
+			return registered;
+		}
+		// candidate chains may contain each other, e.g. zh_TW and zh_Hant_TW, so all handles are created first
+		final Map<Locale, LocaleHandle> added = new LinkedHashMap<>();
+		final Deque<Locale> pending = new ArrayDeque<>();
+		pending.add(locale);
+		while (!pending.isEmpty()) {
+			final Locale next = pending.poll();
+			if (!handles.containsKey(next) && !added.containsKey(next)) {
+				added.put(next, new LocaleHandle(this, next, byIndex.length + added.size()));
+				pending.addAll(CONTROL.getCandidateLocales("", next));
+			}
+		}
+		for (final LocaleHandle handle : added.values()) {
+			final List<LocaleHandle> chain = new ArrayList<>();
+			for (final Locale candidate : CONTROL.getCandidateLocales("", handle.getLocale())) {
+				final LocaleHandle candidateHandle = added.get(candidate);
+				chain.add(candidateHandle != null ? candidateHandle : handles.get(candidate));
+			}
+			handle.setFallbackChain(Collections.unmodifiableList(chain));
+		}
+		final LocaleHandle[] newByIndex = Arrays.copyOf(byIndex, byIndex.length + added.size());
+		for (final LocaleHandle handle : added.values()) {
+			newByIndex[handle.getIndex()] = handle;
+		}
+		byIndex = newByIndex;
+		handles.putAll(added);
+		return added.get(locale);
+	}
+
+	/**
+	 * @param index of a handle
+	 * @return the handle with that index
+	 * @throws IndexOutOfBoundsException if there is no handle with that index
+	 */
+	public LocaleHandle get(final int index) {
+		final LocaleHandle[] handles = byIndex;
+		if (index < 0 || index >= handles.length) {
+			throw new IndexOutOfBoundsException("no locale with index " + index);
+		}
+		return handles[index];
+	}
+
+	/**
+	 * @return number of interned {@link Locale Locales}, every index below it belongs to a handle
+	 */
+	public int size() {
+		return byIndex.length;
+	}
+
+	/**
+	 * @return all handles in the order of their indices
+	 */
+	public List<LocaleHandle> getHandles() {
+		return Collections.unmodifiableList(Arrays.asList(byIndex));
+	}
+
+	/**
+	 * @param <V> type of the values
+	 * @return an empty {@link LocaleTable} indexed by the handles of this registry
+	 */
+	public <V> LocaleTable<V> newTable() {
+		return new LocaleTable<>(this);
+	}
+
+	@Override
+	public String toString() {
+		return "LocaleRegistry [size=" + size() + "]";
+	}
+}
@@ -0,0 +1,84 @@
+package com.github.chisui.translate.lookup;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Per locale values indexed by the {@link LocaleHandle#getIndex() indices} of a {@link LocaleRegistry}. Reads are a
+ * single array access, values are added using copy on write since every locale is only added once.
+ * <p>
+ * Handles of other registries are accepted too, they are translated into a handle of this table's registry first.
+ *
+ * @param <V> type of the values
+ */
+public final class LocaleTable<V> {
+
+	private final LocaleRegistry registry;
+	private volatile Object[] values = new Object[0];
+
+	LocaleTable(final LocaleRegistry registry) {
+		this.registry = requireNonNull(registry, "registry must not be null");
+	}
+
+	/**
+	 * @param handle of the locale
+	 * @return the value or <code>null</code> if there is none
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(final LocaleHandle handle) {
+		final int index = indexOf(handle);
+		final Object[] values = this.values;
+		return index < values.length ? (V) values[index] : null;
+	}
+
+	public V computeIfAbsent(final Locale locale, final Function<? super LocaleHandle, ? extends V> compute) {
+		return computeIfAbsent(registry.handle(locale), compute);
+	}
+
+	/**
+	 * Returns the value of a locale, computing it if there is none yet. Values are computed at most once per locale
+	 * while holding the lock of this table.
+	 *
+	 * @param handle of the locale
+	 * @param compute creates the value, must not return <code>null</code>
+	 * @return the value
+	 */
+	public V computeIfAbsent(final LocaleHandle handle, final Function<? super LocaleHandle, ? extends V> compute) {
+		final V value = get(handle);
+		return value != null ? value : computeAndStore(handle, compute);
+	}
+
+	@SuppressWarnings("unchecked")
+	private synchronized V computeAndStore(
+			final LocaleHandle handle,
+			final Function<? super LocaleHandle, ? extends V> compute) {
+		final LocaleHandle own = handle.getRegistry() == registry ? handle : registry.handle(handle.getLocale());
+		final int index = own.getIndex();
+		if (index < values.length && values[index] != null) {
+			return (V) values[index];
+		}
+		final V value = requireNonNull(compute.apply(own), "computed value must not be null");
+		final Object[] newValues = Arrays.copyOf(values, Math.max(values.length, Math.max(index + 1, registry.size())));
+		newValues[index] = value;
+		values = newValues;
+		return value;
+	}
+
+	private int indexOf(final LocaleHandle handle) {
+		return handle.getRegistry() == registry
+				? handle.getIndex()
+				: registry.handle(handle.getLocale()).getIndex();
+	}
+
+	public LocaleRegistry getRegistry() {
+		return registry;
+	}
+
+	@Override
+	public String toString() {
+		return "LocaleTable [registry=" + registry + "]";
+	}
+}
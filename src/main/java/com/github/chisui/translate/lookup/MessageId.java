@@ -0,0 +1,44 @@
+package com.github.chisui.translate.lookup;
+
+/**
+ * A message key interned by {@link MessageIds}. IDs of the same registry are unique per key and dense, so
+ * messages can be kept in arrays indexed by {@link #getId()}.
+ * <p>
+ * A {@link MessageId} can be used as the key of a {@link com.github.chisui.translate.TranslationHint}, its
+ * {@link #toString()} is the key so it works with lookups that are not indexed as well.
+ */
+public final class MessageId {
+
+	private final MessageIds registry;
+	private final int id;
+	private final String key;
+
+	MessageId(final MessageIds registry, final int id, final String key) {
+		this.registry = registry;
+		this.id = id;
+		this.key = key;
+	}
+
+	public MessageIds getRegistry() {
+		return registry;
+	}
+
+	/**
+	 * @return index of this key in its {@link MessageIds}, IDs are assigned densely starting at <code>0</code>
+	 */
+	public int getId() {
+		return id;
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	/**
+	 * @return the key
+	 */
+	@Override
+	public String toString() {
+		return key;
+	}
+}
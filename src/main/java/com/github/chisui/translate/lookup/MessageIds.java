@@ -0,0 +1,142 @@
+package com.github.chisui.translate.lookup;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Assigns dense <code>int</code> IDs to message keys once, so messages can be served from arrays instead of
+ * {@link java.util.Map Maps} keyed by {@link String}. Keys are registered explicitly, e.g. at startup or from
+ * generated code. {@link Enum} keys are registered as a whole the first time one of their constants is resolved,
+ * after that resolving a constant is an array access by {@link Enum#ordinal()}.
+ * <p>
+ * IDs are never removed, a registry is meant for the bounded set of keys of an application.
+ */
+public final class MessageIds {
+
+	private final Function<Object, String> toString;
+	private final ConcurrentMap<String, MessageId> ids = new ConcurrentHashMap<>();
+	private volatile MessageId[] byId = new MessageId[0];
+
+	private final ClassValue<MessageId[]> enumIds = new ClassValue<MessageId[]>() {
+
+		@Override
+		protected MessageId[] computeValue(final Class<?> type) {
+			return register(Arrays.asList(type.getEnumConstants())).toArray(new MessageId[0]);
+		}
+	};
+
+	public MessageIds() {
+		this(KeyCodec.ofStringValueOf());
+	}
+
+	/**
+	 * @param toString converts keys to {@link String Strings}, has to match the conversion of the
+	 *        {@link MessageLookup} the IDs are used with
+	 */
+	public MessageIds(final Function<Object, String> toString) {
+		this.toString = KeyCodec.of(requireNonNull(toString, "toString must not be null"));
+	}
+
+	/**
+	 * @param key to register, converted using the <code>toString</code> function of this registry
+	 * @return the ID of the key, the same instance for equal keys
+	 */
+	public MessageId register(final Object key) {
+		final MessageId id = ids.get(toString.apply(requireNonNull(key, "key must not be null")));
+		return id != null ? id : register(Collections.singletonList(key)).get(0);
+	}
+
+	/**
+	 * Registers multiple keys at once. Keys that were not registered before get consecutive IDs.
+	 *
+	 * @param keys to register, converted using the <code>toString</code> function of this registry
+	 * @return the IDs of the keys in order
+	 */
+	public synchronized List<MessageId> register(final Collection<?> keys) {
+		final List<MessageId> registered = new ArrayList<>(keys.size());
+		final List<MessageId> added = new ArrayList<>();
+		for (final Object key : keys) {
+			final String stringKey = toString.apply(requireNonNull(key, "keys must not contain null"));
+			MessageId id = ids.get(stringKey);
+			if (id == null) {
+				id = new MessageId(this, byId.length + added.size(), stringKey);
+				ids.put(stringKey, id);
+				added.add(id);
+			}
+			registered.add(id);
+		}
+		if (!added.isEmpty()) {
+			final MessageId[] newById = Arrays.copyOf(byId, byId.length + added.size());
+			for (final MessageId id : added) {
+				newById[id.getId()] = id;
+			}
+			byId = newById;
+		}
+		return registered;
+	}
+
+	/**
+	 * Resolves the ID of a key without converting it to {@link String} if possible.
+	 *
+	 * @param key a {@link MessageId} of this registry, an {@link Enum} constant or any other key
+	 * @return the ID or <code>null</code> if the key is neither an {@link Enum} constant nor registered
+	 */
+	public MessageId resolve(final Object key) {
+		if (key instanceof MessageId && ((MessageId) key).getRegistry() == this) {
+			return (MessageId) key;
+		} else if (key instanceof Enum) {
+			final Enum<?> constant = (Enum<?>) key;
+			return enumIds.get(constant.getDeclaringClass())[constant.ordinal()];
+		} else {
+			return ids.get(toString.apply(key));
+		}
+	}
+
+	/**
+	 * @param key to convert
+	 * @return the {@link String} the key is registered as
+	 */
+	public String toKey(final Object key) {
+		return toString.apply(key);
+	}
+
+	/**
+	 * @param id of a key
+	 * @return the {@link MessageId} with that ID
+	 * @throws IndexOutOfBoundsException if there is no key with that ID
+	 */
+	public MessageId get(final int id) {
+		final MessageId[] byId = this.byId;
+		if (id < 0 || id >= byId.length) {
+			throw new IndexOutOfBoundsException("no message id " + id);
+		}
+		return byId[id];
+	}
+
+	/**
+	 * @return number of registered keys, every ID below it belongs to a key
+	 */
+	public int size() {
+		return byId.length;
+	}
+
+	/**
+	 * @return all IDs in order
+	 */
+	public List<MessageId> getIds() {
+		return Collections.unmodifiableList(Arrays.asList(byId));
+	}
+
+	@Override
+	public String toString() {
+		return "MessageIds [size=" + size() + "]";
+	}
+}
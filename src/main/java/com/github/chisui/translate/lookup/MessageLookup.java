@@ -2,20 +2,70 @@ package com.github.chisui.translate.lookup;
 
 import static java.util.Objects.requireNonNull;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 
+import com.github.chisui.translate.TranslationHint;
+
 public interface MessageLookup {
 
 	String getMessage(Locale locale, Object key, Optional<String> fallback);
 
+	/**
+	 * Looks up a message like {@link #getMessage(Locale, Object, Optional)} using an interned {@link Locale}.
+	 *
+	 * @param locale of the message
+	 * @param key of the message
+	 * @param fallback used if there is no message
+	 * @return the message
+	 */
+	default String getMessage(final LocaleHandle locale, final Object key, final Optional<String> fallback) {
+		return getMessage(locale.getLocale(), key, fallback);
+	}
+
+	/**
+	 * Looks up the messages of multiple {@link TranslationHint TranslationHints} like
+	 * {@link #getMessage(Locale, Object, Optional)} does.
+	 *
+	 * @param locale of the messages
+	 * @param hints providing keys and fallbacks
+	 * @return the messages in the order of the hints
+	 */
+	default List<String> getMessages(final Locale locale, final List<? extends TranslationHint> hints) {
+		final List<String> messages = new ArrayList<>(hints.size());
+		for (final TranslationHint hint : hints) {
+			messages.add(getMessage(locale, hint.getKey(), hint.getFallback()));
+		}
+		return messages;
+	}
+
+	/**
+	 * Creates the message {@link #getMessage(Locale, Object, Optional)} returns if there is neither a message nor a
+	 * fallback. The default implementation looks the message up again, implementations with a global fallback should
+	 * create it without looking up the message.
+	 *
+	 * @param locale of the message
+	 * @param key of the message
+	 * @return the global fallback
+	 */
+	default String getGlobalFallback(final Locale locale, final Object key) {
+		return getMessage(locale, key, Optional.empty());
+	}
+
 	public static MessageLookup fallback() {
 		return of((locale, key) -> Optional.empty());
 	}
 
 	public static MessageLookup of(final MessageSource messageSource) {
-		return of(String::valueOf, messageSource);
+		return of(KeyCodec.ofStringValueOf(), messageSource);
 	}
 
 	public static MessageLookup of(
@@ -27,14 +77,49 @@ public interface MessageLookup {
 	public static MessageLookup of(
 			final MessageSource messageSource,
 			final Function<String, String> globalFallback) {
-		return of(String::valueOf, messageSource, globalFallback);
+		return of(KeyCodec.ofStringValueOf(), messageSource, globalFallback);
 	}
 
 	public static MessageLookup of(
 			final Function<Object, String> toString,
 			final MessageSource messageSource,
 			final Function<String, String> globalFallback) {
-		return new ComposedMessageLookup(toString, messageSource, globalFallback);
+		return of(toString, messageSource, globalFallback, NegativeLookupCache.disabled());
+	}
+
+	public static MessageLookup of(
+			final MessageSource messageSource,
+			final NegativeLookupCache negativeLookupCache) {
+		return of(KeyCodec.ofStringValueOf(), messageSource, key -> "???" + key + "???", negativeLookupCache);
+	}
+
+	/**
+	 * @param toString converts keys to {@link String Strings}
+	 * @param messageSource to look messages up in
+	 * @param globalFallback creates a message from the key if there is neither a message nor a fallback
+	 * @param negativeLookupCache remembering keys the {@link MessageSource} has no message for
+	 * @return the {@link MessageLookup}
+	 */
+	public static MessageLookup of(
+			final Function<Object, String> toString,
+			final MessageSource messageSource,
+			final Function<String, String> globalFallback,
+			final NegativeLookupCache negativeLookupCache) {
+		return new ComposedMessageLookup(toString, messageSource, globalFallback, negativeLookupCache);
+	}
+
+	/**
+	 * @param messageSource serving the messages
+	 * @return {@link IndexedMessageLookup} resolving the keys of registered messages to their {@link MessageId}
+	 */
+	public static MessageLookup ofIndexed(final IndexedMessageSource messageSource) {
+		return ofIndexed(messageSource, key -> "???" + key + "???");
+	}
+
+	public static MessageLookup ofIndexed(
+			final IndexedMessageSource messageSource,
+			final Function<String, String> globalFallback) {
+		return new IndexedMessageLookup(messageSource, globalFallback);
 	}
 
 	class ComposedMessageLookup implements MessageLookup {
@@ -42,27 +127,149 @@ public interface MessageLookup {
 		private final Function<Object, String> toString;
 		private final MessageSource messageSource;
 		private final Function<String, String> globalFallback;
+		private final NegativeLookupCache negativeLookupCache;
 
 		private ComposedMessageLookup(
 				final Function<Object, String> toString,
 				final MessageSource messageSource,
-				final Function<String, String> globalFallback) {
+				final Function<String, String> globalFallback,
+				final NegativeLookupCache negativeLookupCache) {
 			this.toString = requireNonNull(toString, "toString may not be null");
 			this.messageSource = requireNonNull(messageSource, "Properties Supplier may not be null");
 			this.globalFallback = requireNonNull(globalFallback, "global fallback may not be null");
+			this.negativeLookupCache = requireNonNull(negativeLookupCache, "negative lookup cache may not be null");
 		}
 
 		@Override
 		public String getMessage(Locale locale, Object key, Optional<String> fallback) {
 			String stringKey = toString.apply(key);
-			Optional<String> msg = messageSource.findMessage(locale, stringKey);
-			if (msg.isPresent()) {
-				return msg.get();
-			} else if (fallback.isPresent()) {
+			if (!negativeLookupCache.isCachedMiss(locale, stringKey)) {
+				long stamp = negativeLookupCache.getInvalidationStamp();
+				Optional<String> msg = messageSource.findMessage(locale, stringKey);
+				if (msg.isPresent()) {
+					return msg.get();
+				}
+				negativeLookupCache.cacheMiss(locale, stringKey, stamp);
+			}
+			return fallback(stringKey, fallback);
+		}
+
+		@Override
+		public String getMessage(final LocaleHandle locale, final Object key, final Optional<String> fallback) {
+			final String stringKey = toString.apply(key);
+			if (!negativeLookupCache.isCachedMiss(locale.getLocale(), stringKey)) {
+				final long stamp = negativeLookupCache.getInvalidationStamp();
+				final Optional<String> msg = messageSource.findMessage(locale, stringKey);
+				if (msg.isPresent()) {
+					return msg.get();
+				}
+				negativeLookupCache.cacheMiss(locale.getLocale(), stringKey, stamp);
+			}
+			return fallback(stringKey, fallback);
+		}
+
+		/**
+		 * Removes duplicate keys and looks up the remaining ones using
+		 * {@link MessageSource#findMessages(Locale, Collection)}.
+		 */
+		@Override
+		public List<String> getMessages(final Locale locale, final List<? extends TranslationHint> hints) {
+			final String[] keys = new String[hints.size()];
+			final Set<String> lookup = new LinkedHashSet<>();
+			for (int i = 0; i < keys.length; i++) {
+				keys[i] = toString.apply(hints.get(i).getKey());
+				if (!lookup.contains(keys[i]) && !negativeLookupCache.isCachedMiss(locale, keys[i])) {
+					lookup.add(keys[i]);
+				}
+			}
+			final long stamp = negativeLookupCache.getInvalidationStamp();
+			final Map<String, String> found = lookup.isEmpty()
+					? Collections.emptyMap()
+					: messageSource.findMessages(locale, lookup);
+			for (final String key : lookup) {
+				if (!found.containsKey(key)) {
+					negativeLookupCache.cacheMiss(locale, key, stamp);
+				}
+			}
+			final List<String> messages = new ArrayList<>(keys.length);
+			for (int i = 0; i < keys.length; i++) {
+				final String message = found.get(keys[i]);
+				messages.add(message != null ? message : fallback(keys[i], hints.get(i).getFallback()));
+			}
+			return messages;
+		}
+
+		@Override
+		public String getGlobalFallback(final Locale locale, final Object key) {
+			return globalFallback.apply(toString.apply(key));
+		}
+
+		private String fallback(final String stringKey, final Optional<String> fallback) {
+			if (fallback.isPresent()) {
 				return fallback.get();
 			} else {
 				return globalFallback.apply(stringKey);
 			}
 		}
 	}
+
+	/**
+	 * {@link MessageLookup} serving {@link MessageId MessageIds} and {@link Enum} keys of the {@link MessageIds} of an
+	 * {@link IndexedMessageSource} by array index. Looking up such a key neither converts it to {@link String} nor
+	 * hashes it. Other keys are looked up like {@link ComposedMessageLookup} does.
+	 */
+	class IndexedMessageLookup implements MessageLookup {
+
+		private final IndexedMessageSource messageSource;
+		private final MessageIds ids;
+		private final Function<String, String> globalFallback;
+		private final MessageLookup unindexed;
+
+		private IndexedMessageLookup(
+				final IndexedMessageSource messageSource,
+				final Function<String, String> globalFallback) {
+			this.messageSource = requireNonNull(messageSource, "message source may not be null");
+			this.ids = messageSource.getIds();
+			this.globalFallback = requireNonNull(globalFallback, "global fallback may not be null");
+			this.unindexed = MessageLookup.of(ids::toKey, messageSource, globalFallback);
+		}
+
+		@Override
+		public String getMessage(final Locale locale, final Object key, final Optional<String> fallback) {
+			final MessageId id = ids.resolve(key);
+			if (id == null) {
+				return unindexed.getMessage(locale, key, fallback);
+			}
+			final String message = messageSource.getMessage(locale, id.getId());
+			return message != null ? message : fallback(id, fallback);
+		}
+
+		@Override
+		public String getMessage(final LocaleHandle locale, final Object key, final Optional<String> fallback) {
+			final MessageId id = ids.resolve(key);
+			if (id == null) {
+				return unindexed.getMessage(locale, key, fallback);
+			}
+			final String message = messageSource.getMessage(locale, id.getId());
+			return message != null ? message : fallback(id, fallback);
+		}
+
+		@Override
+		public String getGlobalFallback(final Locale locale, final Object key) {
+			final MessageId id = ids.resolve(key);
+			return id == null ? unindexed.getGlobalFallback(locale, key) : globalFallback.apply(id.getKey());
+		}
+
+		private String fallback(final MessageId id, final Optional<String> fallback) {
+			if (fallback.isPresent()) {
+				return fallback.get();
+			} else {
+				return globalFallback.apply(id.getKey());
+			}
+		}
+
+		public IndexedMessageSource getMessageSource() {
+			return messageSource;
+		}
+	}
 }
@@ -2,6 +2,11 @@ package com.github.chisui.translate.lookup;
 
 import static java.util.Objects.requireNonNull;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.MissingResourceException;
@@ -17,6 +22,33 @@ public interface MessageSource {
 
 	Optional<String> findMessage(Locale locale, String key);
 
+	/**
+	 * Looks up a message using an interned {@link Locale}. Implementations keeping per locale data should
+	 * override this to index it by {@link LocaleHandle#getIndex()}.
+	 *
+	 * @param locale of the message
+	 * @param key of the message
+	 * @return the message if there is one
+	 */
+	default Optional<String> findMessage(final LocaleHandle locale, final String key) {
+		return findMessage(locale.getLocale(), key);
+	}
+
+	/**
+	 * Looks up multiple messages at once. Backends that can serve a batch in a single call should override this.
+	 *
+	 * @param locale of the messages
+	 * @param keys of the messages
+	 * @return the found messages by key, keys without a message are absent
+	 */
+	default Map<String, String> findMessages(final Locale locale, final Collection<String> keys) {
+		final Map<String, String> messages = new HashMap<>(keys.size() * 4 / 3 + 1);
+		for (final String key : keys) {
+			findMessage(locale, key).ifPresent(message -> messages.put(key, message));
+		}
+		return messages;
+	}
+
 	public static MessageSource ofResourceBundle(final String baseName) {
 		requireNonNull(baseName);
 		return (locale, key) -> {
@@ -28,6 +60,59 @@ public interface MessageSource {
 		};
 	}
 	
+	/**
+	 * Creates a {@link MessageSource} that snapshots the {@link ResourceBundle} of each {@link Locale} once
+	 * instead of resolving it on every lookup.
+	 *
+	 * @param baseName base name of the {@link ResourceBundle}
+	 * @return the {@link ResourceBundleSnapshotMessageSource}
+	 * @see ResourceBundleSnapshotMessageSource
+	 */
+	public static ResourceBundleSnapshotMessageSource ofResourceBundleSnapshot(final String baseName) {
+		return new ResourceBundleSnapshotMessageSource(baseName);
+	}
+
+	/**
+	 * Creates a {@link MessageSource} reading memory mapped {@link BinaryCatalog BinaryCatalogs} from a directory.
+	 *
+	 * @param directory containing the catalogs
+	 * @param baseName file name prefix of the catalogs
+	 * @return the {@link BinaryCatalogMessageSource}
+	 * @see BinaryCatalogMessageSource
+	 * @see BinaryCatalogWriter
+	 */
+	public static BinaryCatalogMessageSource ofBinaryCatalog(final Path directory, final String baseName) {
+		return new BinaryCatalogMessageSource(directory, baseName);
+	}
+
+	/**
+	 * Creates a {@link MessageSource} reading <code>.properties</code> files from a directory that can be reloaded
+	 * while it is in use.
+	 *
+	 * @param directory containing the files
+	 * @param baseName file name prefix of the files
+	 * @return the {@link ReloadingMessageSource}, call {@link ReloadingMessageSource#watch()} to reload changes
+	 *         automatically
+	 * @throws IOException if the files could not be read
+	 * @see ReloadingMessageSource
+	 */
+	public static ReloadingMessageSource ofReloadingProperties(final Path directory, final String baseName)
+			throws IOException {
+		return new ReloadingMessageSource(directory, baseName);
+	}
+
+	/**
+	 * Creates a {@link MessageSource} taking each message from the first {@link LayeredMessageSource.Tier} that has
+	 * one, skipping tiers whose {@link KeyFilter} rejects the key.
+	 *
+	 * @param tiers in the order they are queried
+	 * @return the {@link LayeredMessageSource}
+	 * @see LayeredMessageSource
+	 */
+	public static LayeredMessageSource ofLayers(final LayeredMessageSource.Tier... tiers) {
+		return new LayeredMessageSource(Arrays.asList(tiers));
+	}
+
 	public static MessageSource ofMap(
 			 final Function<? super Locale, ? extends Map<? super String, String>> getMap) {
 		requireNonNull(getMap);
@@ -0,0 +1,294 @@
+package com.github.chisui.translate.lookup;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers keys a {@link MessageSource} had no message for, so {@link MessageLookup} can skip the
+ * {@link MessageSource} for repeated misses.
+ */
+public interface NegativeLookupCache {
+
+	/**
+	 * @param locale of the lookup
+	 * @param key of the lookup
+	 * @return <code>true</code> if a miss for the key is cached
+	 */
+	boolean isCachedMiss(Locale locale, String key);
+
+	void cacheMiss(Locale locale, String key);
+
+	/**
+	 * @return stamp of the invalidations so far, taken before looking up a message whose miss is then cached using
+	 *         {@link #cacheMiss(Locale, String, long)}
+	 */
+	default long getInvalidationStamp() {
+		return 0L;
+	}
+
+	/**
+	 * Caches a miss unless the cache was invalidated since the stamp was taken, so a miss looked up before a message
+	 * was added is not cached after the invalidation that followed adding it.
+	 *
+	 * @param locale of the lookup
+	 * @param key of the lookup
+	 * @param invalidationStamp returned by {@link #getInvalidationStamp()} before the lookup
+	 */
+	default void cacheMiss(final Locale locale, final String key, final long invalidationStamp) {
+		cacheMiss(locale, key);
+	}
+
+	void invalidate(Locale locale, String key);
+
+	/**
+	 * Forgets the cached misses of a key for all {@link Locale Locales}.
+	 *
+	 * @param key to forget
+	 */
+	void invalidateKey(String key);
+
+	/**
+	 * Forgets all cached misses, e.g. after the {@link MessageSource} was reloaded.
+	 */
+	void invalidateAll();
+
+	/**
+	 * @return a {@link NegativeLookupCache} that caches nothing
+	 */
+	static NegativeLookupCache disabled() {
+		return DisabledNegativeLookupCache.INSTANCE;
+	}
+
+	static BoundedNegativeLookupCache of(final int maximumSize, final Duration timeToLive) {
+		return of(maximumSize, timeToLive, System::nanoTime);
+	}
+
+	/**
+	 * @param maximumSize maximum number of cached misses
+	 * @param timeToLive after which cached misses expire
+	 * @param ticker returning the current time in nanoseconds
+	 * @return the {@link BoundedNegativeLookupCache}
+	 */
+	static BoundedNegativeLookupCache of(
+			final int maximumSize,
+			final Duration timeToLive,
+			final LongSupplier ticker) {
+		return new BoundedNegativeLookupCache(maximumSize, timeToLive, ticker);
+	}
+
+	final class DisabledNegativeLookupCache implements NegativeLookupCache {
+
+		private static final DisabledNegativeLookupCache INSTANCE = new DisabledNegativeLookupCache();
+
+		private DisabledNegativeLookupCache() {
+		}
+
+		@Override
+		public boolean isCachedMiss(final Locale locale, final String key) {
+			return false;
+		}
+
+		@Override
+		public void cacheMiss(final Locale locale, final String key) {
+			// caches nothing
+		}
+
+		@Override
+		public void invalidate(final Locale locale, final String key) {
+			// caches nothing
+		}
+
+		@Override
+		public void invalidateKey(final String key) {
+			// caches nothing
+		}
+
+		@Override
+		public void invalidateAll() {
+			// caches nothing
+		}
+
+		@Override
+		public String toString() {
+			return "NegativeLookupCache.disabled()";
+		}
+	}
+
+	/**
+	 * {@link NegativeLookupCache} holding at most a fixed number of misses for a fixed time. When the bound is
+	 * exceeded the oldest misses are evicted first. Checking for a cached miss is a single lock free hash probe.
+	 */
+	class BoundedNegativeLookupCache implements NegativeLookupCache {
+
+		private final int maximumSize;
+		private final long timeToLiveNanos;
+		private final LongSupplier ticker;
+
+		private final ConcurrentHashMap<CacheKey, Entry> cache = new ConcurrentHashMap<>();
+		private final ConcurrentLinkedQueue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+		private final AtomicInteger queued = new AtomicInteger();
+		// incremented before removing misses, see cacheMiss(Locale, String, long)
+		private final AtomicLong invalidations = new AtomicLong();
+
+		protected BoundedNegativeLookupCache(
+				final int maximumSize,
+				final Duration timeToLive,
+				final LongSupplier ticker) {
+			if (maximumSize <= 0) {
+				throw new IllegalArgumentException("maximumSize has to be positive but was " + maximumSize);
+			}
+			if (timeToLive.isNegative() || timeToLive.isZero()) {
+				throw new IllegalArgumentException("timeToLive has to be positive but was " + timeToLive);
+			}
+			this.maximumSize = maximumSize;
+			this.timeToLiveNanos = timeToLive.toNanos();
+			this.ticker = requireNonNull(ticker, "ticker may not be null");
+		}
+
+		@Override
+		public boolean isCachedMiss(final Locale locale, final String key) {
+			final CacheKey cacheKey = new CacheKey(locale, key);
+			final Entry entry = cache.get(cacheKey);
+			if (entry == null) {
+				return false;
+			} else if (ticker.getAsLong() - entry.expiresAt >= 0) {
+				cache.remove(cacheKey, entry);
+				return false;
+			}
+			return true;
+		}
+
+		@Override
+		public void cacheMiss(final Locale locale, final String key) {
+			cache(locale, key);
+		}
+
+		@Override
+		public long getInvalidationStamp() {
+			return invalidations.get();
+		}
+
+		/**
+		 * Checks for invalidations after caching the miss. An invalidation that is not seen by the check happens
+		 * afterwards and removes the miss.
+		 */
+		@Override
+		public void cacheMiss(final Locale locale, final String key, final long invalidationStamp) {
+			final Entry entry = cache(locale, key);
+			if (invalidations.get() != invalidationStamp) {
+				cache.remove(entry.key, entry);
+			}
+		}
+
+		private Entry cache(final Locale locale, final String key) {
+			final CacheKey cacheKey = new CacheKey(locale, key);
+			final Entry entry = new Entry(cacheKey, ticker.getAsLong() + timeToLiveNanos);
+			cache.put(cacheKey, entry);
+			insertionOrder.add(entry);
+			queued.incrementAndGet();
+			evict();
+			return entry;
+		}
+
+		private void evict() {
+			// the queue may hold entries that were already invalidated or replaced, keep it bounded as well
+			while (cache.size() > maximumSize || queued.get() > 2 * maximumSize) {
+				final Entry entry = insertionOrder.poll();
+				if (entry == null) {
+					return;
+				}
+				queued.decrementAndGet();
+				cache.remove(entry.key, entry);
+			}
+		}
+
+		@Override
+		public void invalidate(final Locale locale, final String key) {
+			invalidations.incrementAndGet();
+			cache.remove(new CacheKey(locale, key));
+		}
+
+		@Override
+		public void invalidateKey(final String key) {
+			requireNonNull(key);
+			invalidations.incrementAndGet();
+			cache.keySet().removeIf(cacheKey -> cacheKey.key.equals(key));
+		}
+
+		@Override
+		public void invalidateAll() {
+			invalidations.incrementAndGet();
+			cache.clear();
+		}
+
+		public int getMaximumSize() {
+			return maximumSize;
+		}
+
+		public Duration getTimeToLive() {
+			return Duration.ofNanos(timeToLiveNanos);
+		}
+
+		/**
+		 * @return number of cached misses including expired ones that were not removed yet
+		 */
+		public int getSize() {
+			return cache.size();
+		}
+
+		@Override
+		public String toString() {
+			return "BoundedNegativeLookupCache [maximumSize=" + maximumSize + ", timeToLive=" + getTimeToLive() + "]";
+		}
+
+		private static final class CacheKey {
+
+			private final Locale locale;
+			private final String key;
+			private final int hash;
+
+			CacheKey(final Locale locale, final String key) {
+				this.locale = requireNonNull(locale);
+				this.key = requireNonNull(key);
+				this.hash = 31 * locale.hashCode() + key.hashCode();
+			}
+
+			@Override
+			public int hashCode() {
+				return hash;
+			}
+
+			@Override
+			public boolean equals(final Object obj) {
+				if (obj == this) {
+					return true;
+				} else if (obj instanceof CacheKey) {
+					final CacheKey that = (CacheKey) obj;
+					return this.hash == that.hash
+						&& this.key.equals(that.key)
+						&& this.locale.equals(that.locale);
+				} else {
+					return false;
+				}
+			}
+		}
+
+		private static final class Entry {
+
+			final CacheKey key;
+			final long expiresAt;
+
+			Entry(final CacheKey key, final long expiresAt) {
+				this.key = key;
+				this.expiresAt = expiresAt;
+			}
+		}
+	}
+}
@@ -0,0 +1,398 @@
+package com.github.chisui.translate.lookup;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static java.util.Objects.requireNonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.github.chisui.translate.CachingTranslator;
+import com.github.chisui.translate.format.CachingFormat;
+
+/**
+ * {@link MessageSource} reading <code>.properties</code> files from a directory that can be reloaded while it is
+ * in use.
+ * <p>
+ * Files are looked up using the names {@link ResourceBundle} would use, e.g. <code>messages_de_AT.properties</code>,
+ * <code>messages_de.properties</code> and <code>messages.properties</code> for the base name <code>messages</code>
+ * and {@link Locale} <code>de_AT</code>. Messages are searched in that order. Unlike {@link ResourceBundle} there is
+ * no fallback to {@link Locale#getDefault()}.
+ * <p>
+ * All files are parsed into an immutable snapshot that is published with a single atomic swap, so lookups never
+ * block and never see a partially applied reload. {@link #watch()} reloads the files in a background thread
+ * whenever they change. {@link ChangeListener ChangeListeners} are notified about the changed messages after every
+ * reload to invalidate caches depending on them, e.g. using {@link #invalidating(NegativeLookupCache)},
+ * {@link #invalidating(CachingFormat)} or {@link #invalidating(CachingTranslator)}.
+ */
+public class ReloadingMessageSource implements MessageSource, Closeable {
+
+	private static final String EXTENSION = ".properties";
+	private static final ResourceBundle.Control CONTROL =
+			ResourceBundle.Control.getNoFallbackControl(ResourceBundle.Control.FORMAT_PROPERTIES);
+	private static final long DEBOUNCE_MILLIS = 50;
+
+	private final Path directory;
+	private final String baseName;
+	private final AtomicReference<Map<String, Map<String, String>>> snapshot = new AtomicReference<>();
+	private final LocaleTable<List<String>> chains = LocaleRegistry.getDefault().newTable();
+	private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+	private volatile Exception lastReloadFailure;
+	private WatchService watchService;
+
+	/**
+	 * Creates the {@link ReloadingMessageSource} and loads the files once.
+	 *
+	 * @param directory containing the <code>.properties</code> files
+	 * @param baseName file name prefix of the files
+	 * @throws IOException if the files could not be read
+	 */
+	public ReloadingMessageSource(final Path directory, final String baseName) throws IOException {
+		this.directory = requireNonNull(directory, "directory must not be null");
+		this.baseName = requireNonNull(baseName, "baseName must not be null");
+		snapshot.set(load());
+	}
+
+	/**
+	 * Receives the messages that changed during a reload.
+	 */
+	@FunctionalInterface
+	public interface ChangeListener {
+
+		void onChange(List<Change> changes);
+	}
+
+	/**
+	 * @param negativeLookupCache to invalidate
+	 * @return {@link ChangeListener} invalidating the cached misses of added messages for all locales
+	 */
+	public static ChangeListener invalidating(final NegativeLookupCache negativeLookupCache) {
+		requireNonNull(negativeLookupCache);
+		return changes -> {
+			for (final Change change : changes) {
+				if (!change.getOldMessage().isPresent()) {
+					negativeLookupCache.invalidateKey(change.getKey());
+				}
+			}
+		};
+	}
+
+	/**
+	 * @param cachingFormat to invalidate
+	 * @return {@link ChangeListener} invalidating the cached {@link com.github.chisui.translate.format.Formatable
+	 *         Formatables} of changed and removed messages for all locales
+	 */
+	public static ChangeListener invalidating(final CachingFormat cachingFormat) {
+		requireNonNull(cachingFormat);
+		return changes -> {
+			for (final Change change : changes) {
+				change.getOldMessage().ifPresent(cachingFormat::invalidate);
+			}
+		};
+	}
+
+	/**
+	 * A cached translation also depends on the messages of the nested
+	 * {@link com.github.chisui.translate.TranslationHint TranslationHints} of its arguments, so all translations are
+	 * invalidated on every change.
+	 *
+	 * @param cachingTranslator to invalidate
+	 * @return {@link ChangeListener} invalidating all cached translations
+	 */
+	public static ChangeListener invalidating(final CachingTranslator cachingTranslator) {
+		requireNonNull(cachingTranslator);
+		return changes -> cachingTranslator.invalidateAll();
+	}
+
+	@Override
+	public Optional<String> findMessage(final Locale locale, final String key) {
+		return find(chains.computeIfAbsent(locale, this::chain), key);
+	}
+
+	@Override
+	public Optional<String> findMessage(final LocaleHandle locale, final String key) {
+		return find(chains.computeIfAbsent(locale, this::chain), key);
+	}
+
+	private Optional<String> find(final List<String> chain, final String key) {
+		final Map<String, Map<String, String>> bundles = snapshot.get();
+		for (final String bundleName : chain) {
+			final Map<String, String> bundle = bundles.get(bundleName);
+			if (bundle != null) {
+				final String message = bundle.get(key);
+				if (message != null) {
+					return Optional.of(message);
+				}
+			}
+		}
+		return Optional.empty();
+	}
+
+	private List<String> chain(final LocaleHandle locale) {
+		final List<String> chain = new ArrayList<>();
+		for (final LocaleHandle candidate : locale.getFallbackChain()) {
+			chain.add(CONTROL.toBundleName(baseName, candidate.getLocale()));
+		}
+		return Collections.unmodifiableList(chain);
+	}
+
+	public void addListener(final ChangeListener listener) {
+		listeners.add(requireNonNull(listener, "listener must not be null"));
+	}
+
+	public void removeListener(final ChangeListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Reads all files again, publishes the new messages and notifies the {@link ChangeListener ChangeListeners}
+	 * about the changes. If reading fails the current messages are kept. A failing {@link ChangeListener} does not
+	 * keep the others from being notified.
+	 *
+	 * @return the changed messages
+	 * @throws IOException if the files could not be read
+	 * @throws RuntimeException thrown by a {@link ChangeListener} after all of them were notified, the new messages
+	 *         are published nonetheless
+	 */
+	public synchronized List<Change> reload() throws IOException {
+		final Map<String, Map<String, String>> loaded = load();
+		final Map<String, Map<String, String>> previous = snapshot.getAndSet(loaded);
+		final List<Change> changes = diff(previous, loaded);
+		if (!changes.isEmpty()) {
+			final List<Change> unmodifiableChanges = Collections.unmodifiableList(changes);
+			RuntimeException failure = null;
+			for (final ChangeListener listener : listeners) {
+				try {
+					listener.onChange(unmodifiableChanges);
+				} catch (final RuntimeException e) {
+					if (failure == null) {
+						failure = e;
+					} else {
+						failure.addSuppressed(e);
+					}
+				}
+			}
+			if (failure != null) {
+				throw failure;
+			}
+		}
+		return changes;
+	}
+
+	private Map<String, Map<String, String>> load() throws IOException {
+		final Map<String, Map<String, String>> bundles = new HashMap<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, this::isBundleFile)) {
+			for (final Path file : files) {
+				final Properties properties = new Properties();
+				try (InputStream in = Files.newInputStream(file)) {
+					properties.load(in);
+				}
+				final Set<String> keys = properties.stringPropertyNames();
+				final Map<String, String> bundle = new HashMap<>(keys.size() * 4 / 3 + 1);
+				for (final String key : keys) {
+					bundle.put(key, properties.getProperty(key));
+				}
+				final String fileName = file.getFileName().toString();
+				bundles.put(fileName.substring(0, fileName.length() - EXTENSION.length()),
+						Collections.unmodifiableMap(bundle));
+			}
+		}
+		return Collections.unmodifiableMap(bundles);
+	}
+
+	private boolean isBundleFile(final Path file) {
+		final String fileName = file.getFileName().toString();
+		return fileName.endsWith(EXTENSION)
+			&& fileName.startsWith(baseName)
+			&& (fileName.length() == baseName.length() + EXTENSION.length()
+				|| fileName.charAt(baseName.length()) == '_')
+			&& Files.isRegularFile(file);
+	}
+
+	private static List<Change> diff(
+			final Map<String, Map<String, String>> previous,
+			final Map<String, Map<String, String>> current) {
+		final Set<String> bundleNames = new HashSet<>(previous.keySet());
+		bundleNames.addAll(current.keySet());
+		final List<Change> changes = new ArrayList<>();
+		for (final String bundleName : bundleNames) {
+			final Map<String, String> before = previous.getOrDefault(bundleName, Collections.emptyMap());
+			final Map<String, String> after = current.getOrDefault(bundleName, Collections.emptyMap());
+			for (final Map.Entry<String, String> entry : before.entrySet()) {
+				final String message = after.get(entry.getKey());
+				if (!entry.getValue().equals(message)) {
+					changes.add(new Change(bundleName, entry.getKey(), entry.getValue(), message));
+				}
+			}
+			for (final Map.Entry<String, String> entry : after.entrySet()) {
+				if (!before.containsKey(entry.getKey())) {
+					changes.add(new Change(bundleName, entry.getKey(), null, entry.getValue()));
+				}
+			}
+		}
+		return changes;
+	}
+
+	/**
+	 * Starts a daemon thread that reloads the files whenever they change until {@link #close()} is called.
+	 *
+	 * @return this
+	 * @throws IOException if the directory could not be watched
+	 */
+	public synchronized ReloadingMessageSource watch() throws IOException {
+		if (watchService == null) {
+			watchService = directory.getFileSystem().newWatchService();
+			directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+			final WatchService service = watchService;
+			final Thread watcher = new Thread(() -> watch(service), "ReloadingMessageSource " + directory);
+			watcher.setDaemon(true);
+			watcher.start();
+		}
+		return this;
+	}
+
+	private void watch(final WatchService service) {
+		try {
+			while (true) {
+				WatchKey key = service.take();
+				boolean changed = false;
+				// editors usually write files in several steps, collect events until they stop
+				while (key != null) {
+					changed |= isRelevant(key.pollEvents());
+					key.reset();
+					key = service.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+				}
+				if (changed) {
+					try {
+						reload();
+						lastReloadFailure = null;
+					} catch (final IOException | RuntimeException e) {
+						// keeps watching, the next change may fix the files or not trigger the failing listener
+						lastReloadFailure = e;
+					}
+				}
+			}
+		} catch (final InterruptedException | ClosedWatchServiceException e) {
+			// closed
+		}
+	}
+
+	private boolean isRelevant(final List<WatchEvent<?>> events) {
+		for (final WatchEvent<?> event : events) {
+			if (event.kind() == OVERFLOW || isBundleFileName(((Path) event.context()).toString())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean isBundleFileName(final String fileName) {
+		return fileName.endsWith(EXTENSION) && fileName.startsWith(baseName);
+	}
+
+	/**
+	 * @return the exception of the last reload triggered by {@link #watch()} if reading the files or notifying a
+	 *         {@link ChangeListener} failed
+	 */
+	public Optional<Exception> getLastReloadFailure() {
+		return Optional.ofNullable(lastReloadFailure);
+	}
+
+	/**
+	 * Stops watching the files. Lookups keep working with the last loaded messages.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (watchService != null) {
+			watchService.close();
+			watchService = null;
+		}
+	}
+
+	public Path getDirectory() {
+		return directory;
+	}
+
+	public String getBaseName() {
+		return baseName;
+	}
+
+	@Override
+	public String toString() {
+		return "ReloadingMessageSource [directory=" + directory + ", baseName=" + baseName + "]";
+	}
+
+	/**
+	 * A message that was added, changed or removed by a reload.
+	 */
+	public static final class Change {
+
+		private final String bundleName;
+		private final String key;
+		private final String oldMessage;
+		private final String newMessage;
+
+		Change(final String bundleName, final String key, final String oldMessage, final String newMessage) {
+			this.bundleName = bundleName;
+			this.key = key;
+			this.oldMessage = oldMessage;
+			this.newMessage = newMessage;
+		}
+
+		/**
+		 * @return name of the changed file without extension, e.g. <code>messages_de</code>
+		 */
+		public String getBundleName() {
+			return bundleName;
+		}
+
+		public String getKey() {
+			return key;
+		}
+
+		/**
+		 * @return the message before the reload, empty if it was added
+		 */
+		public Optional<String> getOldMessage() {
+			return Optional.ofNullable(oldMessage);
+		}
+
+		/**
+		 * @return the message after the reload, empty if it was removed
+		 */
+		public Optional<String> getNewMessage() {
+			return Optional.ofNullable(newMessage);
+		}
+
+		@Override
+		public String toString() {
+			return "Change [bundleName=" + bundleName + ", key=" + key + ", oldMessage=" + oldMessage
+					+ ", newMessage=" + newMessage + "]";
+		}
+	}
+}
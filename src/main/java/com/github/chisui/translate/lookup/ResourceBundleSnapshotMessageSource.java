@@ -0,0 +1,91 @@
+package com.github.chisui.translate.lookup;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.MissingResourceException;
+import java.util.Optional;
+import java.util.ResourceBundle;
+import java.util.Set;
+
+/**
+ * {@link MessageSource} that resolves the {@link ResourceBundle} of a {@link Locale} once, including its parent
+ * chain, and flattens it into a single immutable {@link Map}. A lookup is one hash probe and a missing key or bundle
+ * never throws.
+ * <p>
+ * Lookups behave like {@link MessageSource#ofResourceBundle(String)}, except that bundles are never reloaded once
+ * they have been snapshotted.
+ */
+public class ResourceBundleSnapshotMessageSource implements MessageSource {
+
+	private final String baseName;
+	private final LocaleTable<Map<String, Object>> snapshots;
+
+	public ResourceBundleSnapshotMessageSource(final String baseName) {
+		this(baseName, LocaleRegistry.getDefault());
+	}
+
+	/**
+	 * @param baseName base name of the {@link ResourceBundle}
+	 * @param localeRegistry indexing the snapshots, lookups using {@link LocaleHandle LocaleHandles} of this
+	 *        registry skip interning the {@link Locale}
+	 */
+	public ResourceBundleSnapshotMessageSource(final String baseName, final LocaleRegistry localeRegistry) {
+		this.baseName = requireNonNull(baseName, "baseName must not be null");
+		this.snapshots = requireNonNull(localeRegistry, "localeRegistry must not be null").newTable();
+	}
+
+	public String getBaseName() {
+		return baseName;
+	}
+
+	@Override
+	public Optional<String> findMessage(final Locale locale, final String key) {
+		final Object value = snapshots.computeIfAbsent(locale, this::snapshot).get(key);
+		// the cast mirrors ResourceBundle.getString for bundles containing non String values
+		return Optional.ofNullable((String) value);
+	}
+
+	@Override
+	public Optional<String> findMessage(final LocaleHandle locale, final String key) {
+		final Object value = snapshots.computeIfAbsent(locale, this::snapshot).get(key);
+		return Optional.ofNullable((String) value);
+	}
+
+	@Override
+	public Map<String, String> findMessages(final Locale locale, final Collection<String> keys) {
+		final Map<String, Object> snapshot = snapshots.computeIfAbsent(locale, this::snapshot);
+		final Map<String, String> messages = new HashMap<>(keys.size() * 4 / 3 + 1);
+		for (final String key : keys) {
+			final Object value = snapshot.get(key);
+			if (value != null) {
+				messages.put(key, (String) value);
+			}
+		}
+		return messages;
+	}
+
+	private Map<String, Object> snapshot(final LocaleHandle locale) {
+		final ResourceBundle bundle;
+		try {
+			bundle = ResourceBundle.getBundle(baseName, locale.getLocale());
+		} catch (final MissingResourceException e) {
+			return Collections.emptyMap();
+		}
+		final Set<String> keys = bundle.keySet();
+		final Map<String, Object> snapshot = new HashMap<>(keys.size() * 4 / 3 + 1);
+		for (final String key : keys) {
+			snapshot.put(key, bundle.getObject(key));
+		}
+		return Collections.unmodifiableMap(snapshot);
+	}
+
+	@Override
+	public String toString() {
+		return "ResourceBundleSnapshotMessageSource [baseName=" + baseName + "]";
+	}
+}
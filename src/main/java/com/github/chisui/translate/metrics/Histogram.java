@@ -0,0 +1,138 @@
+package com.github.chisui.translate.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent histogram of non negative values with log-linear buckets like HdrHistogram. Every power of two is
+ * divided into {@value #SUB_BUCKETS} buckets so recorded values are reported with a relative error of at most
+ * 1/{@value #SUB_BUCKETS}. Recording increments a single {@link LongAdder} and never blocks, the mean is therefore
+ * estimated from the buckets as well. Only the maximum is exact.
+ */
+public final class Histogram {
+
+	private static final int SUB_BUCKET_BITS = 4;
+	static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final LongAdder[] counts = new LongAdder[BUCKETS];
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	public Histogram() {
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * @param value to record, negative values are recorded as <code>0</code>
+	 */
+	public void record(final long value) {
+		final long v = Math.max(0, value);
+		counts[index(v)].increment();
+		max.accumulate(v);
+	}
+
+	static int index(final long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		final int exponent = 63 - Long.numberOfLeadingZeros(value);
+		final int subBucket = (int) (value >>> exponent - SUB_BUCKET_BITS) & SUB_BUCKETS - 1;
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	/**
+	 * @return the largest value that is recorded into the bucket
+	 */
+	static long highestValue(final int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		final int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		final long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << exponent - SUB_BUCKET_BITS;
+		return lowest + (1L << exponent - SUB_BUCKET_BITS) - 1;
+	}
+
+	public Snapshot snapshot() {
+		final long[] bucketCounts = new long[BUCKETS];
+		long count = 0;
+		double sum = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			bucketCounts[i] = counts[i].sum();
+			count += bucketCounts[i];
+			if (bucketCounts[i] != 0) {
+				final long lowest = i == 0 ? 0 : highestValue(i - 1) + 1;
+				sum += bucketCounts[i] * (lowest / 2.0 + highestValue(i) / 2.0);
+			}
+		}
+		return new Snapshot(bucketCounts, count, sum, max.get());
+	}
+
+	/**
+	 * Point in time copy of a {@link Histogram}. Concurrent recording may make the copy slightly inconsistent,
+	 * e.g. {@link #getMax()} may not be included in {@link #getCount()} yet.
+	 */
+	public static final class Snapshot {
+
+		private final long[] counts;
+		private final long count;
+		private final double sum;
+		private final long max;
+
+		Snapshot(final long[] counts, final long count, final double sum, final long max) {
+			this.counts = counts;
+			this.count = count;
+			this.sum = sum;
+			this.max = max;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * @return estimated sum of all recorded values
+		 */
+		public double getSum() {
+			return sum;
+		}
+
+		public long getMax() {
+			return max;
+		}
+
+		/**
+		 * @return estimated mean of all recorded values
+		 */
+		public double getMean() {
+			return count == 0 ? 0 : sum / count;
+		}
+
+		/**
+		 * @param percentile between <code>0</code> and <code>100</code>
+		 * @return the smallest recorded value such that the given percentage of values is less or equal to it,
+		 *         within the precision of the buckets
+		 */
+		public long getValueAtPercentile(final double percentile) {
+			if (percentile < 0 || percentile > 100) {
+				throw new IllegalArgumentException("percentile has to be between 0 and 100 but was " + percentile);
+			}
+			final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+			long seen = 0;
+			for (int i = 0; i < counts.length; i++) {
+				seen += counts[i];
+				if (seen >= rank) {
+					return Math.min(highestValue(i), max);
+				}
+			}
+			return max;
+		}
+
+		@Override
+		public String toString() {
+			return "Snapshot [count=" + count + ", mean=" + getMean() + ", p50=" + getValueAtPercentile(50)
+					+ ", p99=" + getValueAtPercentile(99) + ", max=" + max + "]";
+		}
+	}
+}
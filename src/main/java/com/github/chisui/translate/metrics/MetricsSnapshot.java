@@ -0,0 +1,235 @@
+package com.github.chisui.translate.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Point in time copy of the values recorded by {@link TranslationMetrics}. Latencies are in nanoseconds, output
+ * sizes in chars. Histograms only contain the sampled calls if {@link TranslationMetrics#create(int, int)} samples.
+ */
+public final class MetricsSnapshot {
+
+	static final MetricsSnapshot EMPTY = new MetricsSnapshot(
+			new Histogram().snapshot(),
+			new Histogram().snapshot(),
+			new Histogram().snapshot(),
+			new Histogram().snapshot(),
+			new Histogram().snapshot(),
+			0, 0, 0, Collections.emptyList(), 0);
+
+	private final Histogram.Snapshot lookupNanos;
+	private final Histogram.Snapshot compileNanos;
+	private final Histogram.Snapshot renderNanos;
+	private final Histogram.Snapshot translateNanos;
+	private final Histogram.Snapshot outputChars;
+	private final long hitCount;
+	private final long hintFallbackCount;
+	private final long globalFallbackCount;
+	private final List<KeyStats> keys;
+	private final long untrackedCount;
+
+	MetricsSnapshot(
+			final Histogram.Snapshot lookupNanos,
+			final Histogram.Snapshot compileNanos,
+			final Histogram.Snapshot renderNanos,
+			final Histogram.Snapshot translateNanos,
+			final Histogram.Snapshot outputChars,
+			final long hitCount,
+			final long hintFallbackCount,
+			final long globalFallbackCount,
+			final List<KeyStats> keys,
+			final long untrackedCount) {
+		this.lookupNanos = lookupNanos;
+		this.compileNanos = compileNanos;
+		this.renderNanos = renderNanos;
+		this.translateNanos = translateNanos;
+		this.outputChars = outputChars;
+		this.hitCount = hitCount;
+		this.hintFallbackCount = hintFallbackCount;
+		this.globalFallbackCount = globalFallbackCount;
+		this.keys = Collections.unmodifiableList(keys);
+		this.untrackedCount = untrackedCount;
+	}
+
+	public Histogram.Snapshot getLookupNanos() {
+		return lookupNanos;
+	}
+
+	public Histogram.Snapshot getCompileNanos() {
+		return compileNanos;
+	}
+
+	public Histogram.Snapshot getRenderNanos() {
+		return renderNanos;
+	}
+
+	public Histogram.Snapshot getTranslateNanos() {
+		return translateNanos;
+	}
+
+	public Histogram.Snapshot getOutputChars() {
+		return outputChars;
+	}
+
+	/**
+	 * @return number of lookups that found a message
+	 */
+	public long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * @return number of lookups that used the fallback of the {@link com.github.chisui.translate.TranslationHint}
+	 */
+	public long getHintFallbackCount() {
+		return hintFallbackCount;
+	}
+
+	/**
+	 * @return number of lookups that used the global fallback, e.g. <code>???key???</code>
+	 */
+	public long getGlobalFallbackCount() {
+		return globalFallbackCount;
+	}
+
+	/**
+	 * @return the values recorded per key and {@link Locale}
+	 */
+	public List<KeyStats> getKeys() {
+		return keys;
+	}
+
+	/**
+	 * @return number of translations whose key and {@link Locale} were not tracked individually
+	 */
+	public long getUntrackedCount() {
+		return untrackedCount;
+	}
+
+	/**
+	 * Flattens the aggregated values into a {@link Map} for exporting, e.g. <code>lookup.p99</code> or
+	 * <code>fallback.global</code>. Values per key are not included.
+	 *
+	 * @return the values by name
+	 */
+	public Map<String, Number> toMap() {
+		final Map<String, Number> map = new LinkedHashMap<>();
+		put(map, "lookup", lookupNanos);
+		put(map, "compile", compileNanos);
+		put(map, "render", renderNanos);
+		put(map, "translate", translateNanos);
+		put(map, "output", outputChars);
+		map.put("hit", hitCount);
+		map.put("fallback.hint", hintFallbackCount);
+		map.put("fallback.global", globalFallbackCount);
+		map.put("untracked", untrackedCount);
+		return map;
+	}
+
+	private static void put(final Map<String, Number> map, final String name, final Histogram.Snapshot histogram) {
+		map.put(name + ".count", histogram.getCount());
+		map.put(name + ".mean", histogram.getMean());
+		map.put(name + ".p50", histogram.getValueAtPercentile(50));
+		map.put(name + ".p90", histogram.getValueAtPercentile(90));
+		map.put(name + ".p99", histogram.getValueAtPercentile(99));
+		map.put(name + ".max", histogram.getMax());
+	}
+
+	@Override
+	public String toString() {
+		return "MetricsSnapshot " + toMap();
+	}
+
+	/**
+	 * Values recorded for a single key and {@link Locale}.
+	 */
+	public static final class KeyStats {
+
+		private final Locale locale;
+		private final Object key;
+		private final long translationCount;
+		private final long sampledCount;
+		private final long totalNanos;
+		private final long maxNanos;
+		private final long hitCount;
+		private final long hintFallbackCount;
+		private final long globalFallbackCount;
+
+		KeyStats(
+				final Locale locale,
+				final Object key,
+				final long translationCount,
+				final long sampledCount,
+				final long totalNanos,
+				final long maxNanos,
+				final long hitCount,
+				final long hintFallbackCount,
+				final long globalFallbackCount) {
+			this.locale = locale;
+			this.key = key;
+			this.translationCount = translationCount;
+			this.sampledCount = sampledCount;
+			this.totalNanos = totalNanos;
+			this.maxNanos = maxNanos;
+			this.hitCount = hitCount;
+			this.hintFallbackCount = hintFallbackCount;
+			this.globalFallbackCount = globalFallbackCount;
+		}
+
+		/**
+		 * @return the {@link Locale} or <code>null</code> for translations using the default {@link Locale}
+		 */
+		public Locale getLocale() {
+			return locale;
+		}
+
+		public Object getKey() {
+			return key;
+		}
+
+		public long getTranslationCount() {
+			return translationCount;
+		}
+
+		/**
+		 * @return number of translations whose latency is included in {@link #getTotalNanos()}
+		 */
+		public long getSampledCount() {
+			return sampledCount;
+		}
+
+		public long getTotalNanos() {
+			return totalNanos;
+		}
+
+		public long getMaxNanos() {
+			return maxNanos;
+		}
+
+		public double getMeanNanos() {
+			return sampledCount == 0 ? 0 : (double) totalNanos / sampledCount;
+		}
+
+		public long getHitCount() {
+			return hitCount;
+		}
+
+		public long getHintFallbackCount() {
+			return hintFallbackCount;
+		}
+
+		public long getGlobalFallbackCount() {
+			return globalFallbackCount;
+		}
+
+		@Override
+		public String toString() {
+			return "KeyStats [locale=" + locale + ", key=" + key + ", translations=" + translationCount
+					+ ", meanNanos=" + getMeanNanos() + ", maxNanos=" + maxNanos + ", hits=" + hitCount
+					+ ", hintFallbacks=" + hintFallbackCount + ", globalFallbacks=" + globalFallbackCount + "]";
+		}
+	}
+}
@@ -0,0 +1,496 @@
+package com.github.chisui.translate.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.chisui.translate.TranslationHint;
+import com.github.chisui.translate.Translator;
+import com.github.chisui.translate.Utf8Appendable;
+import com.github.chisui.translate.format.Format;
+import com.github.chisui.translate.format.Formatable;
+import com.github.chisui.translate.lookup.LocaleHandle;
+import com.github.chisui.translate.lookup.MessageLookup;
+
+/**
+ * {@link TranslationMetrics} recording into {@link LongAdder LongAdders} and {@link Histogram Histograms}.
+ * <p>
+ * Latencies are recorded in nanoseconds per stage: <em>lookup</em> by instrumented {@link MessageLookup
+ * MessageLookups}, <em>compile</em> and <em>render</em> by instrumented {@link Format Formats} and
+ * <em>translate</em> by instrumented {@link Translator Translators}. Stages include the stages of nested
+ * translations, e.g. rendering a message includes translating its arguments.
+ * <p>
+ * Translation latencies and lookup outcomes are additionally recorded per key and {@link Locale} for up to a fixed
+ * number of combinations. Further combinations are only counted. Translations without an explicit {@link Locale}
+ * are recorded for the default {@link Locale} of {@link Translator.AbstractTranslator AbstractTranslators} and
+ * without a {@link Locale} for other {@link Translator Translators}.
+ * <p>
+ * Latencies and output sizes are only recorded for a random sample of translations, lookups and messages to keep the
+ * overhead low, lookup outcomes and translations per key are always counted. A sampling interval of <code>n</code>
+ * samples every <code>n</code>-th call on average, <code>0</code> only counts. Output sizes are not recorded for
+ * {@link Utf8Appendable Utf8Appendables} which are passed to the instrumented {@link Translator} unchanged.
+ */
+public class RecordingTranslationMetrics implements TranslationMetrics {
+
+	// compared by identity, never equal to a message returned by a MessageLookup
+	private static final Optional<String> MISSING = Optional.of(new String(""));
+	// stands in for null locales and keys which ConcurrentHashMap does not allow
+	private static final Object NULL = new Object();
+
+	private final int maximumTrackedKeys;
+	private final int samplingInterval;
+
+	private final Histogram lookupNanos = new Histogram();
+	private final Histogram compileNanos = new Histogram();
+	private final Histogram renderNanos = new Histogram();
+	private final Histogram translateNanos = new Histogram();
+	private final Histogram outputChars = new Histogram();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder hintFallbacks = new LongAdder();
+	private final LongAdder globalFallbacks = new LongAdder();
+
+	// by locale and key, so recording does not allocate a combined key
+	private final ConcurrentHashMap<Object, ConcurrentHashMap<Object, KeyRecorder>> keys = new ConcurrentHashMap<>();
+	private final AtomicInteger trackedKeys = new AtomicInteger();
+	private final LongAdder untracked = new LongAdder();
+
+	protected RecordingTranslationMetrics(final int maximumTrackedKeys) {
+		this(maximumTrackedKeys, 1);
+	}
+
+	protected RecordingTranslationMetrics(final int maximumTrackedKeys, final int samplingInterval) {
+		if (maximumTrackedKeys < 0) {
+			throw new IllegalArgumentException("maximumTrackedKeys may not be negative but was " + maximumTrackedKeys);
+		}
+		if (samplingInterval < 0) {
+			throw new IllegalArgumentException("samplingInterval may not be negative but was " + samplingInterval);
+		}
+		this.maximumTrackedKeys = maximumTrackedKeys;
+		this.samplingInterval = samplingInterval;
+	}
+
+	@Override
+	public Translator instrument(final Translator translator) {
+		return new InstrumentedTranslator(requireNonNull(translator, "translator may not be null"));
+	}
+
+	@Override
+	public MessageLookup instrument(final MessageLookup messageLookup) {
+		return new InstrumentedMessageLookup(requireNonNull(messageLookup, "messageLookup may not be null"));
+	}
+
+	@Override
+	public Format instrument(final Format format) {
+		return new InstrumentedFormat(requireNonNull(format, "format may not be null"));
+	}
+
+	private boolean sample() {
+		return samplingInterval == 1
+				|| samplingInterval != 0 && ThreadLocalRandom.current().nextInt(samplingInterval) == 0;
+	}
+
+	private KeyRecorder key(final Locale locale, final Object key) {
+		final Object localeId = locale == null ? NULL : locale;
+		final Object keyId = key == null ? NULL : key;
+		final ConcurrentHashMap<Object, KeyRecorder> byKey = keys.get(localeId);
+		final KeyRecorder recorder = byKey == null ? null : byKey.get(keyId);
+		if (recorder != null || trackedKeys.get() >= maximumTrackedKeys) {
+			return recorder;
+		}
+		return keys
+				.computeIfAbsent(localeId, l -> new ConcurrentHashMap<>())
+				// null if other threads tracked the last combinations meanwhile
+				.computeIfAbsent(keyId, k -> trackedKeys.incrementAndGet() <= maximumTrackedKeys
+						? new KeyRecorder()
+						: null);
+	}
+
+	private void recordOutcome(final Locale locale, final Object key, final boolean found, final boolean hintFallback) {
+		final KeyRecorder recorder = key(locale, key);
+		if (found) {
+			hits.increment();
+			if (recorder != null) {
+				recorder.hits.increment();
+			}
+		} else if (hintFallback) {
+			hintFallbacks.increment();
+			if (recorder != null) {
+				recorder.hintFallbacks.increment();
+			}
+		} else {
+			globalFallbacks.increment();
+			if (recorder != null) {
+				recorder.globalFallbacks.increment();
+			}
+		}
+	}
+
+	private void recordTranslation(final Locale locale, final TranslationHint hint) {
+		final KeyRecorder recorder = key(locale, hint.getKey());
+		if (recorder == null) {
+			untracked.increment();
+		} else {
+			recorder.translations.increment();
+		}
+	}
+
+	/**
+	 * @param chars output size or <code>-1</code> if unknown
+	 */
+	private void recordTranslation(final Locale locale, final TranslationHint hint, final long nanos, final int chars) {
+		translateNanos.record(nanos);
+		if (chars >= 0) {
+			outputChars.record(chars);
+		}
+		final KeyRecorder recorder = key(locale, hint.getKey());
+		if (recorder == null) {
+			untracked.increment();
+		} else {
+			recorder.translations.increment();
+			recorder.sampled.increment();
+			recorder.nanos.add(nanos);
+			recorder.maxNanos.accumulate(nanos);
+		}
+	}
+
+	@Override
+	public MetricsSnapshot snapshot() {
+		final List<MetricsSnapshot.KeyStats> keyStats = new ArrayList<>();
+		keys.forEach((locale, byKey) -> byKey.forEach((key, recorder) -> keyStats.add(new MetricsSnapshot.KeyStats(
+				locale == NULL ? null : (Locale) locale,
+				key == NULL ? null : key,
+				recorder.translations.sum(),
+				recorder.sampled.sum(),
+				recorder.nanos.sum(),
+				recorder.maxNanos.get(),
+				recorder.hits.sum(),
+				recorder.hintFallbacks.sum(),
+				recorder.globalFallbacks.sum()))));
+		return new MetricsSnapshot(
+				lookupNanos.snapshot(),
+				compileNanos.snapshot(),
+				renderNanos.snapshot(),
+				translateNanos.snapshot(),
+				outputChars.snapshot(),
+				hits.sum(),
+				hintFallbacks.sum(),
+				globalFallbacks.sum(),
+				keyStats,
+				untracked.sum());
+	}
+
+	@Override
+	public String toString() {
+		return "RecordingTranslationMetrics [maximumTrackedKeys=" + maximumTrackedKeys
+				+ ", samplingInterval=" + samplingInterval + "]";
+	}
+
+	private final class InstrumentedTranslator implements Translator {
+
+		private final Translator translator;
+		private final Translator.AbstractTranslator withDefaultLocale;
+
+		InstrumentedTranslator(final Translator translator) {
+			this.translator = translator;
+			this.withDefaultLocale = translator instanceof Translator.AbstractTranslator
+					? (Translator.AbstractTranslator) translator
+					: null;
+		}
+
+		@Override
+		public String translate(final TranslationHint hint) {
+			if (withDefaultLocale != null) {
+				return translate(withDefaultLocale.getDefaultLocale(), hint);
+			}
+			if (!sample()) {
+				final String translation = translator.translate(hint);
+				recordTranslation(null, hint);
+				return translation;
+			}
+			final long start = System.nanoTime();
+			final String translation = translator.translate(hint);
+			recordTranslation(null, hint, System.nanoTime() - start, translation.length());
+			return translation;
+		}
+
+		@Override
+		public String translate(final Locale locale, final TranslationHint hint) {
+			if (!sample()) {
+				final String translation = translator.translate(locale, hint);
+				recordTranslation(locale, hint);
+				return translation;
+			}
+			final long start = System.nanoTime();
+			final String translation = translator.translate(locale, hint);
+			recordTranslation(locale, hint, System.nanoTime() - start, translation.length());
+			return translation;
+		}
+
+		@Override
+		public <A extends Appendable> A translate(final A appendable, final TranslationHint hint) throws IOException {
+			if (withDefaultLocale != null) {
+				return translate(appendable, withDefaultLocale.getDefaultLocale(), hint);
+			}
+			if (!sample()) {
+				translator.translate(appendable, hint);
+				recordTranslation(null, hint);
+				return appendable;
+			}
+			final Appendable counting = counting(appendable);
+			final int length = length(appendable);
+			final long start = System.nanoTime();
+			translator.translate(counting, hint);
+			recordTranslation(null, hint, System.nanoTime() - start, written(appendable, counting, length));
+			return appendable;
+		}
+
+		@Override
+		public <A extends Appendable> A translate(final A appendable, final Locale locale, final TranslationHint hint)
+				throws IOException {
+			if (!sample()) {
+				translator.translate(appendable, locale, hint);
+				recordTranslation(locale, hint);
+				return appendable;
+			}
+			final Appendable counting = counting(appendable);
+			final int length = length(appendable);
+			final long start = System.nanoTime();
+			translator.translate(counting, locale, hint);
+			recordTranslation(locale, hint, System.nanoTime() - start, written(appendable, counting, length));
+			return appendable;
+		}
+
+		/**
+		 * Keeps batch optimizations of the underlying {@link Translator}, only output sizes are recorded.
+		 */
+		@Override
+		public List<String> translateAll(final Locale locale, final Collection<? extends TranslationHint> hints) {
+			final List<String> translations = translator.translateAll(locale, hints);
+			for (final String translation : translations) {
+				if (sample()) {
+					outputChars.record(translation.length());
+				}
+			}
+			return translations;
+		}
+
+		@Override
+		public String toString() {
+			return "InstrumentedTranslator [" + translator + "]";
+		}
+	}
+
+	private final class InstrumentedMessageLookup implements MessageLookup {
+
+		private final MessageLookup messageLookup;
+
+		InstrumentedMessageLookup(final MessageLookup messageLookup) {
+			this.messageLookup = messageLookup;
+		}
+
+		/**
+		 * Detects misses by passing a fallback that is compared by identity. If there is neither a message nor a
+		 * fallback the global fallback is created using {@link MessageLookup#getGlobalFallback(Locale, Object)}.
+		 */
+		@Override
+		public String getMessage(final Locale locale, final Object key, final Optional<String> fallback) {
+			if (!sample()) {
+				return resolve(locale, key, messageLookup.getMessage(locale, key, MISSING), fallback);
+			}
+			final long start = System.nanoTime();
+			final String message = resolve(locale, key, messageLookup.getMessage(locale, key, MISSING), fallback);
+			lookupNanos.record(System.nanoTime() - start);
+			return message;
+		}
+
+		@Override
+		public String getMessage(final LocaleHandle locale, final Object key, final Optional<String> fallback) {
+			if (!sample()) {
+				return resolve(locale.getLocale(), key, messageLookup.getMessage(locale, key, MISSING), fallback);
+			}
+			final long start = System.nanoTime();
+			final String message = resolve(
+					locale.getLocale(), key, messageLookup.getMessage(locale, key, MISSING), fallback);
+			lookupNanos.record(System.nanoTime() - start);
+			return message;
+		}
+
+		/**
+		 * Keeps batch optimizations of the underlying {@link MessageLookup}, the lookup is recorded once for the
+		 * whole batch.
+		 */
+		@Override
+		public List<String> getMessages(final Locale locale, final List<? extends TranslationHint> hints) {
+			final boolean sampled = sample();
+			final long start = sampled ? System.nanoTime() : 0;
+			final List<MissingProbe> probes = new ArrayList<>(hints.size());
+			for (final TranslationHint hint : hints) {
+				probes.add(new MissingProbe(hint.getKey()));
+			}
+			final List<String> messages = new ArrayList<>(messageLookup.getMessages(locale, probes));
+			for (int i = 0; i < messages.size(); i++) {
+				final TranslationHint hint = hints.get(i);
+				messages.set(i, resolve(locale, hint.getKey(), messages.get(i), hint.getFallback()));
+			}
+			if (sampled) {
+				lookupNanos.record(System.nanoTime() - start);
+			}
+			return messages;
+		}
+
+		private String resolve(
+				final Locale locale,
+				final Object key,
+				final String message,
+				final Optional<String> fallback) {
+			if (message != MISSING.get()) {
+				recordOutcome(locale, key, true, false);
+				return message;
+			}
+			recordOutcome(locale, key, false, fallback.isPresent());
+			return fallback.isPresent() ? fallback.get() : messageLookup.getGlobalFallback(locale, key);
+		}
+
+		@Override
+		public String getGlobalFallback(final Locale locale, final Object key) {
+			return messageLookup.getGlobalFallback(locale, key);
+		}
+
+		@Override
+		public String toString() {
+			return "InstrumentedMessageLookup [" + messageLookup + "]";
+		}
+	}
+
+	private final class InstrumentedFormat implements Format {
+
+		private final Format format;
+
+		InstrumentedFormat(final Format format) {
+			this.format = format;
+		}
+
+		/**
+		 * Samples per message, compiling and rendering a message that is not sampled is not instrumented at all.
+		 */
+		@Override
+		public Formatable toFormatable(final Locale locale, final String message) {
+			if (!sample()) {
+				return format.toFormatable(locale, message);
+			}
+			final long start = System.nanoTime();
+			final Formatable formatable = format.toFormatable(locale, message);
+			compileNanos.record(System.nanoTime() - start);
+			return (appendable, args, translator) -> {
+				final long renderStart = System.nanoTime();
+				formatable.format(appendable, args, translator);
+				renderNanos.record(System.nanoTime() - renderStart);
+			};
+		}
+
+		@Override
+		public String toString() {
+			return "InstrumentedFormat [" + format + "]";
+		}
+	}
+
+	/**
+	 * Only wraps {@link Appendable Appendables} whose output can not be counted otherwise so {@link CharSequence
+	 * CharSequences} and {@link Utf8Appendable Utf8Appendables} keep their fast paths.
+	 */
+	private static Appendable counting(final Appendable appendable) {
+		return appendable instanceof CharSequence || appendable instanceof Utf8Appendable
+				? appendable
+				: new CountingAppendable(appendable);
+	}
+
+	private static int length(final Appendable appendable) {
+		return appendable instanceof CharSequence ? ((CharSequence) appendable).length() : 0;
+	}
+
+	/**
+	 * @return chars appended since {@link #length(Appendable)} returned <code>length</code> or <code>-1</code> if
+	 *         they were not counted
+	 */
+	private static int written(final Appendable appendable, final Appendable counting, final int length) {
+		if (counting instanceof CountingAppendable) {
+			return ((CountingAppendable) counting).count;
+		}
+		return appendable instanceof CharSequence ? ((CharSequence) appendable).length() - length : -1;
+	}
+
+	private static final class CountingAppendable implements Appendable {
+
+		private final Appendable appendable;
+		int count;
+
+		CountingAppendable(final Appendable appendable) {
+			this.appendable = appendable;
+		}
+
+		@Override
+		public Appendable append(final CharSequence csq) throws IOException {
+			appendable.append(csq);
+			count += csq == null ? 4 : csq.length();
+			return this;
+		}
+
+		@Override
+		public Appendable append(final CharSequence csq, final int start, final int end) throws IOException {
+			appendable.append(csq, start, end);
+			count += end - start;
+			return this;
+		}
+
+		@Override
+		public Appendable append(final char c) throws IOException {
+			appendable.append(c);
+			count++;
+			return this;
+		}
+	}
+
+	/**
+	 * Looks up the key of a {@link TranslationHint} falling back to {@link #MISSING}.
+	 */
+	private static final class MissingProbe implements TranslationHint {
+
+		private final Object key;
+
+		MissingProbe(final Object key) {
+			this.key = key;
+		}
+
+		@Override
+		public Object getKey() {
+			return key;
+		}
+
+		@Override
+		public Optional<String> getFallback() {
+			return MISSING;
+		}
+	}
+
+	private static final class KeyRecorder {
+
+		final LongAdder translations = new LongAdder();
+		final LongAdder sampled = new LongAdder();
+		final LongAdder nanos = new LongAdder();
+		final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+		final LongAdder hits = new LongAdder();
+		final LongAdder hintFallbacks = new LongAdder();
+		final LongAdder globalFallbacks = new LongAdder();
+	}
+}
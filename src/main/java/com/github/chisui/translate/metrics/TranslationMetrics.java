@@ -0,0 +1,104 @@
+package com.github.chisui.translate.metrics;
+
+import com.github.chisui.translate.Translator;
+import com.github.chisui.translate.format.Format;
+import com.github.chisui.translate.lookup.MessageLookup;
+
+/**
+ * Records latencies, lookup outcomes and output sizes of the components it instruments.
+ * <p>
+ * Instrumented components are decorators recording into this {@link TranslationMetrics}. The same
+ * {@link TranslationMetrics} is usually used to instrument the {@link MessageLookup}, the {@link Format} and the
+ * {@link Translator} built from them:
+ * <pre>
+ * TranslationMetrics metrics = TranslationMetrics.create();
+ * Translator translator = metrics.instrument(Translator.of(
+ *         metrics.instrument(MessageLookup.of(source)),
+ *         metrics.instrument(Format.ofCompiledMessageFormat().cached(1000))));
+ * </pre>
+ * {@link #disabled()} returns the components unchanged so disabled metrics cost nothing.
+ */
+public interface TranslationMetrics {
+
+	Translator instrument(Translator translator);
+
+	MessageLookup instrument(MessageLookup messageLookup);
+
+	Format instrument(Format format);
+
+	/**
+	 * @return point in time copy of all recorded values
+	 */
+	MetricsSnapshot snapshot();
+
+	/**
+	 * @return {@link TranslationMetrics} that instruments nothing
+	 */
+	static TranslationMetrics disabled() {
+		return DisabledTranslationMetrics.INSTANCE;
+	}
+
+	static RecordingTranslationMetrics create() {
+		return create(1000);
+	}
+
+	/**
+	 * @param maximumTrackedKeys maximum number of key and {@link java.util.Locale} combinations latencies are
+	 *        recorded for individually
+	 * @return the {@link RecordingTranslationMetrics}
+	 */
+	static RecordingTranslationMetrics create(final int maximumTrackedKeys) {
+		return new RecordingTranslationMetrics(maximumTrackedKeys);
+	}
+
+	/**
+	 * @param maximumTrackedKeys maximum number of key and {@link java.util.Locale} combinations latencies are
+	 *        recorded for individually
+	 * @param samplingInterval latencies and output sizes are recorded for every <code>samplingInterval</code>-th
+	 *        call on average, <code>0</code> to only count lookup outcomes and translations
+	 * @return the {@link RecordingTranslationMetrics}
+	 */
+	static RecordingTranslationMetrics create(final int maximumTrackedKeys, final int samplingInterval) {
+		return new RecordingTranslationMetrics(maximumTrackedKeys, samplingInterval);
+	}
+
+	/**
+	 * @return {@link RecordingTranslationMetrics} that only count lookup outcomes and translations
+	 */
+	static RecordingTranslationMetrics counting() {
+		return create(1000, 0);
+	}
+
+	final class DisabledTranslationMetrics implements TranslationMetrics {
+
+		private static final DisabledTranslationMetrics INSTANCE = new DisabledTranslationMetrics();
+
+		private DisabledTranslationMetrics() {
+		}
+
+		@Override
+		public Translator instrument(final Translator translator) {
+			return translator;
+		}
+
+		@Override
+		public MessageLookup instrument(final MessageLookup messageLookup) {
+			return messageLookup;
+		}
+
+		@Override
+		public Format instrument(final Format format) {
+			return format;
+		}
+
+		@Override
+		public MetricsSnapshot snapshot() {
+			return MetricsSnapshot.EMPTY;
+		}
+
+		@Override
+		public String toString() {
+			return "TranslationMetrics.disabled()";
+		}
+	}
+}
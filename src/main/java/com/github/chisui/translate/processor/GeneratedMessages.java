@@ -0,0 +1,62 @@
+package com.github.chisui.translate.processor;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.ResourceBundle;
+
+import com.github.chisui.translate.Translator;
+import com.github.chisui.translate.format.CompiledMessageFormat;
+import com.github.chisui.translate.format.CompiledMessageFormat.ArgumentFormatable;
+
+/**
+ * Base class of the implementations generated by the {@link MessagesProcessor}.
+ */
+public abstract class GeneratedMessages {
+
+	private static final ResourceBundle.Control CONTROL =
+			ResourceBundle.Control.getNoFallbackControl(ResourceBundle.Control.FORMAT_PROPERTIES);
+
+	protected final Locale locale;
+	protected final Translator translator;
+
+	protected GeneratedMessages(final Locale locale, final Translator translator) {
+		this.locale = requireNonNull(locale, "locale must not be null");
+		this.translator = requireNonNull(translator, "translator must not be null");
+	}
+
+	/**
+	 * @param locale to get the candidates of
+	 * @return the bundle locales {@link ResourceBundle} would consider for the given {@link Locale}, most specific
+	 *         first, ending with {@link Locale#ROOT}
+	 */
+	public static List<Locale> candidates(final Locale locale) {
+		return CONTROL.getCandidateLocales("", requireNonNull(locale, "locale must not be null"));
+	}
+
+	protected final ArgumentFormatable argument(final int index, final String type, final String style) {
+		return CompiledMessageFormat.argument(locale, index, type, style);
+	}
+
+	protected final void appendTranslated(final StringBuilder sb, final Object arg) {
+		if (arg == null) {
+			sb.append("null");
+		} else {
+			translator.translate(sb, locale, arg);
+		}
+	}
+
+	protected final void appendFormatted(
+			final StringBuilder sb,
+			final ArgumentFormatable formatable,
+			final Object arg,
+			final List<?> args) {
+		try {
+			formatable.formatValue(sb, arg, args, translator);
+		} catch (final IOException e) {
+			throw new AssertionError("formatting using StringBuilder threw an IOException", e);
+		}
+	}
+}
@@ -0,0 +1,22 @@
+package com.github.chisui.translate.processor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Binds a method of a {@link Messages} interface to a message key. The message is a
+ * {@link java.text.MessageFormat} pattern whose arguments are the parameters of the method.
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.METHOD)
+public @interface Message {
+
+	/**
+	 * @return key of the message
+	 */
+	String value();
+}
@@ -0,0 +1,33 @@
+package com.github.chisui.translate.processor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an interface whose {@link Message} methods are implemented at compile time by the
+ * {@link MessagesProcessor}.
+ * <p>
+ * For an interface <code>Welcome</code> the processor generates a class <code>WelcomeImpl</code> whose
+ * <code>of(Locale, Translator)</code> method returns an implementation for the given {@link java.util.Locale}.
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface Messages {
+
+	/**
+	 * @return base name of the <code>.properties</code> {@link java.util.ResourceBundle} holding the messages
+	 */
+	String baseName();
+
+	/**
+	 * The root bundle is always included if it exists.
+	 *
+	 * @return locales to generate implementations for in {@link java.util.Locale#toString()} format, e.g.
+	 *         <code>de_AT</code>
+	 */
+	String[] locales() default {};
+}
@@ -0,0 +1,562 @@
+package com.github.chisui.translate.processor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.ResourceBundle;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+
+import com.github.chisui.translate.format.CompiledMessageFormat;
+
+/**
+ * Annotation processor implementing {@link Messages} interfaces.
+ * <p>
+ * Messages are read from the <code>.properties</code> files of {@link Messages#baseName()} on the class output or
+ * source path and are resolved through their parent chain at compile time. Every bundle gets its own
+ * implementation in which messages without arguments are constant strings and placeholders are appended directly,
+ * so a call neither looks up a key nor allocates a {@link com.github.chisui.translate.TranslationHint}.
+ * <p>
+ * Missing keys, invalid patterns and placeholders that do not match the parameters of a method are reported as
+ * compile errors.
+ * <p>
+ * At runtime the bundle is selected like {@link ResourceBundle} would, except that there is no fallback to
+ * {@link Locale#getDefault()}: locales without a matching bundle use the root bundle, or the first declared locale
+ * if there is no root bundle.
+ */
+@SupportedAnnotationTypes("com.github.chisui.translate.processor.Messages")
+public class MessagesProcessor extends AbstractProcessor {
+
+	private static final ResourceBundle.Control CONTROL =
+			ResourceBundle.Control.getNoFallbackControl(ResourceBundle.Control.FORMAT_PROPERTIES);
+
+	private static final String GENERATED_MESSAGES = GeneratedMessages.class.getName();
+	// the first one visible to the compiling code is used, javax.annotation.Generated is gone since Java 11
+	private static final List<String> GENERATED_ANNOTATIONS = Arrays.asList(
+			"javax.annotation.processing.Generated",
+			"javax.annotation.Generated");
+	private static final String ARGUMENT_FORMATABLE =
+			CompiledMessageFormat.ArgumentFormatable.class.getCanonicalName();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+		for (final Element element : roundEnv.getElementsAnnotatedWith(Messages.class)) {
+			if (element.getKind() != ElementKind.INTERFACE) {
+				error(element, "@Messages can only be applied to interfaces");
+			} else {
+				process((TypeElement) element);
+			}
+		}
+		return true;
+	}
+
+	private void process(final TypeElement type) {
+		if (!type.getTypeParameters().isEmpty()) {
+			error(type, "@Messages interfaces must not be generic");
+			return;
+		}
+		final List<Bundle> bundles = loadBundles(type, type.getAnnotation(Messages.class));
+		if (bundles == null) {
+			return;
+		}
+		final List<MessageMethod> methods = new ArrayList<>();
+		boolean valid = true;
+		for (final ExecutableElement method
+				: ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+			if (method.getModifiers().contains(Modifier.ABSTRACT)) {
+				final MessageMethod messageMethod = toMessageMethod(method, methods.size(), bundles);
+				if (messageMethod == null) {
+					valid = false;
+				} else {
+					methods.add(messageMethod);
+				}
+			}
+		}
+		if (valid) {
+			generate(type, bundles, methods);
+		}
+	}
+
+	private List<Bundle> loadBundles(final TypeElement type, final Messages messages) {
+		final String baseName = messages.baseName();
+		final Set<Locale> locales = new LinkedHashSet<>();
+		for (final String tag : messages.locales()) {
+			locales.add(toLocale(tag));
+		}
+		locales.add(Locale.ROOT);
+
+		final Map<Locale, Properties> loaded = new HashMap<>();
+		final List<Bundle> bundles = new ArrayList<>();
+		boolean valid = true;
+		for (final Locale locale : locales) {
+			if (load(baseName, locale, loaded) == null) {
+				if (!Locale.ROOT.equals(locale)) {
+					error(type, "resource bundle " + CONTROL.toBundleName(baseName, locale) + " not found");
+					valid = false;
+				}
+				continue;
+			}
+			final List<Locale> candidates = new ArrayList<>(CONTROL.getCandidateLocales(baseName, locale));
+			Collections.reverse(candidates);
+			final Map<String, String> resolved = new HashMap<>();
+			for (final Locale candidate : candidates) {
+				final Properties properties = load(baseName, candidate, loaded);
+				if (properties != null) {
+					for (final String key : properties.stringPropertyNames()) {
+						resolved.put(key, properties.getProperty(key));
+					}
+				}
+			}
+			bundles.add(new Bundle(locale, CONTROL.toBundleName(baseName, locale), resolved));
+		}
+		if (valid && bundles.isEmpty()) {
+			error(type, "no resource bundle found for base name " + baseName);
+			valid = false;
+		}
+		return valid ? bundles : null;
+	}
+
+	private static Locale toLocale(final String tag) {
+		final String[] parts = tag.split("_", 3);
+		return new Locale(
+				parts[0],
+				parts.length > 1 ? parts[1] : "",
+				parts.length > 2 ? parts[2] : "");
+	}
+
+	private Properties load(final String baseName, final Locale locale, final Map<Locale, Properties> loaded) {
+		if (loaded.containsKey(locale)) {
+			return loaded.get(locale);
+		}
+		final String resourceName = CONTROL.toResourceName(CONTROL.toBundleName(baseName, locale), "properties");
+		Properties properties = null;
+		for (final StandardLocation location : Arrays.asList(StandardLocation.CLASS_OUTPUT, StandardLocation.SOURCE_PATH)) {
+			try (InputStream in = processingEnv.getFiler().getResource(location, "", resourceName).openInputStream()) {
+				properties = new Properties();
+				properties.load(in);
+				break;
+			} catch (final IOException | IllegalArgumentException e) {
+				// not available in this location
+				properties = null;
+			}
+		}
+		loaded.put(locale, properties);
+		return properties;
+	}
+
+	private MessageMethod toMessageMethod(final ExecutableElement method, final int id, final List<Bundle> bundles) {
+		final Message message = method.getAnnotation(Message.class);
+		if (message == null) {
+			error(method, "abstract methods of @Messages interfaces need a @Message annotation");
+			return null;
+		}
+		if (!processingEnv.getTypeUtils().isSameType(
+				method.getReturnType(),
+				processingEnv.getElementUtils().getTypeElement(String.class.getName()).asType())) {
+			error(method, "@Message methods must return String");
+			return null;
+		}
+		if (!method.getTypeParameters().isEmpty()) {
+			error(method, "@Message methods must not be generic");
+			return null;
+		}
+		final String key = message.value();
+		final List<? extends VariableElement> parameters = method.getParameters();
+		final List<List<Segment>> variants = new ArrayList<>();
+		final BitSet used = new BitSet();
+		boolean valid = true;
+		for (final Bundle bundle : bundles) {
+			final String pattern = bundle.messages.get(key);
+			if (pattern == null) {
+				error(method, "message '" + key + "' is missing in resource bundle " + bundle.name);
+				valid = false;
+				continue;
+			}
+			final List<Segment> segments;
+			try {
+				CompiledMessageFormat.compile(bundle.locale, pattern);
+				segments = parse(pattern);
+			} catch (final IllegalArgumentException e) {
+				error(method, "message '" + key + "' in resource bundle " + bundle.name + " is invalid: "
+						+ e.getMessage());
+				valid = false;
+				continue;
+			}
+			for (final Segment segment : segments) {
+				if (segment.literal == null) {
+					if (segment.index >= parameters.size()) {
+						error(method, "message '" + key + "' in resource bundle " + bundle.name
+								+ " references argument {" + segment.index + "} but the method has "
+								+ parameters.size() + " parameters");
+						valid = false;
+					}
+					used.set(segment.index);
+				}
+			}
+			variants.add(segments);
+		}
+		for (int i = 0; valid && i < parameters.size(); i++) {
+			if (!used.get(i)) {
+				error(parameters.get(i), "parameter " + parameters.get(i).getSimpleName()
+						+ " is not used by message '" + key + "'");
+				valid = false;
+			}
+		}
+		return valid ? new MessageMethod(method, id, variants) : null;
+	}
+
+	private static List<Segment> parse(final String pattern) {
+		final List<Segment> segments = new ArrayList<>();
+		CompiledMessageFormat.parse(pattern, new CompiledMessageFormat.PatternVisitor() {
+
+			@Override
+			public void literal(final String text) {
+				final int last = segments.size() - 1;
+				if (last >= 0 && segments.get(last).literal != null) {
+					segments.set(last, new Segment(segments.get(last).literal + text, -1, null, null));
+				} else {
+					segments.add(new Segment(text, -1, null, null));
+				}
+			}
+
+			@Override
+			public void argument(final int index, final String type, final String style) {
+				segments.add(new Segment(null, index, type, style));
+			}
+		});
+		return segments;
+	}
+
+	private void generate(final TypeElement type, final List<Bundle> bundles, final List<MessageMethod> methods) {
+		final String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+		final StringBuilder name = new StringBuilder("Impl");
+		for (Element e = type; e.getKind() != ElementKind.PACKAGE; e = e.getEnclosingElement()) {
+			name.insert(0, e.getSimpleName()).insert(0, '_');
+		}
+		final String simpleName = name.substring(1);
+		final String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+
+		final Code code = new Code();
+		if (!packageName.isEmpty()) {
+			code.line("package " + packageName + ";").line();
+		}
+		code.line("/**")
+			.line(" * Implementation of {@link " + type.getQualifiedName() + "} generated from the resource bundle")
+			.line(" * <code>" + type.getAnnotation(Messages.class).baseName() + "</code>.")
+			.line(" */");
+		final String generated = generatedAnnotation();
+		if (generated != null) {
+			code.line("@" + generated + "(\"" + MessagesProcessor.class.getName() + "\")");
+		}
+		code.line("public final class " + simpleName + " {")
+			.line()
+			.indent().line("private " + simpleName + "() {").line("}").line();
+
+		code.line("public static " + type.getQualifiedName() + " of(")
+			.indent().indent()
+			.line("final java.util.Locale locale,")
+			.line("final com.github.chisui.translate.Translator translator) {")
+			.outdent()
+			.line("for (final java.util.Locale candidate : " + GENERATED_MESSAGES + ".candidates(locale)) {")
+			.indent().line("switch (candidate.toString()) {");
+		Bundle fallback = bundles.get(0);
+		for (final Bundle bundle : bundles) {
+			if (Locale.ROOT.equals(bundle.locale)) {
+				fallback = bundle;
+			}
+			code.line("case " + literal(bundle.locale.toString()) + ":")
+				.indent().line("return new " + bundle.className() + "(locale, translator);").outdent();
+		}
+		code.line("}")
+			.outdent().line("}")
+			.line("return new " + fallback.className() + "(locale, translator);")
+			.outdent().line("}");
+
+		for (int b = 0; b < bundles.size(); b++) {
+			generateBundle(code, type, bundles.get(b), b, methods);
+		}
+		code.outdent().line("}");
+
+		try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+			writer.write(code.toString());
+		} catch (final IOException e) {
+			error(type, "could not write " + qualifiedName + ": " + e.getMessage());
+		}
+	}
+
+	private static void generateBundle(
+			final Code code,
+			final TypeElement type,
+			final Bundle bundle,
+			final int variant,
+			final List<MessageMethod> methods) {
+		code.line()
+			.line("private static final class " + bundle.className())
+			.indent().indent()
+			.line("extends " + GENERATED_MESSAGES)
+			.line("implements " + type.getQualifiedName() + " {")
+			.outdent();
+
+		final List<String> initializers = new ArrayList<>();
+		for (final MessageMethod method : methods) {
+			final List<Segment> segments = method.variants.get(variant);
+			for (int s = 0; s < segments.size(); s++) {
+				final Segment segment = segments.get(s);
+				if (segment.isFormatted()) {
+					final String field = segment.field(method, s);
+					if (initializers.isEmpty()) {
+						code.line();
+					}
+					code.line("private final " + ARGUMENT_FORMATABLE + " " + field + ";");
+					initializers.add("this." + field + " = argument(" + segment.index + ", " + literal(segment.type)
+							+ ", " + literal(segment.style) + ");");
+				}
+			}
+		}
+
+		code.line()
+			.line(bundle.className() + "(final java.util.Locale locale, final com.github.chisui.translate.Translator translator) {")
+			.indent().line("super(locale, translator);");
+		for (final String initializer : initializers) {
+			code.line(initializer);
+		}
+		code.outdent().line("}");
+
+		for (final MessageMethod method : methods) {
+			generateMethod(code, method, method.variants.get(variant));
+		}
+		code.outdent().line("}");
+	}
+
+	private static void generateMethod(final Code code, final MessageMethod method, final List<Segment> segments) {
+		final List<? extends VariableElement> parameters = method.element.getParameters();
+		final StringBuilder signature = new StringBuilder("public java.lang.String ")
+				.append(method.element.getSimpleName())
+				.append('(');
+		for (int i = 0; i < parameters.size(); i++) {
+			String parameterType = parameters.get(i).asType().toString();
+			if (method.element.isVarArgs() && i == parameters.size() - 1 && parameterType.endsWith("[]")) {
+				parameterType = parameterType.substring(0, parameterType.length() - 2) + "...";
+			}
+			signature.append(i == 0 ? "" : ", ")
+				.append("final ")
+				.append(parameterType)
+				.append(' ')
+				.append(parameters.get(i).getSimpleName());
+		}
+		code.line()
+			.line("@Override")
+			.line(signature.append(") {").toString())
+			.indent();
+
+		final StringBuilder constant = new StringBuilder();
+		boolean hasArguments = false;
+		boolean hasChoice = false;
+		int capacity = 0;
+		for (final Segment segment : segments) {
+			if (segment.literal != null) {
+				constant.append(segment.literal);
+				capacity += segment.literal.length();
+			} else {
+				hasArguments = true;
+				hasChoice |= segment.isChoice();
+				capacity += 16;
+			}
+		}
+
+		if (!hasArguments) {
+			code.line("return " + literal(constant.toString()) + ";");
+		} else {
+			code.line("final java.lang.StringBuilder $sb = new java.lang.StringBuilder(" + capacity + ");");
+			if (hasChoice) {
+				final StringBuilder args = new StringBuilder("final java.util.List<?> $args = java.util.Arrays.<java.lang.Object>asList(");
+				for (int i = 0; i < parameters.size(); i++) {
+					args.append(i == 0 ? "" : ", ").append(parameters.get(i).getSimpleName());
+				}
+				code.line(args.append(");").toString());
+			}
+			for (int s = 0; s < segments.size(); s++) {
+				final Segment segment = segments.get(s);
+				if (segment.literal != null) {
+					code.line("$sb.append(" + literal(segment.literal) + ");");
+				} else {
+					final String arg = parameters.get(segment.index).getSimpleName().toString();
+					if (segment.isFormatted()) {
+						code.line("appendFormatted($sb, " + segment.field(method, s) + ", " + arg + ", "
+								+ (segment.isChoice() ? "$args" : "java.util.Collections.emptyList()") + ");");
+					} else {
+						code.line("appendTranslated($sb, " + arg + ");");
+					}
+				}
+			}
+			code.line("return $sb.toString();");
+		}
+		code.outdent().line("}");
+	}
+
+	private static String literal(final String s) {
+		final StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+		for (int i = 0; i < s.length(); i++) {
+			final char c = s.charAt(i);
+			switch (c) {
+			case '"':
+				sb.append("\\\"");
+				break;
+			case '\\':
+				sb.append("\\\\");
+				break;
+			case '\n':
+				sb.append("\\n");
+				break;
+			case '\r':
+				sb.append("\\r");
+				break;
+			case '\t':
+				sb.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					// unicode escapes of line terminators would end the literal, use octal escapes instead
+					sb.append(String.format("\\%03o", (int) c));
+				} else if (c > 0x7e) {
+					sb.append(String.format("\\u%04x", (int) c));
+				} else {
+					sb.append(c);
+				}
+			}
+		}
+		return sb.append('"').toString();
+	}
+
+	private String generatedAnnotation() {
+		for (final String annotation : GENERATED_ANNOTATIONS) {
+			if (processingEnv.getElementUtils().getTypeElement(annotation) != null) {
+				return annotation;
+			}
+		}
+		return null;
+	}
+
+	private void error(final Element element, final String message) {
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+	}
+
+	private static final class Bundle {
+
+		final Locale locale;
+		final String name;
+		final Map<String, String> messages;
+
+		Bundle(final Locale locale, final String name, final Map<String, String> messages) {
+			this.locale = locale;
+			this.name = name;
+			this.messages = messages;
+		}
+
+		String className() {
+			return Locale.ROOT.equals(locale) ? "Root" : "Locale_" + locale.toString().replaceAll("[^A-Za-z0-9_]", "_");
+		}
+	}
+
+	private static final class MessageMethod {
+
+		final ExecutableElement element;
+		final int id;
+		final List<List<Segment>> variants;
+
+		MessageMethod(final ExecutableElement element, final int id, final List<List<Segment>> variants) {
+			this.element = element;
+			this.id = id;
+			this.variants = variants;
+		}
+	}
+
+	private static final class Segment {
+
+		final String literal;
+		final int index;
+		final String type;
+		final String style;
+
+		Segment(final String literal, final int index, final String type, final String style) {
+			this.literal = literal;
+			this.index = index;
+			this.type = type;
+			this.style = style;
+		}
+
+		boolean isFormatted() {
+			return literal == null && !type.trim().isEmpty();
+		}
+
+		boolean isChoice() {
+			return isFormatted() && "choice".equals(type.trim().toLowerCase(Locale.ROOT));
+		}
+
+		String field(final MessageMethod method, final int segment) {
+			return "arg$" + method.id + "$" + segment;
+		}
+	}
+
+	private static final class Code {
+
+		private final StringBuilder sb = new StringBuilder();
+		private int indent;
+
+		Code indent() {
+			indent++;
+			return this;
+		}
+
+		Code outdent() {
+			indent--;
+			return this;
+		}
+
+		Code line() {
+			sb.append('\n');
+			return this;
+		}
+
+		Code line(final String line) {
+			for (int i = 0; i < indent; i++) {
+				sb.append('\t');
+			}
+			sb.append(line).append('\n');
+			return this;
+		}
+
+		@Override
+		public String toString() {
+			return sb.toString();
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package com.github.chisui.translate;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.github.chisui.translate.format.Format;
+import com.github.chisui.translate.lookup.AsyncMessageSource;
+import com.github.chisui.translate.lookup.MessageLookup;
+import com.github.chisui.translate.lookup.MessageSource;
+
+public class AsyncMessageSourceTranslatorTest {
+
+	private final Queue<Runnable> tasks = new ArrayDeque<>();
+	private final List<String> calls = new ArrayList<>();
+	private final Map<String, String> catalog = new HashMap<>();
+	private final Translator translator = Translator.ofAsync(
+			() -> Locale.ENGLISH,
+			AsyncMessageSource.coalescing((locale, keys) -> {
+				calls.add(locale + " " + keys);
+				Map<String, String> messages = new HashMap<>();
+				for (String key : keys) {
+					if (catalog.containsKey(key)) {
+						messages.put(key, catalog.get(key));
+					}
+				}
+				return CompletableFuture.completedFuture(messages);
+			}, tasks::add),
+			Format.ofMessageFormat());
+
+	@Test
+	public void testLoadsNestedHintsInOneBatch() throws Exception {
+
+		catalog.put("greeting", "Hello {0} from {1}");
+		catalog.put("user", "user {0}");
+		catalog.put("team", "the team");
+
+		CompletionStage<String> translation = translator.translateAsync(TranslationHint.of("greeting",
+				TranslationHint.of("user", "chisui"),
+				(Translatable) () -> TranslationHint.of("team")));
+
+		assertThat(translation.toCompletableFuture().isDone(), is(false));
+		runTasks();
+		assertThat(get(translation), is("Hello user chisui from the team"));
+		assertThat(calls, contains("en [greeting, user, team]", "en [chisui]"));
+	}
+
+	@Test
+	public void testLoadsKeysFoundWhileFormatting() throws Exception {
+
+		catalog.put("state", "State: {0}");
+		catalog.put("OPEN", "open");
+
+		CompletionStage<String> translation = translator.translateAsync(
+				Locale.GERMAN, TranslationHint.of("state", "OPEN"));
+		runTasks();
+
+		assertThat(get(translation), is("State: open"));
+		assertThat(calls, contains("de [state]", "de [OPEN]"));
+	}
+
+	@Test
+	public void testMissingMessage() throws Exception {
+
+		CompletionStage<String> missing = translator.translateAsync(TranslationHint.of("missing"));
+		CompletionStage<String> withFallback = translator.translateAsync(
+				TranslationHint.of("missing").withFallback("fallback"));
+		runTasks();
+
+		assertThat(get(missing), is("???missing???"));
+		assertThat(get(withFallback), is("fallback"));
+		assertThat(calls, contains("en [missing]"));
+	}
+
+	@Test
+	public void testTranslateWaitsForMessages() throws Exception {
+
+		catalog.put("greeting", "Hello");
+		Translator translator = Translator.ofAsync(
+				AsyncMessageSource.of(MessageSource.ofMap(locale -> catalog), Runnable::run),
+				Format.ofMessageFormat());
+
+		assertThat(translator.translate(Locale.ENGLISH, TranslationHint.of("greeting")), is("Hello"));
+		assertThat(translator.translate(new StringBuilder(">"), Locale.ENGLISH, TranslationHint.of("greeting"))
+				.toString(), is(">Hello"));
+	}
+
+	@Test
+	public void testFailedLoadFailsTranslation() throws Exception {
+
+		Translator translator = Translator.ofAsync(
+				AsyncMessageSource.coalescing((locale, keys) -> {
+					CompletableFuture<Map<String, String>> failed = new CompletableFuture<>();
+					failed.completeExceptionally(new IllegalStateException("store unavailable"));
+					return failed;
+				}, Runnable::run),
+				Format.ofMessageFormat());
+
+		try {
+			get(translator.translateAsync(TranslationHint.of("greeting")));
+			fail("expected IllegalStateException");
+		} catch (ExecutionException e) {
+			assertThat(e.getCause(), is(instanceOf(IllegalStateException.class)));
+		}
+		try {
+			translator.translate(TranslationHint.of("greeting"));
+			fail("expected IllegalStateException");
+		} catch (IllegalStateException e) {
+			assertThat(e.getMessage(), is("store unavailable"));
+		}
+	}
+
+	@Test
+	public void testTranslateAsyncOfSynchronousTranslator() throws Exception {
+
+		catalog.put("greeting", "Hello");
+		Translator translator = Translator.of(
+				() -> Locale.ENGLISH, MessageLookup.of(MessageSource.ofMap(locale -> catalog)), Format.ofMessageFormat());
+
+		CompletionStage<String> translation = translator.translateAsync(TranslationHint.of("greeting"));
+
+		assertThat(translation.toCompletableFuture().isDone(), is(true));
+		assertThat(get(translation), is("Hello"));
+	}
+
+	private void runTasks() {
+		for (Runnable task = tasks.poll(); task != null; task = tasks.poll()) {
+			task.run();
+		}
+	}
+
+	private static <T> T get(final CompletionStage<T> stage) throws Exception {
+		return stage.toCompletableFuture().get(1, TimeUnit.MINUTES);
+	}
+}
@@ -0,0 +1,154 @@
+package com.github.chisui.translate;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.Test;
+
+public class CachingTranslatorTest {
+
+	private final List<TranslationHint> translated = new ArrayList<>();
+	private final Translator translator = Translator.of(
+			() -> Locale.ENGLISH,
+			(locale, hint, t) -> {
+				translated.add(hint);
+				return locale.getLanguage() + ":" + hint.getKey() + hint.getArguments();
+			});
+
+	@Test
+	public void testHit() throws Exception {
+
+		CachingTranslator cachingTranslator = translator.cached(() -> Locale.ENGLISH, 1000);
+
+		assertThat(cachingTranslator.translate(TranslationHint.of("status", 404)), is("en:status[404]"));
+		assertThat(cachingTranslator.translate(TranslationHint.of("status", 404)), is("en:status[404]"));
+		assertThat(cachingTranslator.translate(new StringBuilder(), TranslationHint.of("status", 404)).toString(),
+				is("en:status[404]"));
+
+		assertThat(translated.size(), is(1));
+		assertThat(cachingTranslator.getStats().getHitCount(), is(2L));
+		assertThat(cachingTranslator.getStats().getMissCount(), is(1L));
+		assertThat(cachingTranslator.getStats().getWeightedSize(), is(14L));
+	}
+
+	@Test
+	public void testLocaleIsPartOfKey() throws Exception {
+
+		CachingTranslator cachingTranslator = translator.cached(() -> Locale.ENGLISH, 1000);
+
+		assertThat(cachingTranslator.translate(Locale.ENGLISH, TranslationHint.of("key")), is("en:key[]"));
+		assertThat(cachingTranslator.translate(Locale.GERMAN, TranslationHint.of("key")), is("de:key[]"));
+
+		assertThat(translated.size(), is(2));
+	}
+
+	@Test
+	public void testNonValueHintsAreNotCached() throws Exception {
+
+		CachingTranslator cachingTranslator = translator.cached(() -> Locale.ENGLISH, 1000);
+		TranslationHint mutableArgument = TranslationHint.of("list", new ArrayList<>());
+
+		cachingTranslator.translate(mutableArgument);
+		cachingTranslator.translate(mutableArgument);
+		cachingTranslator.translate((TranslationHint) () -> "lambda");
+
+		assertThat(translated.size(), is(3));
+		assertThat(cachingTranslator.getStats().getBypassCount(), is(3L));
+		assertThat(cachingTranslator.getStats().getSize(), is(0));
+	}
+
+	@Test
+	public void testCacheabilityPredicate() throws Exception {
+
+		CachingTranslator cachingTranslator = new CachingTranslator(
+				() -> Locale.ENGLISH, translator, 1000, hint -> !"volatile".equals(hint.getKey()));
+
+		cachingTranslator.translate(TranslationHint.of("volatile"));
+		cachingTranslator.translate(TranslationHint.of("volatile"));
+
+		assertThat(translated.size(), is(2));
+	}
+
+	@Test
+	public void testWeightIsBounded() throws Exception {
+
+		CachingTranslator cachingTranslator = translator.cached(() -> Locale.ENGLISH, 500);
+
+		for (int i = 0; i < 10_000; i++) {
+			cachingTranslator.translate(TranslationHint.of("key" + i % 300));
+			assertThat(cachingTranslator.getStats().getWeightedSize(), is(lessThanOrEqualTo(500L)));
+		}
+		assertThat(cachingTranslator.getStats().getEvictionCount(), is(greaterThan(0L)));
+	}
+
+	@Test
+	public void testFrequentTranslationsSurviveScans() throws Exception {
+
+		CachingTranslator cachingTranslator = translator.cached(() -> Locale.ENGLISH, 1000);
+		for (int round = 0; round < 20; round++) {
+			for (int hot = 0; hot < 50; hot++) {
+				cachingTranslator.translate(TranslationHint.of("hot" + hot));
+			}
+		}
+
+		for (int cold = 0; cold < 10_000; cold++) {
+			cachingTranslator.translate(TranslationHint.of("cold" + cold));
+		}
+		translated.clear();
+		for (int hot = 0; hot < 50; hot++) {
+			cachingTranslator.translate(TranslationHint.of("hot" + hot));
+		}
+
+		assertThat(translated.size(), is(lessThanOrEqualTo(5)));
+	}
+
+	@Test
+	public void testInvalidateAll() throws Exception {
+
+		CachingTranslator cachingTranslator = translator.cached(() -> Locale.ENGLISH, 1000);
+		cachingTranslator.translate(TranslationHint.of("key"));
+
+		cachingTranslator.invalidateAll();
+		cachingTranslator.translate(TranslationHint.of("key"));
+
+		assertThat(translated.size(), is(2));
+		assertThat(cachingTranslator.getStats().getSize(), is(1));
+	}
+
+	@Test
+	public void testTranslationRacingInvalidateAllIsNotCached() throws Exception {
+
+		CachingTranslator[] cachingTranslator = new CachingTranslator[1];
+		cachingTranslator[0] = Translator.of(() -> Locale.ENGLISH, (locale, hint, t) -> {
+			// the catalog is reloaded while the old translation is computed
+			cachingTranslator[0].invalidateAll();
+			return "old";
+		}).cached(() -> Locale.ENGLISH, 1000);
+
+		assertThat(cachingTranslator[0].translate(TranslationHint.of("key")), is("old"));
+		assertThat(cachingTranslator[0].getStats().getSize(), is(0));
+	}
+
+	@Test
+	public void testFrequencySketch() throws Exception {
+
+		CachingTranslator.FrequencySketch sketch = new CachingTranslator.FrequencySketch(64);
+		for (int i = 0; i < 5; i++) {
+			sketch.increment(42);
+		}
+		sketch.increment(7);
+
+		assertThat(sketch.frequency(42), is(5));
+		assertThat(sketch.frequency(7), is(1));
+		for (int i = 0; i < 100; i++) {
+			sketch.increment(42);
+		}
+		assertThat(sketch.frequency(42), is(lessThanOrEqualTo(15)));
+	}
+}
@@ -0,0 +1,368 @@
+package com.github.chisui.translate;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.chisui.translate.format.Format;
+import com.github.chisui.translate.lookup.AsyncMessageSource;
+import com.github.chisui.translate.lookup.BinaryCatalogMessageSource;
+import com.github.chisui.translate.lookup.BinaryCatalogWriter;
+import com.github.chisui.translate.lookup.IndexedMessageSource;
+import com.github.chisui.translate.lookup.KeyFilter;
+import com.github.chisui.translate.lookup.LayeredMessageSource;
+import com.github.chisui.translate.lookup.LocaleRegistry;
+import com.github.chisui.translate.lookup.MessageIds;
+import com.github.chisui.translate.lookup.MessageLookup;
+import com.github.chisui.translate.lookup.MessageSource;
+
+/**
+ * Translates the same messages from many threads at once using every combination of {@link Format},
+ * {@link MessageSource} and {@link Translator}, synchronous, cached and asynchronous, and compares the results to a
+ * single threaded baseline. Every combination is created anew, so lazily filled caches are raced as well.
+ */
+public class ConcurrentTranslationTest {
+
+	private static final int THREADS = 8;
+	private static final int REPETITIONS = 4;
+	private static final long DAY = 24L * 60 * 60 * 1000;
+	private static final String BUNDLE = "com.github.chisui.translate.lookup.messages";
+	private static final List<Locale> LOCALES = Arrays.asList(
+			Locale.ENGLISH, Locale.GERMANY, new Locale("de", "AT"), Locale.FRANCE);
+
+	private static final Map<String, String> MESSAGE_FORMAT_PATTERNS = patterns(
+			"items", "{0,number,#,##0.00} items on {1,date,yyyy-MM-dd}",
+			"count", "{0,choice,0#no files|1#one file|1<{0,number,integer} files}",
+			"date", "{0,date,long} {0,time,short}",
+			"greeting", "Hello {0}!",
+			"percent", "{0,number,percent}",
+			"plain", "No arguments");
+	private static final Map<String, String> GERMAN_MESSAGE_FORMAT_PATTERNS = patterns(
+			"items", "{0,number,#,##0.00} St\u00fcck am {1,date,dd.MM.yyyy}",
+			"greeting", "Hallo {0}!");
+	private static final Map<String, String> FORMATTER_PATTERNS = patterns(
+			"items", "%,.2f items on %tF",
+			"count", "%d files, %x hex",
+			"date", "%tB %<te, %<tY",
+			"greeting", "Hello %s!",
+			"percent", "%08.3f%%",
+			"plain", "No arguments");
+	private static final Map<String, String> GERMAN_FORMATTER_PATTERNS = patterns(
+			"items", "%,.2f St\u00fcck am %td.%<tm.%<tY",
+			"greeting", "Hallo %s!");
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testMessageFormats() throws Exception {
+
+		Map<String, Supplier<Format>> formats = new LinkedHashMap<>();
+		formats.put("ofMessageFormat", Format::ofMessageFormat);
+		formats.put("ofCompiledMessageFormat", Format::ofCompiledMessageFormat);
+
+		stress(formats, MESSAGE_FORMAT_PATTERNS, GERMAN_MESSAGE_FORMAT_PATTERNS);
+	}
+
+	@Test
+	public void testFormatterFormats() throws Exception {
+
+		Map<String, Supplier<Format>> formats = new LinkedHashMap<>();
+		formats.put("ofFormatter", Format::ofFormatter);
+		formats.put("ofCompiledFormatter", Format::ofCompiledFormatter);
+
+		stress(formats, FORMATTER_PATTERNS, GERMAN_FORMATTER_PATTERNS);
+	}
+
+	@Test
+	public void testCatchesRacesOfSharedMessageFormat() throws Exception {
+
+		MessageSource source = MessageSource.ofMap(
+				patternsOf(MESSAGE_FORMAT_PATTERNS, GERMAN_MESSAGE_FORMAT_PATTERNS));
+		List<Translation> translations = translations();
+		List<String> baseline = baseline(
+				Translator.of(source, sharedMessageFormat(new CountDownLatch(0))), translations);
+
+		List<String> failures = stress(Executors.newFixedThreadPool(THREADS),
+				Translator.of(source, sharedMessageFormat(new CountDownLatch(THREADS))), translations, baseline);
+
+		assertThat(failures, is(not(empty())));
+	}
+
+	/**
+	 * Reuses a single {@link MessageFormat} for every message. The first message of every thread waits for the
+	 * first messages of all other threads to be applied before formatting, so the threads deterministically
+	 * overwrite each others patterns regardless of the number of cores.
+	 */
+	private static Format sharedMessageFormat(final CountDownLatch interleaving) {
+		MessageFormat shared = new MessageFormat("");
+		return (locale, pattern) -> (appendable, args, translator) -> {
+			shared.setLocale(locale);
+			shared.applyPattern(pattern);
+			interleaving.countDown();
+			try {
+				interleaving.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			}
+			appendable.append(shared.format(args.toArray()));
+		};
+	}
+
+	@Test
+	public void testCachingTranslatorStaysWithinMaximumWeight() throws Exception {
+
+		Races.race(4,
+				() -> Translator.of(() -> Locale.ENGLISH, (locale, hint, t) -> locale + ":" + hint.getArguments())
+						.cached(() -> Locale.ENGLISH, 256),
+				(translator, actor) -> {
+					for (int i = 0; i < 64; i++) {
+						int arg = i * (actor + 1) % 48;
+						assertThat(translator.translate(TranslationHint.of("key", arg)), is("en:[" + arg + "]"));
+						if (actor == 0 && i % 16 == 0) {
+							translator.invalidateAll();
+						}
+					}
+				},
+				translator -> {
+					assertThat(translator.getStats().getWeightedSize(),
+							is(lessThanOrEqualTo(translator.getMaximumWeight())));
+					translator.invalidateAll();
+					assertThat(translator.getStats().getSize(), is(0));
+					assertThat(translator.getStats().getWeightedSize(), is(0L));
+				});
+	}
+
+	private void stress(
+			final Map<String, Supplier<Format>> formats,
+			final Map<String, String> patterns,
+			final Map<String, String> germanPatterns) throws Exception {
+		Function<Locale, Map<String, String>> patternsOf = patternsOf(patterns, germanPatterns);
+		Path binary = folder.newFolder().toPath();
+		BinaryCatalogWriter.write(patternsOf.apply(Locale.ROOT), binary.resolve("messages.catalog"));
+		BinaryCatalogWriter.write(germanPatterns, binary.resolve("messages_de.catalog"));
+		Path properties = folder.newFolder().toPath();
+		store(patternsOf.apply(Locale.ROOT), properties.resolve("messages.properties"));
+		store(germanPatterns, properties.resolve("messages_de.properties"));
+
+		Map<String, Supplier<MessageSource>> sources = new LinkedHashMap<>();
+		sources.put("map", () -> MessageSource.ofMap(patternsOf));
+		sources.put("layered", () -> new LayeredMessageSource(Arrays.asList(
+				LayeredMessageSource.Tier.of("patterns", MessageSource.ofMap(patternsOf),
+						KeyFilter.bloom(patterns.keySet())),
+				LayeredMessageSource.Tier.of("bundle", MessageSource.ofResourceBundleSnapshot(BUNDLE))), 16));
+		sources.put("indexed", () -> {
+			MessageIds ids = new MessageIds();
+			ids.register(patterns.keySet());
+			return new IndexedMessageSource(ids, MessageSource.ofMap(patternsOf));
+		});
+		sources.put("binary", () -> new BinaryCatalogMessageSource(binary, "messages", new LocaleRegistry()));
+		sources.put("reloading", () -> {
+			try {
+				return MessageSource.ofReloadingProperties(properties, "messages");
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+
+		List<Translation> translations = translations();
+		List<String> failures = new ArrayList<>();
+		for (Map.Entry<String, Supplier<Format>> format : formats.entrySet()) {
+			for (Map.Entry<String, Supplier<MessageSource>> source : sources.entrySet()) {
+				for (boolean cachedFormat : new boolean[] { false, true }) {
+					for (String kind : new String[] { "plain", "cached", "async" }) {
+						Supplier<Translator> newTranslator = () -> {
+							Format f = cachedFormat ? format.getValue().get().cached(64) : format.getValue().get();
+							return newTranslator(kind, source.getValue().get(), f);
+						};
+						String combination = format.getKey() + (cachedFormat ? ".cached" : "") + "/"
+								+ source.getKey() + "/" + kind;
+						List<String> baseline = baseline(newTranslator.get(), translations);
+						for (Map.Entry<String, Supplier<ExecutorService>> executor : executors().entrySet()) {
+							for (String failure : stress(executor.getValue().get(), newTranslator.get(), translations,
+									baseline)) {
+								failures.add(combination + " on " + executor.getKey() + " threads " + failure);
+							}
+						}
+					}
+				}
+			}
+		}
+		assertThat(failures, is(empty()));
+	}
+
+	private static Translator newTranslator(final String kind, final MessageSource source, final Format format) {
+		if ("async".equals(kind)) {
+			// batches are loaded and dispatched on the common pool so coalescing is raced as well
+			return Translator.ofAsync(() -> Locale.ENGLISH, AsyncMessageSource.coalescing(
+					AsyncMessageSource.BatchLoader.of(source, ForkJoinPool.commonPool()), ForkJoinPool.commonPool()),
+					format);
+		}
+		Translator translator = Translator.of(() -> Locale.ENGLISH, source instanceof IndexedMessageSource
+				? MessageLookup.ofIndexed((IndexedMessageSource) source)
+				: MessageLookup.of(source), format);
+		return "cached".equals(kind) ? translator.cached(() -> Locale.ENGLISH, 1 << 12) : translator;
+	}
+
+	private static void store(final Map<String, String> messages, final Path file) throws IOException {
+		Properties properties = new Properties();
+		properties.putAll(messages);
+		try (OutputStream out = Files.newOutputStream(file)) {
+			properties.store(out, null);
+		}
+	}
+
+	private static List<String> baseline(final Translator translator, final List<Translation> translations) {
+		List<String> baseline = new ArrayList<>(translations.size());
+		for (Translation translation : translations) {
+			baseline.add(translation.translate(translator, false));
+		}
+		return baseline;
+	}
+
+	private static List<String> stress(
+			final ExecutorService executor,
+			final Translator translator,
+			final List<Translation> translations,
+			final List<String> baseline) throws Exception {
+		try {
+			List<String> failures = new ArrayList<>();
+			for (List<String> threadFailures : Races.runTogether(executor, THREADS, thread -> {
+				List<String> mismatches = new ArrayList<>();
+				for (int repetition = 0; repetition < REPETITIONS; repetition++) {
+					for (int i = 0; i < translations.size(); i++) {
+						// every thread starts at another message so different patterns are formatted at once
+						int index = (i + thread * translations.size() / THREADS) % translations.size();
+						String result = translations.get(index).translate(translator, (thread + repetition) % 2 == 1);
+						if (!result.equals(baseline.get(index))) {
+							mismatches.add(thread + ": " + translations.get(index) + " expected <"
+									+ baseline.get(index) + "> but was <" + result + ">");
+						}
+					}
+				}
+				return mismatches;
+			})) {
+				failures.addAll(threadFailures);
+			}
+			return failures;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static Map<String, Supplier<ExecutorService>> executors() {
+		Map<String, Supplier<ExecutorService>> executors = new LinkedHashMap<>();
+		executors.put("platform", () -> Executors.newFixedThreadPool(THREADS));
+		// virtual threads are only available when running on Java 21 or later, CI runs this test on Java 21 as well
+		Method newVirtualThreadPerTaskExecutor;
+		try {
+			newVirtualThreadPerTaskExecutor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		} catch (NoSuchMethodException e) {
+			return executors;
+		}
+		executors.put("virtual", () -> {
+			try {
+				return (ExecutorService) newVirtualThreadPerTaskExecutor.invoke(null);
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		return executors;
+	}
+
+	private static List<Translation> translations() {
+		List<TranslationHint> hints = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			Date date = new Date(DAY * (3650 * i + 37 * i * i));
+			hints.add(TranslationHint.of("items", 1234.5678 * Math.pow(10, i), date));
+			hints.add(TranslationHint.of("count", i * i, i * 255));
+			hints.add(TranslationHint.of("date", date));
+			hints.add(TranslationHint.of("greeting", TranslationHint.of(i % 2 == 0 ? "farewell" : "plain")));
+			hints.add(TranslationHint.of("percent", i / 7.0));
+		}
+		hints.add(TranslationHint.of("plain"));
+		hints.add(TranslationHint.of("only.root"));
+		hints.add(TranslationHint.of("missing"));
+
+		List<Translation> translations = new ArrayList<>();
+		for (Locale locale : LOCALES) {
+			for (TranslationHint hint : hints) {
+				translations.add(new Translation(locale, hint));
+			}
+		}
+		return translations;
+	}
+
+	private static Function<Locale, Map<String, String>> patternsOf(
+			final Map<String, String> patterns,
+			final Map<String, String> germanPatterns) {
+		Map<String, String> allGermanPatterns = new HashMap<>(patterns);
+		allGermanPatterns.putAll(germanPatterns);
+		return locale -> "de".equals(locale.getLanguage()) ? allGermanPatterns : patterns;
+	}
+
+	private static Map<String, String> patterns(final String... keysAndPatterns) {
+		Map<String, String> patterns = new HashMap<>();
+		for (int i = 0; i < keysAndPatterns.length; i += 2) {
+			patterns.put(keysAndPatterns[i], keysAndPatterns[i + 1]);
+		}
+		return patterns;
+	}
+
+	private static final class Translation {
+
+		private final Locale locale;
+		private final TranslationHint hint;
+
+		Translation(final Locale locale, final TranslationHint hint) {
+			this.locale = locale;
+			this.hint = hint;
+		}
+
+		// failures are part of the result, a race may just as well make a translation fail
+		String translate(final Translator translator, final boolean appending) {
+			try {
+				return appending
+						? translator.translate(new StringBuilder(), locale, hint).toString()
+						: translator.translate(locale, hint);
+			} catch (Exception e) {
+				return e.getClass().getName();
+			}
+		}
+
+		@Override
+		public String toString() {
+			return locale + " " + hint.getKey() + hint.getArguments();
+		}
+	}
+}
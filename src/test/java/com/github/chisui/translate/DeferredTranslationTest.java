@@ -0,0 +1,126 @@
+package com.github.chisui.translate;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+public class DeferredTranslationTest {
+
+	private final List<TranslationHint> translated = Collections.synchronizedList(new ArrayList<>());
+	private final Translator translator = Translator.of(
+			() -> Locale.ENGLISH,
+			(appendable, locale, hint, t) -> {
+				translated.add(hint);
+				appendable.append(locale.getLanguage()).append(':').append(hint.getKey().toString());
+			});
+
+	@Test
+	public void testNotRenderedUntilUsed() throws Exception {
+
+		DeferredTranslation deferred = translator.defer(TranslationHint.of("key"));
+
+		assertThat(translated.size(), is(0));
+		assertThat(deferred.isRendered(), is(false));
+		assertThat(deferred.toString(), is("en:key"));
+		assertThat(deferred.isRendered(), is(true));
+	}
+
+	@Test
+	public void testMemoizes() throws Exception {
+
+		DeferredTranslation deferred = translator.defer(Locale.GERMAN, TranslationHint.of("key"));
+
+		assertThat(deferred.toString(), is("de:key"));
+		assertThat(deferred.length(), is(6));
+		assertThat(deferred.charAt(0), is('d'));
+		assertThat(deferred.subSequence(3, 6), is("key"));
+		assertThat(deferred.formatTo(new StringBuilder()).toString(), is("de:key"));
+		assertThat(translated.size(), is(1));
+	}
+
+	@Test
+	public void testNotMemoizing() throws Exception {
+
+		DeferredTranslation deferred = DeferredTranslation.notMemoizing(translator, null, TranslationHint.of("key"));
+
+		assertThat(deferred.toString(), is("en:key"));
+		assertThat(deferred.formatTo(new StringBuilder("> ")).toString(), is("> en:key"));
+		assertThat(deferred.isRendered(), is(false));
+		assertThat(translated.size(), is(2));
+	}
+
+	@Test
+	public void testNotMemoizingRendersOncePerCharSequenceUse() throws Exception {
+
+		DeferredTranslation deferred = DeferredTranslation.notMemoizing(translator, null, TranslationHint.of("key"));
+
+		assertThat(new StringBuilder().append(deferred).toString(), is("en:key"));
+		assertThat(translated.size(), is(1));
+		assertThat(new StringBuilder().append(deferred, 3, 6).toString(), is("key"));
+		assertThat(translated.size(), is(2));
+		assertThat(Pattern.compile("en:(\\w+)").matcher(deferred).matches(), is(true));
+		assertThat(translated.size(), is(3));
+		assertThat(deferred.toString(), is("en:key"));
+		assertThat(translated.size(), is(4));
+	}
+
+	@Test
+	public void testNotMemoizingCharSequenceFollowsLocaleChanges() throws Exception {
+
+		AtomicReference<Locale> defaultLocale = new AtomicReference<>(Locale.ENGLISH);
+		DeferredTranslation deferred = DeferredTranslation.notMemoizing(
+				Translator.of(
+						defaultLocale::get,
+						(appendable, locale, hint, t) -> appendable.append(locale.getLanguage())),
+				null,
+				TranslationHint.of("key"));
+
+		assertThat(new StringBuilder().append(deferred).toString(), is("en"));
+		defaultLocale.set(Locale.GERMAN);
+		assertThat(new StringBuilder().append(deferred).toString(), is("de"));
+		assertThat(deferred.charAt(0), is('d'));
+	}
+
+	@Test
+	public void testConcurrentUseSeesOneTranslation() throws Exception {
+
+		DeferredTranslation deferred = translator.defer(TranslationHint.of("key"));
+		CountDownLatch start = new CountDownLatch(1);
+		List<String> results = Collections.synchronizedList(new ArrayList<>());
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			Thread thread = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				results.add(deferred.toString());
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertThat(results, is(Collections.nCopies(8, "en:key")));
+		assertThat(deferred.toString(), is("en:key"));
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testLocaleMayNotBeNull() throws Exception {
+
+		translator.defer(null, TranslationHint.of("key"));
+	}
+}
@@ -0,0 +1,113 @@
+package com.github.chisui.translate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Races actors against each other in the style of JCStress. Every round creates a fresh state, releases all actors
+ * on it at the same time and lets an arbiter check the state once all actors are done.
+ */
+public final class Races {
+
+	/**
+	 * Rounds of {@link #race(int, Callable, Actor, Arbiter)}.
+	 */
+	public static final int ROUNDS = 200;
+
+	private Races() {
+	}
+
+	@FunctionalInterface
+	public interface Actor<S> {
+
+		void act(S state, int actor) throws Exception;
+	}
+
+	@FunctionalInterface
+	public interface Arbiter<S> {
+
+		void check(S state) throws Exception;
+	}
+
+	@FunctionalInterface
+	public interface Task<T> {
+
+		T run(int index) throws Exception;
+	}
+
+	public static <S> void race(
+			final int actors,
+			final Callable<S> newState,
+			final Actor<S> actor,
+			final Arbiter<S> arbiter) throws Exception {
+		race(ROUNDS, actors, newState, actor, arbiter);
+	}
+
+	public static <S> void race(
+			final int rounds,
+			final int actors,
+			final Callable<S> newState,
+			final Actor<S> actor,
+			final Arbiter<S> arbiter) throws Exception {
+		final ExecutorService executor = Executors.newFixedThreadPool(actors);
+		try {
+			for (int round = 0; round < rounds; round++) {
+				final S state = newState.call();
+				try {
+					runTogether(executor, actors, index -> {
+						actor.act(state, index);
+						return null;
+					});
+					arbiter.check(state);
+				} catch (AssertionError e) {
+					throw new AssertionError("round " + round + ": " + e.getMessage(), e);
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Runs tasks released at the same time by a barrier.
+	 *
+	 * @param executor running the tasks, has to run all of them at once
+	 * @param parties number of tasks
+	 * @param task to run with the index of the party
+	 * @return the results by index
+	 * @throws Exception thrown by a task
+	 */
+	public static <T> List<T> runTogether(
+			final ExecutorService executor,
+			final int parties,
+			final Task<T> task) throws Exception {
+		final CyclicBarrier barrier = new CyclicBarrier(parties);
+		final List<Future<T>> futures = new ArrayList<>(parties);
+		for (int i = 0; i < parties; i++) {
+			final int index = i;
+			futures.add(executor.submit(() -> {
+				barrier.await();
+				return task.run(index);
+			}));
+		}
+		final List<T> results = new ArrayList<>(parties);
+		for (final Future<T> future : futures) {
+			try {
+				results.add(future.get(1, TimeUnit.MINUTES));
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof Error) {
+					throw (Error) e.getCause();
+				}
+				throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+			}
+		}
+		return results;
+	}
+}
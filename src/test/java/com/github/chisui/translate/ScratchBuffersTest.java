@@ -0,0 +1,199 @@
+package com.github.chisui.translate;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.Test;
+
+import com.github.chisui.translate.format.Format;
+import com.github.chisui.translate.lookup.MessageLookup;
+import com.github.chisui.translate.lookup.MessageSource;
+
+public class ScratchBuffersTest {
+
+	@Test
+	public void testThreadLocalReusesBuffer() {
+
+		ScratchBuffers scratchBuffers = ScratchBuffers.threadLocal(100);
+
+		StringBuilder buffer = scratchBuffers.acquire();
+		buffer.append("used");
+		scratchBuffers.release(buffer);
+
+		StringBuilder reused = scratchBuffers.acquire();
+		assertThat(reused, is(sameInstance(buffer)));
+		assertThat(reused.length(), is(0));
+	}
+
+	@Test
+	public void testThreadLocalNestedAcquire() {
+
+		ScratchBuffers scratchBuffers = ScratchBuffers.threadLocal(100);
+		scratchBuffers.release(scratchBuffers.acquire());
+
+		StringBuilder outer = scratchBuffers.acquire();
+		StringBuilder inner = scratchBuffers.acquire();
+
+		assertThat(inner, is(not(sameInstance(outer))));
+	}
+
+	@Test
+	public void testThreadLocalDropsGrownBuffer() {
+
+		ScratchBuffers scratchBuffers = ScratchBuffers.threadLocal(100);
+
+		StringBuilder buffer = scratchBuffers.acquire();
+		buffer.append(new char[200]);
+		scratchBuffers.release(buffer);
+
+		assertThat(scratchBuffers.acquire(), is(not(sameInstance(buffer))));
+	}
+
+	@Test
+	public void testThreadLocalIsPerThread() throws Exception {
+
+		ScratchBuffers scratchBuffers = ScratchBuffers.threadLocal(100);
+		StringBuilder buffer = scratchBuffers.acquire();
+		scratchBuffers.release(buffer);
+
+		List<StringBuilder> acquired = new ArrayList<>();
+		Thread thread = new Thread(() -> acquired.add(scratchBuffers.acquire()));
+		thread.start();
+		thread.join();
+
+		assertThat(acquired.get(0), is(not(sameInstance(buffer))));
+	}
+
+	@Test
+	public void testPooledIsBounded() {
+
+		ScratchBuffers scratchBuffers = ScratchBuffers.pooled(2, 100);
+
+		StringBuilder first = scratchBuffers.acquire();
+		StringBuilder second = scratchBuffers.acquire();
+		StringBuilder third = scratchBuffers.acquire();
+		scratchBuffers.release(first);
+		scratchBuffers.release(second);
+		scratchBuffers.release(third);
+
+		List<StringBuilder> reused = new ArrayList<>();
+		reused.add(scratchBuffers.acquire());
+		reused.add(scratchBuffers.acquire());
+		StringBuilder allocated = scratchBuffers.acquire();
+
+		assertThat(reused.contains(first), is(true));
+		assertThat(reused.contains(second), is(true));
+		assertThat(allocated, is(not(sameInstance(third))));
+	}
+
+	@Test
+	public void testPooledDropsGrownBuffer() {
+
+		ScratchBuffers scratchBuffers = ScratchBuffers.pooled(2, 100);
+
+		StringBuilder buffer = scratchBuffers.acquire();
+		buffer.append(new char[200]);
+		scratchBuffers.release(buffer);
+
+		assertThat(scratchBuffers.acquire(), is(not(sameInstance(buffer))));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPooledSizeMustBePositive() {
+
+		ScratchBuffers.pooled(0, 100);
+	}
+
+	@Test
+	public void testNoneAllocates() {
+
+		ScratchBuffers scratchBuffers = ScratchBuffers.none();
+		StringBuilder buffer = scratchBuffers.acquire();
+		scratchBuffers.release(buffer);
+
+		assertThat(scratchBuffers.acquire(), is(not(sameInstance(buffer))));
+	}
+
+	@Test
+	public void testTranslatorWithNestedTranslations() {
+
+		ScratchBuffers scratchBuffers = ScratchBuffers.pooled(1, 100);
+		Translator translator = new Translator.AppendableFirstTranslator(
+				() -> Locale.ENGLISH,
+				(appendable, locale, hint, t) -> {
+					appendable.append(hint.getKey().toString());
+					for (Object argument : hint.getArguments()) {
+						appendable.append('(').append(t.translate(locale, (TranslationHint) argument)).append(')');
+					}
+				},
+				scratchBuffers);
+
+		assertThat(translator.translate(TranslationHint.of("a", TranslationHint.of("b", TranslationHint.of("c")))),
+				is("a(b(c))"));
+		assertThat(translator.translate(TranslationHint.of("d")), is("d"));
+	}
+
+	@Test
+	public void testTranslatorReleasesBufferOnFailure() {
+
+		ScratchBuffers scratchBuffers = ScratchBuffers.pooled(1, 100);
+		Translator translator = new Translator.AppendableFirstTranslator(
+				() -> Locale.ENGLISH,
+				(appendable, locale, hint, t) -> {
+					appendable.append("partial");
+					throw new IllegalStateException();
+				},
+				scratchBuffers);
+
+		try {
+			translator.translate(TranslationHint.of("key"));
+		} catch (IllegalStateException e) {
+			// expected
+		}
+
+		assertThat(scratchBuffers.acquire().length(), is(0));
+	}
+
+	@Test
+	public void testTranslateAllUsesScratchBuffers() {
+
+		List<StringBuilder> acquired = new ArrayList<>();
+		List<StringBuilder> released = new ArrayList<>();
+		ScratchBuffers pooled = ScratchBuffers.pooled(1, 100);
+		Translator translator = new Translator.MessageLookupTranslator(
+				() -> Locale.ENGLISH,
+				MessageLookup.of(MessageSource.ofMap(locale -> Collections.singletonMap("greeting", "Hello {0}"))),
+				Format.ofCompiledMessageFormat(),
+				new ScratchBuffers() {
+
+					@Override
+					public StringBuilder acquire() {
+						StringBuilder buffer = pooled.acquire();
+						acquired.add(buffer);
+						return buffer;
+					}
+
+					@Override
+					public void release(final StringBuilder buffer) {
+						released.add(buffer);
+						pooled.release(buffer);
+					}
+				});
+
+		assertThat(translator.translateAll(Locale.ENGLISH, Arrays.asList(
+				TranslationHint.of("greeting", "World"),
+				TranslationHint.of("greeting", "Welt"))),
+				contains("Hello World", "Hello Welt"));
+		assertThat(acquired.isEmpty(), is(false));
+		assertThat(released, is(acquired));
+	}
+}
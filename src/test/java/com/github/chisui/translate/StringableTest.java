@@ -34,4 +34,23 @@ public class StringableTest {
 		
 	}
 
+	@Test
+	public void testSuppliedOncePerAppend() throws Exception {
+
+		int[] calls = { 0 };
+		Stringable stringable = Stringable.of(() -> {
+			calls[0]++;
+			return "hello world";
+		});
+
+		assertThat(new StringBuilder().append(stringable).toString(), is("hello world"));
+		assertThat(calls[0], is(1));
+	}
+
+	@Test
+	public void testFormatTo() throws Exception {
+
+		assertThat(Stringable.of("foo").formatTo(new StringBuilder("> ")).toString(), is("> foo"));
+	}
+
 }
@@ -1,16 +1,31 @@
 package com.github.chisui.translate;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.junit.Test;
 
@@ -20,6 +35,8 @@ import com.github.chisui.translate.Translator.StringFirstTranslator;
 import com.github.chisui.translate.Translator.TranslationFunction;
 import com.github.chisui.translate.format.Format;
 import com.github.chisui.translate.format.Formatable;
+import com.github.chisui.translate.lookup.LocaleHandle;
+import com.github.chisui.translate.lookup.LocaleRegistry;
 import com.github.chisui.translate.lookup.MessageLookup;
 import com.github.chisui.translate.lookup.MessageSource;
 
@@ -867,7 +884,8 @@ public class TranslatorTest {
     			.withFallback("fallback");
     	 
     	new Expectations() {{
-			lookup.getMessage(Locale.CANADA, hint.getKey(), hint.getFallback()); returns("msg");
+			lookup.getMessage(LocaleRegistry.getDefault().handle(Locale.CANADA), hint.getKey(), hint.getFallback());
+			returns("msg");
 			format.toFormatable(Locale.CANADA, "msg"); returns(formatable);
 			formatable.format(appendable, hint.getArguments(), t);
 		}};
@@ -895,7 +913,7 @@ public class TranslatorTest {
     			.withFallback("fallback");
     	 
     	new Expectations() {{
-			source.findMessage(Locale.CANADA, "key"); returns(Optional.of("msg"));
+			source.findMessage(LocaleRegistry.getDefault().handle(Locale.CANADA), "key"); returns(Optional.of("msg"));
 			format.toFormatable(Locale.CANADA, "msg"); returns(formatable);
 			formatable.format(appendable, hint.getArguments(), t);
 		}};
@@ -922,7 +940,8 @@ public class TranslatorTest {
     			.withFallback("fallback");
     	 
     	new Expectations() {{
-			lookup.getMessage(Locale.getDefault(), hint.getKey(), hint.getFallback()); returns("msg");
+			lookup.getMessage(LocaleRegistry.getDefault().handle(Locale.getDefault()), hint.getKey(), hint.getFallback());
+			returns("msg");
 			format.toFormatable(Locale.getDefault(), "msg"); returns(formatable);
 			formatable.format(appendable, hint.getArguments(), t);
 		}};
@@ -949,12 +968,157 @@ public class TranslatorTest {
     			.withFallback("fallback");
     	 
     	new Expectations() {{
-			source.findMessage(Locale.getDefault(), "key"); returns(Optional.of("msg"));
+			source.findMessage(LocaleRegistry.getDefault().handle(Locale.getDefault()), "key");
+			returns(Optional.of("msg"));
 			format.toFormatable(Locale.getDefault(), "msg"); returns(formatable);
 			formatable.format(appendable, hint.getArguments(), t);
 		}};
 		
 		t.translate(appendable, hint);
 	}
-	
+
+	@Test
+	public void testLooksUpByLocaleHandle() throws Exception {
+
+		LocaleRegistry registry = new LocaleRegistry();
+		List<LocaleHandle> handles = new LinkedList<>();
+		MessageSource source = new MessageSource() {
+
+			@Override
+			public Optional<String> findMessage(Locale locale, String key) {
+				throw new AssertionError("looked up by Locale");
+			}
+
+			@Override
+			public Optional<String> findMessage(LocaleHandle locale, String key) {
+				handles.add(locale);
+				return Optional.of(key + " {0}");
+			}
+		};
+		Translator t = new Translator.MessageLookupTranslator(() -> Locale.GERMANY, MessageLookup.of(source),
+				Format.ofMessageFormat(), ScratchBuffers.threadLocal(), registry);
+
+		assertThat(t.translate(TranslationHint.of("outer", TranslationHint.of("inner"))), is("outer inner {0}"));
+		assertThat(handles, contains(registry.handle(Locale.GERMANY), registry.handle(Locale.GERMANY)));
+	}
+
+	@Test
+	public void testTranslateAll() throws Exception {
+
+		List<String> compiled = new LinkedList<>();
+		Map<String, String> messages = new HashMap<>();
+		messages.put("greeting", "Hello {0}");
+		messages.put("bye", "Bye");
+		Translator t = Translator.of(
+				MessageSource.ofMap(locale -> messages),
+				(locale, message) -> {
+					compiled.add(message);
+					return Format.ofMessageFormat().toFormatable(locale, message);
+				});
+		List<TranslationHint> hints = Arrays.asList(
+				TranslationHint.of("greeting", "a"),
+				TranslationHint.of("bye"),
+				TranslationHint.of("greeting", "b"),
+				TranslationHint.of("missing").withFallback("fallback"));
+
+		assertThat(t.translateAll(Locale.ENGLISH, hints), contains("Hello a", "Bye", "Hello b", "fallback"));
+		// arguments are translated and compiled separately
+		assertThat(compiled, contains("Hello {0}", "Bye", "fallback", "a", "b"));
+
+		assertThat(t.translateAll(new StringBuilder(), Locale.ENGLISH, hints, ", ").toString(),
+				is("Hello a, Bye, Hello b, fallback"));
+	}
+
+	@Test
+	public void testTranslateAllDefault() throws Exception {
+
+		List<String> translations = translator.translateAll(Locale.ENGLISH, Arrays.asList(
+				TranslationHint.of("a"),
+				TranslationHint.of("b")));
+
+		assertThat(translations, contains("hello world", "hello world"));
+		assertThat(translator.translateAll(new StringBuilder(), Locale.ENGLISH, Arrays.asList(
+				TranslationHint.of("a"),
+				TranslationHint.of("b")), "|").toString(), is("hello world|hello world"));
+	}
+
+	@Test
+	public void testTranslateAllStreamIsLazy() throws Exception {
+
+		AtomicInteger translations = new AtomicInteger();
+		Translator t = Translator.of((locale, hint, tr) -> {
+			translations.incrementAndGet();
+			return "t" + hint.getKey();
+		});
+
+		Stream<String> stream = t.translateAll(Locale.ENGLISH, IntStream.range(0, 1000).mapToObj(TranslationHint::of));
+		assertThat(translations.get(), is(0));
+
+		assertThat(stream.limit(3).collect(Collectors.toList()), contains("t0", "t1", "t2"));
+		assertThat(translations.get(), is(3));
+	}
+
+	@Test
+	public void testTranslateAllParallelStream() throws Exception {
+
+		Translator t = Translator.of(
+				MessageSource.ofMap(locale -> Collections.singletonMap("row", "row {0}")),
+				Format.ofCompiledMessageFormat());
+
+		List<String> translations = t
+				.translateAll(Locale.ENGLISH, IntStream.range(0, 10_000)
+						.parallel()
+						.mapToObj(i -> TranslationHint.of("row", i)))
+				.collect(Collectors.toList());
+
+		assertThat(translations, hasSize(10_000));
+		for (int i = 0; i < translations.size(); i++) {
+			assertThat(translations.get(i), is("row " + i));
+		}
+	}
+
+	@Test
+	public void testTranslateAllSpliterator() throws Exception {
+
+		Spliterator<String> translations = translator.translateAll(Locale.ENGLISH,
+				Arrays.asList(TranslationHint.of("a"), TranslationHint.of("b")).spliterator());
+
+		assertThat(StreamSupport.stream(translations, false).collect(Collectors.toList()),
+				contains("hello world", "hello world"));
+	}
+
+	@Test
+	public void testTranslateAllExecutor() throws Exception {
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			AtomicInteger pulled = new AtomicInteger();
+			Translator t = Translator.of((locale, hint, tr) -> "t" + hint.getKey());
+
+			Iterator<String> translations = t
+					.translateAll(Locale.ENGLISH, IntStream.range(0, 1000)
+							.peek(i -> pulled.incrementAndGet())
+							.mapToObj(TranslationHint::of), executor, 8)
+					.iterator();
+
+			for (int i = 0; i < 100; i++) {
+				assertThat(translations.next(), is("t" + i));
+			}
+			// no more than parallelism hints are pulled ahead
+			assertThat(pulled.get(), is(lessThanOrEqualTo(108)));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testTranslateAllExecutorRethrows() throws Exception {
+
+		Translator t = Translator.of((locale, hint, tr) -> {
+			throw new IllegalStateException();
+		});
+
+		t.translateAll(Locale.ENGLISH, Stream.of(TranslationHint.of("a")), Runnable::run, 1).count();
+	}
+
 }
@@ -0,0 +1,103 @@
+package com.github.chisui.translate;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.chisui.translate.format.Format;
+import com.github.chisui.translate.lookup.MessageSource;
+
+public class Utf8AppendableTest {
+
+	private static final char[] CHARS = { 'a', 'Z', '0', ' ', '\u00e4', '\u00ff', '\u0100', '\u07ff', '\u0800',
+			'\u20ac', '\uffff', '\ud83d', '\ude00', '\ud800', '\udfff' };
+
+	private final Random random = new Random(3);
+
+	@Test
+	public void testEncodesLikeString() throws Exception {
+
+		for (int i = 0; i < 2000; i++) {
+			String s = randomString();
+			byte[] expected = s.getBytes(StandardCharsets.UTF_8);
+
+			ByteBuffer buffer = ByteBuffer.allocate(expected.length);
+			appendInChunks(Utf8Appendable.of(buffer), s);
+			assertThat(s, Arrays.copyOf(buffer.array(), buffer.position()), is(expected));
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			appendInChunks(Utf8Appendable.of(out, 4 + random.nextInt(8)), s);
+			assertThat(s, out.toByteArray(), is(expected));
+		}
+	}
+
+	@Test
+	public void testAppendUtf8() throws Exception {
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Utf8Appendable appendable = Utf8Appendable.of(out, 4);
+		appendable.append("ab\ud83d");
+		appendable.appendUtf8("\u20ac long pre-encoded".getBytes(StandardCharsets.UTF_8));
+		appendable.append('c');
+		appendable.finish();
+
+		assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8), is("ab?\u20ac long pre-encodedc"));
+	}
+
+	@Test(expected = BufferOverflowException.class)
+	public void testBufferOverflow() throws Exception {
+
+		Utf8Appendable.of(ByteBuffer.allocate(2)).append("\u20ac");
+
+	}
+
+	@Test
+	public void testTranslateUtf8() throws Exception {
+
+		Translator translator = Translator.of(
+				MessageSource.ofMap(locale -> Collections.singletonMap("key", "Gr\u00fc\u00dfe {0} \u20ac")),
+				Format.ofCompiledMessageFormat());
+		TranslationHint hint = TranslationHint.of("key", "\ud83d\ude00");
+		byte[] expected = translator.translate(Locale.GERMAN, hint).getBytes(StandardCharsets.UTF_8);
+
+		ByteBuffer buffer = ByteBuffer.allocate(64);
+		translator.translateUtf8(buffer, Locale.GERMAN, hint);
+		assertThat(Arrays.copyOf(buffer.array(), buffer.position()), is(expected));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		translator.translateUtf8(out, Locale.GERMAN, hint);
+		assertThat(out.toByteArray(), is(expected));
+	}
+
+	private String randomString() {
+		char[] chars = new char[random.nextInt(40)];
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = CHARS[random.nextInt(CHARS.length)];
+		}
+		return new String(chars);
+	}
+
+	private void appendInChunks(Utf8Appendable appendable, String s) throws Exception {
+		int i = 0;
+		while (i < s.length()) {
+			int end = Math.min(s.length(), i + random.nextInt(5));
+			if (end == i + 1 && random.nextBoolean()) {
+				appendable.append(s.charAt(i));
+			} else {
+				appendable.append(s, i, end);
+			}
+			i = end;
+		}
+		appendable.finish();
+	}
+}
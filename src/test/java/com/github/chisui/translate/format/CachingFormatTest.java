@@ -0,0 +1,142 @@
+package com.github.chisui.translate.format;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.Test;
+
+import com.github.chisui.translate.Translator;
+
+public class CachingFormatTest {
+
+	private final List<String> compiled = new ArrayList<>();
+	private final Format format = (locale, pattern) -> {
+		compiled.add(pattern);
+		return Formatable.of(pattern);
+	};
+
+	@Test
+	public void testHit() throws Exception {
+
+		CachingFormat cachingFormat = format.cached(10);
+
+		Formatable first = cachingFormat.toFormatable(Locale.ENGLISH, "foo");
+		Formatable second = cachingFormat.toFormatable(Locale.ENGLISH, "foo");
+
+		assertThat(second, sameInstance(first));
+		assertThat(compiled.size(), is(1));
+		assertThat(cachingFormat.getStats().getHitCount(), is(1L));
+		assertThat(cachingFormat.getStats().getMissCount(), is(1L));
+	}
+
+	@Test
+	public void testLocaleIsPartOfKey() throws Exception {
+
+		CachingFormat cachingFormat = format.cached(10);
+
+		Formatable english = cachingFormat.toFormatable(Locale.ENGLISH, "foo");
+		Formatable german = cachingFormat.toFormatable(Locale.GERMAN, "foo");
+
+		assertThat(german, not(sameInstance(english)));
+		assertThat(compiled.size(), is(2));
+	}
+
+	@Test
+	public void testEviction() throws Exception {
+
+		CachingFormat cachingFormat = format.cached(4);
+
+		for (int i = 0; i < 100; i++) {
+			cachingFormat.toFormatable(Locale.ENGLISH, "pattern" + i);
+		}
+
+		CachingFormat.Stats stats = cachingFormat.getStats();
+		assertThat(stats.getSize(), is(lessThanOrEqualTo(4)));
+		assertThat(stats.getEvictionCount(), is(96L));
+		assertThat(stats.getMissCount(), is(100L));
+	}
+
+	@Test
+	public void testReferencedEntriesSurviveEviction() throws Exception {
+
+		CachingFormat cachingFormat = format.cached(2);
+
+		Formatable hot = cachingFormat.toFormatable(Locale.ENGLISH, "hot");
+		cachingFormat.toFormatable(Locale.ENGLISH, "cold");
+		cachingFormat.toFormatable(Locale.ENGLISH, "hot");
+		cachingFormat.toFormatable(Locale.ENGLISH, "new");
+
+		assertThat(cachingFormat.toFormatable(Locale.ENGLISH, "hot"), sameInstance(hot));
+	}
+
+	@Test
+	public void testInvalidate() throws Exception {
+
+		CachingFormat cachingFormat = format.cached(10);
+		cachingFormat.toFormatable(Locale.ENGLISH, "a");
+		cachingFormat.toFormatable(Locale.GERMAN, "a");
+		cachingFormat.toFormatable(Locale.GERMAN, "b");
+
+		cachingFormat.invalidate("a");
+		assertThat(cachingFormat.getStats().getSize(), is(1));
+		cachingFormat.toFormatable(Locale.ENGLISH, "a");
+		cachingFormat.toFormatable(Locale.GERMAN, "b");
+		assertThat(compiled, is(Arrays.asList("a", "a", "b", "a")));
+
+		cachingFormat.invalidate(Locale.GERMAN, "b");
+		assertThat(cachingFormat.getStats().getSize(), is(1));
+		cachingFormat.invalidateAll();
+		assertThat(cachingFormat.getStats().getSize(), is(0));
+	}
+
+	@Test
+	public void testInvalidatedEntriesLeaveTheClock() throws Exception {
+
+		CachingFormat cachingFormat = format.cached(10);
+		for (int i = 0; i < 100; i++) {
+			cachingFormat.toFormatable(Locale.ENGLISH, "a");
+			cachingFormat.toFormatable(Locale.GERMAN, "b");
+			cachingFormat.toFormatable(Locale.FRENCH, "c");
+			cachingFormat.invalidate("a");
+			cachingFormat.invalidate(Locale.GERMAN, "b");
+			if (i % 10 == 0) {
+				cachingFormat.invalidateAll();
+			}
+		}
+
+		assertThat(cachingFormat.getStats().getSize(), is(1));
+		assertThat(cachingFormat.getClockSize(), is(1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNonPositiveSize() throws Exception {
+
+		format.cached(0);
+
+	}
+
+	@Test
+	public void testCachedMessageFormat() throws Exception {
+
+		CachingFormat cachingFormat = Format.ofMessageFormat().cached(10);
+		Translator translator = Translator.of((l, hint, t) -> hint.getFallback().orElse(""));
+
+		for (String arg : Arrays.asList("a", "b")) {
+			StringBuilder sb = new StringBuilder();
+			cachingFormat
+					.toFormatable(Locale.ENGLISH, "hello {0}")
+					.format(sb, Arrays.asList(arg), translator);
+
+			assertThat(sb.toString(), is("hello " + arg));
+		}
+		assertThat(cachingFormat.getStats().getHitCount(), is(1L));
+	}
+}
@@ -0,0 +1,221 @@
+package com.github.chisui.translate.format;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.IllegalFormatException;
+import java.util.List;
+import java.util.Locale;
+import java.util.MissingFormatArgumentException;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.chisui.translate.TranslationHint;
+import com.github.chisui.translate.Translator;
+
+/**
+ * Differential tests comparing {@link CompiledFormatterFormat} against {@link String#format(Locale, String, Object...)}.
+ */
+public class CompiledFormatterFormatTest {
+
+	private static final List<Locale> LOCALES = Arrays.asList(
+			Locale.ROOT,
+			Locale.US,
+			Locale.ENGLISH,
+			Locale.GERMANY,
+			new Locale("de", "CH"),
+			Locale.FRANCE,
+			new Locale("ar", "EG"),
+			new Locale("hi", "IN"),
+			new Locale("th", "TH", "TH"));
+
+	private static final List<String> INTEGER_FLAGS = Arrays.asList(
+			"", "-", "0", "+", " ", ",", "(", "+,", "(,", "0,", "-,", "+(", " (", "0(", "-(");
+
+	private static final List<String> FLOAT_FLAGS = Arrays.asList(
+			"", "-", "0", "+", " ", ",", "(", "#", "+,", "0,", "(0", "-(", "#,");
+
+	private final Translator translator = Translator.of((l, hint, t) -> hint.getFallback().orElse("?"));
+	private final Random random = new Random(42);
+
+	@Test
+	public void testStrings() throws Exception {
+
+		for (Locale locale : LOCALES) {
+			for (String pattern : Arrays.asList(
+					"", "plain", "100%%", "%n", "a%nb", "%s", "hello %s!", "%s %s", "%2$s %1$s", "%s %<s",
+					"%10s|", "%-10s|", "%.2s|", "%5.1s|", "%-5.3s|", "%S", "%1$s %s %s", "%0$s")) {
+				for (List<?> args : Arrays.asList(
+						Arrays.asList("a", "b"),
+						Arrays.asList("hello world", "second"),
+						Arrays.asList("", "x"))) {
+
+					assertSame(locale, pattern, args);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testIntegers() throws Exception {
+
+		List<Object> values = Arrays.asList(
+				0, 1, -1, 7, -42, 1234, -98765, 1234567, Integer.MAX_VALUE, Integer.MIN_VALUE,
+				0L, Long.MAX_VALUE, Long.MIN_VALUE, -1234567890123L,
+				(short) -300, (byte) -7, (byte) 100,
+				new BigInteger("-123456789012345678901234567890"));
+		for (Locale locale : LOCALES) {
+			for (Object value : values) {
+				for (String flags : INTEGER_FLAGS) {
+					for (String width : Arrays.asList("", "1", "8", "25")) {
+						if ((flags.contains("-") || flags.contains("0")) && width.isEmpty()) {
+							continue;
+						}
+						assertSame(locale, "%" + flags + width + "d", Arrays.asList(value));
+					}
+				}
+				for (String flags : Arrays.asList("", "#", "0", "-", "#0", "-#")) {
+					for (String width : Arrays.asList("", "4", "20")) {
+						if ((flags.contains("-") || flags.contains("0")) && width.isEmpty()) {
+							continue;
+						}
+						assertSame(locale, "%" + flags + width + "x", Arrays.asList(value));
+						assertSame(locale, "%" + flags + width + "X", Arrays.asList(value));
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testFloats() throws Exception {
+
+		List<Object> values = Arrays.asList(
+				0.0, -0.0, 0.5, 1.5, 2.5, -2.5, 0.125, 2.675, 1.005, 1e-10, 123456.789, -9876543.21,
+				1e20, 1.7976931348623157E308, Double.MIN_VALUE, Double.NaN, Double.POSITIVE_INFINITY,
+				Double.NEGATIVE_INFINITY, 0.1f, 3.14159f, -1e10f, new BigDecimal("12345.6789"));
+		for (Locale locale : LOCALES) {
+			for (Object value : values) {
+				for (String flags : FLOAT_FLAGS) {
+					for (String width : Arrays.asList("", "12", "30")) {
+						for (String precision : Arrays.asList("", ".0", ".2", ".10")) {
+							if ((flags.contains("-") || flags.contains("0")) && width.isEmpty()) {
+								continue;
+							}
+							assertSame(locale, "%" + flags + width + precision + "f", Arrays.asList(value));
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testRandomFloats() throws Exception {
+
+		for (int i = 0; i < 20000; i++) {
+			double value = random.nextBoolean()
+					? random.nextDouble() * Math.pow(10, random.nextInt(16) - 4)
+					: Math.round(random.nextDouble() * 100000) / 1000.0;
+			String pattern = "%." + random.nextInt(8) + "f";
+			assertSame(Locale.US, pattern, Arrays.asList(random.nextBoolean() ? value : -value));
+		}
+	}
+
+	@Test
+	public void testRandomIntegers() throws Exception {
+
+		for (int i = 0; i < 20000; i++) {
+			Object value = random.nextBoolean() ? (Object) random.nextLong() : (Object) random.nextInt();
+			assertSame(Locale.GERMANY, "%,d %x", Arrays.asList(value, value));
+		}
+	}
+
+	@Test
+	public void testFallbackConversions() throws Exception {
+
+		Calendar calendar = Calendar.getInstance();
+		calendar.setTime(new Date(1234567890123L));
+		for (Locale locale : LOCALES) {
+			for (String pattern : Arrays.asList(
+					"%b", "%c", "%o", "%e", "%.3g", "%a", "%h", "%tY-%<tm-%<td", "%Tc", "%08.3e", "%5%|", "%-5%|")) {
+				Object arg = pattern.contains("t") || pattern.contains("T") ? calendar
+						: pattern.contains("c") ? 'x'
+						: pattern.contains("o") ? 42
+						: pattern.contains("b") ? true
+						: pattern.contains("h") ? "hash"
+						: (Object) 1234.5678;
+
+				assertSame(locale, pattern, Arrays.asList(arg));
+			}
+		}
+	}
+
+	@Test
+	public void testInvalidFormatsFailLikeFormatter() throws Exception {
+
+		for (String pattern : Arrays.asList("%", "%q", "%-d", "%.2d", "%,x", "%#d", "%-05d", "%+ d", "%-%", "%5n")) {
+			Class<?> expected;
+			try {
+				String.format(Locale.US, pattern, 1);
+				expected = null;
+			} catch (IllegalFormatException e) {
+				expected = e.getClass();
+			}
+			try {
+				Format.ofCompiledFormatter().toFormatable(Locale.US, pattern);
+				assertThat(pattern, null, is(expected));
+			} catch (IllegalFormatException e) {
+				assertThat(pattern, e.getClass(), is(expected));
+			}
+		}
+	}
+
+	@Test(expected = MissingFormatArgumentException.class)
+	public void testMissingArgument() throws Exception {
+
+		format(Locale.US, "%s %s", Arrays.asList("a"), translator);
+
+	}
+
+	@Test
+	public void testWrongArgumentType() throws Exception {
+
+		try {
+			format(Locale.US, "%d", Arrays.asList(1.5), translator);
+			fail();
+		} catch (IllegalFormatException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testStringArgumentsAreTranslated() throws Exception {
+
+		Translator translator = Translator.of((l, hint, t) -> l + ":" + hint.getKey());
+
+		assertThat(format(Locale.GERMAN, "a %s b %5s|%d", Arrays.asList(TranslationHint.of("k"), "x", 5), translator),
+				is("a de:k b  de:x|5"));
+	}
+
+	private void assertSame(Locale locale, String pattern, List<?> args) throws IOException {
+		assertThat(locale + " " + pattern + " " + args,
+				format(locale, pattern, args, translator),
+				is(String.format(locale, pattern, args.toArray())));
+	}
+
+	private static String format(Locale locale, String pattern, List<?> args, Translator translator)
+			throws IOException {
+		StringBuilder sb = new StringBuilder();
+		Format.ofCompiledFormatter().toFormatable(locale, pattern).format(sb, args, translator);
+		return sb.toString();
+	}
+}
@@ -0,0 +1,401 @@
+package com.github.chisui.translate.format;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.text.MessageFormat;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.Test;
+
+import com.github.chisui.translate.TranslationHint;
+import com.github.chisui.translate.Translator;
+import com.github.chisui.translate.lookup.LocaleRegistry;
+
+/**
+ * Differential tests comparing {@link CompiledMessageFormat} against {@link MessageFormat}.
+ */
+public class CompiledMessageFormatTest {
+
+	private static final List<Locale> LOCALES = Arrays.asList(
+			Locale.ROOT,
+			Locale.ENGLISH,
+			Locale.US,
+			Locale.GERMANY,
+			new Locale("de", "CH"),
+			Locale.FRANCE,
+			Locale.JAPAN,
+			new Locale("ar", "EG"),
+			new Locale("hi", "IN"),
+			new Locale("th", "TH", "TH"),
+			new Locale("ru", "RU"));
+
+	private static final List<String> PLAIN_PATTERNS = Arrays.asList(
+			"",
+			"hello world",
+			"{0}",
+			"hello {0}",
+			"{0}, {1} and {0} again",
+			"{1}{0}",
+			"it''s {0}",
+			"'{0}' is quoted",
+			"'{'{0}'}'",
+			"a '' b '' c",
+			"unterminated 'quote {0}",
+			"missing {5} argument",
+			"{0,}",
+			"{0,,}",
+			"{0, }",
+			"'''{0}'''",
+			"{0}}",
+			"{0}'");
+
+	private static final List<String> TYPED_PATTERNS = Arrays.asList(
+			"{0,number}",
+			"{0,number,integer}",
+			"{0,number,percent}",
+			"{0,number,currency}",
+			"{0,number,#,##0.00}",
+			"{0,number,'#'#}",
+			"{0, NUMBER , integer }",
+			"{1,date}",
+			"{1,date,short}",
+			"{1,date,medium}",
+			"{1,date,long}",
+			"{1,date,full}",
+			"{1,date,yyyy-MM-dd}",
+			"{1,time}",
+			"{1,time,short}",
+			"{1,time,HH:mm '{'ss'}'}",
+			"{0,choice,0#none|1#one|1<many}",
+			"{0,choice,0#none|1#one '{2}'|1<{0,number,integer} of {2}}",
+			"{0,choice,-1#negative|0#zero|0<more than {2}}",
+			"{0,number,integer} files on {1,date,short} by {2}");
+
+	private static final List<String> INVALID_PATTERNS = Arrays.asList(
+			"{0",
+			"{",
+			"{x}",
+			"{ 0}",
+			"{-1}",
+			"{0,foo}",
+			"{0,number,#.#.#}",
+			"{0,choice,}",
+			"{0,choice,a#b}");
+
+	private static final List<List<?>> NUMBER_ARGS = Arrays.asList(
+			Arrays.asList(0, new Date(0), "x"),
+			Arrays.asList(1, new Date(1234567890123L), "y"),
+			Arrays.asList(-1.5, new Date(-86400000L), "z"),
+			Arrays.asList(1234567.891, new Date(1500000000000L), "w"),
+			Arrays.asList(42L, new Date(), "v"),
+			Arrays.asList(new BigDecimal("12345678901234567890.123"), new Date(), "u"),
+			Arrays.asList(new BigInteger("98765432109876543210"), new Date(), "t"),
+			Arrays.asList(Double.NaN, new Date(), "s"));
+
+	private final Translator translator = Translator.of((l, hint, t) -> hint.getFallback().orElse("?"));
+
+	@Test
+	public void testPlainPatternsMatchOfMessageFormat() throws Exception {
+
+		for (Locale locale : LOCALES) {
+			for (String pattern : PLAIN_PATTERNS) {
+				for (List<?> args : Arrays.asList(
+						Arrays.asList(),
+						Arrays.asList("a"),
+						Arrays.asList("a", "b"),
+						Arrays.asList("first", "second", "third"))) {
+
+					Object[] translatedArgs = args.stream().map(arg -> translator.translate(locale, arg)).toArray();
+					String expected = new MessageFormat(pattern, locale).format(translatedArgs);
+					assertThat(locale + " " + pattern + " " + args,
+							format(Format.ofCompiledMessageFormat(), locale, pattern, args), is(expected));
+					assertThat(locale + " " + pattern + " " + args,
+							format(Format.ofMessageFormat(), locale, pattern, args), is(expected));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testTypedPatternsMatchMessageFormat() throws Exception {
+
+		for (Locale locale : LOCALES) {
+			for (String pattern : TYPED_PATTERNS) {
+				for (List<?> args : NUMBER_ARGS) {
+
+					String expected = new MessageFormat(pattern, locale).format(args.toArray());
+					assertThat(locale + " " + pattern + " " + args,
+							format(Format.ofCompiledMessageFormat(), locale, pattern, args), is(expected));
+					assertThat(locale + " " + pattern + " " + args,
+							format(Format.ofMessageFormat(), locale, pattern, args), is(expected));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testInvalidPatternsFailLikeMessageFormat() throws Exception {
+
+		for (String pattern : INVALID_PATTERNS) {
+			String expected;
+			try {
+				new MessageFormat(pattern, Locale.ENGLISH);
+				expected = null;
+			} catch (IllegalArgumentException e) {
+				expected = e.getMessage();
+			}
+			for (Format format : Arrays.asList(Format.ofCompiledMessageFormat(), Format.ofMessageFormat())) {
+				try {
+					format.toFormatable(Locale.ENGLISH, pattern);
+					assertThat(pattern, null, is(expected));
+				} catch (IllegalArgumentException e) {
+					assertThat(pattern, e.getMessage(), is(expected));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testOfMessageFormatRejectsIcuTypes() throws Exception {
+
+		for (String pattern : Arrays.asList("{0,plural,other{#}}", "{0,select,other{x}}")) {
+			try {
+				Format.ofMessageFormat().toFormatable(Locale.ENGLISH, pattern);
+				fail(pattern);
+			} catch (IllegalArgumentException e) {
+				assertThat(e.getMessage(), is(startsWith("unknown format type")));
+			}
+		}
+	}
+
+	@Test
+	public void testWrongArgumentTypeFailsLikeMessageFormat() throws Exception {
+
+		for (String pattern : Arrays.asList("{0,number}", "{0,date}", "{0,choice,0#a|1#b}")) {
+			try {
+				format(Format.ofCompiledMessageFormat(), Locale.ENGLISH, pattern, Arrays.asList("str"));
+				fail(pattern);
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void testNullArgument() throws Exception {
+
+		assertThat(format(Format.ofCompiledMessageFormat(), Locale.ENGLISH, "{0} {1,number}", Arrays.asList(null, null)),
+				is(new MessageFormat("{0} {1,number}", Locale.ENGLISH).format(new Object[] { null, null })));
+	}
+
+	@Test
+	public void testPlainArgumentsAreTranslated() throws Exception {
+
+		Translator translator = Translator.of((l, hint, t) -> l + ":" + hint.getKey());
+
+		String result = format(Format.ofCompiledMessageFormat(), Locale.GERMAN, "a {0} b",
+				Arrays.asList(TranslationHint.of("key")), translator);
+
+		assertThat(result, is("a de:key b"));
+	}
+
+	@Test
+	public void testParse() throws Exception {
+
+		StringBuilder sb = new StringBuilder();
+		CompiledMessageFormat.parse("it''s {0} and {1,number,#'{'}", new CompiledMessageFormat.PatternVisitor() {
+
+			@Override
+			public void literal(String text) {
+				sb.append("[").append(text).append("]");
+			}
+
+			@Override
+			public void argument(int index, String type, String style) {
+				sb.append("<").append(index).append("|").append(type).append("|").append(style).append(">");
+			}
+		});
+
+		assertThat(sb.toString(), is("[it's ]<0||>[ and ]<1|number|#'{'>"));
+	}
+
+	@Test
+	public void testLiteralOnlyPatternCompilesToStringFormatable() throws Exception {
+
+		assertThat(CompiledMessageFormat.compile(Locale.ENGLISH, "it''s"), is(Formatable.of("it's")));
+		assertThat(CompiledMessageFormat.compile(Locale.ENGLISH, ""), sameInstance(Formatable.noop()));
+	}
+
+	@Test
+	public void testPlural() throws Exception {
+
+		String pattern = "{0,plural,=0{no files}one{# file}other{# files}}";
+
+		assertThat(format(Format.ofCompiledMessageFormat(), Locale.ENGLISH, pattern, Arrays.asList(0)),
+				is("no files"));
+		assertThat(format(Format.ofCompiledMessageFormat(), Locale.ENGLISH, pattern, Arrays.asList(1)), is("1 file"));
+		assertThat(format(Format.ofCompiledMessageFormat(), Locale.ENGLISH, pattern, Arrays.asList(1234L)),
+				is("1,234 files"));
+		assertThat(format(Format.ofCompiledMessageFormat(), Locale.ENGLISH, pattern, Arrays.asList(1.5)),
+				is("1.5 files"));
+		assertThat(format(Format.ofCompiledMessageFormat(), Locale.ENGLISH, pattern,
+				Arrays.asList(new BigDecimal("1.0"))), is("1 files"));
+	}
+
+	@Test
+	public void testPluralUsesRulesOfLocale() throws Exception {
+
+		String pattern = "{0,plural,one{# \u0444\u0430\u0439\u043b}few{# \u0444\u0430\u0439\u043b\u0430}"
+				+ "many{# \u0444\u0430\u0439\u043b\u043e\u0432}other{# \u0444\u0430\u0439\u043b\u0430}}";
+		Locale russian = new Locale("ru");
+
+		assertThat(format(Format.ofCompiledMessageFormat(), russian, pattern, Arrays.asList(21)),
+				is("21 \u0444\u0430\u0439\u043b"));
+		assertThat(format(Format.ofCompiledMessageFormat(), russian, pattern, Arrays.asList(3)),
+				is("3 \u0444\u0430\u0439\u043b\u0430"));
+		assertThat(format(Format.ofCompiledMessageFormat(), russian, pattern, Arrays.asList(11)),
+				is("11 \u0444\u0430\u0439\u043b\u043e\u0432"));
+	}
+
+	@Test
+	public void testPluralOffset() throws Exception {
+
+		String pattern = "{0,plural,offset:1 =0{nobody}=1{{1}}one{{1} and # other}other{{1} and # others}}";
+
+		assertThat(format(Format.ofCompiledMessageFormat(), Locale.ENGLISH, pattern, Arrays.asList(0, "Ann")),
+				is("nobody"));
+		assertThat(format(Format.ofCompiledMessageFormat(), Locale.ENGLISH, pattern, Arrays.asList(1, "Ann")),
+				is("Ann"));
+		assertThat(format(Format.ofCompiledMessageFormat(), Locale.ENGLISH, pattern, Arrays.asList(2, "Ann")),
+				is("Ann and 1 other"));
+		assertThat(format(Format.ofCompiledMessageFormat(), Locale.ENGLISH, pattern, Arrays.asList(5, "Ann")),
+				is("Ann and 4 others"));
+	}
+
+	@Test
+	public void testPluralNumberSign() throws Exception {
+
+		String pattern = "{0,plural,other{'#' is # and {1,plural,one{# inner}other{# inners}}}}";
+
+		assertThat(format(Format.ofCompiledMessageFormat(), Locale.ENGLISH, pattern, Arrays.asList(3, 1)),
+				is("# is 3 and 1 inner"));
+	}
+
+	@Test
+	public void testSelect() throws Exception {
+
+		String pattern = "{0,select,female{her} male {his} other{their}} {1}";
+
+		assertThat(format(Format.ofCompiledMessageFormat(), Locale.ENGLISH, pattern, Arrays.asList("female", "car")),
+				is("her car"));
+		assertThat(format(Format.ofCompiledMessageFormat(), Locale.ENGLISH, pattern,
+				Arrays.asList(Gender.MALE.name().toLowerCase(Locale.ROOT), "car")), is("his car"));
+		assertThat(format(Format.ofCompiledMessageFormat(), Locale.ENGLISH, pattern, Arrays.asList(null, "car")),
+				is("null car"));
+		assertThat(format(Format.ofCompiledMessageFormat(), Locale.ENGLISH, pattern, Arrays.asList(42, "car")),
+				is("their car"));
+		assertThat(format(Format.ofCompiledMessageFormat(), Locale.ENGLISH,
+				"{0,select,MALE{his}other{their}}", Arrays.asList(Gender.MALE)), is("his"));
+	}
+
+	private enum Gender {
+		MALE
+	}
+
+	@Test
+	public void testInvalidPluralAndSelect() throws Exception {
+
+		for (String pattern : Arrays.asList(
+				"{0,plural,one{#}}",
+				"{0,plural,some{#}other{#}}",
+				"{0,plural,=x{#}other{#}}",
+				"{0,plural,offset:x other{#}}",
+				"{0,plural,one{#}one{#}other{#}}",
+				"{0,plural,one}",
+				"{0,select,a{b}}",
+				"{0,select,{b}other{c}}")) {
+			try {
+				Format.ofCompiledMessageFormat().toFormatable(Locale.ENGLISH, pattern);
+				fail(pattern);
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPluralOfNonNumberFails() throws Exception {
+
+		format(Format.ofCompiledMessageFormat(), Locale.ENGLISH, "{0,plural,other{#}}", Arrays.asList("str"));
+	}
+
+	@Test
+	public void testJavaTimeArguments() throws Exception {
+
+		LocalDateTime dateTime = LocalDateTime.of(2017, 7, 14, 2, 40);
+		Instant instant = Instant.ofEpochMilli(1500000000000L);
+
+		for (Locale locale : Arrays.asList(Locale.US, Locale.GERMANY, Locale.JAPAN)) {
+			assertThat(format(Format.ofCompiledMessageFormat(), locale, "{0,date,short}", Arrays.asList(dateTime)),
+					is(DateTimeFormatter.ofLocalizedDate(FormatStyle.SHORT).withLocale(locale).format(dateTime)));
+			assertThat(format(Format.ofCompiledMessageFormat(), locale, "{0,time}", Arrays.asList(dateTime.toLocalTime())),
+					is(DateTimeFormatter.ofLocalizedTime(FormatStyle.MEDIUM).withLocale(locale).format(dateTime)));
+			assertThat(format(Format.ofCompiledMessageFormat(), locale, "{0,date,long}", Arrays.asList(instant)),
+					is(new MessageFormat("{0,date,long}", locale).format(new Object[] { Date.from(instant) })));
+		}
+		assertThat(format(Format.ofCompiledMessageFormat(), Locale.ENGLISH, "{0,date,yyyy-MM-dd HH:mm}",
+				Arrays.asList(dateTime)), is("2017-07-14 02:40"));
+	}
+
+	@Test
+	public void testJavaTimeArgumentWithoutFieldsFails() throws Exception {
+
+		try {
+			format(Format.ofCompiledMessageFormat(), Locale.ENGLISH, "{0,date}", Arrays.asList(LocalTime.NOON));
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testFormatterProvider() throws Exception {
+
+		FormatterProvider formatters = new FormatterProvider(new LocaleRegistry());
+
+		assertThat(format(CompiledMessageFormat.of(formatters), Locale.US, "{0,number,percent} of {1,number,percent}",
+				Arrays.asList(0.5, 0.25)), is("50% of 25%"));
+		assertThat(format(CompiledMessageFormat.of(formatters), Locale.US, "{0,plural,other{# items}}",
+				Arrays.asList(1000)), is("1,000 items"));
+	}
+
+	private String format(Format format, Locale locale, String pattern, List<?> args) throws IOException {
+		return format(format, locale, pattern, args, translator);
+	}
+
+	private static String format(
+			Format format,
+			Locale locale,
+			String pattern,
+			List<?> args,
+			Translator translator) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		format.toFormatable(locale, pattern).format(sb, args, translator);
+		return sb.toString();
+	}
+}
@@ -0,0 +1,128 @@
+package com.github.chisui.translate.format;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.junit.Test;
+
+import com.github.chisui.translate.Races;
+import com.github.chisui.translate.lookup.LocaleRegistry;
+
+/**
+ * Races the pools and caches of the format package, every round on fresh instances.
+ */
+public class ConcurrentFormatTest {
+
+	private static final int ACTORS = 4;
+	private static final long DAY = 24L * 60 * 60 * 1000;
+	private static final List<Locale> LOCALES = Arrays.asList(
+			Locale.GERMANY, Locale.FRANCE, Locale.US, Locale.JAPAN);
+
+	@Test
+	public void testPooledFormatNeverSharesAClone() throws Exception {
+
+		SimpleDateFormat prototype = new SimpleDateFormat("yyyy-MM-dd", Locale.ROOT);
+		prototype.setTimeZone(TimeZone.getTimeZone("UTC"));
+		Races.race(ACTORS,
+				() -> PooledFormat.of((SimpleDateFormat) prototype.clone(), 1),
+				(format, actor) -> {
+					for (int i = 0; i < 100; i++) {
+						int day = actor * 1000 + i;
+						assertThat(format.format(new Date(day * DAY)), is(LocalDate.ofEpochDay(day).toString()));
+					}
+				},
+				format -> assertThat(format.format(new Date(0)), is("1970-01-01")));
+	}
+
+	@Test
+	public void testFormatterProviderSharesFormats() throws Exception {
+
+		Races.race(ACTORS,
+				() -> new Shared<>(new FormatterProvider(new LocaleRegistry(), 2)),
+				(state, actor) -> {
+					for (int i = 0; i < LOCALES.size(); i++) {
+						int index = (i + actor) % LOCALES.size();
+						state.record(actor, index * 2, state.subject.getNumberFormat(LOCALES.get(index), "percent"));
+						state.record(actor, index * 2 + 1, state.subject.getDateFormatter(LOCALES.get(index), "long"));
+					}
+				},
+				Shared::assertSameInstances);
+	}
+
+	@Test
+	public void testCachingFormatSharesFormatables() throws Exception {
+
+		Races.race(ACTORS,
+				() -> new Shared<>(Format.ofCompiledMessageFormat().cached(16)),
+				(state, actor) -> {
+					for (int i = 0; i < LOCALES.size(); i++) {
+						int index = (i + actor) % LOCALES.size();
+						state.record(actor, index * 2, state.subject.toFormatable(LOCALES.get(index), "{0,number}"));
+						state.record(actor, index * 2 + 1, state.subject.toFormatable(LOCALES.get(index), "{0}"));
+					}
+				},
+				state -> {
+					state.assertSameInstances();
+					assertThat(state.subject.getStats().getSize(), is(LOCALES.size() * 2));
+				});
+	}
+
+	@Test
+	public void testCachingFormatSizeStaysBounded() throws Exception {
+
+		Races.race(ACTORS,
+				() -> Format.ofCompiledFormatter().cached(8),
+				(format, actor) -> {
+					for (int i = 0; i < 64; i++) {
+						format.toFormatable(Locale.ENGLISH, "%s " + (i * (actor + 1)) % 32);
+						if (actor == 0 && i % 16 == 0) {
+							format.invalidateAll();
+						} else if (actor == 1 && i % 8 == 0) {
+							format.invalidate("%s " + i % 32);
+						}
+					}
+				},
+				format -> {
+					assertThat(format.getStats().getSize(), is(lessThanOrEqualTo(8)));
+					format.invalidateAll();
+					assertThat(format.getStats().getSize(), is(0));
+				});
+	}
+
+	/**
+	 * Results of all actors by index, all actors are expected to get the same instance for an index.
+	 */
+	static final class Shared<S> {
+
+		final S subject;
+		private final AtomicReferenceArray<Object> results = new AtomicReferenceArray<>(ACTORS * LOCALES.size() * 2);
+
+		Shared(final S subject) {
+			this.subject = subject;
+		}
+
+		void record(final int actor, final int index, final Object result) {
+			results.set(actor * LOCALES.size() * 2 + index, result);
+		}
+
+		void assertSameInstances() {
+			for (int index = 0; index < LOCALES.size() * 2; index++) {
+				for (int actor = 1; actor < ACTORS; actor++) {
+					assertThat("index " + index + " of actor " + actor,
+							results.get(actor * LOCALES.size() * 2 + index), is(sameInstance(results.get(index))));
+				}
+			}
+		}
+	}
+}
@@ -1,10 +1,14 @@
 package com.github.chisui.translate.format;
 
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
 
 import org.junit.Test;
@@ -23,6 +27,80 @@ public class FormatTest {
 		test(Format.ofMessageFormat(), "{0}");
 	}
 
+	@Test
+	public void testOfFormatterTranslatesIntoOutput() throws Exception {
+		testTranslatesIntoOutput(Format.ofFormatter(), "<%s|%2$s>");
+	}
+
+	@Test
+	public void testOfMessageFormatTranslatesIntoOutput() throws Exception {
+		testTranslatesIntoOutput(Format.ofMessageFormat(), "<{0}|{1}>");
+	}
+
+	@Test
+	public void testOfFormatterWidthPrecisionAndUpperCase() throws Exception {
+		Translator translator = Translator.of((l, hint, t) -> "hello");
+		StringBuilder sb = new StringBuilder();
+
+		Format.ofFormatter()
+				.toFormatable(Locale.ENGLISH, "[%-5.2S][%7s]")
+				.format(sb, Arrays.asList("a", "b"), translator);
+
+		assertThat(sb.toString(), is("[HE   ][  hello]"));
+	}
+
+	@Test
+	public void testOfFormatterUpperCasesWithItsLocale() throws Exception {
+		Translator translator = Translator.of((l, hint, t) -> "title");
+		StringBuilder sb = new StringBuilder();
+
+		Format.ofFormatter()
+				.toFormatable(new Locale("tr", "TR"), "%S|%6S")
+				.format(sb, Arrays.asList("a", "b"), translator);
+
+		assertThat(sb.toString(), is("T\u0130TLE| T\u0130TLE"));
+	}
+
+	@Test(expected = IOException.class)
+	public void testOfFormatterRethrowsIOException() throws Exception {
+		Translator translator = Translator.of(() -> Locale.ENGLISH, (a, l, hint, t) -> {
+			throw new IOException();
+		});
+
+		Format.ofFormatter()
+				.toFormatable(Locale.ENGLISH, "%s")
+				.format(new StringBuilder(), Arrays.asList("a"), translator);
+	}
+
+	@Test
+	public void testOfMessageFormatTypedArgument() throws Exception {
+		StringBuilder sb = new StringBuilder();
+
+		Format.ofMessageFormat()
+				.toFormatable(Locale.ENGLISH, "{0} {1,number}")
+				.format(sb, Arrays.asList("a"), Translator.of((l, hint, t) -> "b"));
+
+		assertThat(sb.toString(), is("b {1}"));
+	}
+
+	private void testTranslatesIntoOutput(Format format, String message) throws IOException {
+		List<Appendable> appendables = new ArrayList<>();
+		Translator translator = Translator.of(() -> Locale.ENGLISH, (a, l, hint, t) -> {
+			appendables.add(a);
+			a.append(String.valueOf(hint.getKey()));
+		});
+		StringBuilder sb = new StringBuilder();
+
+		format
+				.toFormatable(Locale.ENGLISH, message)
+				.format(sb, Arrays.asList("a", "b"), translator);
+
+		assertThat(sb.toString(), is("<a|b>"));
+		assertThat(appendables, hasSize(2));
+		assertThat(appendables.get(0), is(sameInstance(sb)));
+		assertThat(appendables.get(1), is(sameInstance(sb)));
+	}
+
 	private void test(Format format, String message) throws IOException {
 		Translator translator = Translator.of((l, hint, t) -> 
 				hint.getFallback().orElse("world"));
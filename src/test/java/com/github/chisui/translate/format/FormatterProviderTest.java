@@ -0,0 +1,121 @@
+package com.github.chisui.translate.format;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.text.DateFormat;
+import java.text.NumberFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.github.chisui.translate.lookup.LocaleRegistry;
+
+public class FormatterProviderTest {
+
+	private final FormatterProvider formatters = new FormatterProvider(new LocaleRegistry(), 2);
+
+	@Test
+	public void testFormatsAreSharedPerLocaleAndStyle() {
+
+		assertThat(formatters.getNumberFormat(Locale.GERMANY, "percent"),
+				is(sameInstance(formatters.getNumberFormat(new Locale("de", "DE"), "percent"))));
+		assertThat(formatters.getNumberFormat(Locale.GERMANY, "percent"),
+				is(not(sameInstance(formatters.getNumberFormat(Locale.GERMANY, "integer")))));
+		assertThat(formatters.getNumberFormat(Locale.GERMANY, "percent"),
+				is(not(sameInstance(formatters.getNumberFormat(Locale.FRANCE, "percent")))));
+		assertThat(formatters.getDateFormat(Locale.GERMANY, "short"),
+				is(not(sameInstance(formatters.getTimeFormat(Locale.GERMANY, "short")))));
+		assertThat(formatters.getDateFormatter(Locale.GERMANY, "short"),
+				is(sameInstance(formatters.getDateFormatter(Locale.GERMANY, "short"))));
+	}
+
+	@Test
+	public void testFormatsLikeJavaText() {
+
+		Date date = new Date(1500000000000L);
+
+		assertThat(formatters.getNumberFormat(Locale.FRANCE, "currency").format(1234.5),
+				is(NumberFormat.getCurrencyInstance(Locale.FRANCE).format(1234.5)));
+		assertThat(formatters.getNumberFormat(Locale.US, "#,##0.00").format(1234.5), is("1,234.50"));
+		assertThat(formatters.getDateFormat(Locale.JAPAN, "long").format(date),
+				is(DateFormat.getDateInstance(DateFormat.LONG, Locale.JAPAN).format(date)));
+		assertThat(formatters.getTimeFormat(Locale.GERMANY, "").format(date),
+				is(DateFormat.getTimeInstance(DateFormat.DEFAULT, Locale.GERMANY).format(date)));
+	}
+
+	@Test
+	public void testDateFormatter() {
+
+		LocalDate date = LocalDate.of(2017, 7, 14);
+
+		assertThat(formatters.getDateFormatter(Locale.UK, "medium").format(date),
+				is(DateTimeFormatter.ofLocalizedDate(FormatStyle.MEDIUM).withLocale(Locale.UK).format(date)));
+		assertThat(formatters.getDateFormatter(Locale.UK, "").format(date),
+				is(formatters.getDateFormatter(Locale.UK, "medium").format(date)));
+		assertThat(formatters.getDateFormatter(Locale.UK, "yyyy-MM-dd").format(date), is("2017-07-14"));
+	}
+
+	@Test
+	public void testDateFormatterUsesCalendarOfLocale() {
+
+		assertThat(formatters.getDateFormatter(new Locale("th", "TH", "TH"), "yyyy").format(LocalDate.of(2017, 1, 1)),
+				is("2560"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidNumberPattern() {
+
+		formatters.getNumberFormat(Locale.ENGLISH, "#.#.#");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidDateFormatterPattern() {
+
+		formatters.getDateFormatter(Locale.ENGLISH, "yyyy-{");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPoolSizeMustBePositive() {
+
+		new FormatterProvider(new LocaleRegistry(), 0);
+	}
+
+	@Test
+	public void testConcurrentFormatting() throws Exception {
+
+		PooledFormat format = formatters.getNumberFormat(Locale.US, "#,##0.00");
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int t = 0; t < 8; t++) {
+				final int offset = t * 100000;
+				results.add(executor.submit(() -> {
+					for (int i = 0; i < 10000; i++) {
+						long value = offset + i;
+						if (!format.format(value).equals(String.format(Locale.US, "%,d.00", value))) {
+							return false;
+						}
+					}
+					return true;
+				}));
+			}
+			for (Future<Boolean> result : results) {
+				assertThat(result.get(), is(true));
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
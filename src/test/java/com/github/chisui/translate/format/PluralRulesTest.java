@@ -0,0 +1,152 @@
+package com.github.chisui.translate.format;
+
+import static com.github.chisui.translate.format.PluralRules.Category.FEW;
+import static com.github.chisui.translate.format.PluralRules.Category.MANY;
+import static com.github.chisui.translate.format.PluralRules.Category.ONE;
+import static com.github.chisui.translate.format.PluralRules.Category.OTHER;
+import static com.github.chisui.translate.format.PluralRules.Category.TWO;
+import static com.github.chisui.translate.format.PluralRules.Category.ZERO;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Locale;
+
+import org.junit.Test;
+
+public class PluralRulesTest {
+
+	@Test
+	public void testEnglish() throws Exception {
+
+		PluralRules rules = PluralRules.forLocale(Locale.US);
+
+		assertThat(rules.select(1), is(ONE));
+		assertThat(rules.select(-1), is(ONE));
+		assertThat(rules.select(0), is(OTHER));
+		assertThat(rules.select(2), is(OTHER));
+		assertThat(rules.select(1.5), is(OTHER));
+		assertThat(rules.select(1.0), is(ONE));
+		assertThat(rules.select(new BigDecimal("1.0")), is(OTHER));
+		assertThat(rules.getCategories(), containsInAnyOrder(ONE, OTHER));
+	}
+
+	@Test
+	public void testRussian() throws Exception {
+
+		PluralRules rules = PluralRules.forLocale(new Locale("ru", "RU"));
+
+		for (long n : new long[] { 1, 21, 101, 1001 }) {
+			assertThat(String.valueOf(n), rules.select(n), is(ONE));
+		}
+		for (long n : new long[] { 2, 3, 4, 22, 104 }) {
+			assertThat(String.valueOf(n), rules.select(n), is(FEW));
+		}
+		for (long n : new long[] { 0, 5, 11, 12, 14, 19, 100, 111 }) {
+			assertThat(String.valueOf(n), rules.select(n), is(MANY));
+		}
+		assertThat(rules.select(1.5), is(OTHER));
+	}
+
+	@Test
+	public void testPolish() throws Exception {
+
+		PluralRules rules = PluralRules.forLocale(new Locale("pl"));
+
+		assertThat(rules.select(1), is(ONE));
+		assertThat(rules.select(22), is(FEW));
+		assertThat(rules.select(12), is(MANY));
+		assertThat(rules.select(21), is(MANY));
+		assertThat(rules.select(0.5), is(OTHER));
+	}
+
+	@Test
+	public void testArabic() throws Exception {
+
+		PluralRules rules = PluralRules.forLocale(new Locale("ar", "EG"));
+
+		assertThat(rules.select(0), is(ZERO));
+		assertThat(rules.select(1), is(ONE));
+		assertThat(rules.select(2), is(TWO));
+		assertThat(rules.select(3), is(FEW));
+		assertThat(rules.select(110), is(FEW));
+		assertThat(rules.select(11), is(MANY));
+		assertThat(rules.select(100), is(OTHER));
+	}
+
+	@Test
+	public void testFractionOperands() throws Exception {
+
+		PluralRules czech = PluralRules.forLocale(new Locale("cs"));
+		assertThat(czech.select(new BigDecimal("1.5")), is(MANY));
+		assertThat(czech.select(3), is(FEW));
+
+		PluralRules croatian = PluralRules.forLocale(new Locale("hr"));
+		assertThat(croatian.select(new BigDecimal("0.1")), is(ONE));
+		assertThat(croatian.select(new BigDecimal("0.2")), is(FEW));
+		assertThat(croatian.select(new BigDecimal("0.5")), is(OTHER));
+
+		PluralRules icelandic = PluralRules.forLocale(new Locale("is"));
+		assertThat(icelandic.select(new BigDecimal("0.10")), is(ONE));
+		assertThat(icelandic.select(new BigDecimal("10")), is(OTHER));
+	}
+
+	@Test
+	public void testCountrySpecificRules() throws Exception {
+
+		assertThat(PluralRules.forLocale(new Locale("pt", "BR")).select(0), is(ONE));
+		assertThat(PluralRules.forLocale(new Locale("pt", "PT")).select(0), is(OTHER));
+	}
+
+	@Test
+	public void testLanguagesWithoutRules() throws Exception {
+
+		PluralRules rules = PluralRules.forLocale(Locale.JAPANESE);
+
+		assertThat(rules.select(1), is(OTHER));
+		assertThat(rules.getCategories(), containsInAnyOrder(OTHER));
+		assertThat(PluralRules.forLocale(Locale.CHINESE), is(sameInstance(rules)));
+	}
+
+	@Test
+	public void testForLocaleIsCached() throws Exception {
+
+		assertThat(PluralRules.forLocale(Locale.GERMAN), is(sameInstance(PluralRules.forLocale(Locale.GERMAN))));
+	}
+
+	@Test
+	public void testParse() throws Exception {
+
+		PluralRules rules = PluralRules.parse("one: n % 10 = 1 and n%100 != 11..19 @integer 1, 21; few: n = 2,5..7");
+
+		assertThat(rules.select(21), is(ONE));
+		assertThat(rules.select(111), is(OTHER));
+		assertThat(rules.select(6), is(FEW));
+		assertThat(rules.select(21.5), is(OTHER));
+	}
+
+	@Test
+	public void testInvalidRules() throws Exception {
+
+		for (String description : Arrays.asList(
+				"one",
+				"some: n = 1",
+				"one: x = 1",
+				"one: n == 1",
+				"one: n = a",
+				"one: n = 1 and",
+				"one: n = 1; one: n = 2",
+				"one: n = 1 n")) {
+			try {
+				PluralRules.parse(description);
+				fail(description);
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+}
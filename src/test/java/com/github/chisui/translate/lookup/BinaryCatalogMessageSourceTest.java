@@ -0,0 +1,52 @@
+package com.github.chisui.translate.lookup;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BinaryCatalogMessageSourceTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testMatchesResourceBundle() throws Exception {
+
+		Path directory = folder.getRoot().toPath();
+		Path properties = Paths.get(getClass().getResource("messages.properties").toURI()).getParent();
+		String[] args = { directory.toString(),
+				properties.resolve("messages.properties").toString(),
+				properties.resolve("messages_de.properties").toString(),
+				properties.resolve("messages_de_AT.properties").toString() };
+		BinaryCatalogWriter.main(args);
+
+		MessageSource expected = MessageSource.ofResourceBundle("com.github.chisui.translate.lookup.messages");
+		MessageSource catalog = MessageSource.ofBinaryCatalog(directory, "messages");
+
+		for (Locale locale : Arrays.asList(Locale.ROOT, Locale.GERMAN, Locale.GERMANY, new Locale("de", "AT"))) {
+			for (String key : Arrays.asList("greeting", "farewell", "only.root", "empty", "missing")) {
+				assertThat(locale + " " + key, catalog.findMessage(locale, key), is(expected.findMessage(locale, key)));
+			}
+		}
+	}
+
+	@Test
+	public void testMissingCatalogs() throws Exception {
+
+		Path directory = folder.getRoot().toPath();
+		Files.createDirectories(directory);
+
+		assertThat(MessageSource.ofBinaryCatalog(directory, "messages").findMessage(Locale.GERMAN, "key"),
+				is(Optional.empty()));
+	}
+}
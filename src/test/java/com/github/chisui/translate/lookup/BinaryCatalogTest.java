@@ -0,0 +1,100 @@
+package com.github.chisui.translate.lookup;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BinaryCatalogTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testEmpty() throws Exception {
+
+		BinaryCatalog catalog = roundTrip(Collections.emptyMap());
+
+		assertThat(catalog.size(), is(0));
+		assertThat(catalog.get("key"), is(nullValue()));
+	}
+
+	@Test
+	public void testEncodings() throws Exception {
+
+		Map<String, String> messages = new LinkedHashMap<>();
+		messages.put("latin1", "Tsch\u00fcss");
+		messages.put("utf8", "\u3053\u3093\u306b\u3061\u306f \ud83d\ude00");
+		messages.put("unpaired", "a\ud800b");
+		messages.put("k\u00e9y", "latin1 key");
+		messages.put("\u30ad\u30fc", "wide key");
+		messages.put("empty", "");
+		messages.put("", "empty key");
+		messages.put("same", "Tsch\u00fcss");
+
+		BinaryCatalog catalog = roundTrip(messages);
+
+		assertThat(catalog.size(), is(messages.size()));
+		for (Map.Entry<String, String> entry : messages.entrySet()) {
+			assertThat(entry.getKey(), catalog.find(entry.getKey()), is(Optional.of(entry.getValue())));
+		}
+		assertThat(catalog.get("latin"), is(nullValue()));
+		assertThat(catalog.get("\u30ad"), is(nullValue()));
+	}
+
+	@Test
+	public void testManyKeys() throws Exception {
+
+		Random random = new Random(7);
+		Map<String, String> messages = new HashMap<>();
+		for (int i = 0; i < 50000; i++) {
+			messages.put("some.message.key." + Integer.toString(random.nextInt(), 36), "value " + i);
+		}
+
+		BinaryCatalog catalog = roundTrip(messages);
+
+		for (Map.Entry<String, String> entry : messages.entrySet()) {
+			assertThat(catalog.get(entry.getKey()), is(entry.getValue()));
+		}
+		for (int i = 0; i < 10000; i++) {
+			String key = "other.key." + i;
+			assertThat(catalog.get(key), is(messages.get(key)));
+		}
+	}
+
+	@Test
+	public void testOpen() throws Exception {
+
+		Path file = folder.getRoot().toPath().resolve("messages.catalog");
+		BinaryCatalogWriter.write(Collections.singletonMap("key", "value"), file);
+
+		assertThat(BinaryCatalog.open(file).get("key"), is("value"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNotACatalog() throws Exception {
+
+		BinaryCatalog.of(ByteBuffer.wrap(new byte[32]));
+
+	}
+
+	private static BinaryCatalog roundTrip(Map<String, String> messages) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BinaryCatalogWriter.write(messages, out);
+		return BinaryCatalog.of(ByteBuffer.wrap(out.toByteArray()));
+	}
+}
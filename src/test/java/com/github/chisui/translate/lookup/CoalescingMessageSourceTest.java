@@ -0,0 +1,327 @@
+package com.github.chisui.translate.lookup;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.github.chisui.translate.Races;
+
+public class CoalescingMessageSourceTest {
+
+	private final Queue<Runnable> tasks = new ArrayDeque<>();
+	private final FakeStore store = new FakeStore();
+	private final CoalescingMessageSource source = AsyncMessageSource.coalescing(store, tasks::add);
+
+	@Test
+	public void testCoalescesLookupsOfTheSameKey() throws Exception {
+
+		CompletionStage<Optional<String>> first = source.findMessageAsync(Locale.ENGLISH, "greeting");
+		CompletionStage<Optional<String>> second = source.findMessageAsync(Locale.ENGLISH, "greeting");
+		runTasks();
+		store.completeAll();
+
+		assertThat(get(first), is(Optional.of("Hello")));
+		assertThat(get(second), is(Optional.of("Hello")));
+		assertThat(store.calls, contains("en [greeting]"));
+		assertThat(source.getCoalescedCount(), is(1L));
+		assertThat(source.getInFlightCount(), is(0));
+	}
+
+	@Test
+	public void testBatchesKeysPerLocale() throws Exception {
+
+		CompletionStage<Map<String, String>> english = source.findMessagesAsync(Locale.ENGLISH,
+				Arrays.asList("greeting", "farewell", "missing"));
+		CompletionStage<Optional<String>> german = source.findMessageAsync(Locale.GERMAN, "greeting");
+		runTasks();
+		store.completeAll();
+
+		assertThat(store.calls, contains("en [greeting, farewell, missing]", "de [greeting]"));
+		assertThat(get(english), is(messages("greeting", "Hello", "farewell", "Goodbye")));
+		assertThat(get(german), is(Optional.of("Hallo")));
+		assertThat(source.getBatchCount(), is(2L));
+		assertThat(source.getLoadedKeyCount(), is(4L));
+	}
+
+	@Test
+	public void testLookupsWhileLoadingShareTheLoad() throws Exception {
+
+		CompletionStage<Optional<String>> first = source.findMessageAsync(Locale.ENGLISH, "greeting");
+		runTasks();
+		CompletionStage<Optional<String>> whileLoading = source.findMessageAsync(Locale.ENGLISH, "greeting");
+		CompletionStage<Optional<String>> other = source.findMessageAsync(Locale.ENGLISH, "farewell");
+		runTasks();
+		store.completeAll();
+		CompletionStage<Optional<String>> afterLoading = source.findMessageAsync(Locale.ENGLISH, "greeting");
+		runTasks();
+
+		assertThat(get(whileLoading), is(Optional.of("Hello")));
+		assertThat(afterLoading.toCompletableFuture().isDone(), is(false));
+		assertThat(get(other), is(Optional.of("Goodbye")));
+		assertThat(store.calls, contains("en [greeting]", "en [farewell]", "en [greeting]"));
+	}
+
+	@Test
+	public void testCallersCannotCompleteTheSharedLoad() throws Exception {
+
+		CompletionStage<Optional<String>> cancelled = source.findMessageAsync(Locale.ENGLISH, "greeting");
+		CompletionStage<Optional<String>> completed = source.findMessageAsync(Locale.ENGLISH, "greeting");
+		CompletionStage<Optional<String>> waiting = source.findMessageAsync(Locale.ENGLISH, "greeting");
+		cancelled.toCompletableFuture().cancel(true);
+		completed.toCompletableFuture().complete(Optional.of("timeout"));
+		runTasks();
+		store.completeAll();
+
+		assertThat(get(waiting), is(Optional.of("Hello")));
+		assertThat(get(completed), is(Optional.of("timeout")));
+		assertThat(store.calls, contains("en [greeting]"));
+		assertThat(source.getInFlightCount(), is(0));
+	}
+
+	@Test
+	public void testMaximumBatchSize() throws Exception {
+
+		CoalescingMessageSource source = new CoalescingMessageSource(store, tasks::add, 2);
+
+		source.findMessagesAsync(Locale.ENGLISH, Arrays.asList("a", "b", "c", "d", "e"));
+		runTasks();
+
+		assertThat(store.calls, contains("en [a, b]", "en [c, d]", "en [e]"));
+	}
+
+	@Test
+	public void testDispatchHandsOverPendingBatches() throws Exception {
+
+		CompletionStage<Optional<String>> message = source.findMessageAsync(Locale.ENGLISH, "greeting");
+		source.dispatch();
+		store.completeAll();
+		runTasks();
+
+		assertThat(get(message), is(Optional.of("Hello")));
+		assertThat(store.calls, contains("en [greeting]"));
+	}
+
+	@Test
+	public void testFailedLoadFailsAllLookupsOfTheBatch() throws Exception {
+
+		CompletionStage<Optional<String>> greeting = source.findMessageAsync(Locale.ENGLISH, "greeting");
+		CompletionStage<Optional<String>> farewell = source.findMessageAsync(Locale.ENGLISH, "farewell");
+		runTasks();
+		store.failAll(new IllegalStateException("store unavailable"));
+
+		assertFailed(greeting, IllegalStateException.class);
+		assertFailed(farewell, IllegalStateException.class);
+		assertThat(source.getInFlightCount(), is(0));
+
+		CompletionStage<Optional<String>> retry = source.findMessageAsync(Locale.ENGLISH, "greeting");
+		runTasks();
+		store.completeAll();
+		assertThat(get(retry), is(Optional.of("Hello")));
+	}
+
+	@Test
+	public void testThrowingLoaderFailsLookups() throws Exception {
+
+		CoalescingMessageSource source = AsyncMessageSource.coalescing((locale, keys) -> {
+			throw new IllegalStateException("store unavailable");
+		}, Runnable::run);
+
+		assertFailed(source.findMessageAsync(Locale.ENGLISH, "greeting"), IllegalStateException.class);
+		assertThat(source.getInFlightCount(), is(0));
+	}
+
+	@Test
+	public void testRejectedDispatchFailsLookups() throws Exception {
+
+		CoalescingMessageSource source = AsyncMessageSource.coalescing(store, task -> {
+			throw new RejectedExecutionException("shut down");
+		});
+
+		assertFailed(source.findMessageAsync(Locale.ENGLISH, "greeting"), RejectedExecutionException.class);
+		assertThat(store.calls, is(empty()));
+		assertThat(source.getInFlightCount(), is(0));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMaximumBatchSizeMustBePositive() {
+
+		new CoalescingMessageSource(store, tasks::add, 0);
+	}
+
+	@Test
+	public void testBatchLoaderOfMessageSource() throws Exception {
+
+		AsyncMessageSource source = AsyncMessageSource.coalescing(
+				AsyncMessageSource.BatchLoader.of(MessageSource.ofResourceBundle(
+						"com.github.chisui.translate.lookup.messages"), Runnable::run),
+				Runnable::run);
+
+		assertThat(get(source.findMessageAsync(Locale.GERMANY, "greeting")), is(Optional.of("Hallo")));
+		assertThat(get(source.findMessageAsync(Locale.GERMANY, "missing")), is(Optional.empty()));
+	}
+
+	@Test
+	public void testOfMessageSource() throws Exception {
+
+		AsyncMessageSource source = AsyncMessageSource.of(
+				MessageSource.ofResourceBundle("com.github.chisui.translate.lookup.messages"), Runnable::run);
+
+		assertThat(get(source.findMessageAsync(Locale.GERMANY, "only.root")), is(Optional.of("root value")));
+		assertThat(get(source.findMessagesAsync(Locale.GERMANY, Arrays.asList("greeting", "missing"))),
+				is(messages("greeting", "Hallo")));
+	}
+
+	@Test
+	public void testConcurrentMissesLoadEveryKeyOnce() throws Exception {
+
+		ExecutorService dispatcher = Executors.newSingleThreadExecutor();
+		ExecutorService backend = Executors.newCachedThreadPool();
+		try {
+			Races.race(50, Stampede.ACTORS,
+					() -> new Stampede(dispatcher, backend),
+					(stampede, actor) -> {
+						List<CompletableFuture<Optional<String>>> lookups = new ArrayList<>();
+						for (int i = 0; i < Stampede.KEYS; i++) {
+							String key = "key" + (i + actor * 4) % Stampede.KEYS;
+							lookups.add(stampede.source.findMessageAsync(Locale.ENGLISH, key).toCompletableFuture());
+						}
+						stampede.requested.countDown();
+						for (CompletableFuture<Optional<String>> lookup : lookups) {
+							assertThat(lookup.get(1, TimeUnit.MINUTES).isPresent(), is(true));
+						}
+					},
+					stampede -> {
+						assertThat(stampede.loaded, hasSize(Stampede.KEYS));
+						assertThat(new HashSet<>(stampede.loaded), hasSize(Stampede.KEYS));
+						assertThat(stampede.source.getInFlightCount(), is(0));
+					});
+		} finally {
+			dispatcher.shutdownNow();
+			backend.shutdownNow();
+		}
+	}
+
+	private void runTasks() {
+		for (Runnable task = tasks.poll(); task != null; task = tasks.poll()) {
+			task.run();
+		}
+	}
+
+	private static <T> T get(final CompletionStage<T> stage) throws Exception {
+		return stage.toCompletableFuture().get(1, TimeUnit.MINUTES);
+	}
+
+	private static void assertFailed(final CompletionStage<?> stage, final Class<? extends Throwable> type)
+			throws Exception {
+		try {
+			get(stage);
+			fail("expected " + type.getName());
+		} catch (ExecutionException e) {
+			assertThat(e.getCause(), is(instanceOf(type)));
+		}
+	}
+
+	private static Map<String, String> messages(final String... keysAndMessages) {
+		Map<String, String> messages = new HashMap<>();
+		for (int i = 0; i < keysAndMessages.length; i += 2) {
+			messages.put(keysAndMessages[i], keysAndMessages[i + 1]);
+		}
+		return messages;
+	}
+
+	/**
+	 * Actors missing the same keys at once, no load completes before every actor requested all keys.
+	 */
+	static final class Stampede {
+
+		static final int ACTORS = 4;
+		static final int KEYS = 16;
+
+		final CountDownLatch requested = new CountDownLatch(ACTORS);
+		final List<String> loaded = Collections.synchronizedList(new ArrayList<>());
+		final CoalescingMessageSource source;
+
+		Stampede(final ExecutorService dispatcher, final ExecutorService backend) {
+			source = AsyncMessageSource.coalescing((locale, keys) -> {
+				loaded.addAll(keys);
+				return CompletableFuture.supplyAsync(() -> {
+					try {
+						requested.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					Map<String, String> messages = new HashMap<>();
+					keys.forEach(key -> messages.put(key, "message of " + key));
+					return messages;
+				}, backend);
+			}, dispatcher);
+		}
+	}
+
+	/**
+	 * In memory store whose loads complete when the test says so.
+	 */
+	static final class FakeStore implements AsyncMessageSource.BatchLoader {
+
+		final List<String> calls = new ArrayList<>();
+		private final List<CompletableFuture<Map<String, String>>> loads = new ArrayList<>();
+		private final List<Map<String, String>> results = new ArrayList<>();
+
+		@Override
+		public CompletionStage<Map<String, String>> load(final Locale locale, final Set<String> keys) {
+			calls.add(locale + " " + keys);
+			Map<String, String> catalog = "de".equals(locale.getLanguage())
+					? messages("greeting", "Hallo")
+					: messages("greeting", "Hello", "farewell", "Goodbye", "a", "A");
+			Map<String, String> result = new HashMap<>();
+			for (String key : keys) {
+				if (catalog.containsKey(key)) {
+					result.put(key, catalog.get(key));
+				}
+			}
+			CompletableFuture<Map<String, String>> load = new CompletableFuture<>();
+			loads.add(load);
+			results.add(result);
+			return load;
+		}
+
+		void completeAll() {
+			for (int i = 0; i < loads.size(); i++) {
+				loads.get(i).complete(results.get(i));
+			}
+		}
+
+		void failAll(final Throwable failure) {
+			for (CompletableFuture<Map<String, String>> load : loads) {
+				load.completeExceptionally(failure);
+			}
+		}
+	}
+}
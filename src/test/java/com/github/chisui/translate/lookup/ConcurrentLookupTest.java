@@ -0,0 +1,368 @@
+package com.github.chisui.translate.lookup;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.isOneOf;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.ResourceBundle;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.chisui.translate.Races;
+
+/**
+ * Races the caches and snapshots of the lookup package, every round on fresh instances.
+ */
+public class ConcurrentLookupTest {
+
+	private static final int ACTORS = 4;
+	private static final List<Locale> LOCALES = Arrays.asList(
+			Locale.GERMANY, new Locale("de", "AT"), Locale.FRANCE, Locale.CANADA_FRENCH, Locale.US, Locale.ENGLISH);
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testLocaleRegistryInternsOnce() throws Exception {
+
+		Races.race(ACTORS,
+				() -> new Results<LocaleRegistry, LocaleHandle>(new LocaleRegistry(), LOCALES.size()),
+				(state, actor) -> {
+					for (int i = 0; i < LOCALES.size(); i++) {
+						int index = (i + actor) % LOCALES.size();
+						state.record(actor, index, state.subject.handle(LOCALES.get(index)));
+					}
+				},
+				state -> {
+					state.assertSameInstances();
+					LocaleRegistry registry = state.subject;
+					for (int i = 0; i < registry.size(); i++) {
+						LocaleHandle handle = registry.get(i);
+						assertThat(handle.getIndex(), is(i));
+						assertThat(registry.handle(handle.getLocale()), is(sameInstance(handle)));
+						for (LocaleHandle candidate : handle.getFallbackChain()) {
+							assertThat(registry.get(candidate.getIndex()), is(sameInstance(candidate)));
+						}
+					}
+					assertThat(new HashSet<>(registry.getHandles()).size(), is(registry.size()));
+				});
+	}
+
+	@Test
+	public void testLocaleTableComputesOnce() throws Exception {
+
+		AtomicInteger computations = new AtomicInteger();
+		Races.race(ACTORS,
+				() -> new Results<LocaleTable<Object>, Object>(new LocaleRegistry().newTable(), LOCALES.size()),
+				(state, actor) -> {
+					for (int i = 0; i < LOCALES.size(); i++) {
+						int index = (i + actor) % LOCALES.size();
+						state.record(actor, index, state.subject.computeIfAbsent(LOCALES.get(index), locale -> {
+							computations.incrementAndGet();
+							return new Object();
+						}));
+					}
+				},
+				state -> {
+					state.assertSameInstances();
+					assertThat(computations.getAndSet(0), is(LOCALES.size()));
+				});
+	}
+
+	@Test
+	public void testMessageIdsAreUniqueAndDense() throws Exception {
+
+		List<String> keys = new ArrayList<>();
+		for (int i = 0; i < 32; i++) {
+			keys.add("key" + i);
+		}
+		Races.race(ACTORS,
+				() -> new Results<MessageIds, MessageId>(new MessageIds(), keys.size()),
+				(state, actor) -> {
+					if (actor == 0) {
+						List<MessageId> ids = state.subject.register(keys);
+						for (int i = 0; i < keys.size(); i++) {
+							state.record(actor, i, ids.get(i));
+						}
+					} else {
+						for (int i = 0; i < keys.size(); i++) {
+							int index = (i + actor * keys.size() / ACTORS) % keys.size();
+							state.record(actor, index, state.subject.register(keys.get(index)));
+						}
+					}
+				},
+				state -> {
+					state.assertSameInstances();
+					MessageIds ids = state.subject;
+					assertThat(ids.size(), is(keys.size()));
+					for (int i = 0; i < ids.size(); i++) {
+						assertThat(ids.get(i).getId(), is(i));
+						assertThat(ids.resolve(ids.get(i).getKey()), is(sameInstance(ids.get(i))));
+					}
+				});
+	}
+
+	@Test
+	public void testIndexedMessageSourceServesWhileInvalidatedAndExtended() throws Exception {
+
+		Map<String, String> messages = new HashMap<>();
+		for (int i = 0; i < 16; i++) {
+			messages.put("key" + i, "message " + i);
+		}
+		messages.put("late", "late message");
+		Races.race(ACTORS,
+				() -> {
+					MessageIds ids = new MessageIds();
+					for (int i = 0; i < 16; i++) {
+						ids.register("key" + i);
+					}
+					return new IndexedMessageSource(ids, MessageSource.ofMap(locale -> messages), new LocaleRegistry());
+				},
+				(source, actor) -> {
+					if (actor == 0) {
+						source.invalidateAll();
+						source.getIds().register("late");
+						source.invalidateAll();
+					} else {
+						for (int i = 0; i < 16; i++) {
+							int id = (i + actor) % 16;
+							assertThat(source.getMessage(LOCALES.get(actor), id), is("message " + id));
+						}
+						assertThat(source.findMessage(LOCALES.get(actor), "late"), is(Optional.of("late message")));
+					}
+				},
+				source -> {
+					for (Locale locale : LOCALES) {
+						for (MessageId id : source.getIds().getIds()) {
+							assertThat(source.getMessage(locale, id.getId()), is(messages.get(id.getKey())));
+						}
+					}
+				});
+	}
+
+	@Test
+	public void testLayeredMessageSourceResolvedTierCount() throws Exception {
+
+		Map<String, String> overrides = new HashMap<>();
+		Map<String, String> base = new HashMap<>();
+		for (int i = 0; i < 16; i++) {
+			base.put("key" + i, "base " + i);
+			if (i % 3 == 0) {
+				overrides.put("key" + i, "override " + i);
+			}
+		}
+		Races.race(ACTORS,
+				() -> new LayeredMessageSource(Arrays.asList(
+						LayeredMessageSource.Tier.of("overrides", MessageSource.ofMap(locale -> overrides),
+								KeyFilter.exact(overrides.keySet())),
+						LayeredMessageSource.Tier.of("base", MessageSource.ofMap(locale -> base))),
+						24, new LocaleRegistry()),
+				(source, actor) -> {
+					for (int i = 0; i < 16; i++) {
+						String key = "key" + (i + actor) % 16;
+						String expected = overrides.containsKey(key) ? overrides.get(key) : base.get(key);
+						assertThat(source.findMessage(LOCALES.get(i % 2), key), is(Optional.of(expected)));
+						if (actor == 0 && i % 4 == 0) {
+							source.invalidateResolvedTier(key);
+						} else if (actor == 1 && i == 8) {
+							source.invalidateResolvedTiers();
+						}
+					}
+				},
+				source -> {
+					assertThat(source.getResolvedTierCount(), is(greaterThanOrEqualTo(0)));
+					source.invalidateResolvedTiers();
+					assertThat(source.getResolvedTierCount(), is(0));
+				});
+	}
+
+	@Test
+	public void testResourceBundleSnapshotIsTakenConsistently() throws Exception {
+
+		Races.race(ACTORS,
+				() -> new ResourceBundleSnapshotMessageSource(
+						"com.github.chisui.translate.lookup.messages", new LocaleRegistry()),
+				(source, actor) -> {
+					Locale locale = LOCALES.get(actor % 2);
+					assertThat(source.findMessage(locale, "greeting"),
+							is(Optional.of(locale.getCountry().equals("AT") ? "Servus" : "Hallo")));
+					assertThat(source.findMessage(locale, "farewell"), is(Optional.of("Tsch\u00fcss")));
+					assertThat(source.findMessage(locale, "only.root"), is(Optional.of("root value")));
+				},
+				source -> assertThat(source.findMessage(Locale.ENGLISH, "greeting"), is(Optional.of("Hello"))));
+	}
+
+	@Test
+	public void testReloadingMessageSourceNeverLosesMessages() throws Exception {
+
+		Path directory = folder.getRoot().toPath();
+		write(directory, "messages.properties", "greeting=Hello\nonly.root=root value\n");
+		write(directory, "messages_de.properties", "greeting=Hallo\n");
+		ReloadingMessageSource source = MessageSource.ofReloadingProperties(directory, "messages");
+		Races.race(50, ACTORS,
+				AtomicBoolean::new,
+				(reloaded, actor) -> {
+					if (actor == 0) {
+						write(directory, "messages_de.properties", "greeting=Servus\n");
+						source.reload();
+						write(directory, "messages_de.properties", "greeting=Hallo\n");
+						source.reload();
+						reloaded.set(true);
+					} else {
+						do {
+							assertThat(source.findMessage(Locale.GERMANY, "greeting").orElse(null),
+									isOneOf("Hallo", "Servus"));
+							assertThat(source.findMessage(Locale.GERMANY, "only.root"),
+									is(Optional.of("root value")));
+						} while (!reloaded.get());
+					}
+				},
+				reloaded -> assertThat(source.findMessage(Locale.GERMANY, "greeting"), is(Optional.of("Hallo"))));
+	}
+
+	@Test
+	public void testBinaryCatalogsAreOpenedConsistently() throws Exception {
+
+		Path resources = Paths.get(getClass().getResource("messages.properties").toURI()).getParent();
+		Path directory = folder.newFolder().toPath();
+		List<String> keys = Arrays.asList("greeting", "farewell", "only.root", "empty", "missing");
+		Map<Locale, Map<String, String>> expected = new HashMap<>();
+		for (Locale locale : LOCALES) {
+			ResourceBundle bundle = ResourceBundle.getBundle("com.github.chisui.translate.lookup.messages", locale,
+					ResourceBundle.Control.getNoFallbackControl(ResourceBundle.Control.FORMAT_DEFAULT));
+			Map<String, String> messages = new HashMap<>();
+			for (String key : bundle.keySet()) {
+				messages.put(key, bundle.getString(key));
+			}
+			expected.put(locale, messages);
+		}
+		for (String fileName : Arrays.asList("messages", "messages_de", "messages_de_AT")) {
+			BinaryCatalogWriter.convert(resources.resolve(fileName + ".properties"),
+					directory.resolve(fileName + BinaryCatalogWriter.EXTENSION));
+		}
+
+		Races.race(ACTORS,
+				() -> new BinaryCatalogMessageSource(directory, "messages", new LocaleRegistry()),
+				(source, actor) -> {
+					for (int i = 0; i < LOCALES.size(); i++) {
+						Locale locale = LOCALES.get((i + actor) % LOCALES.size());
+						if ((i + actor) % 2 == 0) {
+							assertThat(locale.toString(), source.findMessages(locale, keys), is(expected.get(locale)));
+						} else {
+							for (String key : keys) {
+								assertThat(locale + " " + key, source.findMessage(locale, key),
+										is(Optional.ofNullable(expected.get(locale).get(key))));
+							}
+						}
+					}
+				},
+				source -> {
+					for (Locale locale : LOCALES) {
+						assertThat(locale.toString(), source.findMessages(locale, keys), is(expected.get(locale)));
+					}
+				});
+	}
+
+	@Test
+	public void testNegativeLookupCacheNeverKeepsMissOfAddedMessage() throws Exception {
+
+		Path root = folder.getRoot().toPath();
+		AtomicInteger rounds = new AtomicInteger();
+		Races.race(50, ACTORS,
+				() -> {
+					Path directory = Files.createDirectory(root.resolve("round" + rounds.incrementAndGet()));
+					write(directory, "messages.properties", "greeting=Hello\n");
+					return new Reload(directory);
+				},
+				(state, actor) -> {
+					if (actor == 0) {
+						write(state.directory, "messages.properties", "greeting=Hello\nadded=Added\n");
+						state.source.reload();
+						state.reloaded.set(true);
+					} else {
+						// misses looked up before the reload are cached and have to be invalidated by it
+						do {
+							assertThat(state.lookup.getMessage(Locale.GERMANY, "added", Optional.empty()),
+									isOneOf("???added???", "Added"));
+						} while (!state.reloaded.get());
+					}
+				},
+				state -> {
+					assertThat(state.lookup.getMessage(Locale.GERMANY, "added", Optional.empty()), is("Added"));
+					assertThat(state.cache.isCachedMiss(Locale.GERMANY, "added"), is(false));
+				});
+	}
+
+	private static void write(final Path directory, final String fileName, final String content) throws Exception {
+		Files.write(directory.resolve(fileName), content.getBytes(StandardCharsets.ISO_8859_1));
+	}
+
+	/**
+	 * {@link ReloadingMessageSource} looked up through a {@link NegativeLookupCache} its reloads invalidate.
+	 */
+	static final class Reload {
+
+		final Path directory;
+		final ReloadingMessageSource source;
+		final NegativeLookupCache.BoundedNegativeLookupCache cache = NegativeLookupCache.of(64, Duration.ofMinutes(1));
+		final MessageLookup lookup;
+		final AtomicBoolean reloaded = new AtomicBoolean();
+
+		Reload(final Path directory) throws IOException {
+			this.directory = directory;
+			this.source = MessageSource.ofReloadingProperties(directory, "messages");
+			this.source.addListener(ReloadingMessageSource.invalidating(cache));
+			this.lookup = MessageLookup.of(source, cache);
+		}
+	}
+
+	/**
+	 * Results of all actors by index, all actors are expected to see the same instance for an index.
+	 */
+	static final class Results<S, R> {
+
+		final S subject;
+		private final AtomicReferenceArray<R> results;
+		private final int size;
+
+		Results(final S subject, final int size) {
+			this.subject = subject;
+			this.size = size;
+			this.results = new AtomicReferenceArray<>(ACTORS * size);
+		}
+
+		void record(final int actor, final int index, final R result) {
+			results.set(actor * size + index, result);
+		}
+
+		void assertSameInstances() {
+			for (int index = 0; index < size; index++) {
+				for (int actor = 1; actor < ACTORS; actor++) {
+					assertThat("index " + index + " of actor " + actor,
+							results.get(actor * size + index), is(sameInstance(results.get(index))));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package com.github.chisui.translate.lookup;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.github.chisui.translate.TranslationHint;
+import com.github.chisui.translate.Translator;
+import com.github.chisui.translate.format.Format;
+
+public class IndexedMessageSourceTest {
+
+	private enum Greeting {
+		HELLO, GOODBYE
+	}
+
+	private final Map<Locale, Map<String, String>> messages = new HashMap<>();
+	private final AtomicInteger lookups = new AtomicInteger();
+	private final MessageSource source = (locale, key) -> {
+		lookups.incrementAndGet();
+		return Optional.ofNullable(messages.getOrDefault(locale, new HashMap<>()).get(key));
+	};
+	private final LocaleRegistry registry = new LocaleRegistry();
+	private final MessageIds ids = new MessageIds();
+
+	{
+		messages.put(Locale.ENGLISH, new HashMap<>());
+		messages.get(Locale.ENGLISH).put("a", "A");
+		messages.get(Locale.ENGLISH).put("HELLO", "Hello");
+		messages.get(Locale.ENGLISH).put("unregistered", "Unregistered");
+		messages.put(Locale.GERMAN, new HashMap<>());
+		messages.get(Locale.GERMAN).put("a", "\u00c4");
+	}
+
+	@Test
+	public void testGetMessage() throws Exception {
+
+		MessageId a = ids.register("a");
+		MessageId b = ids.register("b");
+		IndexedMessageSource indexed = new IndexedMessageSource(ids, source, registry);
+
+		assertThat(indexed.getMessage(Locale.ENGLISH, a.getId()), is("A"));
+		assertThat(indexed.getMessage(registry.handle(Locale.GERMAN), a.getId()), is("\u00c4"));
+		assertThat(indexed.getMessage(Locale.ENGLISH, b.getId()), is(nullValue()));
+		assertThat(lookups.get(), is(4));
+
+		indexed.getMessage(Locale.ENGLISH, a.getId());
+		indexed.getMessage(Locale.ENGLISH, b.getId());
+		assertThat(lookups.get(), is(4));
+	}
+
+	@Test
+	public void testFindMessage() throws Exception {
+
+		ids.register("a");
+		IndexedMessageSource indexed = new IndexedMessageSource(ids, source, registry);
+
+		assertThat(indexed.findMessage(Locale.ENGLISH, "a"), is(Optional.of("A")));
+		assertThat(indexed.findMessage(Locale.ENGLISH, "unregistered"), is(Optional.of("Unregistered")));
+		assertThat(indexed.findMessage(Locale.ENGLISH, "missing"), is(Optional.empty()));
+	}
+
+	@Test
+	public void testKeysRegisteredLater() throws Exception {
+
+		ids.register("a");
+		IndexedMessageSource indexed = new IndexedMessageSource(ids, source, registry);
+		indexed.getMessage(Locale.ENGLISH, 0);
+
+		MessageId hello = ids.resolve(Greeting.HELLO);
+
+		assertThat(indexed.getMessage(Locale.ENGLISH, hello.getId()), is("Hello"));
+	}
+
+	@Test
+	public void testInvalidateAll() throws Exception {
+
+		MessageId a = ids.register("a");
+		IndexedMessageSource indexed = new IndexedMessageSource(ids, source, registry);
+		indexed.getMessage(Locale.ENGLISH, a.getId());
+		messages.get(Locale.ENGLISH).put("a", "changed");
+
+		assertThat(indexed.getMessage(Locale.ENGLISH, a.getId()), is("A"));
+
+		indexed.invalidateAll();
+
+		assertThat(indexed.getMessage(Locale.ENGLISH, a.getId()), is("changed"));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testUnknownId() throws Exception {
+
+		new IndexedMessageSource(ids, source, registry).getMessage(Locale.ENGLISH, 0);
+	}
+
+	@Test
+	public void testIndexedMessageLookup() throws Exception {
+
+		MessageId a = ids.register("a");
+		MessageLookup lookup = MessageLookup.ofIndexed(new IndexedMessageSource(ids, source, registry));
+
+		assertThat(lookup.getMessage(Locale.ENGLISH, a, Optional.empty()), is("A"));
+		assertThat(lookup.getMessage(Locale.ENGLISH, Greeting.HELLO, Optional.empty()), is("Hello"));
+		assertThat(lookup.getMessage(Locale.ENGLISH, Greeting.GOODBYE, Optional.of("Bye")), is("Bye"));
+		assertThat(lookup.getMessage(registry.handle(Locale.ENGLISH), Greeting.GOODBYE, Optional.empty()),
+				is("???GOODBYE???"));
+		assertThat(lookup.getMessage(Locale.ENGLISH, "unregistered", Optional.empty()), is("Unregistered"));
+		assertThat(lookup.getMessage(Locale.ENGLISH, "missing", Optional.empty()), is("???missing???"));
+	}
+
+	@Test
+	public void testTranslator() throws Exception {
+
+		MessageId a = ids.register("a");
+		Translator translator = Translator.of(
+				() -> Locale.GERMAN,
+				MessageLookup.ofIndexed(new IndexedMessageSource(ids, source, registry)),
+				Format.ofCompiledMessageFormat());
+
+		assertThat(translator.translate(TranslationHint.of(a)), is("\u00c4"));
+	}
+}
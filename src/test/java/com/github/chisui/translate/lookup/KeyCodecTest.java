@@ -0,0 +1,67 @@
+package com.github.chisui.translate.lookup;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+public class KeyCodecTest {
+
+	private enum Key {
+		PLAIN,
+		SPECIFIC {
+			@Override
+			public String toString() {
+				return "specific";
+			}
+		}
+	}
+
+	private final AtomicInteger conversions = new AtomicInteger();
+	private final KeyCodec codec = KeyCodec.of(key -> {
+		conversions.incrementAndGet();
+		return String.valueOf(key);
+	});
+
+	@Test
+	public void testClassKeysAreMemoized() throws Exception {
+
+		String first = codec.apply(KeyCodecTest.class);
+		String second = codec.apply(KeyCodecTest.class);
+
+		assertThat(first, is(String.valueOf(KeyCodecTest.class)));
+		assertThat(second, sameInstance(first));
+		assertThat(conversions.get(), is(1));
+	}
+
+	@Test
+	public void testEnumKeysAreMemoized() throws Exception {
+
+		assertThat(codec.apply(Key.PLAIN), is("PLAIN"));
+		assertThat(codec.apply(Key.SPECIFIC), is("specific"));
+		assertThat(codec.apply(Key.SPECIFIC), sameInstance(codec.apply(Key.SPECIFIC)));
+		assertThat(conversions.get(), is(Key.values().length));
+	}
+
+	@Test
+	public void testOtherKeysAreConverted() throws Exception {
+
+		assertThat(codec.apply("key"), is("key"));
+		assertThat(codec.apply(42), is("42"));
+		assertThat(codec.apply(null), is("null"));
+		assertThat(conversions.get(), is(3));
+	}
+
+	@Test
+	public void testOfKeyCodec() throws Exception {
+
+		assertThat(KeyCodec.of(codec), sameInstance(codec));
+		assertThat(KeyCodec.ofStringValueOf().apply(Key.PLAIN), is("PLAIN"));
+		assertThat(KeyCodec.of((Function<Object, String>) String::valueOf).apply(KeyCodec.class),
+				is("class com.github.chisui.translate.lookup.KeyCodec"));
+	}
+}
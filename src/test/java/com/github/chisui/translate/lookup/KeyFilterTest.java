@@ -0,0 +1,80 @@
+package com.github.chisui.translate.lookup;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.chisui.translate.lookup.KeyFilter.BloomKeyFilter;
+
+public class KeyFilterTest {
+
+	@Test
+	public void testAll() throws Exception {
+
+		assertThat(KeyFilter.all().mightContain("anything"), is(true));
+	}
+
+	@Test
+	public void testExact() throws Exception {
+
+		KeyFilter filter = KeyFilter.exact(Arrays.asList("a", "b"));
+
+		assertThat(filter.mightContain("a"), is(true));
+		assertThat(filter.mightContain("b"), is(true));
+		assertThat(filter.mightContain("c"), is(false));
+	}
+
+	@Test
+	public void testBloomHasNoFalseNegatives() throws Exception {
+
+		List<String> keys = keys("app.message.", 10000);
+		BloomKeyFilter filter = KeyFilter.bloom(keys);
+
+		for (String key : keys) {
+			assertThat(key, filter.mightContain(key), is(true));
+		}
+	}
+
+	@Test
+	public void testBloomFalsePositiveRate() throws Exception {
+
+		BloomKeyFilter filter = KeyFilter.bloom(keys("app.message.", 10000), 0.01);
+
+		int falsePositives = 0;
+		for (String key : keys("app.missing.", 100000)) {
+			if (filter.mightContain(key)) {
+				falsePositives++;
+			}
+		}
+
+		assertThat(falsePositives, is(lessThan(2000)));
+		assertThat(filter.getBitCount(), is(lessThan(10000 * 10)));
+		assertThat(filter.getHashCount(), is(7));
+	}
+
+	@Test
+	public void testEmptyBloom() throws Exception {
+
+		assertThat(KeyFilter.bloom(new ArrayList<>()).mightContain("key"), is(false));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidFalsePositiveRate() throws Exception {
+
+		KeyFilter.bloom(Arrays.asList("a"), 1.0);
+	}
+
+	private static List<String> keys(String prefix, int count) {
+		List<String> keys = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			keys.add(prefix + i);
+		}
+		return keys;
+	}
+}
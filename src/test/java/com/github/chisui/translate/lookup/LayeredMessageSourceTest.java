@@ -0,0 +1,207 @@
+package com.github.chisui.translate.lookup;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.Test;
+
+import com.github.chisui.translate.lookup.LayeredMessageSource.Tier;
+
+public class LayeredMessageSourceTest {
+
+	private final Map<String, String> tenant = new HashMap<>();
+	private final Map<String, String> product = new HashMap<>();
+	private final Map<String, String> base = new HashMap<>();
+	private final List<String> queries = new ArrayList<>();
+
+	{
+		tenant.put("title", "Tenant title");
+		product.put("title", "Product title");
+		product.put("save", "Save product");
+		base.put("save", "Save");
+		base.put("cancel", "Cancel");
+	}
+
+	@Test
+	public void testFirstTierWins() throws Exception {
+
+		LayeredMessageSource source = MessageSource.ofLayers(
+				tier("tenant", tenant, KeyFilter.all()),
+				tier("product", product, KeyFilter.all()),
+				tier("base", base, KeyFilter.all()));
+
+		assertThat(source.findMessage(Locale.ENGLISH, "title"), is(Optional.of("Tenant title")));
+		assertThat(source.findMessage(Locale.ENGLISH, "save"), is(Optional.of("Save product")));
+		assertThat(source.findMessage(Locale.ENGLISH, "cancel"), is(Optional.of("Cancel")));
+		assertThat(source.findMessage(Locale.ENGLISH, "missing"), is(Optional.empty()));
+	}
+
+	@Test
+	public void testTiersRejectingKeyAreSkipped() throws Exception {
+
+		LayeredMessageSource source = MessageSource.ofLayers(
+				tier("tenant", tenant, KeyFilter.exact(tenant.keySet())),
+				tier("product", product, KeyFilter.bloom(product.keySet())),
+				tier("base", base, KeyFilter.all()));
+
+		assertThat(source.findMessage(Locale.ENGLISH, "cancel"), is(Optional.of("Cancel")));
+		assertThat(queries, contains("base:cancel"));
+
+		Tier tenantTier = source.getTiers().get(0);
+		Tier baseTier = source.getTiers().get(2);
+		assertThat(tenantTier.getSkips(), is(1L));
+		assertThat(tenantTier.getHits(), is(0L));
+		assertThat(baseTier.getHits(), is(1L));
+	}
+
+	@Test
+	public void testStatistics() throws Exception {
+
+		LayeredMessageSource source = MessageSource.ofLayers(
+				tier("tenant", tenant, KeyFilter.all()),
+				tier("base", base, KeyFilter.all()));
+
+		source.findMessage(Locale.ENGLISH, "title");
+		source.findMessage(Locale.ENGLISH, "save");
+		source.findMessage(Locale.ENGLISH, "missing");
+
+		Tier tenantTier = source.getTiers().get(0);
+		Tier baseTier = source.getTiers().get(1);
+		assertThat(tenantTier.getHits(), is(1L));
+		assertThat(tenantTier.getMisses(), is(2L));
+		assertThat(baseTier.getHits(), is(1L));
+		assertThat(baseTier.getMisses(), is(1L));
+	}
+
+	@Test
+	public void testFindTier() throws Exception {
+
+		LayeredMessageSource source = MessageSource.ofLayers(
+				tier("tenant", tenant, KeyFilter.all()),
+				tier("product", product, KeyFilter.all()),
+				tier("base", base, KeyFilter.all()));
+
+		assertThat(source.findTier(Locale.ENGLISH, "save").map(Tier::getName), is(Optional.of("product")));
+		assertThat(source.findTier(Locale.ENGLISH, "missing"), is(Optional.empty()));
+		assertThat(source.getTiers().get(1).getHits(), is(0L));
+	}
+
+	@Test
+	public void testFindMessages() throws Exception {
+
+		LayeredMessageSource source = MessageSource.ofLayers(
+				tier("tenant", tenant, KeyFilter.exact(tenant.keySet())),
+				tier("product", product, KeyFilter.all()),
+				tier("base", base, KeyFilter.all()));
+
+		Map<String, String> messages = source.findMessages(Locale.ENGLISH,
+				Arrays.asList("title", "save", "cancel", "missing"));
+
+		Map<String, String> expected = new HashMap<>();
+		expected.put("title", "Tenant title");
+		expected.put("save", "Save product");
+		expected.put("cancel", "Cancel");
+		assertThat(messages, is(expected));
+		assertThat(queries, contains(
+				"tenant:title",
+				"product:save", "product:cancel", "product:missing",
+				"base:cancel", "base:missing"));
+	}
+
+	@Test
+	public void testResolvedTiersAreRemembered() throws Exception {
+
+		LayeredMessageSource source = new LayeredMessageSource(Arrays.asList(
+				tier("tenant", tenant, KeyFilter.all()),
+				tier("product", product, KeyFilter.all()),
+				tier("base", base, KeyFilter.all())), 10, new LocaleRegistry());
+
+		source.findMessage(Locale.ENGLISH, "cancel");
+		queries.clear();
+
+		assertThat(source.findMessage(Locale.ENGLISH, "cancel"), is(Optional.of("Cancel")));
+		assertThat(queries, contains("base:cancel"));
+		assertThat(source.getResolvedTierCount(), is(1));
+	}
+
+	@Test
+	public void testResolvedTierWithoutMessageIsForgotten() throws Exception {
+
+		LayeredMessageSource source = new LayeredMessageSource(Arrays.asList(
+				tier("product", product, KeyFilter.all()),
+				tier("base", base, KeyFilter.all())), 10, new LocaleRegistry());
+
+		source.findMessage(Locale.ENGLISH, "title");
+		product.remove("title");
+		base.put("title", "Base title");
+
+		assertThat(source.findMessage(Locale.ENGLISH, "title"), is(Optional.of("Base title")));
+		assertThat(source.findTier(Locale.ENGLISH, "title").map(Tier::getName), is(Optional.of("base")));
+	}
+
+	@Test
+	public void testInvalidateResolvedTiers() throws Exception {
+
+		LayeredMessageSource source = new LayeredMessageSource(Arrays.asList(
+				tier("tenant", tenant, KeyFilter.all()),
+				tier("base", base, KeyFilter.all())), 10, new LocaleRegistry());
+
+		source.findMessage(Locale.ENGLISH, "save");
+		source.findMessage(Locale.GERMAN, "save");
+		tenant.put("save", "Save tenant");
+
+		assertThat(source.findMessage(Locale.ENGLISH, "save"), is(Optional.of("Save")));
+
+		source.invalidateResolvedTier("save");
+
+		assertThat(source.getResolvedTierCount(), is(0));
+		assertThat(source.findMessage(Locale.ENGLISH, "save"), is(Optional.of("Save tenant")));
+
+		source.invalidateResolvedTiers();
+
+		assertThat(source.getResolvedTierCount(), is(0));
+	}
+
+	@Test
+	public void testResolvedTiersAreBounded() throws Exception {
+
+		LayeredMessageSource source = new LayeredMessageSource(Arrays.asList(
+				tier("product", product, KeyFilter.all()),
+				tier("base", base, KeyFilter.all())), 2, new LocaleRegistry());
+
+		source.findMessage(Locale.ENGLISH, "title");
+		source.findMessage(Locale.ENGLISH, "save");
+		source.findMessage(Locale.ENGLISH, "cancel");
+
+		assertThat(source.getResolvedTierCount(), is(2));
+	}
+
+	@Test
+	public void testLocaleHandle() throws Exception {
+
+		LocaleRegistry registry = new LocaleRegistry();
+		LayeredMessageSource source = new LayeredMessageSource(Arrays.asList(
+				tier("tenant", tenant, KeyFilter.all()),
+				tier("base", base, KeyFilter.all())), 10, registry);
+
+		assertThat(source.findMessage(registry.handle(Locale.ENGLISH), "cancel"), is(Optional.of("Cancel")));
+		assertThat(source.findMessage(Locale.ENGLISH, "cancel"), is(Optional.of("Cancel")));
+		assertThat(source.getResolvedTierCount(), is(1));
+	}
+
+	private Tier tier(String name, Map<String, String> messages, KeyFilter keyFilter) {
+		return Tier.of(name, (locale, key) -> {
+			queries.add(name + ":" + key);
+			return Optional.ofNullable(messages.get(key));
+		}, keyFilter);
+	}
+}
@@ -0,0 +1,132 @@
+package com.github.chisui.translate.lookup;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.ResourceBundle;
+
+import org.junit.Test;
+
+public class LocaleRegistryTest {
+
+	@Test
+	public void testHandlesAreInterned() {
+
+		LocaleRegistry registry = new LocaleRegistry();
+
+		LocaleHandle handle = registry.handle(Locale.GERMAN);
+
+		assertThat(registry.handle(new Locale("de")), is(sameInstance(handle)));
+		assertThat(registry.handle(Locale.GERMAN), is(sameInstance(handle)));
+		assertThat(handle.getLocale(), is(Locale.GERMAN));
+		assertThat(handle.getRegistry(), is(sameInstance(registry)));
+		assertThat(registry.get(handle.getIndex()), is(sameInstance(handle)));
+	}
+
+	@Test
+	public void testFallbackChain() {
+
+		LocaleRegistry registry = new LocaleRegistry();
+
+		LocaleHandle handle = registry.handle(new Locale("de", "AT"));
+
+		assertThat(locales(handle.getFallbackChain()), contains(new Locale("de", "AT"), Locale.GERMAN, Locale.ROOT));
+		assertThat(handle.getFallbackChain().get(0), is(sameInstance(handle)));
+		assertThat(handle.getFallbackChain().get(1), is(sameInstance(registry.handle(Locale.GERMAN))));
+		assertThat(locales(registry.handle(Locale.ROOT).getFallbackChain()), contains(Locale.ROOT));
+	}
+
+	@Test
+	public void testFallbackChainMatchesResourceBundleControl() {
+
+		LocaleRegistry registry = new LocaleRegistry();
+		Locale locale = Locale.TRADITIONAL_CHINESE;
+
+		assertThat(locales(registry.handle(locale).getFallbackChain()), is(ResourceBundle.Control
+				.getControl(ResourceBundle.Control.FORMAT_DEFAULT)
+				.getCandidateLocales("", locale)));
+	}
+
+	@Test
+	public void testIndicesAreDense() {
+
+		LocaleRegistry registry = new LocaleRegistry();
+
+		registry.handle(new Locale("de", "AT"));
+		registry.handle(Locale.FRENCH);
+
+		assertThat(registry.size(), is(4));
+		for (int i = 0; i < registry.size(); i++) {
+			assertThat(registry.get(i).getIndex(), is(i));
+			assertThat(registry.getHandles().get(i), is(sameInstance(registry.get(i))));
+		}
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGetUnknownIndex() {
+
+		new LocaleRegistry().get(0);
+	}
+
+	@Test
+	public void testTable() {
+
+		LocaleRegistry registry = new LocaleRegistry();
+		LocaleTable<String> table = registry.newTable();
+		List<Locale> computed = new ArrayList<>();
+
+		assertThat(table.get(registry.handle(Locale.GERMAN)), is(nullValue()));
+		assertThat(table.computeIfAbsent(Locale.GERMAN, handle -> {
+			computed.add(handle.getLocale());
+			return "de";
+		}), is("de"));
+		assertThat(table.computeIfAbsent(registry.handle(Locale.GERMAN), handle -> "other"), is("de"));
+		assertThat(table.get(registry.handle(Locale.GERMAN)), is("de"));
+		assertThat(table.get(registry.handle(Locale.FRENCH)), is(nullValue()));
+		assertThat(computed, contains(Locale.GERMAN));
+	}
+
+	@Test
+	public void testTableAcceptsHandlesOfOtherRegistries() {
+
+		LocaleRegistry registry = new LocaleRegistry();
+		LocaleRegistry other = new LocaleRegistry();
+		other.handle(Locale.FRENCH);
+		LocaleTable<String> table = registry.newTable();
+
+		table.computeIfAbsent(other.handle(Locale.GERMAN), handle -> {
+			assertThat(handle.getRegistry(), is(sameInstance(registry)));
+			return "de";
+		});
+
+		assertThat(table.get(registry.handle(Locale.GERMAN)), is("de"));
+		assertThat(table.get(other.handle(Locale.GERMAN)), is("de"));
+	}
+
+	@Test
+	public void testMessageSourceWithHandles() {
+
+		LocaleRegistry registry = new LocaleRegistry();
+		MessageSource source = new ResourceBundleSnapshotMessageSource(
+				"com.github.chisui.translate.lookup.messages", registry);
+
+		assertThat(source.findMessage(registry.handle(new Locale("de", "AT")), "greeting"),
+				is(source.findMessage(new Locale("de", "AT"), "greeting")));
+		assertThat(source.findMessage(registry.handle(Locale.GERMAN), "missing"), is(Optional.empty()));
+	}
+
+	private static List<Locale> locales(List<LocaleHandle> handles) {
+		List<Locale> locales = new ArrayList<>();
+		for (LocaleHandle handle : handles) {
+			locales.add(handle.getLocale());
+		}
+		return locales;
+	}
+}
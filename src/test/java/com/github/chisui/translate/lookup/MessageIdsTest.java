@@ -0,0 +1,91 @@
+package com.github.chisui.translate.lookup;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class MessageIdsTest {
+
+	private enum Greeting {
+		HELLO, GOODBYE
+	}
+
+	@Test
+	public void testRegister() throws Exception {
+
+		MessageIds ids = new MessageIds();
+
+		MessageId a = ids.register("a");
+		MessageId b = ids.register("b");
+
+		assertThat(a.getId(), is(0));
+		assertThat(b.getId(), is(1));
+		assertThat(ids.register("a"), is(sameInstance(a)));
+		assertThat(ids.get(1), is(sameInstance(b)));
+		assertThat(ids.size(), is(2));
+		assertThat(a.toString(), is("a"));
+	}
+
+	@Test
+	public void testRegisterMultiple() throws Exception {
+
+		MessageIds ids = new MessageIds();
+		ids.register("b");
+
+		List<MessageId> registered = ids.register(Arrays.asList("a", "b", "c"));
+
+		assertThat(registered.get(0).getId(), is(1));
+		assertThat(registered.get(1).getId(), is(0));
+		assertThat(registered.get(2).getId(), is(2));
+		assertThat(ids.getIds(), contains(registered.get(1), registered.get(0), registered.get(2)));
+	}
+
+	@Test
+	public void testResolve() throws Exception {
+
+		MessageIds ids = new MessageIds();
+		MessageId a = ids.register("a");
+
+		assertThat(ids.resolve(a), is(sameInstance(a)));
+		assertThat(ids.resolve("a"), is(sameInstance(a)));
+		assertThat(ids.resolve(new MessageIds().register("a")), is(sameInstance(a)));
+		assertThat(ids.resolve("b"), is(nullValue()));
+	}
+
+	@Test
+	public void testEnumsAreRegisteredOnFirstUse() throws Exception {
+
+		MessageIds ids = new MessageIds();
+		ids.register("a");
+
+		MessageId goodbye = ids.resolve(Greeting.GOODBYE);
+
+		assertThat(goodbye.getKey(), is("GOODBYE"));
+		assertThat(goodbye.getId(), is(2));
+		assertThat(ids.resolve(Greeting.HELLO).getId(), is(1));
+		assertThat(ids.resolve("HELLO"), is(sameInstance(ids.resolve(Greeting.HELLO))));
+	}
+
+	@Test
+	public void testToString() throws Exception {
+
+		MessageIds ids = new MessageIds(key -> "greeting." + key);
+
+		assertThat(ids.resolve(Greeting.HELLO).getKey(), is("greeting.HELLO"));
+		assertThat(ids.register("x").getKey(), is("greeting.x"));
+		assertThat(ids.toKey("x"), is("greeting.x"));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGetUnknownId() throws Exception {
+
+		new MessageIds().get(0);
+	}
+}
@@ -1,15 +1,25 @@
 package com.github.chisui.translate.lookup;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import org.junit.Test;
 
 import com.github.chisui.translate.Stringable;
+import com.github.chisui.translate.TranslationHint;
 
 import mockit.Expectations;
 import mockit.Mocked;
@@ -221,4 +231,56 @@ public class MessageLookupTest {
 		assertThat(lookup.getMessage(locale, key, Optional.empty()), is("fallback"));
 	}
 
+	@Test
+	public void testNegativeLookupCache() throws Exception {
+
+		AtomicInteger lookups = new AtomicInteger();
+		MessageSource messageSource = (locale, key) -> {
+			lookups.incrementAndGet();
+			return Optional.empty();
+		};
+		NegativeLookupCache negativeLookupCache = NegativeLookupCache.of(10, Duration.ofMinutes(1));
+		MessageLookup lookup = MessageLookup.of(messageSource, negativeLookupCache);
+
+		assertThat(lookup.getMessage(locale, "key", Optional.empty()), is("???key???"));
+		assertThat(lookup.getMessage(locale, "key", Optional.of("fallback")), is("fallback"));
+		assertThat(lookups.get(), is(1));
+
+		negativeLookupCache.invalidateAll();
+		lookup.getMessage(locale, "key", Optional.empty());
+		assertThat(lookups.get(), is(2));
+	}
+
+	@Test
+	public void testGetMessages() throws Exception {
+
+		List<Collection<String>> batches = new ArrayList<>();
+		MessageSource messageSource = new MessageSource() {
+
+			@Override
+			public Optional<String> findMessage(Locale locale, String key) {
+				throw new AssertionError("single lookup of " + key);
+			}
+
+			@Override
+			public Map<String, String> findMessages(Locale locale, Collection<String> keys) {
+				batches.add(new ArrayList<>(keys));
+				return Collections.singletonMap("a", "A");
+			}
+		};
+		NegativeLookupCache negativeLookupCache = NegativeLookupCache.of(10, Duration.ofMinutes(1));
+		MessageLookup lookup = MessageLookup.of(messageSource, negativeLookupCache);
+
+		List<String> messages = lookup.getMessages(locale, Arrays.asList(
+				TranslationHint.of("b").withFallback("fallback"),
+				TranslationHint.of("a"),
+				TranslationHint.of("b"),
+				TranslationHint.of("a")));
+
+		assertThat(messages, contains("fallback", "A", "???b???", "A"));
+		assertThat(batches, contains(contains("b", "a")));
+
+		lookup.getMessages(locale, Arrays.asList(TranslationHint.of("a"), TranslationHint.of("b")));
+		assertThat(batches.get(1), contains("a"));
+	}
 }
@@ -0,0 +1,116 @@
+package com.github.chisui.translate.lookup;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import com.github.chisui.translate.lookup.NegativeLookupCache.BoundedNegativeLookupCache;
+
+public class NegativeLookupCacheTest {
+
+	private final AtomicLong time = new AtomicLong();
+
+	@Test
+	public void testCachedMiss() throws Exception {
+
+		NegativeLookupCache cache = NegativeLookupCache.of(10, Duration.ofMinutes(1), time::get);
+		cache.cacheMiss(Locale.ENGLISH, "key");
+
+		assertThat(cache.isCachedMiss(Locale.ENGLISH, "key"), is(true));
+		assertThat(cache.isCachedMiss(Locale.GERMAN, "key"), is(false));
+		assertThat(cache.isCachedMiss(Locale.ENGLISH, "other"), is(false));
+	}
+
+	@Test
+	public void testMissLookedUpBeforeInvalidationIsNotCached() throws Exception {
+
+		NegativeLookupCache cache = NegativeLookupCache.of(10, Duration.ofMinutes(1), time::get);
+		long stamp = cache.getInvalidationStamp();
+		cache.invalidateKey("key");
+		cache.cacheMiss(Locale.ENGLISH, "key", stamp);
+
+		assertThat(cache.isCachedMiss(Locale.ENGLISH, "key"), is(false));
+
+		cache.cacheMiss(Locale.ENGLISH, "key", cache.getInvalidationStamp());
+
+		assertThat(cache.isCachedMiss(Locale.ENGLISH, "key"), is(true));
+	}
+
+	@Test
+	public void testExpiry() throws Exception {
+
+		NegativeLookupCache cache = NegativeLookupCache.of(10, Duration.ofSeconds(1), time::get);
+		cache.cacheMiss(Locale.ENGLISH, "key");
+
+		time.set(Duration.ofMillis(999).toNanos());
+		assertThat(cache.isCachedMiss(Locale.ENGLISH, "key"), is(true));
+
+		time.set(Duration.ofSeconds(1).toNanos());
+		assertThat(cache.isCachedMiss(Locale.ENGLISH, "key"), is(false));
+	}
+
+	@Test
+	public void testBounded() throws Exception {
+
+		BoundedNegativeLookupCache cache = NegativeLookupCache.of(4, Duration.ofMinutes(1), time::get);
+		for (int i = 0; i < 100; i++) {
+			cache.cacheMiss(Locale.ENGLISH, "key" + i);
+		}
+
+		assertThat(cache.getSize(), is(4));
+		assertThat(cache.isCachedMiss(Locale.ENGLISH, "key0"), is(false));
+		assertThat(cache.isCachedMiss(Locale.ENGLISH, "key99"), is(true));
+	}
+
+	@Test
+	public void testInvalidate() throws Exception {
+
+		NegativeLookupCache cache = NegativeLookupCache.of(10, Duration.ofMinutes(1), time::get);
+		cache.cacheMiss(Locale.ENGLISH, "a");
+		cache.cacheMiss(Locale.ENGLISH, "b");
+		cache.cacheMiss(Locale.ENGLISH, "c");
+
+		cache.invalidate(Locale.ENGLISH, "a");
+		assertThat(cache.isCachedMiss(Locale.ENGLISH, "a"), is(false));
+		assertThat(cache.isCachedMiss(Locale.ENGLISH, "b"), is(true));
+
+		cache.invalidateAll();
+		assertThat(cache.isCachedMiss(Locale.ENGLISH, "b"), is(false));
+		assertThat(cache.isCachedMiss(Locale.ENGLISH, "c"), is(false));
+	}
+
+	@Test
+	public void testInvalidateKey() throws Exception {
+
+		NegativeLookupCache cache = NegativeLookupCache.of(10, Duration.ofMinutes(1), time::get);
+		cache.cacheMiss(Locale.ENGLISH, "a");
+		cache.cacheMiss(Locale.GERMAN, "a");
+		cache.cacheMiss(Locale.GERMAN, "b");
+
+		cache.invalidateKey("a");
+		assertThat(cache.isCachedMiss(Locale.ENGLISH, "a"), is(false));
+		assertThat(cache.isCachedMiss(Locale.GERMAN, "a"), is(false));
+		assertThat(cache.isCachedMiss(Locale.GERMAN, "b"), is(true));
+	}
+
+	@Test
+	public void testDisabled() throws Exception {
+
+		NegativeLookupCache cache = NegativeLookupCache.disabled();
+		cache.cacheMiss(Locale.ENGLISH, "key");
+
+		assertThat(cache.isCachedMiss(Locale.ENGLISH, "key"), is(false));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNonPositiveTimeToLive() throws Exception {
+
+		NegativeLookupCache.of(10, Duration.ZERO);
+
+	}
+}
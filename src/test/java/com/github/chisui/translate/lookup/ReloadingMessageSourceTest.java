@@ -0,0 +1,207 @@
+package com.github.chisui.translate.lookup;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.chisui.translate.CachingTranslator;
+import com.github.chisui.translate.TranslationHint;
+import com.github.chisui.translate.Translator;
+import com.github.chisui.translate.format.CachingFormat;
+import com.github.chisui.translate.format.Format;
+import com.github.chisui.translate.format.Formatable;
+
+public class ReloadingMessageSourceTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private Path directory;
+
+	@Before
+	public void setup() throws Exception {
+		directory = folder.getRoot().toPath();
+		write("messages.properties", "greeting=Hello\nonly.root=root value\n");
+		write("messages_de.properties", "greeting=Hallo\n");
+		write("other.properties", "greeting=Other\n");
+	}
+
+	@Test
+	public void testParentChain() throws Exception {
+
+		MessageSource source = MessageSource.ofReloadingProperties(directory, "messages");
+
+		assertThat(source.findMessage(Locale.GERMANY, "greeting"), is(Optional.of("Hallo")));
+		assertThat(source.findMessage(Locale.GERMANY, "only.root"), is(Optional.of("root value")));
+		assertThat(source.findMessage(Locale.ENGLISH, "greeting"), is(Optional.of("Hello")));
+		assertThat(source.findMessage(Locale.ENGLISH, "missing"), is(Optional.empty()));
+	}
+
+	@Test
+	public void testReload() throws Exception {
+
+		ReloadingMessageSource source = MessageSource.ofReloadingProperties(directory, "messages");
+		List<ReloadingMessageSource.Change> notified = new ArrayList<>();
+		source.addListener(notified::addAll);
+
+		write("messages_de.properties", "greeting=Servus\nadded=neu\n");
+		write("messages.properties", "greeting=Hello\n");
+		List<ReloadingMessageSource.Change> changes = source.reload();
+
+		assertThat(changes.stream().map(Object::toString).collect(Collectors.toList()), containsInAnyOrder(
+				"Change [bundleName=messages_de, key=greeting, oldMessage=Hallo, newMessage=Servus]",
+				"Change [bundleName=messages_de, key=added, oldMessage=null, newMessage=neu]",
+				"Change [bundleName=messages, key=only.root, oldMessage=root value, newMessage=null]"));
+		assertThat(notified, is(changes));
+		assertThat(source.findMessage(Locale.GERMAN, "greeting"), is(Optional.of("Servus")));
+		assertThat(source.findMessage(Locale.GERMAN, "only.root"), is(Optional.empty()));
+
+		notified.clear();
+		assertThat(source.reload(), is(empty()));
+		assertThat(notified, is(empty()));
+	}
+
+	@Test
+	public void testInvalidatingNegativeLookupCache() throws Exception {
+
+		ReloadingMessageSource source = MessageSource.ofReloadingProperties(directory, "messages");
+		NegativeLookupCache negativeLookupCache = NegativeLookupCache.of(10, Duration.ofMinutes(1));
+		source.addListener(ReloadingMessageSource.invalidating(negativeLookupCache));
+		MessageLookup lookup = MessageLookup.of(source, negativeLookupCache);
+
+		assertThat(lookup.getMessage(Locale.GERMAN, "added", Optional.of("fallback")), is("fallback"));
+		write("messages.properties", "added=new\n");
+		source.reload();
+
+		assertThat(lookup.getMessage(Locale.GERMAN, "added", Optional.of("fallback")), is("new"));
+	}
+
+	@Test
+	public void testInvalidatingCachingFormat() throws Exception {
+
+		ReloadingMessageSource source = MessageSource.ofReloadingProperties(directory, "messages");
+		List<String> compiled = new ArrayList<>();
+		CachingFormat cachingFormat = ((Format) (locale, pattern) -> {
+			compiled.add(pattern);
+			return Formatable.of(pattern);
+		}).cached(10);
+		source.addListener(ReloadingMessageSource.invalidating(cachingFormat));
+		cachingFormat.toFormatable(Locale.GERMAN, "Hallo");
+		cachingFormat.toFormatable(Locale.ENGLISH, "root value");
+		cachingFormat.toFormatable(Locale.ENGLISH, "Hello");
+
+		write("messages_de.properties", "greeting=Servus\n");
+		write("messages.properties", "greeting=Hello\n");
+		source.reload();
+		cachingFormat.toFormatable(Locale.GERMAN, "Hallo");
+		cachingFormat.toFormatable(Locale.ENGLISH, "root value");
+		cachingFormat.toFormatable(Locale.ENGLISH, "Hello");
+
+		assertThat(compiled, is(Arrays.asList("Hallo", "root value", "Hello", "Hallo", "root value")));
+	}
+
+	@Test
+	public void testInvalidatingCachingTranslator() throws Exception {
+
+		ReloadingMessageSource source = MessageSource.ofReloadingProperties(directory, "messages");
+		CachingTranslator translator = Translator.of(() -> Locale.GERMAN, source, Format.ofMessageFormat())
+				.cached(() -> Locale.GERMAN, 100);
+		source.addListener(ReloadingMessageSource.invalidating(translator));
+		assertThat(translator.translate(TranslationHint.of("greeting")), is("Hallo"));
+
+		write("messages_de.properties", "greeting=Servus\n");
+		source.reload();
+
+		assertThat(translator.translate(TranslationHint.of("greeting")), is("Servus"));
+	}
+
+	@Test
+	public void testFailingListenerDoesNotStopOthers() throws Exception {
+
+		ReloadingMessageSource source = MessageSource.ofReloadingProperties(directory, "messages");
+		List<ReloadingMessageSource.Change> notified = new ArrayList<>();
+		source.addListener(changes -> {
+			throw new IllegalStateException("first");
+		});
+		source.addListener(notified::addAll);
+
+		write("messages_de.properties", "greeting=Servus\n");
+		try {
+			source.reload();
+			fail("expected IllegalStateException");
+		} catch (IllegalStateException e) {
+			assertThat(e.getMessage(), is("first"));
+		}
+
+		assertThat(notified.size(), is(1));
+		assertThat(source.findMessage(Locale.GERMAN, "greeting"), is(Optional.of("Servus")));
+	}
+
+	@Test
+	public void testWatchSurvivesFailingListener() throws Exception {
+
+		try (ReloadingMessageSource source = MessageSource.ofReloadingProperties(directory, "messages").watch()) {
+			source.addListener(changes -> {
+				throw new IllegalStateException("listener failed");
+			});
+
+			write("messages_de.properties", "greeting=Servus\n");
+			awaitGreeting(source, "Servus");
+			long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+			while (!source.getLastReloadFailure().isPresent() && System.nanoTime() < deadline) {
+				Thread.sleep(10);
+			}
+			assertThat(source.getLastReloadFailure().map(Exception::getMessage), is(Optional.of("listener failed")));
+
+			write("messages_de.properties", "greeting=Gr\u00fc\u00df Gott\n");
+			awaitGreeting(source, "Gr\u00fc\u00df Gott");
+		}
+	}
+
+	@Test
+	public void testWatch() throws Exception {
+
+		try (ReloadingMessageSource source = MessageSource.ofReloadingProperties(directory, "messages").watch()) {
+			write("messages_de.properties", "greeting=Servus\n");
+
+			long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+			while (!source.findMessage(Locale.GERMAN, "greeting").equals(Optional.of("Servus"))
+					&& System.nanoTime() < deadline) {
+				Thread.sleep(10);
+			}
+			assertThat(source.findMessage(Locale.GERMAN, "greeting"), is(Optional.of("Servus")));
+			assertThat(source.getLastReloadFailure(), is(Optional.empty()));
+		}
+	}
+
+	private static void awaitGreeting(final MessageSource source, final String greeting) throws Exception {
+		long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+		while (!source.findMessage(Locale.GERMAN, "greeting").equals(Optional.of(greeting))
+				&& System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(source.findMessage(Locale.GERMAN, "greeting"), is(Optional.of(greeting)));
+	}
+
+	private void write(String fileName, String content) throws Exception {
+		Files.write(directory.resolve(fileName), content.getBytes(StandardCharsets.ISO_8859_1));
+	}
+}
@@ -0,0 +1,59 @@
+package com.github.chisui.translate.lookup;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.Test;
+
+public class ResourceBundleSnapshotMessageSourceTest {
+
+	private static final String BASE_NAME = "com.github.chisui.translate.lookup.messages";
+
+	@Test
+	public void testMatchesOfResourceBundle() throws Exception {
+
+		for (String baseName : Arrays.asList(BASE_NAME, "does.not.exist")) {
+			MessageSource expected = MessageSource.ofResourceBundle(baseName);
+			MessageSource snapshot = MessageSource.ofResourceBundleSnapshot(baseName);
+
+			for (Locale locale : Arrays.asList(
+					Locale.ROOT, Locale.ENGLISH, Locale.GERMAN, Locale.GERMANY, new Locale("de", "AT"), Locale.FRENCH)) {
+				for (String key : Arrays.asList("greeting", "farewell", "only.root", "empty", "missing")) {
+					assertThat(baseName + " " + locale + " " + key,
+							snapshot.findMessage(locale, key),
+							is(expected.findMessage(locale, key)));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testParentChainIsFlattened() throws Exception {
+
+		MessageSource source = MessageSource.ofResourceBundleSnapshot(BASE_NAME);
+		Locale austria = new Locale("de", "AT");
+
+		assertThat(source.findMessage(austria, "greeting"), is(Optional.of("Servus")));
+		assertThat(source.findMessage(austria, "farewell"), is(Optional.of("Tsch\u00fcss")));
+		assertThat(source.findMessage(austria, "only.root"), is(Optional.of("root value")));
+		assertThat(source.findMessage(austria, "missing"), is(Optional.empty()));
+	}
+
+	@Test
+	public void testFindMessages() throws Exception {
+
+		MessageSource source = MessageSource.ofResourceBundleSnapshot(BASE_NAME);
+		Map<String, String> expected = new HashMap<>();
+		expected.put("greeting", "Servus");
+		expected.put("only.root", "root value");
+
+		assertThat(source.findMessages(new Locale("de", "AT"), Arrays.asList("greeting", "only.root", "missing")),
+				is(expected));
+	}
+}
@@ -0,0 +1,51 @@
+package com.github.chisui.translate.metrics;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class HistogramTest {
+
+	@Test
+	public void testBucketsAreContiguous() throws Exception {
+
+		int last = 60 * Histogram.SUB_BUCKETS - 1;
+		for (int i = 0; i < last; i++) {
+			long highest = Histogram.highestValue(i);
+			assertThat(Histogram.index(highest), is(i));
+			assertThat(Histogram.index(highest + 1), is(i + 1));
+		}
+		assertThat(Histogram.highestValue(last), is(Long.MAX_VALUE));
+		assertThat(Histogram.index(Long.MAX_VALUE), is(last));
+	}
+
+	@Test
+	public void testPercentiles() throws Exception {
+
+		Histogram histogram = new Histogram();
+		for (int i = 1; i <= 10_000; i++) {
+			histogram.record(i);
+		}
+
+		Histogram.Snapshot snapshot = histogram.snapshot();
+		assertThat(snapshot.getCount(), is(10_000L));
+		assertThat(snapshot.getMax(), is(10_000L));
+		assertThat(snapshot.getMean(), is(closeTo(5000.5, 5000.5 / Histogram.SUB_BUCKETS)));
+		assertThat((double) snapshot.getValueAtPercentile(50), is(closeTo(5000, 5000 / Histogram.SUB_BUCKETS)));
+		assertThat((double) snapshot.getValueAtPercentile(99), is(closeTo(9900, 9900 / Histogram.SUB_BUCKETS)));
+		assertThat(snapshot.getValueAtPercentile(100), is(10_000L));
+		assertThat(snapshot.getValueAtPercentile(0), is(1L));
+	}
+
+	@Test
+	public void testEmpty() throws Exception {
+
+		Histogram.Snapshot snapshot = new Histogram().snapshot();
+
+		assertThat(snapshot.getCount(), is(0L));
+		assertThat(snapshot.getMean(), is(0.0));
+		assertThat(snapshot.getValueAtPercentile(99), is(0L));
+	}
+}
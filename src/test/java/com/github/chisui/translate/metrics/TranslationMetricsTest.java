@@ -0,0 +1,255 @@
+package com.github.chisui.translate.metrics;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+import org.junit.Test;
+
+import com.github.chisui.translate.TranslationHint;
+import com.github.chisui.translate.Translator;
+import com.github.chisui.translate.Utf8Appendable;
+import com.github.chisui.translate.format.Format;
+import com.github.chisui.translate.lookup.LocaleHandle;
+import com.github.chisui.translate.lookup.LocaleRegistry;
+import com.github.chisui.translate.lookup.MessageLookup;
+import com.github.chisui.translate.lookup.MessageSource;
+
+public class TranslationMetricsTest {
+
+	private final MessageLookup lookup = MessageLookup.of(
+			MessageSource.ofMap(locale -> Collections.singletonMap("greeting", "Hello {0}")));
+	private final Format format = Format.ofCompiledMessageFormat();
+
+	@Test
+	public void testRecording() throws Exception {
+
+		RecordingTranslationMetrics metrics = TranslationMetrics.create();
+		Translator translator = metrics.instrument(Translator.of(
+				() -> Locale.ENGLISH, metrics.instrument(lookup), metrics.instrument(format)));
+
+		assertThat(translator.translate(Locale.ENGLISH, TranslationHint.of("greeting", "World")), is("Hello World"));
+		assertThat(translator.translate(new StringBuilder(), Locale.ENGLISH, TranslationHint.of("missing")).toString(),
+				is("???missing???"));
+		assertThat(translator.translate(Locale.ENGLISH, TranslationHint.of("missing").withFallback("fallback")),
+				is("fallback"));
+
+		MetricsSnapshot snapshot = metrics.snapshot();
+		assertThat(snapshot.getHitCount(), is(1L));
+		// the argument "World" is looked up as well and falls back to its String value
+		assertThat(snapshot.getHintFallbackCount(), is(2L));
+		assertThat(snapshot.getGlobalFallbackCount(), is(1L));
+		assertThat(snapshot.getTranslateNanos().getCount(), is(3L));
+		assertThat(snapshot.getLookupNanos().getCount(), is(4L));
+		assertThat(snapshot.getCompileNanos().getCount(), is(4L));
+		assertThat(snapshot.getRenderNanos().getCount(), is(4L));
+		assertThat(snapshot.getOutputChars().getMax(), is(13L));
+		assertThat(snapshot.getOutputChars().getSum(), is(11.0 + 13.0 + 8.0));
+		assertThat(snapshot.getKeys(), hasSize(3));
+		assertThat(snapshot.toMap().get("fallback.global"), is(1L));
+
+		MetricsSnapshot.KeyStats missing = snapshot.getKeys().stream()
+				.filter(key -> key.getKey().equals("missing"))
+				.findFirst()
+				.get();
+		assertThat(missing.getLocale(), is(Locale.ENGLISH));
+		assertThat(missing.getTranslationCount(), is(2L));
+		assertThat(missing.getHintFallbackCount(), is(1L));
+		assertThat(missing.getGlobalFallbackCount(), is(1L));
+	}
+
+	@Test
+	public void testTrackedKeysAreBounded() throws Exception {
+
+		RecordingTranslationMetrics metrics = TranslationMetrics.create(2);
+		Translator translator = metrics.instrument(Translator.of(lookup, format));
+
+		for (int i = 0; i < 5; i++) {
+			translator.translate(Locale.ENGLISH, TranslationHint.of("key" + i));
+		}
+
+		assertThat(metrics.snapshot().getKeys(), hasSize(2));
+		assertThat(metrics.snapshot().getUntrackedCount(), is(3L));
+	}
+
+	@Test
+	public void testInstrumentedLookupKeepsMessages() throws Exception {
+
+		MessageLookup instrumented = TranslationMetrics.create().instrument(lookup);
+
+		assertThat(instrumented.getMessage(Locale.ENGLISH, "greeting", Optional.empty()), is("Hello {0}"));
+		assertThat(instrumented.getMessage(Locale.ENGLISH, "missing", Optional.of("")), is(""));
+		assertThat(instrumented.getMessage(Locale.ENGLISH, "missing", Optional.empty()), is("???missing???"));
+	}
+
+	@Test
+	public void testMissesAreLookedUpOnce() throws Exception {
+
+		List<String> lookups = new ArrayList<>();
+		MessageLookup instrumented = TranslationMetrics.create().instrument(MessageLookup.of(new MessageSource() {
+
+			@Override
+			public Optional<String> findMessage(final Locale locale, final String key) {
+				lookups.add(key);
+				return Optional.empty();
+			}
+
+			@Override
+			public Optional<String> findMessage(final LocaleHandle locale, final String key) {
+				lookups.add("handle:" + key);
+				return Optional.empty();
+			}
+		}));
+
+		assertThat(instrumented.getMessage(Locale.ENGLISH, "missing", Optional.empty()), is("???missing???"));
+		assertThat(instrumented.getMessage(
+				new LocaleRegistry().handle(Locale.ENGLISH), "missing", Optional.empty()), is("???missing???"));
+		assertThat(lookups, contains("missing", "handle:missing"));
+	}
+
+	@Test
+	public void testBatchLookup() throws Exception {
+
+		RecordingTranslationMetrics metrics = TranslationMetrics.create();
+		MessageLookup instrumented = metrics.instrument(lookup);
+
+		assertThat(instrumented.getMessages(Locale.ENGLISH, Arrays.asList(
+				TranslationHint.of("greeting"),
+				TranslationHint.of("missing").withFallback("fallback"),
+				TranslationHint.of("missing"))),
+				contains("Hello {0}", "fallback", "???missing???"));
+
+		MetricsSnapshot snapshot = metrics.snapshot();
+		assertThat(snapshot.getHitCount(), is(1L));
+		assertThat(snapshot.getHintFallbackCount(), is(1L));
+		assertThat(snapshot.getGlobalFallbackCount(), is(1L));
+		assertThat(snapshot.getLookupNanos().getCount(), is(1L));
+	}
+
+	@Test
+	public void testDefaultLocaleIsResolved() throws Exception {
+
+		RecordingTranslationMetrics metrics = TranslationMetrics.create();
+		Translator translator = metrics.instrument(Translator.of(
+				() -> Locale.ENGLISH, metrics.instrument(lookup), format));
+
+		translator.translate(TranslationHint.of("greeting", "World"));
+		translator.translate(new StringBuilder(), TranslationHint.of("greeting", "World"));
+		translator.translate(Locale.ENGLISH, TranslationHint.of("greeting", "World"));
+
+		MetricsSnapshot.KeyStats greeting = metrics.snapshot().getKeys().stream()
+				.filter(key -> key.getKey().equals("greeting"))
+				.reduce((a, b) -> {
+					throw new AssertionError("more than one entry for greeting");
+				})
+				.get();
+		assertThat(greeting.getLocale(), is(Locale.ENGLISH));
+		assertThat(greeting.getTranslationCount(), is(3L));
+		assertThat(greeting.getHitCount(), is(3L));
+	}
+
+	@Test
+	public void testCountingOnlyCounts() throws Exception {
+
+		RecordingTranslationMetrics metrics = TranslationMetrics.counting();
+		Translator translator = metrics.instrument(Translator.of(
+				() -> Locale.ENGLISH, metrics.instrument(lookup), metrics.instrument(format)));
+
+		assertThat(translator.translate(Locale.ENGLISH, TranslationHint.of("greeting", "World")), is("Hello World"));
+		assertThat(translator.translate(new StringBuilder(), TranslationHint.of("missing")).toString(),
+				is("???missing???"));
+
+		MetricsSnapshot snapshot = metrics.snapshot();
+		assertThat(snapshot.getHitCount(), is(1L));
+		assertThat(snapshot.getHintFallbackCount(), is(1L));
+		assertThat(snapshot.getGlobalFallbackCount(), is(1L));
+		assertThat(snapshot.getTranslateNanos().getCount(), is(0L));
+		assertThat(snapshot.getLookupNanos().getCount(), is(0L));
+		assertThat(snapshot.getCompileNanos().getCount(), is(0L));
+		assertThat(snapshot.getRenderNanos().getCount(), is(0L));
+		assertThat(snapshot.getOutputChars().getCount(), is(0L));
+		MetricsSnapshot.KeyStats greeting = snapshot.getKeys().stream()
+				.filter(key -> key.getKey().equals("greeting"))
+				.findFirst()
+				.get();
+		assertThat(greeting.getTranslationCount(), is(1L));
+		assertThat(greeting.getSampledCount(), is(0L));
+		assertThat(greeting.getMeanNanos(), is(0.0));
+	}
+
+	@Test
+	public void testSamplingInterval() throws Exception {
+
+		RecordingTranslationMetrics metrics = TranslationMetrics.create(1000, 4);
+		Translator translator = metrics.instrument(Translator.of(lookup, format));
+
+		for (int i = 0; i < 1000; i++) {
+			translator.translate(Locale.ENGLISH, TranslationHint.of("greeting", "World"));
+		}
+
+		MetricsSnapshot snapshot = metrics.snapshot();
+		MetricsSnapshot.KeyStats greeting = snapshot.getKeys().get(0);
+		assertThat(greeting.getTranslationCount(), is(1000L));
+		// 250 expected, the bounds are more than seven standard deviations away
+		assertThat(greeting.getSampledCount(), is(allOf(greaterThan(150L), lessThan(350L))));
+		assertThat(snapshot.getTranslateNanos().getCount(), is(greeting.getSampledCount()));
+		assertThat(snapshot.getOutputChars().getCount(), is(greeting.getSampledCount()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeSamplingInterval() throws Exception {
+		TranslationMetrics.create(1000, -1);
+	}
+
+	@Test
+	public void testAppendablesAreNotWrapped() throws Exception {
+
+		List<Appendable> appendables = new ArrayList<>();
+		RecordingTranslationMetrics metrics = TranslationMetrics.create();
+		Translator translator = metrics.instrument(Translator.of(lookup, (locale, message) -> (appendable, args, t) -> {
+			appendables.add(appendable);
+			appendable.append(message);
+		}));
+		StringBuilder builder = new StringBuilder("prefix ");
+		ByteBuffer buffer = ByteBuffer.allocate(64);
+		Utf8Appendable utf8 = Utf8Appendable.of(buffer);
+
+		translator.translate(builder, Locale.ENGLISH, TranslationHint.of("greeting"));
+		translator.translate(utf8, Locale.ENGLISH, TranslationHint.of("greeting"));
+
+		assertThat(appendables, contains(sameInstance(builder), sameInstance(utf8)));
+		assertThat(builder.toString(), is("prefix Hello {0}"));
+		assertThat(new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8), is("Hello {0}"));
+		MetricsSnapshot snapshot = metrics.snapshot();
+		assertThat(snapshot.getTranslateNanos().getCount(), is(2L));
+		// not counted for the Utf8Appendable
+		assertThat(snapshot.getOutputChars().getCount(), is(1L));
+		assertThat(snapshot.getOutputChars().getMax(), is(9L));
+	}
+
+	@Test
+	public void testDisabled() throws Exception {
+
+		TranslationMetrics metrics = TranslationMetrics.disabled();
+		Translator translator = Translator.of(lookup, format);
+
+		assertThat(metrics.instrument(translator), is(sameInstance(translator)));
+		assertThat(metrics.instrument(lookup), is(sameInstance(lookup)));
+		assertThat(metrics.instrument(format), is(sameInstance(format)));
+		assertThat(metrics.snapshot().getTranslateNanos().getCount(), is(0L));
+	}
+}
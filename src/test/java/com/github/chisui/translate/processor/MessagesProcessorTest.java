@@ -0,0 +1,264 @@
+package com.github.chisui.translate.processor;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.chisui.translate.TranslationHint;
+import com.github.chisui.translate.Translator;
+
+public class MessagesProcessorTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private final Translator translator = Translator.of((l, hint, t) -> hint.getFallback().orElse("?"));
+
+	@Test
+	public void testGeneratedMessages() throws Exception {
+
+		TestMessages messages = TestMessagesImpl.of(Locale.ENGLISH, translator);
+
+		assertThat(messages.title(), is("Messages"));
+		assertThat(messages.welcome("World"), is("Hello World!"));
+		assertThat(messages.files(0, "home"), is("no files in home"));
+		assertThat(messages.files(1, "home"), is("one file in home"));
+		assertThat(messages.files(1234, "home"), is("1,234 files in home"));
+		assertThat(messages.quoted("a", "b"), is("it's a {b}"));
+	}
+
+	@Test
+	public void testBundleIsSelectedLikeResourceBundle() throws Exception {
+
+		assertThat(TestMessagesImpl.of(Locale.GERMAN, translator).title(), is("Nachrichten"));
+		assertThat(TestMessagesImpl.of(Locale.GERMANY, translator).welcome("Welt"), is("Hallo Welt!"));
+		assertThat(TestMessagesImpl.of(new Locale("de", "AT"), translator).welcome("Welt"), is("Servus Welt!"));
+		assertThat(TestMessagesImpl.of(new Locale("de", "AT"), translator).title(), is("Nachrichten"));
+		assertThat(TestMessagesImpl.of(new Locale("de", "AT"), translator).files(1234, "Haus"),
+				is("1.234 Dateien in Haus"));
+		assertThat(TestMessagesImpl.of(Locale.FRENCH, translator).title(), is("Messages"));
+	}
+
+	@Test
+	public void testArgumentsAreTranslated() throws Exception {
+
+		Translator translator = Translator.of((l, hint, t) -> l + ":" + hint.getKey());
+
+		assertThat(TestMessagesImpl.of(Locale.GERMAN, translator).welcome(TranslationHint.of("world")),
+				is("Hallo de:world!"));
+		assertThat(TestMessagesImpl.of(Locale.GERMAN, translator).welcome(null), is("Hallo null!"));
+	}
+
+	@Test
+	public void testValidInterfaceCompiles() throws Exception {
+
+		assertThat(compile(
+				"@Messages(baseName = \"msgs\", locales = \"de\")\n"
+				+ "public interface Valid {\n"
+				+ "  @Message(\"a\") String a();\n"
+				+ "  @Message(\"b\") String b(int x, String... y);\n"
+				+ "}",
+				"msgs.properties", "a=A \"\\\\u00e4\"\\n\nb={0,number} {1}",
+				"msgs_de.properties", "b={1} {0,choice,0#a|1#b}"),
+				is(empty()));
+	}
+
+	@Test
+	public void testMissingKey() throws Exception {
+
+		assertThat(compile(
+				"@Messages(baseName = \"msgs\", locales = \"de\")\n"
+				+ "public interface Missing {\n"
+				+ "  @Message(\"a\") String a();\n"
+				+ "}",
+				"msgs_de.properties", "b=B"),
+				hasItem(containsString("message 'a' is missing in resource bundle msgs_de")));
+	}
+
+	@Test
+	public void testTooFewParameters() throws Exception {
+
+		assertThat(compile(
+				"@Messages(baseName = \"msgs\")\n"
+				+ "public interface TooFew {\n"
+				+ "  @Message(\"a\") String a(Object x);\n"
+				+ "}",
+				"msgs.properties", "a={0} {1}"),
+				hasItem(containsString("references argument {1} but the method has 1 parameters")));
+	}
+
+	@Test
+	public void testUnusedParameter() throws Exception {
+
+		assertThat(compile(
+				"@Messages(baseName = \"msgs\")\n"
+				+ "public interface Unused {\n"
+				+ "  @Message(\"a\") String a(Object x, Object y);\n"
+				+ "}",
+				"msgs.properties", "a={0} '{1}'"),
+				hasItem(containsString("parameter y is not used by message 'a'")));
+	}
+
+	@Test
+	public void testInvalidPattern() throws Exception {
+
+		assertThat(compile(
+				"@Messages(baseName = \"msgs\")\n"
+				+ "public interface Invalid {\n"
+				+ "  @Message(\"a\") String a(Object x);\n"
+				+ "}",
+				"msgs.properties", "a={0,foo}"),
+				hasItem(containsString("message 'a' in resource bundle msgs is invalid")));
+	}
+
+	@Test
+	public void testMissingBundle() throws Exception {
+
+		assertThat(compile(
+				"@Messages(baseName = \"msgs\", locales = \"fr\")\n"
+				+ "public interface NoBundle {\n"
+				+ "}",
+				"msgs.properties", ""),
+				hasItem(containsString("resource bundle msgs_fr not found")));
+	}
+
+	@Test
+	public void testMissingAnnotationAndWrongReturnType() throws Exception {
+
+		List<String> errors = compile(
+				"@Messages(baseName = \"msgs\")\n"
+				+ "public interface Wrong {\n"
+				+ "  String a();\n"
+				+ "  @Message(\"b\") int b();\n"
+				+ "}",
+				"msgs.properties", "a=A\nb=B");
+
+		assertThat(errors, hasItem(containsString("need a @Message annotation")));
+		assertThat(errors, hasItem(containsString("must return String")));
+	}
+
+	@Test
+	public void testGeneratedAnnotationIsOptional() throws Exception {
+
+		String source = "@Messages(baseName = \"msgs\")\n"
+				+ "public interface NotGenerated {\n"
+				+ "  @Message(\"a\") String a();\n"
+				+ "}";
+
+		assertThat(compile(new WithoutGeneratedAnnotation(), source, "msgs.properties", "a=A"), is(empty()));
+		assertThat(new String(Files.readAllBytes(folder.getRoot().toPath().resolve("sources/NotGeneratedImpl.java")),
+				StandardCharsets.UTF_8), not(containsString("Generated(")));
+	}
+
+	private List<String> compile(final String source, final String... resources) throws IOException {
+		return compile(new MessagesProcessor(), source, resources);
+	}
+
+	private List<String> compile(final Processor processor, final String source, final String... resources)
+			throws IOException {
+		Path sources = folder.newFolder("sources").toPath();
+		Path classes = folder.newFolder("classes").toPath();
+		String imports = "import " + Messages.class.getName() + ";\nimport " + Message.class.getName() + ";\n";
+		String name = source.replaceAll("(?s).*interface (\\w+).*", "$1");
+		File file = Files.write(sources.resolve(name + ".java"), (imports + source).getBytes(StandardCharsets.UTF_8))
+				.toFile();
+		Map<String, String> files = new TreeMap<>();
+		for (int i = 0; i < resources.length; i += 2) {
+			files.put(resources[i], resources[i + 1]);
+		}
+		for (Map.Entry<String, String> resource : files.entrySet()) {
+			Files.write(classes.resolve(resource.getKey()), resource.getValue().getBytes(StandardCharsets.ISO_8859_1));
+		}
+
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null)) {
+			JavaCompiler.CompilationTask task = compiler.getTask(
+					null,
+					fileManager,
+					diagnostics,
+					Arrays.asList(
+							"-classpath", new File(Messages.class.getProtectionDomain().getCodeSource().getLocation()
+									.getPath()).getPath(),
+							"-d", classes.toString(),
+							"-s", sources.toString()),
+					null,
+					fileManager.getJavaFileObjects(file));
+			task.setProcessors(Arrays.asList(processor));
+			task.call();
+		}
+		List<String> errors = new ArrayList<>();
+		for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+			if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+				errors.add(diagnostic.getMessage(Locale.ENGLISH));
+			}
+		}
+		return errors;
+	}
+
+	/**
+	 * Compiles as if neither javax.annotation.processing.Generated nor javax.annotation.Generated were available.
+	 */
+	@SupportedAnnotationTypes("com.github.chisui.translate.processor.Messages")
+	static final class WithoutGeneratedAnnotation extends MessagesProcessor {
+
+		@Override
+		public synchronized void init(final ProcessingEnvironment processingEnv) {
+			Elements elements = hiding(Elements.class, processingEnv.getElementUtils(), "getTypeElement");
+			super.init(hiding(ProcessingEnvironment.class, processingEnv, "getElementUtils", elements));
+		}
+
+		private static <T> T hiding(final Class<T> type, final T delegate, final String method) {
+			return hiding(type, delegate, method, null);
+		}
+
+		private static <T> T hiding(final Class<T> type, final T delegate, final String method, final Object result) {
+			return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, m, args) -> {
+				if (m.getName().equals(method)) {
+					if (result != null) {
+						return result;
+					} else if (String.valueOf(args[0]).endsWith(".Generated")) {
+						return null;
+					}
+				}
+				try {
+					return m.invoke(delegate, args);
+				} catch (InvocationTargetException e) {
+					throw e.getCause();
+				}
+			}));
+		}
+	}
+}
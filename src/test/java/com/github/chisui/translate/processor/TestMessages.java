@@ -0,0 +1,17 @@
+package com.github.chisui.translate.processor;
+
+@Messages(baseName = "com.github.chisui.translate.processor.test_messages", locales = { "de", "de_AT" })
+public interface TestMessages {
+
+	@Message("title")
+	String title();
+
+	@Message("welcome")
+	String welcome(Object name);
+
+	@Message("files")
+	String files(int count, String folder);
+
+	@Message("quoted")
+	String quoted(Object first, Object second);
+}